@@ -66,17 +66,10 @@ public abstract class AbstractFormat extends AbstractSCIFIOPlugin implements
 
 	private Class<? extends Writer> writerClass;
 
-	// -- Constructor --
-
-	public AbstractFormat() {
-		metadataClass = DefaultMetadata.class;
-		checkerClass = DefaultChecker.class;
-		parserClass = DefaultParser.class;
-		readerClass = DefaultReader.class;
-		writerClass = DefaultWriter.class;
-
-		updateCustomClasses();
-	}
+	// Whether the component classes above have been discovered yet. Discovery
+	// loads every nested class, so it waits until a component other than the
+	// checker is needed.
+	private volatile boolean componentsResolved;
 
 	// -- AbstractFormat Methods --
 
@@ -141,26 +134,38 @@ public abstract class AbstractFormat extends AbstractSCIFIOPlugin implements
 
 	@Override
 	public Class<? extends Metadata> getMetadataClass() {
+		resolveComponents();
 		return metadataClass;
 	}
 
 	@Override
 	public Class<? extends Checker> getCheckerClass() {
+		// NB: Format detection only needs the checker, so look it up by name
+		// before loading every nested class.
+		if (!componentsResolved) {
+			final Class<? extends Checker> c = namedComponent("Checker",
+				Checker.class);
+			if (c != null) return c;
+		}
+		resolveComponents();
 		return checkerClass;
 	}
 
 	@Override
 	public Class<? extends Parser> getParserClass() {
+		resolveComponents();
 		return parserClass;
 	}
 
 	@Override
 	public Class<? extends Reader> getReaderClass() {
+		resolveComponents();
 		return readerClass;
 	}
 
 	@Override
 	public Class<? extends Writer> getWriterClass() {
+		resolveComponents();
 		return writerClass;
 	}
 
@@ -209,6 +214,45 @@ public abstract class AbstractFormat extends AbstractSCIFIOPlugin implements
 		}
 	}
 
+	/*
+	 * Discovers the component classes of this format, the first time one of
+	 * them is requested.
+	 */
+	private void resolveComponents() {
+		if (componentsResolved) return;
+		synchronized (this) {
+			if (componentsResolved) return;
+			metadataClass = DefaultMetadata.class;
+			checkerClass = DefaultChecker.class;
+			parserClass = DefaultParser.class;
+			readerClass = DefaultReader.class;
+			writerClass = DefaultWriter.class;
+
+			updateCustomClasses();
+			final Class<? extends Checker> c = namedComponent("Checker",
+				Checker.class);
+			if (c != null) checkerClass = c;
+			componentsResolved = true;
+		}
+	}
+
+	/*
+	 * Returns the nested class of this format with the given simple name, if it
+	 * exists and is a component of the given type. Only that class is loaded.
+	 */
+	private <T> Class<? extends T> namedComponent(final String name,
+		final Class<T> type)
+	{
+		try {
+			final Class<?> c = Class.forName(getClass().getName() + "$" + name,
+				false, getClass().getClassLoader());
+			return type.isAssignableFrom(c) ? c.asSubclass(type) : null;
+		}
+		catch (final ClassNotFoundException e) {
+			return null;
+		}
+	}
+
 	/*
 	 * Overrides the default classes with declared custom components.
 	 */
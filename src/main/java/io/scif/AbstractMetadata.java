@@ -30,6 +30,7 @@
 package io.scif;
 
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
@@ -218,6 +219,14 @@ public abstract class AbstractMetadata extends AbstractHasSource implements
 
 	// -- Helper Methods --
 
+	private void readObject(final ObjectInputStream in) throws IOException,
+		ClassNotFoundException
+	{
+		in.defaultReadObject();
+		// NB: Image metadata is not serializable, and restored separately.
+		imageMeta = new ArrayList<>();
+	}
+
 	private void reset(final Class<?> type) {
 		if (type == null || type == AbstractMetadata.class) return;
 
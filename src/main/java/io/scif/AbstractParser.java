@@ -30,6 +30,7 @@
 package io.scif;
 
 import io.scif.config.SCIFIOConfig;
+import io.scif.services.MetadataCacheService;
 import io.scif.util.SCIFIOMetadataTools;
 
 import java.io.IOException;
@@ -62,6 +63,9 @@ public abstract class AbstractParser<M extends TypedMetadata> extends
 	@Parameter
 	private DataHandleService handles;
 
+	@Parameter(required = false)
+	private MetadataCacheService metadataCache;
+
 	// -- Parser API Methods --
 
 	@Override
@@ -284,6 +288,29 @@ public abstract class AbstractParser<M extends TypedMetadata> extends
 		close();
 	}
 
+	/* Whether parsed metadata goes through the metadata cache */
+	private boolean isCaching(final SCIFIOConfig config) {
+		return config.parserIsCacheMetadata() && metadataCache != null;
+	}
+
+	/*
+	 * Attaches metadata restored from the cache to its source, as parsing it
+	 * would have, but without reading any of it.
+	 */
+	private M attach(final DataHandle<Location> handle, final M meta,
+		final SCIFIOConfig config) throws IOException
+	{
+		final DataHandle<Location> in = getSource();
+		if (in == null || !in.get().equals(handle.get())) init(handle);
+
+		meta.setFiltered(config.parserIsFiltered());
+		meta.setDatasetName(handle.get().getName());
+		meta.setSource(handle);
+		meta.setSourceLocation(handle.get());
+		metadata = meta;
+		return meta;
+	}
+
 	/* Builds a LocationInfo array around the provided array of locations*/
 	private LocationInfo[] getLocationInfo(final Location[] locations) {
 		final LocationInfo[] infos = new LocationInfo[locations.length];
@@ -300,6 +327,10 @@ public abstract class AbstractParser<M extends TypedMetadata> extends
 	public M parse(final Location loc, final SCIFIOConfig config)
 		throws IOException, FormatException
 	{
+		if (isCaching(config)) {
+			final DataHandle<Location> handle = handles.readBuffer(loc);
+			if (handle != null) return parse(handle, config);
+		}
 		@SuppressWarnings("unchecked")
 		final M meta = (M) getFormat().createMetadata();
 		return parse(loc, meta, config);
@@ -309,9 +340,16 @@ public abstract class AbstractParser<M extends TypedMetadata> extends
 	public M parse(final DataHandle<Location> stream, final SCIFIOConfig config)
 		throws IOException, FormatException
 	{
+		if (isCaching(config)) {
+			@SuppressWarnings("unchecked")
+			final M cached = (M) metadataCache.restore(getFormat(), stream, config);
+			if (cached != null) return attach(stream, cached, config);
+		}
 		@SuppressWarnings("unchecked")
 		final M meta = (M) getFormat().createMetadata();
-		return parse(stream, meta, config);
+		final M parsed = parse(stream, meta, config);
+		if (isCaching(config)) metadataCache.store(stream, parsed, config);
+		return parsed;
 	}
 
 	@Override
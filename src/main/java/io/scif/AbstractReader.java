@@ -41,7 +41,6 @@ import org.scijava.io.handle.DataHandle;
 import org.scijava.io.handle.DataHandleService;
 import org.scijava.io.location.Location;
 import org.scijava.plugin.Parameter;
-import net.imglib2.FinalInterval;
 import net.imglib2.Interval;
 
 /**
@@ -72,6 +71,15 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 
 	private final Class<P> planeClass;
 
+	/** Whether the metadata is shared with the reader this one was forked from. */
+	private boolean forked;
+
+	/** Handle of a forked reader, as the metadata's source is not its own. */
+	private DataHandle<Location> forkHandle;
+
+	/** Bounds of a whole plane of each image, reused from call to call. */
+	private Interval[] planarBounds;
+
 	// -- Constructors --
 
 	/** Constructs a reader and stores a reference to its plane type */
@@ -87,6 +95,62 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 	 */
 	protected abstract String[] createDomainArray();
 
+	/**
+	 * Whether forks of this reader may share its metadata. Readers opt in when
+	 * they read pixels through {@link #getHandle()} and do not modify the
+	 * metadata while doing so; the others are forked by parsing the source
+	 * again.
+	 */
+	protected boolean isForkable() {
+		return false;
+	}
+
+	/** Whether this reader was forked from another one and shares its metadata. */
+	protected boolean isFork() {
+		return forked;
+	}
+
+	/**
+	 * Gets the bounds of a whole plane of the given image. The interval is
+	 * reused until the planar axis lengths of the image change.
+	 */
+	protected Interval planarBounds(final int imageIndex) {
+		if (planarBounds == null || planarBounds.length != metadata
+			.getImageCount())
+		{
+			planarBounds = new Interval[metadata.getImageCount()];
+		}
+		final Interval bounds = SCIFIOMetadataTools.planarBounds(metadata.get(
+			imageIndex), planarBounds[imageIndex]);
+		planarBounds[imageIndex] = bounds;
+		return bounds;
+	}
+
+	/**
+	 * Reads the given plane into a {@link ByteBufferPlane}, for readers whose
+	 * planes are of another type.
+	 *
+	 * @see FormatTools#openBufferPlane(Reader, int, long, ByteBufferPlane,
+	 *      Interval, SCIFIOConfig)
+	 */
+	protected ByteBufferPlane openBufferPlane(final int imageIndex,
+		final long planeIndex, final ByteBufferPlane plane, final Interval bounds,
+		final SCIFIOConfig config) throws FormatException, IOException
+	{
+		return FormatTools.openBufferPlane(this, imageIndex, planeIndex, plane,
+			bounds, config);
+	}
+
+	/**
+	 * Creates the plane into which {@link #openPlane(int, long, Interval,
+	 * SCIFIOConfig)} reads. Readers whose planes can be drawn from the
+	 * {@link io.scif.services.PlanePoolService} do so when the configuration
+	 * asks for pooled planes.
+	 */
+	protected P createPlane(final Interval bounds, final SCIFIOConfig config) {
+		return createPlane(bounds);
+	}
+
 	// -- Reader API Methods --
 
 	// TODO Merge common Reader and Writer API methods
@@ -95,14 +159,14 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 	public P openPlane(final int imageIndex, final long planeIndex)
 		throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
 	public P openPlane(final int imageIndex, final long planeIndex,
 		final Interval bounds) throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, bounds, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, bounds, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
@@ -125,9 +189,7 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 	public P openPlane(final int imageIndex, final long planeIndex,
 		final SCIFIOConfig config) throws FormatException, IOException
 	{
-		final Interval bounds = //
-			new FinalInterval(metadata.get(imageIndex).getAxesLengthsPlanar());
-		return openPlane(imageIndex, planeIndex, bounds, config);
+		return openPlane(imageIndex, planeIndex, planarBounds(imageIndex), config);
 	}
 
 	@Override
@@ -138,12 +200,13 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 		P plane = null;
 
 		try {
-			plane = createPlane(bounds);
+			plane = createPlane(bounds, config);
 		}
 		catch (final IllegalArgumentException e) {
 			throw new FormatException("Image plane too large. Only 2GB of data can " +
 				"be extracted at one time. You can workaround the problem by opening " +
-				"the plane in tiles; for further details, see: " +
+				"the plane in tiles, or into a ByteBufferPlane; for further details, " +
+				"see: " +
 				"http://www.openmicroscopy.org/site/support/faq/bio-formats/" +
 				"i-see-an-outofmemory-or-negativearraysize-error-message-when-" +
 				"attempting-to-open-an-svs-or-jpeg-2000-file.-what-does-this-mean", e);
@@ -157,6 +220,10 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 		final Plane plane, final SCIFIOConfig config) throws FormatException,
 		IOException
 	{
+		if (isBufferPlane(plane)) {
+			return openBufferPlane(imageIndex, planeIndex, (ByteBufferPlane) plane,
+				plane.getBounds(), config);
+		}
 		return openPlane(imageIndex, planeIndex, this.<P> castToTypedPlane(plane),
 			config);
 	}
@@ -166,10 +233,56 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 		final Plane plane, final Interval bounds, final SCIFIOConfig config)
 		throws FormatException, IOException
 	{
+		if (isBufferPlane(plane)) {
+			return openBufferPlane(imageIndex, planeIndex, (ByteBufferPlane) plane,
+				bounds, config);
+		}
 		return openPlane(imageIndex, planeIndex, this.<P> castToTypedPlane(plane),
 			bounds, config);
 	}
 
+	@Override
+	public P openPlane(final int imageIndex, final int resolution,
+		final long planeIndex, final Interval bounds) throws FormatException,
+		IOException
+	{
+		return openPlane(imageIndex, resolution, planeIndex, bounds,
+			SCIFIOConfig.DEFAULT);
+	}
+
+	@Override
+	public P openPlane(final int imageIndex, final int resolution,
+		final long planeIndex, final Interval bounds, final SCIFIOConfig config)
+		throws FormatException, IOException
+	{
+		return openPlane(getResolutionImageIndex(imageIndex, resolution),
+			planeIndex, bounds, config);
+	}
+
+	@Override
+	public int getResolutionCount(final int imageIndex) {
+		return 1;
+	}
+
+	@Override
+	public int getResolutionImageIndex(final int imageIndex,
+		final int resolution)
+	{
+		if (resolution < 0 || resolution >= getResolutionCount(imageIndex)) {
+			throw new IllegalArgumentException("Invalid resolution level " +
+				resolution + " for image " + imageIndex);
+		}
+		return imageIndex + resolution;
+	}
+
+	@Override
+	public long[] getResolutionLengths(final int imageIndex,
+		final int resolution)
+	{
+		return getMetadata().get(getResolutionImageIndex(imageIndex, resolution))
+			.getAxesLengthsPlanar();
+	}
+
 	@Override
 	public Location getCurrentLocation() {
 		return metadata == null ? null : metadata.getSourceLocation();
@@ -185,9 +298,31 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 
 	@Override
 	public DataHandle<Location> getHandle() {
+		if (forked) return forkHandle;
 		return metadata == null ? null : metadata.getSource();
 	}
 
+	@Override
+	public Reader fork() throws FormatException, IOException {
+		if (metadata == null) {
+			throw new FormatException("Cannot fork a reader without a source");
+		}
+		@SuppressWarnings("unchecked")
+		final AbstractReader<M, P> fork = (AbstractReader<M, P>) getFormat()
+			.createReader();
+		fork.setNormalized(isNormalized());
+		if (!isForkable()) {
+			fork.setSource(getCurrentLocation());
+			return fork;
+		}
+
+		fork.forked = true;
+		final DataHandle<Location> source = metadata.getSource();
+		if (source != null) fork.forkHandle = handles.readBuffer(source.get());
+		fork.setMetadata(metadata);
+		return fork;
+	}
+
 	@Override
 	public long getOptimalTileWidth(final int imageIndex) {
 		return metadata.get(imageIndex).getAxisLength(Axes.X);
@@ -346,7 +481,7 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 	public P openPlane(final int imageIndex, final long planeIndex, final P plane)
 		throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, plane, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, plane, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
@@ -361,7 +496,7 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 		final Interval bounds) throws FormatException, IOException
 	{
 		return openPlane(imageIndex, planeIndex, plane, plane.getBounds(),
-			new SCIFIOConfig());
+			SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
@@ -502,10 +637,28 @@ public abstract class AbstractReader<M extends TypedMetadata, P extends DataPlan
 
 	@Override
 	public void close(final boolean fileOnly) throws IOException {
+		if (forked) {
+			// the metadata belongs to the reader this one was forked from
+			if (forkHandle != null) forkHandle.close();
+			if (!fileOnly) {
+				forkHandle = null;
+				forked = false;
+				metadata = null;
+			}
+			return;
+		}
+
 		if (metadata != null) metadata.close(fileOnly);
 
 		if (!fileOnly) {
 			metadata = null;
 		}
 	}
+
+	// -- Helper methods --
+
+	/** Whether the given plane is a buffer plane not handled natively. */
+	private boolean isBufferPlane(final Plane plane) {
+		return plane instanceof ByteBufferPlane && !planeClass.isInstance(plane);
+	}
 }
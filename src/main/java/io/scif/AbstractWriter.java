@@ -195,6 +195,16 @@ public abstract class AbstractWriter<M extends TypedMetadata> extends
 		return false;
 	}
 
+	@Override
+	public boolean canSaveConcurrently() {
+		return false;
+	}
+
+	@Override
+	public boolean canSaveRegions() {
+		return false;
+	}
+
 	@Override
 	public void setMetadata(final Metadata meta) throws FormatException {
 		setMetadata(SCIFIOMetadataTools.<M> castMeta(meta));
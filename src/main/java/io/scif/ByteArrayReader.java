@@ -29,8 +29,13 @@
 
 package io.scif;
 
+import io.scif.config.SCIFIOConfig;
+import io.scif.services.PlanePoolService;
+
 import net.imglib2.Interval;
 
+import org.scijava.plugin.Parameter;
+
 /**
  * Abstract superclass for all {@link io.scif.Reader} implementations that
  * return a {@link io.scif.ByteArrayPlane} when reading datasets.
@@ -44,6 +49,11 @@ public abstract class ByteArrayReader<M extends TypedMetadata> extends
 	AbstractReader<M, ByteArrayPlane>
 {
 
+	// -- Fields --
+
+	@Parameter(required = false)
+	private PlanePoolService planePool;
+
 	// -- Constructor --
 
 	public ByteArrayReader() {
@@ -64,4 +74,16 @@ public abstract class ByteArrayReader<M extends TypedMetadata> extends
 		return new ByteArrayPlane(meta, bounds);
 	}
 
+	// -- AbstractReader API Methods --
+
+	@Override
+	protected ByteArrayPlane createPlane(final Interval bounds,
+		final SCIFIOConfig config)
+	{
+		if (planePool == null || !config.readerIsPooledPlanes()) {
+			return createPlane(bounds);
+		}
+		return planePool.takePlane(getMetadata().get(0), bounds);
+	}
+
 }
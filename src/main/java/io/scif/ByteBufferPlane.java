@@ -0,0 +1,376 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif;
+
+import io.scif.util.FormatTools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import net.imglib2.Interval;
+
+/**
+ * A {@link io.scif.Plane} implementation using {@link ByteBuffer}s for its
+ * underlying data, which may be direct or mapped from a file.
+ * <p>
+ * Planes of up to {@link #SEGMENT_SIZE} bytes are held in a single buffer,
+ * returned by {@link #getData()}. Larger planes, which do not fit in a
+ * {@code byte[]}, are split in segments of {@link #SEGMENT_SIZE} bytes, and
+ * are accessed through the long-indexed methods of this class. Segments are
+ * always accessed by absolute index, from zero to their limit.
+ * </p>
+ *
+ * @see io.scif.Plane
+ * @see io.scif.DataPlane
+ * @see io.scif.img.converters.ByteBufferImgs
+ */
+public class ByteBufferPlane extends AbstractPlane<ByteBuffer, ByteBufferPlane> {
+
+	// -- Constants --
+
+	/** Number of bits addressing a byte within a segment. */
+	public static final int SEGMENT_BITS = 30;
+
+	/**
+	 * Size of the segments of a plane, a power of two so that no pixel spans two
+	 * segments.
+	 */
+	public static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+	// -- Fields --
+
+	/** Whether blank planes are allocated off-heap. */
+	private final boolean direct;
+
+	/** Buffers holding the data of this plane. */
+	private ByteBuffer[] segments;
+
+	/** Number of bytes of this plane. */
+	private long size;
+
+	/** Cached byte array representation of this plane's data. */
+	private byte[] cachedBytes;
+
+	// -- Constructors --
+
+	public ByteBufferPlane() {
+		this(false);
+	}
+
+	/**
+	 * @param direct Whether blank planes are allocated off-heap.
+	 */
+	public ByteBufferPlane(final boolean direct) {
+		this.direct = direct;
+	}
+
+	public ByteBufferPlane(final ImageMetadata meta, final Interval bounds) {
+		this(meta, bounds, false);
+	}
+
+	/**
+	 * @param direct Whether to allocate the plane off-heap.
+	 */
+	public ByteBufferPlane(final ImageMetadata meta, final Interval bounds,
+		final boolean direct)
+	{
+		this(direct);
+		populate(meta, bounds);
+	}
+
+	// -- ByteBufferPlane API methods --
+
+	/**
+	 * Creates a plane mapping the given region of a file, as laid out by
+	 * {@link #getBytes()}.
+	 *
+	 * @param meta Metadata of the image.
+	 * @param bounds Bounds of the plane.
+	 * @param channel Channel of the file to map.
+	 * @param position Offset of the plane within the file.
+	 * @param mode Mapping mode, as for {@link FileChannel#map}.
+	 * @throws IOException If the region cannot be mapped.
+	 */
+	public static ByteBufferPlane map(final ImageMetadata meta,
+		final Interval bounds, final FileChannel channel, final long position,
+		final MapMode mode) throws IOException
+	{
+		final long size = size(meta, bounds);
+		final ByteBuffer[] segments = new ByteBuffer[segmentCount(size)];
+		for (int s = 0; s < segments.length; s++) {
+			final long offset = (long) s << SEGMENT_BITS;
+			segments[s] = channel.map(mode, position + offset, Math.min(
+				SEGMENT_SIZE, size - offset)).order(order(meta));
+		}
+		final ByteBufferPlane plane = new ByteBufferPlane(true);
+		plane.setImageMetadata(meta);
+		plane.setSegments(segments);
+		plane.setBounds(bounds);
+		return plane;
+	}
+
+	/**
+	 * Creates a plane viewing the given region of a buffer, as laid out by
+	 * {@link #getBytes()}. The buffer may be shared with other planes, e.g. a
+	 * single mapping of the file regions of several planes.
+	 *
+	 * @param meta Metadata of the image.
+	 * @param bounds Bounds of the plane.
+	 * @param buffer Buffer holding the plane.
+	 * @param position Offset of the plane within the buffer.
+	 * @throws IndexOutOfBoundsException If the plane exceeds the buffer.
+	 */
+	public static ByteBufferPlane slice(final ImageMetadata meta,
+		final Interval bounds, final ByteBuffer buffer, final int position)
+	{
+		final long size = size(meta, bounds);
+		if (position < 0 || position + size > buffer.limit()) {
+			throw new IndexOutOfBoundsException("Plane of " + size +
+				" bytes at offset " + position + " exceeds a buffer of " + buffer
+					.limit() + " bytes");
+		}
+		final ByteBuffer[] segments = new ByteBuffer[segmentCount(size)];
+		for (int s = 0; s < segments.length; s++) {
+			final int offset = position + (s << SEGMENT_BITS);
+			final ByteBuffer segment = buffer.duplicate();
+			segment.limit(offset + (int) Math.min(SEGMENT_SIZE, size - ((long) s <<
+				SEGMENT_BITS))).position(offset);
+			segments[s] = segment.slice().order(order(meta));
+		}
+		final ByteBufferPlane plane = new ByteBufferPlane(buffer.isDirect());
+		plane.setImageMetadata(meta);
+		plane.setSegments(segments);
+		plane.setBounds(bounds);
+		return plane;
+	}
+
+	/**
+	 * @return Whether blank planes are allocated off-heap.
+	 */
+	public boolean isDirect() {
+		return direct;
+	}
+
+	/**
+	 * @return Number of bytes of this plane.
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return The buffers holding the data of this plane.
+	 */
+	public ByteBuffer[] getSegments() {
+		return segments == null ? null : segments.clone();
+	}
+
+	/**
+	 * Sets the buffers holding the data of this plane. All segments but the
+	 * last must span {@link #SEGMENT_SIZE} bytes.
+	 *
+	 * @throws IllegalArgumentException If a segment has the wrong size.
+	 */
+	public void setSegments(final ByteBuffer... segments) {
+		long total = 0;
+		for (int s = 0; s < segments.length - 1; s++) {
+			if (segments[s].limit() != SEGMENT_SIZE) {
+				throw new IllegalArgumentException("Segment " + s + " spans " +
+					segments[s].limit() + " bytes instead of " + SEGMENT_SIZE);
+			}
+			total += SEGMENT_SIZE;
+		}
+		if (segments.length > 0) total += segments[segments.length - 1].limit();
+		super.setData(segments.length > 0 ? segments[0] : null);
+		this.segments = segments.clone();
+		size = total;
+		cachedBytes = null;
+	}
+
+	/**
+	 * @return The byte at the given index of this plane.
+	 */
+	public byte get(final long index) {
+		return segments[(int) (index >>> SEGMENT_BITS)].get(offset(index));
+	}
+
+	/**
+	 * Sets the byte at the given index of this plane.
+	 */
+	public void put(final long index, final byte value) {
+		segments[(int) (index >>> SEGMENT_BITS)].put(offset(index), value);
+		cachedBytes = null;
+	}
+
+	/**
+	 * Copies bytes of this plane, starting at the given index, to an array.
+	 */
+	public void get(final long index, final byte[] dest, final int off,
+		final int len)
+	{
+		int done = 0;
+		while (done < len) {
+			final long pos = index + done;
+			final ByteBuffer segment = segments[(int) (pos >>> SEGMENT_BITS)]
+				.duplicate();
+			segment.position(offset(pos));
+			final int count = Math.min(len - done, segment.remaining());
+			segment.get(dest, off + done, count);
+			done += count;
+		}
+	}
+
+	/**
+	 * Copies bytes from an array to this plane, starting at the given index.
+	 */
+	public void put(final long index, final byte[] src, final int off,
+		final int len)
+	{
+		int done = 0;
+		while (done < len) {
+			final long pos = index + done;
+			final ByteBuffer segment = segments[(int) (pos >>> SEGMENT_BITS)]
+				.duplicate();
+			segment.position(offset(pos));
+			final int count = Math.min(len - done, segment.remaining());
+			segment.put(src, off + done, count);
+			done += count;
+		}
+		cachedBytes = null;
+	}
+
+	// -- Plane API methods --
+
+	/**
+	 * Standardizes this plane's buffers to a byte[]. Heap planes held in a
+	 * single buffer return its array; others are copied, and the copy is
+	 * cached until the plane is modified through this class.
+	 *
+	 * @throws UnsupportedOperationException If this plane does not fit in an
+	 *           array.
+	 */
+	@Override
+	public byte[] getBytes() {
+		if (cachedBytes == null && segments != null) {
+			if (size > Integer.MAX_VALUE) {
+				throw new UnsupportedOperationException("Plane of " + size +
+					" bytes does not fit in an array");
+			}
+			final ByteBuffer data = getData();
+			if (segments.length == 1 && data.hasArray() && data.arrayOffset() == 0 &&
+				data.array().length == size)
+			{
+				cachedBytes = data.array();
+			}
+			else {
+				cachedBytes = new byte[(int) size];
+				get(0, cachedBytes, 0, cachedBytes.length);
+			}
+		}
+		return cachedBytes;
+	}
+
+	// -- DataPlane API methods --
+
+	@Override
+	public void setData(final ByteBuffer data) {
+		if (data == null) {
+			super.setData(null);
+			segments = null;
+			size = 0;
+			cachedBytes = null;
+		}
+		else setSegments(data);
+	}
+
+	@Override
+	public ByteBufferPlane populate(final ImageMetadata meta,
+		final ByteBuffer data, final Interval bounds)
+	{
+		if (data != null) return super.populate(meta, data, bounds);
+		// blank planes may span several segments
+		setImageMetadata(meta);
+		setSegments(allocate(bounds));
+		setBounds(bounds);
+		return this;
+	}
+
+	// -- AbstractPlane API --
+
+	@Override
+	protected ByteBuffer blankPlane(final Interval bounds) {
+		final ByteBuffer[] blank = allocate(bounds);
+		if (blank.length > 1) {
+			throw new IllegalArgumentException("Plane spans " + blank.length +
+				" segments");
+		}
+		return blank[0];
+	}
+
+	// -- Helper methods --
+
+	/** Allocates the segments of a blank plane. */
+	private ByteBuffer[] allocate(final Interval bounds) {
+		final long total = size(getImageMetadata(), bounds);
+		final ByteBuffer[] blank = new ByteBuffer[segmentCount(total)];
+		for (int s = 0; s < blank.length; s++) {
+			final int length = (int) Math.min(SEGMENT_SIZE, total -
+				((long) s << SEGMENT_BITS));
+			blank[s] = (direct ? ByteBuffer.allocateDirect(length) : ByteBuffer
+				.allocate(length)).order(order(getImageMetadata()));
+		}
+		return blank;
+	}
+
+	/** Number of bytes of a plane spanning the given bounds. */
+	private static long size(final ImageMetadata meta, final Interval bounds) {
+		long total = FormatTools.getBytesPerPixel(meta.getPixelType());
+		for (int d = 0; d < bounds.numDimensions(); d++) {
+			total *= bounds.dimension(d);
+		}
+		return total;
+	}
+
+	private static int segmentCount(final long size) {
+		return (int) Math.max(1, (size + SEGMENT_SIZE - 1) >>> SEGMENT_BITS);
+	}
+
+	private static ByteOrder order(final ImageMetadata meta) {
+		return meta != null && meta.isLittleEndian() ? ByteOrder.LITTLE_ENDIAN
+			: ByteOrder.BIG_ENDIAN;
+	}
+
+	private static int offset(final long index) {
+		return (int) (index & (SEGMENT_SIZE - 1));
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif;
+
+import org.scijava.io.location.Location;
+
+/**
+ * Interface for {@link Metadata} whose pixels are stored uncompressed, one
+ * plane after another in the layout described by its {@link ImageMetadata},
+ * so that planes can be mapped straight from the file instead of being read.
+ * <p>
+ * NB: It is up to concrete Format components to choose to implement this
+ * interface. A plane is mappable when it is stored as {@code planeSize}
+ * contiguous bytes, in the byte order of its {@link ImageMetadata}, starting
+ * at the offset returned by {@link #getPlaneOffset(int, long)}.
+ * </p>
+ *
+ * @see io.scif.config.SCIFIOConfig.ImgMode#MAPPED
+ */
+public interface MappableMetadata extends Metadata {
+
+	/**
+	 * @param imageIndex index of the image of interest
+	 * @return The location holding the pixels of the given image, or null if
+	 *         its pixels are not stored in a plain file.
+	 */
+	Location getPixelsLocation(int imageIndex);
+
+	/**
+	 * @param imageIndex index of the image of interest
+	 * @param planeIndex index of the plane of interest
+	 * @return The offset of the first byte of the given plane in
+	 *         {@link #getPixelsLocation(int)}, or -1 if the plane is not stored
+	 *         as raw contiguous bytes.
+	 */
+	long getPlaneOffset(int imageIndex, long planeIndex);
+}
@@ -131,6 +131,10 @@ public interface Reader extends HasFormat, HasSource, Groupable {
 	/**
 	 * Allows a single {@code Plane} object to be reused by reference when opening
 	 * complete planes.
+	 * <p>
+	 * Any reader also accepts a {@link ByteBufferPlane}, which may be too large
+	 * for a {@code byte[]}.
+	 * </p>
 	 *
 	 * @see #openPlane(int, long, SCIFIOConfig)
 	 * @throws IllegalArgumentException If the provided {@code Plane} type is not
@@ -142,6 +146,10 @@ public interface Reader extends HasFormat, HasSource, Groupable {
 	/**
 	 * Allows a single {@code Plane} object to be reused by reference when opening
 	 * sub-regions of planes.
+	 * <p>
+	 * Any reader also accepts a {@link ByteBufferPlane}, which may be too large
+	 * for a {@code byte[]}.
+	 * </p>
 	 *
 	 * @see #openPlane(int, long, Interval, SCIFIOConfig)
 	 * @throws IllegalArgumentException If the provided {@code Plane} type is not
@@ -150,6 +158,58 @@ public interface Reader extends HasFormat, HasSource, Groupable {
 	Plane openPlane(int imageIndex, long planeIndex, Plane plane, Interval bounds,
 		SCIFIOConfig config) throws FormatException, IOException;
 
+	/**
+	 * Returns the number of resolution levels of the given image. Level 0 is the
+	 * full resolution image; each following level is a downsampled copy of the
+	 * level before it.
+	 *
+	 * @param imageIndex the image index within the dataset
+	 * @return The number of resolution levels, 1 if the image is not pyramidal.
+	 */
+	int getResolutionCount(int imageIndex);
+
+	/**
+	 * Returns the index of the image holding the given resolution level of the
+	 * given image. Pyramidal formats expose their reduced resolution levels as
+	 * additional images, so this image index can be used with every other
+	 * {@code Reader} method, e.g. to build a {@code SCIFIOCellImg} for a single
+	 * level.
+	 *
+	 * @param imageIndex the image index within the dataset
+	 * @param resolution the resolution level within the image
+	 * @throws IllegalArgumentException If the resolution level does not exist.
+	 */
+	int getResolutionImageIndex(int imageIndex, int resolution);
+
+	/**
+	 * Returns the lengths of the planar axes of the given resolution level.
+	 *
+	 * @param imageIndex the image index within the dataset
+	 * @param resolution the resolution level within the image
+	 * @throws IllegalArgumentException If the resolution level does not exist.
+	 */
+	long[] getResolutionLengths(int imageIndex, int resolution);
+
+	/**
+	 * Creates a {@link Plane} of the given resolution level. The bounds are in
+	 * the coordinates of that level.
+	 *
+	 * @see #openPlane(int, long, Interval)
+	 * @see #getResolutionImageIndex(int, int)
+	 */
+	Plane openPlane(int imageIndex, int resolution, long planeIndex,
+		Interval bounds) throws FormatException, IOException;
+
+	/**
+	 * Creates a {@link Plane} of the given resolution level. The bounds are in
+	 * the coordinates of that level.
+	 *
+	 * @see #openPlane(int, long, Interval, SCIFIOConfig)
+	 * @see #getResolutionImageIndex(int, int)
+	 */
+	Plane openPlane(int imageIndex, int resolution, long planeIndex,
+		Interval bounds, SCIFIOConfig config) throws FormatException, IOException;
+
 	/** Returns the current file. */
 	Location getCurrentLocation();
 
@@ -163,6 +223,25 @@ public interface Reader extends HasFormat, HasSource, Groupable {
 	 */
 	DataHandle<Location> getHandle();
 
+	/**
+	 * Creates a reader for the current source which shares this reader's parsed
+	 * {@link Metadata}, but reads through its own {@link DataHandle}. Planes can
+	 * then be opened from this reader and each of its forks concurrently, e.g.
+	 * by a pool of readers serving parallel plane requests. The shared metadata
+	 * must not be modified while forks are in use.
+	 * <p>
+	 * Closing a fork closes its handle only; the metadata stays owned by this
+	 * reader. Formats whose readers keep decoding state in their metadata
+	 * return a reader that parsed the source again instead. Forking a filtered
+	 * reader forks the reader it wraps and wraps that fork in the same filters,
+	 * configured like the originals.
+	 * </p>
+	 *
+	 * @return A new reader, opened on the current source.
+	 * @throws FormatException If no source has been set.
+	 */
+	Reader fork() throws FormatException, IOException;
+
 	/** Returns the optimal sub-image width for use with {@link #openPlane}. */
 	long getOptimalTileWidth(int imageIndex);
 
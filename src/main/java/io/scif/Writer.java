@@ -88,6 +88,18 @@ public interface Writer extends HasFormat, HasSource {
 	 */
 	boolean canDoStacks();
 
+	/**
+	 * @return True if this {@code Writer} allows several planes to be saved at
+	 *         the same time, from different threads.
+	 */
+	boolean canSaveConcurrently();
+
+	/**
+	 * @return True if this {@code Writer} can save planes region by region, with
+	 *         the regions of different planes in any order.
+	 */
+	boolean canSaveRegions();
+
 	/**
 	 * Provides this {@code Writer} with a {@code Metadata} object to use when
 	 * interpreting {@code Planes} during calls to {@link #savePlane}.
@@ -30,6 +30,7 @@
 package io.scif.codec;
 
 import java.awt.image.ColorModel;
+import java.util.zip.Deflater;
 
 /**
  * Options for compressing and decompressing data.
@@ -115,6 +116,18 @@ public class CodecOptions {
 	 */
 	public boolean ycbcr;
 
+	/**
+	 * Compression level used by deflate-based codecs, from 0 (no compression) to
+	 * 9 (best compression), or -1 for the zlib default (WRITE).
+	 */
+	public int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+	/**
+	 * Compression strategy used by deflate-based codecs, as defined by
+	 * {@link Deflater} (WRITE).
+	 */
+	public int compressionStrategy = Deflater.DEFAULT_STRATEGY;
+
 	// -- Constructors --
 
 	/** Construct a new CodecOptions. */
@@ -140,6 +153,8 @@ public class CodecOptions {
 			this.tileGridXOffset = options.tileGridXOffset;
 			this.tileGridYOffset = options.tileGridYOffset;
 			this.ycbcr = options.ycbcr;
+			this.compressionLevel = options.compressionLevel;
+			this.compressionStrategy = options.compressionStrategy;
 		}
 	}
 
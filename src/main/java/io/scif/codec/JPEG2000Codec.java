@@ -43,6 +43,7 @@ import java.awt.image.WritableRaster;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.scijava.io.handle.DataHandle;
 import org.scijava.io.location.Location;
@@ -223,7 +224,21 @@ public class JPEG2000Codec extends AbstractCodec {
 	 * @see Codec#decompress(byte[], CodecOptions)
 	 */
 	@Override
-	public byte[] decompress(final byte[] buf, CodecOptions options)
+	public byte[] decompress(final byte[] buf, final CodecOptions options)
+		throws FormatException
+	{
+		return decompress(new ByteArrayInputStream(buf), options);
+	}
+
+	/**
+	 * Decompresses the codestream read from the given stream, as the decoder
+	 * consumes it, rather than from a single array holding all of it. This
+	 * allows decoding codestreams larger than an array. The stream is not
+	 * closed.
+	 *
+	 * @see #decompress(byte[], CodecOptions)
+	 */
+	public byte[] decompress(final InputStream in, CodecOptions options)
 		throws FormatException
 	{
 		if (options == null || !(options instanceof JPEG2000CodecOptions)) {
@@ -238,13 +253,11 @@ public class JPEG2000Codec extends AbstractCodec {
 		int bpp = options.bitsPerSample / 8;
 
 		try {
-			final ByteArrayInputStream bis = new ByteArrayInputStream(buf);
-			b = (WritableRaster) jaiIIOService.readRaster(bis,
+			b = (WritableRaster) jaiIIOService.readRaster(in,
 				(JPEG2000CodecOptions) options);
 			single = AWTImageTools.getPixelBytes(b, options.littleEndian);
 			bpp = single[0].length / (b.getWidth() * b.getHeight());
 
-			bis.close();
 			b = null;
 		}
 		catch (final IOException e) {
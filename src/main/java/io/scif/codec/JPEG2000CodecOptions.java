@@ -29,6 +29,8 @@
 
 package io.scif.codec;
 
+import java.awt.Rectangle;
+
 /**
  * Options for compressing and decompressing JPEG-2000 data.
  */
@@ -60,6 +62,15 @@ public class JPEG2000CodecOptions extends CodecOptions {
 	 */
 	public Integer resolution;
 
+	/**
+	 * The region to decode, in the coordinates of the selected
+	 * {@link #resolution}, as would be provided to:
+	 * {@code J2KImageReadParam#setSourceRegion(Rectangle)} (READ). Only the
+	 * code-blocks intersecting this region are decoded. Leaving this value
+	 * {@code null} signifies that the whole image will be decoded.
+	 */
+	public Rectangle region;
+
 	// -- Constructors --
 
 	/** Creates a new instance. */
@@ -81,6 +92,7 @@ public class JPEG2000CodecOptions extends CodecOptions {
 			}
 			numDecompositionLevels = j2kOptions.numDecompositionLevels;
 			resolution = j2kOptions.resolution;
+			region = j2kOptions.region;
 		}
 	}
 
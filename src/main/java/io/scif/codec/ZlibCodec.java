@@ -31,18 +31,20 @@ package io.scif.codec;
 
 import io.scif.FormatException;
 
-import java.io.EOFException;
 import java.io.IOException;
+import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
-import java.util.zip.InflaterInputStream;
+import java.util.zip.Inflater;
 
 import org.scijava.io.handle.DataHandle;
-import org.scijava.io.handle.DataHandleInputStream;
 import org.scijava.io.location.Location;
 import org.scijava.plugin.Plugin;
 
 /**
- * This class implements ZLIB decompression.
+ * This class implements ZLIB compression and decompression. The deflate level
+ * and strategy are taken from {@link CodecOptions#compressionLevel} and
+ * {@link CodecOptions#compressionStrategy}; zlib engines are drawn from the
+ * shared {@link ZlibPool}.
  *
  * @author Melissa Linkert
  */
@@ -50,40 +52,61 @@ import org.scijava.plugin.Plugin;
 public class ZlibCodec extends AbstractCodec {
 
 	@Override
-	public byte[] compress(final byte[] data, final CodecOptions options)
+	public byte[] compress(final byte[] data, CodecOptions options)
 		throws FormatException
 	{
 		if (data == null || data.length == 0) throw new IllegalArgumentException(
 			"No data to compress");
-		final Deflater deflater = new Deflater();
-		deflater.setInput(data);
-		deflater.finish();
-		final byte[] buf = new byte[8192];
-		final ByteVector bytes = new ByteVector();
-		int r = 0;
-		// compress until eof reached
-		while ((r = deflater.deflate(buf, 0, buf.length)) > 0) {
-			bytes.add(buf, 0, r);
+		if (options == null) options = CodecOptions.getDefaultOptions();
+		final Deflater deflater = ZlibPool.acquireDeflater(options.compressionLevel,
+			options.compressionStrategy);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			final byte[] buf = new byte[8192];
+			final ByteVector bytes = new ByteVector(Math.max(64, data.length / 2));
+			// compress until eof reached
+			while (!deflater.finished()) {
+				final int r = deflater.deflate(buf, 0, buf.length);
+				bytes.add(buf, 0, r);
+			}
+			return bytes.toByteArray();
+		}
+		finally {
+			ZlibPool.release(deflater);
 		}
-		return bytes.toByteArray();
 	}
 
 	@Override
 	public byte[] decompress(final DataHandle<Location> in,
 		final CodecOptions options) throws FormatException, IOException
 	{
-		final InflaterInputStream i = new InflaterInputStream(
-			new DataHandleInputStream<>(in));
-		final ByteVector bytes = new ByteVector();
-		final byte[] buf = new byte[8192];
-		int r = 0;
-		// read until eof reached
+		final Inflater inflater = ZlibPool.acquireInflater();
 		try {
-			while ((r = i.read(buf, 0, buf.length)) > 0)
-				bytes.add(buf, 0, r);
+			final ByteVector bytes = new ByteVector(8192);
+			final byte[] input = new byte[8192];
+			final byte[] buf = new byte[8192];
+			// inflate until the end of the zlib stream, or of the input
+			while (!inflater.finished()) {
+				if (inflater.needsInput()) {
+					final int n = in.read(input, 0, input.length);
+					if (n <= 0) break;
+					inflater.setInput(input, 0, n);
+				}
+				else if (inflater.needsDictionary()) {
+					throw new FormatException("Unsupported zlib compression");
+				}
+				final int r = inflater.inflate(buf, 0, buf.length);
+				if (r > 0) bytes.add(buf, 0, r);
+			}
+			return bytes.toByteArray();
+		}
+		catch (final DataFormatException e) {
+			throw new FormatException(e);
+		}
+		finally {
+			ZlibPool.release(inflater);
 		}
-		catch (final EOFException e) {}
-		return bytes.toByteArray();
 	}
 
 }
@@ -0,0 +1,161 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.codec;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A small, bounded pool of zlib {@link Deflater} and {@link Inflater}
+ * instances.
+ * <p>
+ * Each zlib engine holds native memory that is only released by calling
+ * {@code end()}, or much later by the garbage collector. Callers acquire an
+ * engine, use it for a single stream, and hand it back with
+ * {@link #release(Deflater)} or {@link #release(Inflater)}; the engine is then
+ * reset and kept for the next caller. Engines returned while the pool is full
+ * are ended immediately, so native memory use stays bounded and is released
+ * deterministically.
+ * </p>
+ */
+public final class ZlibPool {
+
+	// -- Constants --
+
+	/** Maximum number of idle engines of each kind kept by the pool. */
+	private static final int MAX_IDLE = Math.max(2, Runtime.getRuntime()
+		.availableProcessors());
+
+	// -- Fields --
+
+	private static final Deque<Deflater> deflaters = new ArrayDeque<>();
+
+	private static final Deque<Inflater> inflaters = new ArrayDeque<>();
+
+	// -- Constructor --
+
+	private ZlibPool() {}
+
+	// -- ZlibPool methods --
+
+	/**
+	 * Obtains a zlib-wrapped {@link Deflater} using the default compression
+	 * level and strategy.
+	 */
+	public static Deflater acquireDeflater() {
+		return acquireDeflater(Deflater.DEFAULT_COMPRESSION,
+			Deflater.DEFAULT_STRATEGY);
+	}
+
+	/**
+	 * Obtains a zlib-wrapped {@link Deflater} configured with the given
+	 * compression level and strategy.
+	 *
+	 * @param level Compression level, from 0 to 9, or -1 for the zlib default.
+	 * @param strategy One of {@link Deflater#DEFAULT_STRATEGY},
+	 *          {@link Deflater#FILTERED} or {@link Deflater#HUFFMAN_ONLY}.
+	 * @throws IllegalArgumentException If the level or strategy is invalid.
+	 */
+	public static Deflater acquireDeflater(final int level, final int strategy) {
+		if (level < Deflater.DEFAULT_COMPRESSION ||
+			level > Deflater.BEST_COMPRESSION)
+		{
+			throw new IllegalArgumentException("Invalid compression level: " +
+				level);
+		}
+		Deflater deflater;
+		synchronized (deflaters) {
+			deflater = deflaters.pollFirst();
+		}
+		if (deflater == null) deflater = new Deflater(level);
+		else deflater.setLevel(level);
+		deflater.setStrategy(strategy);
+		return deflater;
+	}
+
+	/**
+	 * Returns a {@link Deflater} obtained from {@link #acquireDeflater} to the
+	 * pool. The deflater must not be used by the caller afterwards.
+	 */
+	public static void release(final Deflater deflater) {
+		if (deflater == null) return;
+		deflater.reset();
+		synchronized (deflaters) {
+			if (deflaters.size() < MAX_IDLE) {
+				deflaters.addFirst(deflater);
+				return;
+			}
+		}
+		deflater.end();
+	}
+
+	/** Obtains a zlib-wrapped {@link Inflater}. */
+	public static Inflater acquireInflater() {
+		Inflater inflater;
+		synchronized (inflaters) {
+			inflater = inflaters.pollFirst();
+		}
+		return inflater == null ? new Inflater() : inflater;
+	}
+
+	/**
+	 * Returns an {@link Inflater} obtained from {@link #acquireInflater} to the
+	 * pool. The inflater must not be used by the caller afterwards.
+	 */
+	public static void release(final Inflater inflater) {
+		if (inflater == null) return;
+		inflater.reset();
+		synchronized (inflaters) {
+			if (inflaters.size() < MAX_IDLE) {
+				inflaters.addFirst(inflater);
+				return;
+			}
+		}
+		inflater.end();
+	}
+
+	/** Ends all idle engines, releasing their native memory. */
+	public static void clear() {
+		synchronized (deflaters) {
+			for (final Deflater deflater : deflaters) {
+				deflater.end();
+			}
+			deflaters.clear();
+		}
+		synchronized (inflaters) {
+			for (final Inflater inflater : inflaters) {
+				inflater.end();
+			}
+			inflaters.clear();
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.commands;
+
+import io.scif.FormatException;
+import io.scif.Reader;
+import io.scif.Writer;
+import io.scif.config.SCIFIOConfig;
+import io.scif.convert.ConversionPipeline;
+import io.scif.services.InitializeService;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.scijava.command.Command;
+import org.scijava.command.ContextCommand;
+import org.scijava.io.location.FileLocation;
+import org.scijava.log.LogService;
+import org.scijava.menu.MenuConstants;
+import org.scijava.plugin.Menu;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.ui.DialogPrompt;
+import org.scijava.ui.UIService;
+import org.scijava.widget.FileWidget;
+
+/**
+ * {@link Command} for converting an image file to another file, format given
+ * by its extension, without opening it as a dataset. Planes are copied through
+ * a {@link ConversionPipeline}.
+ */
+@Plugin(type = Command.class, menu = { @Menu(label = MenuConstants.FILE_LABEL,
+	weight = MenuConstants.FILE_WEIGHT), @Menu(label = "Export"), @Menu(
+		label = "Convert Image...") })
+public class ConvertImage extends ContextCommand {
+
+	@Parameter
+	private InitializeService initializeService;
+
+	@Parameter
+	private LogService logService;
+
+	@Parameter
+	private UIService uiService;
+
+	@Parameter(label = "File to convert")
+	private File source;
+
+	@Parameter(label = "Destination file", style = FileWidget.SAVE_STYLE,
+		persist = false)
+	private File destination;
+
+	@Parameter(required = false, label = "Writer threads", min = "1")
+	private Integer writerThreads;
+
+	@Override
+	public void run() {
+		final ConversionPipeline pipeline = new ConversionPipeline(getContext());
+		if (writerThreads != null) pipeline.setWriterThreads(writerThreads);
+
+		try {
+			final Reader reader = initializeService.initializeReader(
+				new FileLocation(source));
+			final Writer writer = initializeService.initializeWriter(reader
+				.getMetadata(), new FileLocation(destination));
+			try {
+				pipeline.convert(reader, writer, new SCIFIOConfig());
+			}
+			finally {
+				reader.close();
+				writer.close();
+			}
+			logService.info("Converted " + pipeline.getBytesDone() + " bytes in " +
+				pipeline.getElapsedTime() + " ms");
+		}
+		catch (final FormatException | IOException exc) {
+			logService.error(exc);
+			uiService.showDialog(exc.getMessage(), "Error Converting Image",
+				DialogPrompt.MessageType.ERROR_MESSAGE);
+		}
+	}
+
+}
@@ -106,7 +106,7 @@ public class OpenDataset extends ContextCommand {
 	private Boolean groupFiles;
 
 	@Parameter(required = false, label = "Image mode", choices = { "Auto",
-		"Planar", "Cell" })
+		"Planar", "Cell", "Mapped", "Virtual" })
 	private String mode = "Auto";
 
 	@Parameter(type = ItemIO.OUTPUT)
@@ -153,6 +153,10 @@ public class OpenDataset extends ContextCommand {
 		// Set the desired image modes
 		if (mode.equals("Planar")) config.imgOpenerSetImgModes(ImgMode.PLANAR);
 		else if (mode.equals("Cell")) config.imgOpenerSetImgModes(ImgMode.CELL);
+		else if (mode.equals("Mapped")) config.imgOpenerSetImgModes(
+			ImgMode.MAPPED);
+		else if (mode.equals("Virtual")) config.imgOpenerSetImgModes(
+			ImgMode.VIRTUAL);
 
 		// Open the dataset
 		try {
@@ -39,11 +39,20 @@ import io.scif.img.ImageRegion;
 import io.scif.img.ImgFactoryHeuristic;
 import io.scif.img.ImgOpener;
 import io.scif.img.ImgSaver;
+import io.scif.img.MappedImgFactory;
 import io.scif.img.Range;
+import io.scif.img.VirtualPlanarImgFactory;
 import io.scif.img.converters.PlaneConverter;
 
 import java.awt.image.ColorModel;
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import net.imglib2.img.array.ArrayImgFactory;
 import net.imglib2.img.cell.CellImgFactory;
@@ -74,6 +83,16 @@ import org.scijava.Context;
  */
 public class SCIFIOConfig extends HashMap<String, Object> {
 
+	// -- Constants --
+
+	/**
+	 * Configuration with the default settings, shared by the methods which do
+	 * not take one. It is read-only: its setters and map operations throw
+	 * {@link UnsupportedOperationException}, and {@link #clone()} returns a
+	 * modifiable copy.
+	 */
+	public static final SCIFIOConfig DEFAULT = new ReadOnlyConfig();
+
 	// -- Fields --
 
 	// Checker
@@ -88,6 +107,11 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 
 	private boolean saveOriginalMetadata;
 
+	private boolean cacheMetadata;
+
+	// Reader
+	private boolean pooledPlanes;
+
 	// Writer
 	private boolean writeSequential = false;
 
@@ -105,6 +129,9 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 	/** Whether or not to group multi-file formats. */
 	private boolean group = false;
 
+	/** Directory of persistent indexes of grouped files, if any. */
+	private File indexDirectory = null;
+
 	// ImgOpener
 
 	/**
@@ -114,14 +141,19 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 	 * <li>{@link ImgMode#AUTO} allows the program to decide, e.g. based on
 	 * available memory.</li>
 	 * <li>{@link ImgMode#CELL} will attempt to use {@link CellImgFactory}</li>
+	 * <li>{@link ImgMode#MAPPED} will attempt to use {@link MappedImgFactory},
+	 * viewing uncompressed planes straight from a memory-mapped file</li>
 	 * <li>{@link ImgMode#PLANAR} will attempt to use
 	 * {@link PlanarImgFactory}</li>
+	 * <li>{@link ImgMode#VIRTUAL} will attempt to use
+	 * {@link VirtualPlanarImgFactory}, reading planes on demand without
+	 * caching them</li>
 	 * </ul>
 	 *
 	 * @author Mark Hiner
 	 */
 	public static enum ImgMode {
-			ARRAY, AUTO, CELL, PLANAR;
+			ARRAY, AUTO, CELL, MAPPED, PLANAR, VIRTUAL;
 	}
 
 	// If true, planarEnabled returns true. If false, cellEnabled returns true.
@@ -134,6 +166,9 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 	// Image indices
 	private Range range = new Range("0");
 
+	// Resolution level of each image to open
+	private int resolution = 0;
+
 	// sub-region specification for opening portions of an image
 	private ImageRegion region = null;
 
@@ -167,6 +202,8 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 		level = config.level;
 		filterMetadata = config.filterMetadata;
 		saveOriginalMetadata = config.saveOriginalMetadata;
+		cacheMetadata = config.cacheMetadata;
+		pooledPlanes = config.pooledPlanes;
 		writeSequential = config.writeSequential;
 		failIfOverwriting = config.failIfOverwriting;
 		model = config.model;
@@ -174,8 +211,10 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 		compression = config.compression;
 		options = config.options;
 		group = config.group;
+		indexDirectory = config.indexDirectory;
 		imgModes = config.imgModes;
 		range = config.range;
+		resolution = config.resolution;
 		region = config.region;
 		computeMinMax = config.computeMinMax;
 		planeConverter = config.planeConverter;
@@ -256,6 +295,46 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 		return this;
 	}
 
+	/**
+	 * @return True if parsers should reuse metadata cached by the
+	 *         {@link io.scif.services.MetadataCacheService}, and cache what
+	 *         they parse.
+	 */
+	public boolean parserIsCacheMetadata() {
+		return cacheMetadata;
+	}
+
+	/**
+	 * @param cacheMetadata Whether parsers should go through the metadata
+	 *          cache.
+	 * @return This SCIFIOConfig for method chaining.
+	 */
+	public SCIFIOConfig parserSetCacheMetadata(final boolean cacheMetadata) {
+		this.cacheMetadata = cacheMetadata;
+		return this;
+	}
+
+	// -- Reader methods --
+
+	/**
+	 * @return True if readers should draw the planes they open from the
+	 *         {@link io.scif.services.PlanePoolService}.
+	 */
+	public boolean readerIsPooledPlanes() {
+		return pooledPlanes;
+	}
+
+	/**
+	 * @param pooledPlanes Whether readers should draw the planes they open from
+	 *          the plane pool. Callers are then expected to recycle the planes
+	 *          once done with them.
+	 * @return This SCIFIOConfig for method chaining.
+	 */
+	public SCIFIOConfig readerSetPooledPlanes(final boolean pooledPlanes) {
+		this.pooledPlanes = pooledPlanes;
+		return this;
+	}
+
 	// -- Writer methods --
 
 	/**
@@ -385,6 +464,26 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 		return group;
 	}
 
+	/**
+	 * @param directory Directory in which Groupable classes may keep indexes of
+	 *          the files they scan while grouping, so that an unmodified
+	 *          directory is not scanned again. If null (the default), no indexes
+	 *          are kept.
+	 * @return This SCIFIOConfig for method chaining.
+	 */
+	public SCIFIOConfig groupableSetIndexDirectory(final File directory) {
+		indexDirectory = directory;
+		return this;
+	}
+
+	/**
+	 * @return Directory of the persistent indexes kept by Groupable classes, or
+	 *         null if none are kept.
+	 */
+	public File groupableGetIndexDirectory() {
+		return indexDirectory;
+	}
+
 	// -- ImgOpener methods --
 
 	/**
@@ -536,6 +635,25 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 		return this;
 	}
 
+	/**
+	 * @return The resolution level of each image to open. Default: 0, the full
+	 *         resolution.
+	 */
+	public int imgOpenerGetResolution() {
+		return resolution;
+	}
+
+	/**
+	 * @param resolution Resolution level of each image to open, where 0 is the
+	 *          full resolution and each following level is downsampled further.
+	 * @return This SCIFIOConfig for method chaining.
+	 * @see io.scif.Reader#getResolutionCount(int)
+	 */
+	public SCIFIOConfig imgOpenerSetResolution(final int resolution) {
+		this.resolution = resolution;
+		return this;
+	}
+
 	// -- ImgSaver methods --
 
 	/**
@@ -561,4 +679,245 @@ public class SCIFIOConfig extends HashMap<String, Object> {
 	public SCIFIOConfig clone() {
 		return new SCIFIOConfig(this);
 	}
+
+	// -- Helper classes --
+
+	/** A {@link SCIFIOConfig} whose settings cannot be changed. */
+	private static final class ReadOnlyConfig extends SCIFIOConfig {
+
+		// -- SCIFIOConfig API Methods --
+
+		@Override
+		public SCIFIOConfig enableBufferedReading(final boolean enabled) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig checkerSetOpen(final boolean open) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig parserSetLevel(final MetadataLevel level) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig parserSetFiltered(final boolean filterMetadata) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig parserSetSaveOriginalMetadata(
+			final boolean saveOriginalMetadata)
+		{
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig parserSetCacheMetadata(
+			final boolean cacheMetadata)
+		{
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig readerSetPooledPlanes(final boolean pooledPlanes) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig writerSetFailIfOverwriting(
+			final boolean failIfOverwriting)
+		{
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig writerSetSequential(final boolean sequential) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig writerSetColorModel(final ColorModel cm) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig writerSetFramesPerSecond(final int rate) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig writerSetCompression(final String compress) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig writerSetCodecOptions(final CodecOptions options) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig groupableSetGroupFiles(final boolean groupFiles) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig groupableSetIndexDirectory(final File directory) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig imgOpenerSetImgModes(final ImgMode... imgModes) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig imgOpenerSetComputeMinMax(
+			final boolean computeMinMax)
+		{
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig imgOpenerSetRegion(final ImageRegion region) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig imgOpenerSetPlaneConverter(
+			final PlaneConverter planeConverter)
+		{
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig imgOpenerSetImgFactoryHeuristic(
+			final ImgFactoryHeuristic imgFactoryHeuristic)
+		{
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig imgOpenerSetOpenAllImages(final boolean openAll) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig imgOpenerSetRange(final Range range) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig imgOpenerSetResolution(final int resolution) {
+			throw readOnly();
+		}
+
+		@Override
+		public SCIFIOConfig imgSaverSetWriteRGB(final boolean rgb) {
+			throw readOnly();
+		}
+
+		// -- Map API Methods --
+
+		@Override
+		public Object put(final String key, final Object value) {
+			throw readOnly();
+		}
+
+		@Override
+		public void putAll(final Map<? extends String, ? extends Object> m) {
+			throw readOnly();
+		}
+
+		@Override
+		public Object putIfAbsent(final String key, final Object value) {
+			throw readOnly();
+		}
+
+		@Override
+		public Object remove(final Object key) {
+			throw readOnly();
+		}
+
+		@Override
+		public boolean remove(final Object key, final Object value) {
+			throw readOnly();
+		}
+
+		@Override
+		public void clear() {
+			throw readOnly();
+		}
+
+		@Override
+		public Object replace(final String key, final Object value) {
+			throw readOnly();
+		}
+
+		@Override
+		public boolean replace(final String key, final Object oldValue,
+			final Object newValue)
+		{
+			throw readOnly();
+		}
+
+		@Override
+		public void replaceAll(
+			final BiFunction<? super String, ? super Object, ? extends Object> f)
+		{
+			throw readOnly();
+		}
+
+		@Override
+		public Object compute(final String key,
+			final BiFunction<? super String, ? super Object, ? extends Object> f)
+		{
+			throw readOnly();
+		}
+
+		@Override
+		public Object computeIfAbsent(final String key,
+			final Function<? super String, ? extends Object> f)
+		{
+			throw readOnly();
+		}
+
+		@Override
+		public Object computeIfPresent(final String key,
+			final BiFunction<? super String, ? super Object, ? extends Object> f)
+		{
+			throw readOnly();
+		}
+
+		@Override
+		public Object merge(final String key, final Object value,
+			final BiFunction<? super Object, ? super Object, ? extends Object> f)
+		{
+			throw readOnly();
+		}
+
+		@Override
+		public Set<String> keySet() {
+			return Collections.unmodifiableSet(super.keySet());
+		}
+
+		@Override
+		public Collection<Object> values() {
+			return Collections.unmodifiableCollection(super.values());
+		}
+
+		@Override
+		public Set<Map.Entry<String, Object>> entrySet() {
+			return Collections.unmodifiableSet(super.entrySet());
+		}
+
+		// -- Helper methods --
+
+		private UnsupportedOperationException readOnly() {
+			return new UnsupportedOperationException(
+				"The default configuration is read-only; use a copy of it instead");
+		}
+	}
 }
@@ -0,0 +1,484 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.convert;
+
+import io.scif.FormatException;
+import io.scif.ImageMetadata;
+import io.scif.Plane;
+import io.scif.Reader;
+import io.scif.Writer;
+import io.scif.config.SCIFIOConfig;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import net.imagej.axis.Axes;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+
+import org.scijava.AbstractContextual;
+import org.scijava.Context;
+import org.scijava.app.StatusService;
+import org.scijava.plugin.Parameter;
+import org.scijava.thread.ThreadService;
+
+/**
+ * Copies the pixels of a {@link Reader} to a {@link Writer} as a staged
+ * pipeline: planes are read, optionally passed through a filter, and saved,
+ * with each stage on its own threads and bounded queues between them.
+ * <p>
+ * Reading is done on a single thread, as a {@code Reader} works from a single
+ * handle; decoding happens as part of each read. Filtering runs on
+ * {@link #setFilterThreads} threads, which hand the planes on to saving in
+ * the order they were read. If the writer
+ * {@link Writer#canSaveConcurrently() can save concurrently}, saving - and so
+ * encoding - runs on {@link #setWriterThreads} threads; otherwise planes are
+ * saved in order on one thread.
+ * </p>
+ * <p>
+ * Planes larger than {@link #setMaxRegionBytes} are split into bands of rows
+ * when the writer {@link Writer#canSaveRegions() can save regions}, so that
+ * large images flow through the pipeline in tile-sized work units.
+ * </p>
+ * <p>
+ * Progress is reported to the {@link StatusService}, and throughput can be
+ * queried once (or while) a conversion runs.
+ * </p>
+ */
+public class ConversionPipeline extends AbstractContextual {
+
+	// -- Constants --
+
+	/** Default size above which planes are split into bands of rows. */
+	public static final long DEFAULT_REGION_BYTES = 16 * 1024 * 1024;
+
+	/** Marks the end of the work units on a queue. */
+	private static final Unit END = new Unit(-1, -1, -1, null, null);
+
+	// -- Fields --
+
+	@Parameter
+	private ThreadService threadService;
+
+	@Parameter(required = false)
+	private StatusService statusService;
+
+	private int filterThreads = Runtime.getRuntime().availableProcessors();
+
+	private int writerThreads = Runtime.getRuntime().availableProcessors();
+
+	private int queueCapacity = 2 * Runtime.getRuntime().availableProcessors();
+
+	private long maxRegionBytes = DEFAULT_REGION_BYTES;
+
+	private UnaryOperator<Plane> filter;
+
+	private final AtomicLong unitsDone = new AtomicLong();
+
+	private final AtomicLong bytesDone = new AtomicLong();
+
+	private volatile long unitCount;
+
+	private volatile long startTime;
+
+	private volatile long endTime;
+
+	// -- Constructors --
+
+	public ConversionPipeline(final Context context) {
+		setContext(context);
+	}
+
+	// -- ConversionPipeline methods --
+
+	/**
+	 * @param threads Number of threads applying the filter, if any.
+	 * @return This ConversionPipeline for method chaining.
+	 */
+	public ConversionPipeline setFilterThreads(final int threads) {
+		filterThreads = Math.max(1, threads);
+		return this;
+	}
+
+	/**
+	 * @param threads Number of threads saving planes, for writers which can save
+	 *          concurrently.
+	 * @return This ConversionPipeline for method chaining.
+	 */
+	public ConversionPipeline setWriterThreads(final int threads) {
+		writerThreads = Math.max(1, threads);
+		return this;
+	}
+
+	/**
+	 * @param capacity Number of work units each queue between stages may hold.
+	 * @return This ConversionPipeline for method chaining.
+	 */
+	public ConversionPipeline setQueueCapacity(final int capacity) {
+		queueCapacity = Math.max(1, capacity);
+		return this;
+	}
+
+	/**
+	 * @param bytes Size above which planes are split into bands of rows, if the
+	 *          writer can save regions.
+	 * @return This ConversionPipeline for method chaining.
+	 */
+	public ConversionPipeline setMaxRegionBytes(final long bytes) {
+		maxRegionBytes = Math.max(1, bytes);
+		return this;
+	}
+
+	/**
+	 * @param filter Operation applied to each plane (or band) between reading
+	 *          and saving. It is called from several threads at once, and may
+	 *          return the given plane or a new one of the same dimensions.
+	 * @return This ConversionPipeline for method chaining.
+	 */
+	public ConversionPipeline setFilter(final UnaryOperator<Plane> filter) {
+		this.filter = filter;
+		return this;
+	}
+
+	/** @return Number of work units in the current or last conversion. */
+	public long getUnitCount() {
+		return unitCount;
+	}
+
+	/** @return Number of work units saved so far. */
+	public long getUnitsDone() {
+		return unitsDone.get();
+	}
+
+	/** @return Number of pixel bytes saved so far. */
+	public long getBytesDone() {
+		return bytesDone.get();
+	}
+
+	/** @return Time spent on the current or last conversion, in milliseconds. */
+	public long getElapsedTime() {
+		if (startTime == 0) return 0;
+		final long end = endTime == 0 ? System.nanoTime() : endTime;
+		return (end - startTime) / 1000000;
+	}
+
+	/** @return Pixel bytes saved per second. */
+	public double getThroughput() {
+		final long elapsed = getElapsedTime();
+		return elapsed == 0 ? 0 : bytesDone.get() * 1000.0 / elapsed;
+	}
+
+	/**
+	 * Writes all of the images obtained from the specified Reader into the
+	 * specified Writer. Neither is closed.
+	 *
+	 * @param input the pre-initialized Reader used for reading data.
+	 * @param output the Writer, with its metadata and destination set, used for
+	 *          writing data.
+	 * @param config {@link SCIFIOConfig} to use for the reading.
+	 * @throws FormatException if there is a general problem reading from or
+	 *           writing to one of the files.
+	 * @throws IOException if there is an I/O-related error.
+	 */
+	public void convert(final Reader input, final Writer output,
+		final SCIFIOConfig config) throws FormatException, IOException
+	{
+		final List<Unit> units = units(input, output);
+		unitCount = units.size();
+		unitsDone.set(0);
+		bytesDone.set(0);
+		endTime = 0;
+		startTime = System.nanoTime();
+
+		final BlockingQueue<Unit> writeQueue = new ArrayBlockingQueue<>(
+			queueCapacity);
+		final BlockingQueue<Unit> filterQueue = filter == null ? writeQueue
+			: new ArrayBlockingQueue<>(queueCapacity);
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+		final List<Future<?>> futures = Collections.synchronizedList(
+			new ArrayList<>());
+
+		// read stage
+		submit(futures, failure, () -> {
+			for (final Unit unit : units) {
+				unit.plane = input.openPlane(unit.imageIndex, unit.planeIndex,
+					unit.readBounds, config);
+				filterQueue.put(unit);
+			}
+			filterQueue.put(END);
+			return null;
+		});
+
+		// filter stage
+		if (filter != null) {
+			final AtomicInteger running = new AtomicInteger(filterThreads);
+			final Sequencer sequencer = new Sequencer(writeQueue);
+			for (int t = 0; t < filterThreads; t++) {
+				submit(futures, failure, () -> {
+					for (Unit unit = filterQueue.take(); unit != END; unit = filterQueue
+						.take())
+					{
+						unit.plane = filter.apply(unit.plane);
+						sequencer.put(unit);
+					}
+					filterQueue.put(END);
+					if (running.decrementAndGet() == 0) writeQueue.put(END);
+					return null;
+				});
+			}
+		}
+
+		// write stage
+		if (output.canSaveConcurrently()) {
+			for (int t = 0; t < writerThreads; t++) {
+				submit(futures, failure, () -> {
+					for (Unit unit = writeQueue.take(); unit != END; unit = writeQueue
+						.take())
+					{
+						save(output, unit);
+					}
+					writeQueue.put(END);
+					return null;
+				});
+			}
+		}
+		else {
+			submit(futures, failure, () -> {
+				for (Unit unit = writeQueue.take(); unit != END; unit = writeQueue
+					.take())
+				{
+					save(output, unit);
+				}
+				return null;
+			});
+		}
+
+		// a stage may have failed before all of them were submitted
+		if (failure.get() != null) cancel(futures);
+
+		try {
+			for (final Future<?> future : futures) {
+				try {
+					future.get();
+				}
+				catch (final ExecutionException | CancellationException e) {
+					// recorded as the failure by the failing stage
+				}
+			}
+		}
+		catch (final InterruptedException e) {
+			cancel(futures);
+			throw new IOException(e);
+		}
+		finally {
+			endTime = System.nanoTime();
+		}
+
+		final Throwable cause = failure.get();
+		if (cause == null) return;
+		if (cause instanceof FormatException) throw (FormatException) cause;
+		if (cause instanceof IOException) throw (IOException) cause;
+		if (cause instanceof InterruptedException) throw new IOException(cause);
+		if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+		if (cause instanceof Error) throw (Error) cause;
+		throw new FormatException(cause);
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Runs a stage, cancelling every other stage if it fails so that none is
+	 * left blocked on a queue.
+	 */
+	private void submit(final List<Future<?>> futures,
+		final AtomicReference<Throwable> failure, final Callable<Void> stage)
+	{
+		futures.add(threadService.run(() -> {
+			try {
+				return stage.call();
+			}
+			catch (final Throwable t) {
+				if (failure.compareAndSet(null, t)) cancel(futures);
+				throw t;
+			}
+		}));
+	}
+
+	private void cancel(final List<Future<?>> futures) {
+		synchronized (futures) {
+			for (final Future<?> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	private void save(final Writer output, final Unit unit)
+		throws FormatException, IOException
+	{
+		if (unit.writeBounds == null) {
+			output.savePlane(unit.imageIndex, unit.planeIndex, unit.plane);
+		}
+		else {
+			output.savePlane(unit.imageIndex, unit.planeIndex, unit.plane,
+				unit.writeBounds);
+		}
+		final long done = unitsDone.incrementAndGet();
+		bytesDone.addAndGet(unit.plane.getBytes().length);
+		unit.plane = null;
+		if (statusService != null) {
+			statusService.showStatus((int) done, (int) unitCount, "Converted " +
+				done + "/" + unitCount);
+		}
+	}
+
+	/**
+	 * Lists the work units of a conversion in saving order: whole planes, or
+	 * bands of rows of planes larger than {@link #maxRegionBytes}.
+	 */
+	private List<Unit> units(final Reader input, final Writer output) {
+		final List<Unit> units = new ArrayList<>();
+		final boolean regions = output.canSaveRegions();
+		for (int i = 0; i < input.getImageCount(); i++) {
+			final ImageMetadata inMeta = input.getMetadata().get(i);
+			final long planeCount = input.getPlaneCount(i);
+			final long planeSize = inMeta.getPlaneSize();
+			final long height = inMeta.getAxisLength(Axes.Y);
+			long bandHeight = height;
+			if (regions && planeSize > maxRegionBytes && height > 1) {
+				final long rowSize = Math.max(1, planeSize / height);
+				bandHeight = Math.max(1, maxRegionBytes / rowSize);
+				final long tileHeight = input.getOptimalTileHeight(i);
+				if (tileHeight > 0 && bandHeight > tileHeight) {
+					bandHeight -= bandHeight % tileHeight;
+				}
+			}
+			final long[] inLengths = inMeta.getAxesLengthsPlanar();
+			final long[] outLengths = output.getMetadata().get(i)
+				.getAxesLengthsPlanar();
+			final int inY = inMeta.getAxisIndex(Axes.Y);
+			final int outY = output.getMetadata().get(i).getAxisIndex(Axes.Y);
+			for (long j = 0; j < planeCount; j++) {
+				if (bandHeight == height) {
+					units.add(new Unit(units.size(), i, j, new FinalInterval(inLengths),
+						null));
+					continue;
+				}
+				for (long y = 0; y < height; y += bandHeight) {
+					final long h = Math.min(bandHeight, height - y);
+					units.add(new Unit(units.size(), i, j, band(inLengths, inY, y, h),
+						band(outLengths, outY, y, h)));
+				}
+			}
+		}
+		return units;
+	}
+
+	private static Interval band(final long[] lengths, final int yAxis,
+		final long y, final long h)
+	{
+		final long[] min = new long[lengths.length];
+		final long[] max = new long[lengths.length];
+		for (int d = 0; d < lengths.length; d++) {
+			max[d] = lengths[d] - 1;
+		}
+		min[yAxis] = y;
+		max[yAxis] = y + h - 1;
+		return new FinalInterval(min, max);
+	}
+
+	// -- Helper classes --
+
+	/**
+	 * Hands units finished out of order, by several filter threads, on to a
+	 * queue in their saving order.
+	 */
+	private static class Sequencer {
+
+		private final BlockingQueue<Unit> queue;
+
+		private final TreeMap<Long, Unit> pending = new TreeMap<>();
+
+		private long next;
+
+		private Sequencer(final BlockingQueue<Unit> queue) {
+			this.queue = queue;
+		}
+
+		private synchronized void put(final Unit unit) throws InterruptedException {
+			pending.put(unit.sequence, unit);
+			for (Unit ready = pending.remove(next); ready != null; ready = pending
+				.remove(next))
+			{
+				queue.put(ready);
+				next++;
+			}
+		}
+	}
+
+	/** A plane, or band of a plane, on its way through the pipeline. */
+	private static class Unit {
+
+		private final long sequence;
+
+		private final int imageIndex;
+
+		private final long planeIndex;
+
+		private final Interval readBounds;
+
+		private final Interval writeBounds;
+
+		private Plane plane;
+
+		private Unit(final long sequence, final int imageIndex,
+			final long planeIndex, final Interval readBounds,
+			final Interval writeBounds)
+		{
+			this.sequence = sequence;
+			this.imageIndex = imageIndex;
+			this.planeIndex = planeIndex;
+			this.readBounds = readBounds;
+			this.writeBounds = writeBounds;
+		}
+	}
+}
@@ -29,6 +29,7 @@
 
 package io.scif.filters;
 
+import io.scif.ByteArrayReader;
 import io.scif.Format;
 import io.scif.FormatException;
 import io.scif.ImageMetadata;
@@ -36,10 +37,11 @@ import io.scif.Metadata;
 import io.scif.Plane;
 import io.scif.Reader;
 import io.scif.config.SCIFIOConfig;
+import io.scif.services.PlanePoolService;
+import io.scif.util.SCIFIOMetadataTools;
 
 import java.io.IOException;
 
-import net.imglib2.FinalInterval;
 import net.imglib2.Interval;
 
 import org.scijava.Context;
@@ -78,9 +80,18 @@ public abstract class AbstractReaderFilter extends AbstractFilter<Reader>
 
 	private final Class<? extends MetadataWrapper> metaClass;
 
+	/* Whether this filter is a fork, sharing its parent's Metadata */
+	private boolean forked;
+
+	/* Bounds of a whole plane of each image, reused from call to call */
+	private Interval[] planarBounds;
+
 	@Parameter
 	private PluginService pluginService;
 
+	@Parameter(required = false)
+	private PlanePoolService planePool;
+
 	// -- Constructor --
 
 	public AbstractReaderFilter() {
@@ -135,6 +146,81 @@ public abstract class AbstractReaderFilter extends AbstractFilter<Reader>
 	 */
 	protected void readPlaneHelper() {}
 
+	/**
+	 * Creates a plane for the given bounds, drawing it from the
+	 * {@link PlanePoolService} when the configuration asks for pooled planes
+	 * and the underlying reader opens byte array planes.
+	 */
+	protected Plane createPlane(final ImageMetadata meta, final Interval bounds,
+		final SCIFIOConfig config)
+	{
+		if (isPooled(config)) return planePool.takePlane(meta, bounds);
+		return createPlane(meta, bounds);
+	}
+
+	/**
+	 * Whether the planes opened with the given configuration are drawn from the
+	 * {@link PlanePoolService}.
+	 */
+	protected boolean isPooled(final SCIFIOConfig config) {
+		if (planePool == null || !config.readerIsPooledPlanes()) return false;
+		Reader reader = getParent();
+		while (reader instanceof AbstractReaderFilter) {
+			reader = ((AbstractReaderFilter) reader).getParent();
+		}
+		return reader instanceof ByteArrayReader;
+	}
+
+	/**
+	 * Returns a plane this filter drew from the {@link PlanePoolService} and is
+	 * done with.
+	 */
+	protected void recycle(final Plane plane) {
+		if (planePool != null && plane != null) planePool.recycle(plane);
+	}
+
+	/**
+	 * Carries the configuration of this filter over to the given fork, a fresh
+	 * instance of this filter wrapping a fork of this filter's parent. By default
+	 * copies the image metadata of this filter's {@link MetadataWrapper}, if any.
+	 * Filters with further settings should override this method to copy them as
+	 * well.
+	 */
+	protected void configureFork(final AbstractReaderFilter fork) {
+		if (!(wrappedMeta instanceof MetadataWrapper)) return;
+		final MetadataWrapper forkMeta = (MetadataWrapper) fork.getMetadata();
+		forkMeta.createImageMetadata(0);
+		for (final ImageMetadata image : wrappedMeta.getAll()) {
+			forkMeta.add(image.copy(), false);
+		}
+	}
+
+	/**
+	 * Marks the given filter as a fork of this one and configures it like this
+	 * filter.
+	 */
+	void forkInto(final AbstractReaderFilter fork) {
+		fork.forked = true;
+		configureFork(fork);
+	}
+
+	/**
+	 * Maps an image index of this filter to the index of the same image in the
+	 * parent. Filters which reorder or merge images override this method and
+	 * {@link #fromParentImageIndex}; by default images are passed through.
+	 */
+	protected int toParentImageIndex(final int imageIndex) {
+		return imageIndex;
+	}
+
+	/**
+	 * Maps an image index of the parent to the index of the same image in this
+	 * filter.
+	 */
+	protected int fromParentImageIndex(final int imageIndex) {
+		return imageIndex;
+	}
+
 	/**
 	 * Convenience accessor for the parent's Metadata
 	 */
@@ -191,21 +277,21 @@ public abstract class AbstractReaderFilter extends AbstractFilter<Reader>
 	public Plane openPlane(final int imageIndex, final long planeIndex)
 		throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
 	public Plane openPlane(final int imageIndex, final long planeIndex,
 		final Interval bounds) throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, bounds, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, bounds, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
 	public Plane openPlane(final int imageIndex, final long planeIndex,
 		final Plane plane) throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, plane, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, plane, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
@@ -213,7 +299,8 @@ public abstract class AbstractReaderFilter extends AbstractFilter<Reader>
 		final Plane plane, final Interval bounds) throws FormatException,
 		IOException
 	{
-		return openPlane(imageIndex, planeIndex, plane, bounds, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, plane, bounds,
+			SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
@@ -251,6 +338,45 @@ public abstract class AbstractReaderFilter extends AbstractFilter<Reader>
 		return getParent().openPlane(imageIndex, planeIndex, plane, bounds, config);
 	}
 
+	@Override
+	public Plane openPlane(final int imageIndex, final int resolution,
+		final long planeIndex, final Interval bounds) throws FormatException,
+		IOException
+	{
+		return openPlane(imageIndex, resolution, planeIndex, bounds,
+			SCIFIOConfig.DEFAULT);
+	}
+
+	@Override
+	public Plane openPlane(final int imageIndex, final int resolution,
+		final long planeIndex, final Interval bounds, final SCIFIOConfig config)
+		throws FormatException, IOException
+	{
+		return openPlane(getResolutionImageIndex(imageIndex, resolution),
+			planeIndex, bounds, config);
+	}
+
+	@Override
+	public int getResolutionCount(final int imageIndex) {
+		return getParent().getResolutionCount(toParentImageIndex(imageIndex));
+	}
+
+	@Override
+	public int getResolutionImageIndex(final int imageIndex,
+		final int resolution)
+	{
+		return fromParentImageIndex(getParent().getResolutionImageIndex(
+			toParentImageIndex(imageIndex), resolution));
+	}
+
+	@Override
+	public long[] getResolutionLengths(final int imageIndex,
+		final int resolution)
+	{
+		return getMetadata().get(getResolutionImageIndex(imageIndex, resolution))
+			.getAxesLengthsPlanar();
+	}
+
 	@Override
 	public int fileGroupOption(final Location id) throws FormatException,
 		IOException
@@ -273,6 +399,21 @@ public abstract class AbstractReaderFilter extends AbstractFilter<Reader>
 		return getParent().getHandle();
 	}
 
+	@Override
+	public Reader fork() throws FormatException, IOException {
+		final AbstractReaderFilter fork;
+		try {
+			fork = getClass().newInstance();
+		}
+		catch (InstantiationException | IllegalAccessException e) {
+			throw new FormatException("Failed to fork filter: " + getClass(), e);
+		}
+		getContext().inject(fork);
+		fork.setParent(getParent().fork());
+		forkInto(fork);
+		return fork;
+	}
+
 	@Override
 	public long getOptimalTileWidth(final int imageIndex) {
 		return getParent().getOptimalTileWidth(imageIndex);
@@ -344,7 +485,8 @@ public abstract class AbstractReaderFilter extends AbstractFilter<Reader>
 	public void close(final boolean fileOnly) throws IOException {
 		getParent().close(fileOnly);
 		if (wrappedMeta != null) {
-			wrappedMeta.close(fileOnly);
+			// NB: a fork's Metadata wraps that of the reader it was forked from
+			if (!forked) wrappedMeta.close(fileOnly);
 			wrappedMeta = null;
 		}
 		if (!fileOnly) cleanUp();
@@ -451,8 +593,13 @@ public abstract class AbstractReaderFilter extends AbstractFilter<Reader>
 	}
 
 	protected Interval planarBounds(final int imageIndex) {
-		final Interval bounds = //
-			new FinalInterval(getMetadata().get(imageIndex).getAxesLengthsPlanar());
+		final Metadata meta = getMetadata();
+		if (planarBounds == null || planarBounds.length != meta.getImageCount()) {
+			planarBounds = new Interval[meta.getImageCount()];
+		}
+		final Interval bounds = SCIFIOMetadataTools.planarBounds(meta.get(
+			imageIndex), planarBounds[imageIndex]);
+		planarBounds[imageIndex] = bounds;
 		return bounds;
 	}
 }
@@ -31,10 +31,12 @@ package io.scif.filters;
 
 import io.scif.ByteArrayPlane;
 import io.scif.ByteArrayReader;
+import io.scif.ByteBufferPlane;
 import io.scif.FormatException;
 import io.scif.ImageMetadata;
 import io.scif.Plane;
 import io.scif.config.SCIFIOConfig;
+import io.scif.util.FormatTools;
 
 import java.io.IOException;
 
@@ -77,6 +79,9 @@ public class ChannelFiller extends AbstractReaderFilter {
 	/** Bounds of last plane opened. */
 	private Interval lastPlaneBounds = null;
 
+	/** Whether the cached plane was drawn from the plane pool by this filter. */
+	private boolean lastPlaneOwned;
+
 	// -- Constructor --
 
 	public ChannelFiller() {
@@ -96,21 +101,21 @@ public class ChannelFiller extends AbstractReaderFilter {
 	public Plane openPlane(final int imageIndex, final long planeIndex)
 		throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
 	public Plane openPlane(final int imageIndex, final long planeIndex,
 		final Plane plane) throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, plane, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, plane, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
 	public Plane openPlane(final int imageIndex, final long planeIndex,
 		final Interval bounds) throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, bounds, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, bounds, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
@@ -118,7 +123,8 @@ public class ChannelFiller extends AbstractReaderFilter {
 		final Plane plane, final Interval bounds) throws FormatException,
 		IOException
 	{
-		return openPlane(imageIndex, planeIndex, plane, bounds, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, plane, bounds,
+			SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
@@ -143,7 +149,8 @@ public class ChannelFiller extends AbstractReaderFilter {
 		final Interval bounds, final SCIFIOConfig config) throws FormatException,
 		IOException
 	{
-		final Plane plane = createPlane(getMetadata().get(imageIndex), bounds);
+		final Plane plane = createPlane(getMetadata().get(imageIndex), bounds,
+			config);
 		return openPlane(imageIndex, planeIndex, plane, bounds, config);
 	}
 
@@ -157,16 +164,30 @@ public class ChannelFiller extends AbstractReaderFilter {
 		if (getParentMeta().get(imageIndex).isFalseColor() || !getParentMeta().get(
 			imageIndex).isIndexed())
 		{
+			// Pooled planes are recycled by the caller, and buffer planes are
+			// filled in place, so neither can be cached
+			if (isPooled(config) || plane instanceof ByteBufferPlane) {
+				dropLastPlane();
+				return getParent().openPlane(imageIndex, planeIndex, plane, bounds,
+					config);
+			}
 			if (!haveCached(imageIndex, planeIndex, bounds)) {
 				lastPlaneBounds = new FinalInterval(bounds);
 				lastPlaneIndex = planeIndex;
 				lastImageIndex = imageIndex;
+				dropLastPlane();
 				lastPlane = getParent().openPlane(imageIndex, planeIndex, plane, bounds,
 					config);
 			}
 			return lastPlane;
 		}
 
+		// Buffer planes may be too large for an array, so are expanded by bands
+		if (plane instanceof ByteBufferPlane) {
+			return FormatTools.openBufferPlane(this, imageIndex, planeIndex,
+				(ByteBufferPlane) plane, bounds, config);
+		}
+
 		// If we have the cached base plane we can use it to expand, otherwise
 		// we'll have to open the plane still.
 		final int lutLength = ((ChannelFillerMetadata) getMetadata())
@@ -176,8 +197,10 @@ public class ChannelFiller extends AbstractReaderFilter {
 			updateLastPlaneInfo(imageIndex, lutLength, bounds);
 
 			// Now we can read the desired plane
+			dropLastPlane();
 			lastPlane = getParent().openPlane(imageIndex, planeIndex, //
 				lastPlaneBounds, config);
+			lastPlaneOwned = isPooled(config);
 			lastPlaneIndex = planeIndex;
 			lastImageIndex = imageIndex;
 
@@ -268,6 +291,15 @@ public class ChannelFiller extends AbstractReaderFilter {
 		lastPlaneBounds = new FinalInterval(min, max);
 	}
 
+	/**
+	 * Clears the cached plane, recycling it if it was drawn from the plane pool.
+	 */
+	private void dropLastPlane() {
+		if (lastPlaneOwned) recycle(lastPlane);
+		lastPlane = null;
+		lastPlaneOwned = false;
+	}
+
 	/**
 	 * Returns true if we have a cached copy of the requested plane available.
 	 */
@@ -288,7 +320,7 @@ public class ChannelFiller extends AbstractReaderFilter {
 		super.cleanUp();
 		lastPlaneIndex = 0;
 		lastImageIndex = 0;
-		lastPlane = null;
+		dropLastPlane();
 		lastPlaneBounds = null;
 	}
 }
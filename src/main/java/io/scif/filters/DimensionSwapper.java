@@ -182,27 +182,41 @@ public class DimensionSwapper extends AbstractReaderFilter {
 		}
 	}
 
+	@Override
+	protected void configureFork(final AbstractReaderFilter fork) {
+		super.configureFork(fork);
+		if (!metaCheck()) return;
+		final List<AxisType>[] outputOrder =
+			((DimensionSwapperMetadata) getMetadata()).getOutputOrder();
+		if (outputOrder == null) return;
+		final List<AxisType>[] forkOrder = outputOrder.clone();
+		for (int i = 0; i < forkOrder.length; i++) {
+			if (forkOrder[i] != null) forkOrder[i] = new ArrayList<>(forkOrder[i]);
+		}
+		((DimensionSwapperMetadata) fork.getMetadata()).setOutputOrder(forkOrder);
+	}
+
 	// -- Reader API methods --
 
 	@Override
 	public Plane openPlane(final int imageIndex, final long planeIndex)
 		throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
 	public Plane openPlane(final int imageIndex, final long planeIndex,
 		final Plane plane) throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, plane, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, plane, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
 	public Plane openPlane(final int imageIndex, final long planeIndex,
 		final Interval bounds) throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, bounds, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, bounds, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
@@ -210,7 +224,8 @@ public class DimensionSwapper extends AbstractReaderFilter {
 		final Plane plane, final Interval bounds) throws FormatException,
 		IOException
 	{
-		return openPlane(imageIndex, planeIndex, plane, bounds, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, plane, bounds,
+			SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
@@ -32,6 +32,7 @@ package io.scif.filters;
 import io.scif.AxisGuesser;
 import io.scif.ByteArrayPlane;
 import io.scif.ByteArrayReader;
+import io.scif.ByteBufferPlane;
 import io.scif.FilePattern;
 import io.scif.FormatException;
 import io.scif.ImageMetadata;
@@ -343,6 +344,23 @@ public class FileStitcher extends AbstractReaderFilter {
 		}
 	}
 
+	@Override
+	protected void configureFork(final AbstractReaderFilter fork) {
+		final FileStitcher stitcher = (FileStitcher) fork;
+		stitcher.patternIds = patternIds;
+		stitcher.doNotChangePattern = doNotChangePattern;
+		stitcher.planesPerFile = planesPerFile == null ? null : planesPerFile
+			.clone();
+		stitcher.pattern = pattern;
+		stitcher.noStitch = noStitch;
+		stitcher.totalPlanes = totalPlanes;
+		stitcher.localFiles = localFiles == null ? null : localFiles.clone();
+
+		final ImageMetadata imgMeta = getMetadata().get(0);
+		((FileStitcherMetadata) stitcher.getMetadata()).setImgMeta(imgMeta == null
+			? null : imgMeta.copy());
+	}
+
 	// -- Filter API Methods --
 
 	/**
@@ -360,12 +378,32 @@ public class FileStitcher extends AbstractReaderFilter {
 		return totalPlanes;
 	}
 
+	@Override
+	public int getResolutionCount(final int imageIndex) {
+		// NB: the stitched image has no reduced resolution levels
+		if (noStitch) return super.getResolutionCount(imageIndex);
+		return 1;
+	}
+
+	@Override
+	public int getResolutionImageIndex(final int imageIndex,
+		final int resolution)
+	{
+		if (noStitch) return super.getResolutionImageIndex(imageIndex, resolution);
+		if (imageIndex != 0 || resolution != 0) {
+			throw new IllegalArgumentException("Invalid resolution level " +
+				resolution + " for image " + imageIndex);
+		}
+		return 0;
+	}
+
 	@Override
 	public Plane openPlane(final int imageIndex, final long planeIndex,
 		final Interval bounds, final SCIFIOConfig config) throws FormatException,
 		IOException
 	{
-		final Plane plane = createPlane(getMetadata().get(imageIndex), bounds);
+		final Plane plane = createPlane(getMetadata().get(imageIndex), bounds,
+			config);
 		return openPlane(imageIndex, planeIndex, plane, bounds, config);
 	}
 
@@ -388,10 +426,13 @@ public class FileStitcher extends AbstractReaderFilter {
 
 		// Check for plane compatibility
 		Plane bp;
-		if (!isCompatible(plane.getClass())) {
-			bp = new ByteArrayPlane();
-			bp.populate(plane);
-			((ByteArrayPlane) bp).setData(new byte[plane.getBytes().length]);
+		if (!(plane instanceof ByteArrayPlane ||
+			plane instanceof ByteBufferPlane))
+		{
+			bp = isPooled(config) ? createPlane(plane.getImageMetadata(), plane
+				.getBounds(), config) : new ByteArrayPlane().populate(plane
+					.getImageMetadata(), new byte[plane.getBytes().length], plane
+						.getBounds());
 		}
 		else bp = plane;
 
@@ -408,7 +449,15 @@ public class FileStitcher extends AbstractReaderFilter {
 
 		// return a blank image to cover for the fact that
 		// this file does not contain enough image planes
-		Arrays.fill(bp.getBytes(), (byte) 0);
+		if (bp instanceof ByteBufferPlane) {
+			final ByteBufferPlane buffer = (ByteBufferPlane) bp;
+			final byte[] zeros = new byte[(int) Math.min(buffer.getSize(), 1 << 16)];
+			for (long i = 0; i < buffer.getSize(); i += zeros.length) {
+				buffer.put(i, zeros, 0, (int) Math.min(zeros.length, buffer.getSize() -
+					i));
+			}
+		}
+		else Arrays.fill(bp.getBytes(), (byte) 0);
 		return bp;
 	}
 
@@ -29,9 +29,9 @@
 
 package io.scif.filters;
 
+import io.scif.ByteBufferPlane;
 import io.scif.FormatException;
 import io.scif.ImageMetadata;
-import io.scif.Metadata;
 import io.scif.Plane;
 import io.scif.config.SCIFIOConfig;
 import io.scif.util.FormatTools;
@@ -45,7 +45,6 @@ import java.util.Map;
 
 import net.imagej.axis.AxisType;
 import net.imagej.axis.CalibratedAxis;
-import net.imglib2.FinalInterval;
 import net.imglib2.Interval;
 import net.imglib2.util.Intervals;
 
@@ -60,6 +59,11 @@ import org.scijava.util.Bytes;
 @Plugin(type = Filter.class)
 public class MinMaxFilter extends AbstractReaderFilter {
 
+	// -- Constants --
+
+	/** Size of the chunks in which buffer planes are scanned, in bytes. */
+	private static final int CHUNK_BYTES = 1 << 20;
+
 	// -- Fields --
 
 	/**
@@ -164,21 +168,21 @@ public class MinMaxFilter extends AbstractReaderFilter {
 	public Plane openPlane(final int imageIndex, final long planeIndex)
 		throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
 	public Plane openPlane(final int imageIndex, final long planeIndex,
 		final Plane plane) throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, plane, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, plane, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
 	public Plane openPlane(final int imageIndex, final long planeIndex,
 		final Interval bounds) throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, bounds, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, bounds, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
@@ -186,15 +190,15 @@ public class MinMaxFilter extends AbstractReaderFilter {
 		final Plane plane, final Interval bounds) throws FormatException,
 		IOException
 	{
-		return openPlane(imageIndex, planeIndex, plane, bounds, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, plane, bounds,
+			SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
 	public Plane openPlane(final int imageIndex, final long planeIndex,
 		final SCIFIOConfig config) throws FormatException, IOException
 	{
-		final Interval bounds = new FinalInterval(//
-			getMetadata().get(imageIndex).getAxesLengthsPlanar());
+		final Interval bounds = planarBounds(imageIndex);
 		return openPlane(imageIndex, planeIndex, bounds, config);
 	}
 
@@ -203,8 +207,7 @@ public class MinMaxFilter extends AbstractReaderFilter {
 		final Plane plane, final SCIFIOConfig config) throws FormatException,
 		IOException
 	{
-		final Interval bounds = new FinalInterval(//
-			getMetadata().get(imageIndex).getAxesLengthsPlanar());
+		final Interval bounds = planarBounds(imageIndex);
 		return openPlane(imageIndex, planeIndex, plane, bounds, config);
 	}
 
@@ -213,7 +216,8 @@ public class MinMaxFilter extends AbstractReaderFilter {
 		final Interval bounds, final SCIFIOConfig config) throws FormatException,
 		IOException
 	{
-		final Plane plane = createPlane(bounds);
+		final Plane plane = createPlane(getMetadata().get(imageIndex), bounds,
+			config);
 		return openPlane(imageIndex, planeIndex, plane, bounds, config);
 	}
 
@@ -227,8 +231,11 @@ public class MinMaxFilter extends AbstractReaderFilter {
 
 		final int bytesPerPixel = FormatTools.getBytesPerPixel(//
 			getMetadata().get(imageIndex).getPixelType());
-		final int len = (int) (bytesPerPixel * Intervals.numElements(bounds));
-		updateMinMax(imageIndex, planeIndex, plane.getBytes(), len);
+		final long len = bytesPerPixel * Intervals.numElements(bounds);
+		if (plane instanceof ByteBufferPlane) {
+			updateMinMax(imageIndex, planeIndex, (ByteBufferPlane) plane, len);
+		}
+		else updateMinMax(imageIndex, planeIndex, plane.getBytes(), (int) len);
 		return plane;
 	}
 
@@ -264,27 +271,74 @@ public class MinMaxFilter extends AbstractReaderFilter {
 	private void updateMinMax(final int imageIndex, final long planeIndex,
 		final byte[] buf, final int len)
 	{
-		if (buf == null) return;
+		if (buf == null || !startMinMax(imageIndex, planeIndex, len)) return;
+		final int bpp = FormatTools.getBytesPerPixel(getMetadata().get(imageIndex)
+			.getPixelType());
+		scanMinMax(imageIndex, planeIndex, buf, 0, len / bpp);
+		finishMinMax(imageIndex, planeIndex);
+	}
+
+	/**
+	 * Updates min/max values based on the given buffer plane, which is scanned
+	 * in chunks rather than copied whole, as it may not fit in an array.
+	 *
+	 * @param imageIndex the image index within the dataset
+	 * @param planeIndex the plane index within the image.
+	 * @param plane the plane holding the pixels.
+	 * @param len the length (in bytes) of the pixels.
+	 */
+	private void updateMinMax(final int imageIndex, final long planeIndex,
+		final ByteBufferPlane plane, final long len)
+	{
+		if (!startMinMax(imageIndex, planeIndex, len)) return;
+		final int bpp = FormatTools.getBytesPerPixel(getMetadata().get(imageIndex)
+			.getPixelType());
+		final byte[] chunk = new byte[(int) Math.min(len, CHUNK_BYTES)];
+		for (long off = 0; off < len; off += chunk.length) {
+			final int n = (int) Math.min(chunk.length, len - off);
+			plane.get(off, chunk, 0, n);
+			scanMinMax(imageIndex, planeIndex, chunk, off / bpp, n / bpp);
+		}
+		finishMinMax(imageIndex, planeIndex);
+	}
+
+	/**
+	 * Resets the min/max values of the given plane before it is scanned.
+	 *
+	 * @return false if they were already computed from the entire plane.
+	 */
+	private boolean startMinMax(final int imageIndex, final long planeIndex,
+		final long len)
+	{
 		initMinMax();
 
-		final Metadata m = getMetadata();
-		final ImageMetadata iMeta = m.get(imageIndex);
-		final int pixelType = iMeta.getPixelType();
-		final int bpp = FormatTools.getBytesPerPixel(pixelType);
-		final long planeSize = iMeta.getPlaneSize();
+		final long planeSize = getMetadata().get(imageIndex).getPlaneSize();
 		// check whether min/max values have already been computed for this
 		// plane
 		// and that the buffer requested is actually the entire plane
 		if (len == planeSize && !Double.isNaN(
-			planeMins[imageIndex][(int) planeIndex])) return;
-
-		final boolean little = iMeta.isLittleEndian();
-
-		final int pixels = len / bpp;
+			planeMins[imageIndex][(int) planeIndex])) return false;
 
 		// populate the plane min/max to default values
 		planeMins[imageIndex][(int) planeIndex] = Double.POSITIVE_INFINITY;
 		planeMaxs[imageIndex][(int) planeIndex] = Double.NEGATIVE_INFINITY;
+		return true;
+	}
+
+	/**
+	 * Updates the min/max values of the given plane with some of its pixels.
+	 *
+	 * @param buf the bytes of the pixels.
+	 * @param first the index of the first pixel within the plane.
+	 * @param pixels the number of pixels.
+	 */
+	private void scanMinMax(final int imageIndex, final long planeIndex,
+		final byte[] buf, final long first, final int pixels)
+	{
+		final ImageMetadata iMeta = getMetadata().get(imageIndex);
+		final int pixelType = iMeta.getPixelType();
+		final int bpp = FormatTools.getBytesPerPixel(pixelType);
+		final boolean little = iMeta.isLittleEndian();
 
 		final boolean signed = FormatTools.isSigned(pixelType);
 		final long threshold = (long) Math.pow(2, bpp * 8 - 1);
@@ -306,7 +360,7 @@ public class MinMaxFilter extends AbstractReaderFilter {
 
 			// Update the appropriate planar axis min/max if necessary
 			final long[] planarPositions = FormatTools.rasterToPosition(iMeta
-				.getAxesLengthsPlanar(), i);
+				.getAxesLengthsPlanar(), first + i);
 
 			for (int axis = 0; axis < planarPositions.length; axis++) {
 				final AxisType type = iMeta.getAxis(axis).type();
@@ -328,7 +382,10 @@ public class MinMaxFilter extends AbstractReaderFilter {
 				planeMins[imageIndex][(int) planeIndex] = v;
 			}
 		}
+	}
 
+	/** Marks the given plane as scanned. */
+	private void finishMinMax(final int imageIndex, final long planeIndex) {
 		// Set the number of planes complete for this image
 		minMaxDone[imageIndex] = Math.max(minMaxDone[imageIndex], (int) planeIndex +
 			1);
@@ -30,6 +30,7 @@
 package io.scif.filters;
 
 import io.scif.ByteArrayPlane;
+import io.scif.ByteBufferPlane;
 import io.scif.FormatException;
 import io.scif.Metadata;
 import io.scif.Plane;
@@ -76,6 +77,9 @@ public class PlaneSeparator extends AbstractReaderFilter {
 	/** Lengths of last plane opened. */
 	private long[] lastPlaneMax = null;
 
+	/** Whether the last plane was drawn from the plane pool by this filter. */
+	private boolean lastPlaneOwned;
+
 	// -- Constructor --
 
 	public PlaneSeparator() {
@@ -127,6 +131,17 @@ public class PlaneSeparator extends AbstractReaderFilter {
 
 	// -- AbstractReaderFilter API Methods --
 
+	@Override
+	protected void configureFork(final AbstractReaderFilter fork) {
+		if (metaCheck()) {
+			final PlaneSeparatorMetadata meta = (PlaneSeparatorMetadata) getMetadata();
+			((PlaneSeparator) fork).separate(meta.unwrap().get(0).getAxes().stream()
+				.map(CalibratedAxis::type).filter(meta::splitting).toArray(
+					AxisType[]::new));
+		}
+		super.configureFork(fork);
+	}
+
 	@Override
 	public void setSource(final Location source) throws IOException {
 		cleanUp();
@@ -148,21 +163,21 @@ public class PlaneSeparator extends AbstractReaderFilter {
 	public Plane openPlane(final int imageIndex, final long planeIndex)
 		throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
 	public Plane openPlane(final int imageIndex, final long planeIndex,
 		final Plane plane) throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, plane, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, plane, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
 	public Plane openPlane(final int imageIndex, final long planeIndex,
 		final Interval bounds) throws FormatException, IOException
 	{
-		return openPlane(imageIndex, planeIndex, bounds, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, bounds, SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
@@ -170,7 +185,8 @@ public class PlaneSeparator extends AbstractReaderFilter {
 		final Plane plane, final Interval bounds) throws FormatException,
 		IOException
 	{
-		return openPlane(imageIndex, planeIndex, plane, bounds, new SCIFIOConfig());
+		return openPlane(imageIndex, planeIndex, plane, bounds,
+			SCIFIOConfig.DEFAULT);
 	}
 
 	@Override
@@ -195,7 +211,8 @@ public class PlaneSeparator extends AbstractReaderFilter {
 		final Interval bounds, final SCIFIOConfig config) throws FormatException,
 		IOException
 	{
-		final Plane plane = createPlane(getMetadata().get(imageIndex), bounds);
+		final Plane plane = createPlane(getMetadata().get(imageIndex), bounds,
+			config);
 		return openPlane(imageIndex, planeIndex, plane, bounds, config);
 	}
 
@@ -241,6 +258,12 @@ public class PlaneSeparator extends AbstractReaderFilter {
 				final int bpp = FormatTools.getBytesPerPixel(meta.get(imageIndex)
 					.getPixelType());
 
+				// Buffer planes may be too large for an array, so are split by bands
+				if (plane instanceof ByteBufferPlane) {
+					return FormatTools.openBufferPlane(this, imageIndex, planeIndex,
+						(ByteBufferPlane) plane, bounds, config);
+				}
+
 				// Need a byte array plane to copy data into
 				if (!ByteArrayPlane.class.isAssignableFrom(plane.getClass())) {
 					plane = new ByteArrayPlane(meta.get(imageIndex), bounds);
@@ -286,8 +309,10 @@ public class PlaneSeparator extends AbstractReaderFilter {
 							(i == strips - 1 ? lastStripHeight : stripHeight) - 1;
 
 						// Open the plane
+						dropLastPlane();
 						lastPlane = getParent().openPlane(imageIndex, (int) source,
 							new FinalInterval(lastPlaneMin, lastPlaneMax), config);
+						lastPlaneOwned = isPooled(config);
 						// store the color table
 						plane.setColorTable(lastPlane.getColorTable());
 
@@ -323,12 +348,22 @@ public class PlaneSeparator extends AbstractReaderFilter {
 				return plane;
 			}
 
+			// Pooled planes are recycled by the caller, and buffer planes are
+			// filled in place, so neither can be cached
+			if (isPooled(config) || plane instanceof ByteBufferPlane) {
+				dropLastPlane();
+				updateLastPlaneInfo(source, imageIndex, splitOffset, bounds);
+				return getParent().openPlane(imageIndex, planeIndex, plane,
+					new FinalInterval(lastPlaneMin, lastPlaneMax), config);
+			}
+
 			if (!haveCached(source, imageIndex, bounds)) {
 				// Convert the current positional information to the format of
 				// the
 				// parent
 				updateLastPlaneInfo(source, imageIndex, splitOffset, bounds);
 				// Delegate directly to the parent
+				dropLastPlane();
 				lastPlane = getParent().openPlane(imageIndex, planeIndex, plane,
 					new FinalInterval(lastPlaneMin, lastPlaneMax), config);
 			}
@@ -389,6 +424,15 @@ public class PlaneSeparator extends AbstractReaderFilter {
 		}
 	}
 
+	/**
+	 * Clears the cached plane, recycling it if it was drawn from the plane pool.
+	 */
+	private void dropLastPlane() {
+		if (lastPlaneOwned) recycle(lastPlane);
+		lastPlane = null;
+		lastPlaneOwned = false;
+	}
+
 	/**
 	 * Returns true if we have a cached plane matching the given image and plane
 	 * indices, with extents to cover the desired offsets and lengths
@@ -415,7 +459,7 @@ public class PlaneSeparator extends AbstractReaderFilter {
 	@Override
 	protected void cleanUp() throws IOException {
 		super.cleanUp();
-		lastPlane = null;
+		dropLastPlane();
 		lastPlaneIndex = -1;
 		lastImageIndex = -1;
 		lastPlaneMin = null;
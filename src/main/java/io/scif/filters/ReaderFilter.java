@@ -29,9 +29,13 @@
 
 package io.scif.filters;
 
+import io.scif.FormatException;
 import io.scif.Metadata;
 import io.scif.Reader;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -103,4 +107,49 @@ public class ReaderFilter extends AbstractReaderFilter implements
 	public Metadata getMetadata() {
 		return fHelper.getParent().getMetadata();
 	}
+
+	/**
+	 * Forks the wrapped reader and wraps the fork in the same filters, with the
+	 * same configuration, as this reader.
+	 */
+	@Override
+	public Reader fork() throws FormatException, IOException {
+		final ReaderFilter fork = new ReaderFilter(getTail().fork());
+		for (final AbstractReaderFilter filter : enabledFilters(fork)) {
+			fork.disable(filter.getClass());
+		}
+
+		final List<AbstractReaderFilter> filters = enabledFilters(this);
+		final List<AbstractReaderFilter> forks = new ArrayList<>();
+		for (final AbstractReaderFilter filter : filters) {
+			final AbstractReaderFilter forked = fork.enable(filter.getClass());
+			if (forked == null) {
+				throw new FormatException("Failed to fork filter: " + filter
+					.getClass());
+			}
+			forks.add(forked);
+		}
+		// NB: enabling a filter re-wraps the whole chain, so configure afterwards
+		for (int i = 0; i < filters.size(); i++) {
+			filters.get(i).forkInto(forks.get(i));
+		}
+		return fork;
+	}
+
+	// -- Helper methods --
+
+	/** Returns the filters enabled on the given reader, outermost first. */
+	private static List<AbstractReaderFilter> enabledFilters(
+		final ReaderFilter master)
+	{
+		final List<AbstractReaderFilter> filters = new ArrayList<>();
+		Reader reader = master.getParent();
+		while (reader != master.getTail() &&
+			reader instanceof AbstractReaderFilter)
+		{
+			filters.add((AbstractReaderFilter) reader);
+			reader = ((AbstractReaderFilter) reader).getParent();
+		}
+		return filters;
+	}
 }
@@ -43,6 +43,8 @@ import io.scif.FormatException;
 import io.scif.ImageMetadata;
 import io.scif.Plane;
 import io.scif.Translator;
+import io.scif.codec.CodecOptions;
+import io.scif.codec.ZlibPool;
 import io.scif.config.SCIFIOConfig;
 import io.scif.gui.AWTImageTools;
 import io.scif.gui.BufferedImageReader;
@@ -53,12 +55,21 @@ import java.awt.image.BufferedImage;
 import java.awt.image.IndexColorModel;
 import java.awt.image.WritableRaster;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 
 import javax.imageio.ImageIO;
@@ -72,11 +83,10 @@ import net.imglib2.display.ColorTable8;
 import org.scijava.Priority;
 import org.scijava.io.handle.DataHandle;
 import org.scijava.io.handle.DataHandleInputStream;
-import org.scijava.io.handle.DataHandleService;
-import org.scijava.io.location.BytesLocation;
 import org.scijava.io.location.Location;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
+import org.scijava.thread.ThreadService;
 import org.scijava.util.Bytes;
 
 /**
@@ -516,8 +526,14 @@ public class APNGFormat extends AbstractFormat {
 	 */
 	public static class Reader extends BufferedImageReader<Metadata> {
 
+		// -- Constants --
+
+		// Number of frames decoded ahead of a sequential read.
+		private static final int PREFETCH_FRAMES = Runtime.getRuntime()
+			.availableProcessors();
+
 		@Parameter
-		private DataHandleService dataHandleService;
+		private ThreadService threadService;
 
 		// -- Fields --
 
@@ -527,6 +543,16 @@ public class APNGFormat extends AbstractFormat {
 		// Plane index of the last plane that was returned.
 		private long lastPlaneIndex = -1;
 
+		// Index of the last non-default frame that was decoded.
+		private long lastFrameIndex = -1;
+
+		// Frames being decoded ahead of a sequential read, by plane index.
+		private final Map<Long, Future<BufferedImage>> decodedFrames =
+			new HashMap<>();
+
+		// Checksum of the chunks copied into standalone frames.
+		private final CRC32 checksum = new CRC32();
+
 		// -- AbstractReader API Methods --
 
 		@Override
@@ -540,6 +566,7 @@ public class APNGFormat extends AbstractFormat {
 		public void setMetadata(final Metadata meta) throws IOException {
 			lastPlaneIndex = -1;
 			lastPlane = null;
+			clearDecodedFrames();
 			super.setMetadata(meta);
 		}
 
@@ -600,12 +627,102 @@ public class APNGFormat extends AbstractFormat {
 				return plane;
 			}
 
-			// For a non-default frame, the appropriate chunks will be used to
-			// create
-			// a new image,
-			// which will be read with the standard Java ImageIO and pasted onto
-			// frame
-			// 0.
+			// For a non-default frame, the appropriate chunks are used to create
+			// a new image, which is read with the standard Java ImageIO and pasted
+			// onto frame 0.
+			final int[] coords = getMetadata().getFctl().get((int) planeIndex)
+				.getFrameCoordinates();
+			final BufferedImage bi = decodeFrame(imageIndex, planeIndex);
+
+			// Recover first plane
+			final Interval firstPlaneBounds = //
+				new FinalInterval(meta.get(imageIndex).getAxesLengthsPlanar());
+			openPlane(imageIndex, 0, firstPlaneBounds, config);
+
+			// paste current image onto first plane
+			// NB: last plane read was the first plane
+
+			final WritableRaster firstRaster = lastPlane.getData().getRaster();
+			final WritableRaster currentRaster = bi.getRaster();
+
+			firstRaster.setDataElements(coords[0], coords[1], currentRaster);
+			final BufferedImage bImg = new BufferedImage(lastPlane.getData()
+				.getColorModel(), firstRaster, false, null);
+
+			lastPlane.populate(getMetadata().get(imageIndex), bImg, bounds);
+
+			lastPlaneIndex = planeIndex;
+			return plane.populate(lastPlane);
+		}
+
+		@Override
+		public void close(final boolean fileOnly) throws IOException {
+			super.close(fileOnly);
+
+			if (!fileOnly) {
+				lastPlane = null;
+				lastPlaneIndex = -1;
+			}
+			clearDecodedFrames();
+		}
+
+		// -- Helper methods --
+
+		/**
+		 * Decodes the given non-default frame as a standalone image. When frames
+		 * are read in order, the following frames are decoded on the thread pool
+		 * while the current one is composited.
+		 */
+		private BufferedImage decodeFrame(final int imageIndex,
+			final long planeIndex) throws FormatException, IOException
+		{
+			Future<BufferedImage> frame = decodedFrames.remove(planeIndex);
+			if (frame == null) frame = submitFrame(imageIndex, planeIndex);
+
+			final boolean sequential = planeIndex == lastFrameIndex + 1;
+			lastFrameIndex = planeIndex;
+			final long planeCount = getMetadata().get(imageIndex).getPlaneCount();
+			final long prefetchEnd = sequential ? Math.min(planeCount, planeIndex +
+				1 + PREFETCH_FRAMES) : planeIndex + 1;
+
+			// drop frames that are no longer ahead of this one
+			final Iterator<Map.Entry<Long, Future<BufferedImage>>> iter =
+				decodedFrames.entrySet().iterator();
+			while (iter.hasNext()) {
+				final Map.Entry<Long, Future<BufferedImage>> entry = iter.next();
+				if (entry.getKey() <= planeIndex || entry.getKey() >= prefetchEnd) {
+					entry.getValue().cancel(true);
+					iter.remove();
+				}
+			}
+			for (long p = planeIndex + 1; p < prefetchEnd; p++) {
+				if (!decodedFrames.containsKey(p)) {
+					decodedFrames.put(p, submitFrame(imageIndex, p));
+				}
+			}
+
+			try {
+				return frame.get();
+			}
+			catch (final InterruptedException e) {
+				throw new IOException(e);
+			}
+			catch (final ExecutionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				throw new FormatException(e.getCause());
+			}
+		}
+
+		/**
+		 * Reads the chunks of the given non-default frame into a standalone PNG
+		 * stream, and submits its decoding to the thread pool.
+		 */
+		private Future<BufferedImage> submitFrame(final int imageIndex,
+			final long planeIndex) throws IOException
+		{
+			final DataHandle<Location> handle = getHandle();
 			final ByteArrayOutputStream stream = new ByteArrayOutputStream();
 			stream.write(APNGFormat.PNG_SIGNATURE);
 
@@ -624,7 +741,7 @@ public class APNGFormat extends AbstractFormat {
 			// building a standalone single-frame image
 			for (final FDATChunk fdat : fctl.getFdatChunks()) {
 				handle.seek(fdat.getOffset() + 4);
-				byte[] b = new byte[fdat.getLength() + 8];
+				final byte[] b = new byte[fdat.getLength() + 8];
 				Bytes.unpack(fdat.getLength() - 4, b, 0, 4, getMetadata().get(
 					imageIndex).isLittleEndian());
 				b[4] = 'I';
@@ -636,7 +753,6 @@ public class APNGFormat extends AbstractFormat {
 				Bytes.unpack(crc, b, b.length - 4, 4, getMetadata().get(imageIndex)
 					.isLittleEndian());
 				stream.write(b);
-				b = null;
 			}
 
 			// process PLTE chunks
@@ -645,49 +761,23 @@ public class APNGFormat extends AbstractFormat {
 				processChunk(imageIndex, plte.getLength(), plte.getOffset(), coords,
 					stream, false);
 			}
-			final Location loc = new BytesLocation(stream.toByteArray());
-			final DataHandleInputStream<Location> dis = new DataHandleInputStream<>(
-				dataHandleService.create(loc));
-			final BufferedImage bi = ImageIO.read(dis);
-			dis.close();
-
-			// Recover first plane
-			final Interval firstPlaneBounds = //
-				new FinalInterval(meta.get(imageIndex).getAxesLengthsPlanar());
-			openPlane(imageIndex, 0, firstPlaneBounds, config);
-
-			// paste current image onto first plane
-			// NB: last plane read was the first plane
-
-			final WritableRaster firstRaster = lastPlane.getData().getRaster();
-			final WritableRaster currentRaster = bi.getRaster();
-
-			firstRaster.setDataElements(coords[0], coords[1], currentRaster);
-			final BufferedImage bImg = new BufferedImage(lastPlane.getData()
-				.getColorModel(), firstRaster, false, null);
-
-			lastPlane.populate(getMetadata().get(imageIndex), bImg, bounds);
-
-			lastPlaneIndex = planeIndex;
-			return plane.populate(lastPlane);
+			final byte[] png = stream.toByteArray();
+			return threadService.run(() -> ImageIO.read(new ByteArrayInputStream(
+				png)));
 		}
 
-		@Override
-		public void close(final boolean fileOnly) throws IOException {
-			super.close(fileOnly);
-
-			if (!fileOnly) {
-				lastPlane = null;
-				lastPlaneIndex = -1;
+		private void clearDecodedFrames() {
+			for (final Future<BufferedImage> frame : decodedFrames.values()) {
+				frame.cancel(true);
 			}
+			decodedFrames.clear();
+			lastFrameIndex = -1;
 		}
 
-		// -- Helper methods --
-
 		private long computeCRC(final byte[] buf, final int len) {
-			final CRC32 crc = new CRC32();
-			crc.update(buf, 0, len);
-			return crc.getValue();
+			checksum.reset();
+			checksum.update(buf, 0, len);
+			return checksum.getValue();
 		}
 
 		private void processChunk(final int imageIndex, final int length,
@@ -718,11 +808,35 @@ public class APNGFormat extends AbstractFormat {
 	 */
 	public static class Writer extends AbstractWriter<Metadata> {
 
+		// -- Constants --
+
+		// Number of frames encoded ahead of the one being written.
+		private static final int MAX_PENDING_FRAMES = 2 * Runtime.getRuntime()
+			.availableProcessors();
+
+		// PNG row filter types, see section 9.2 of the PNG specification
+		private static final int FILTER_NONE = 0, FILTER_SUB = 1, FILTER_UP = 2,
+				FILTER_AVERAGE = 3, FILTER_PAETH = 4;
+
+		// -- Parameters --
+
+		@Parameter
+		private ThreadService threadService;
+
 		// -- Fields --
 
-		// Number of frames written
+		// Number of frames submitted for writing
 		private int numFrames = 0;
 
+		// Number of frames written to the file
+		private int numFramesWritten = 0;
+
+		// Frames being filtered and compressed, in the order they are written
+		private final Deque<PendingFrame> pendingFrames = new ArrayDeque<>();
+
+		// Checksum of every chunk written
+		private final CRC32 checksum = new CRC32();
+
 		// Pointer to position in acTL chunk to write the number of frames in
 		// this image
 		private long numFramesPointer = 0;
@@ -823,17 +937,20 @@ public class APNGFormat extends AbstractFormat {
 					"APNGWriter does not yet support saving image tiles.");
 			}
 
-			// write the data for this frame
-
-			if (numFrames == 0) {
-				// This is the first frame, and also the default image
-				writePixels(imageIndex, "IDAT", plane, bounds);
-			}
-			else {
-				writeFCTL(planeIndex);
-				writePixels(imageIndex, "fdAT", plane, bounds);
-			}
+			// compress the data for this frame on the thread pool; frames are
+			// written in order, as they complete
+			final byte[] pixels = plane.getBytes().clone();
+			final boolean interleaved = plane.getImageMetadata()
+				.getInterleavedAxisCount() > 0;
+			final boolean indexed = getColorModel() instanceof IndexColorModel;
+			final CodecOptions options = getCodecOptions() == null ? CodecOptions
+				.getDefaultOptions() : getCodecOptions();
+			pendingFrames.add(new PendingFrame(planeIndex, threadService.run(
+				() -> encodePixels(imageIndex, pixels, interleaved, indexed,
+					options))));
 			numFrames++;
+
+			writeFrames(MAX_PENDING_FRAMES);
 		}
 
 		@Override
@@ -850,13 +967,28 @@ public class APNGFormat extends AbstractFormat {
 
 		@Override
 		public void close(final boolean fileOnly) throws IOException {
-			if (getHandle() != null) {
-				writeFooter();
+			try {
+				if (getHandle() != null) {
+					try {
+						writeFrames(0);
+					}
+					catch (final FormatException e) {
+						throw new IOException(e);
+					}
+					writeFooter();
+				}
+			}
+			finally {
+				for (final PendingFrame frame : pendingFrames) {
+					frame.data.cancel(true);
+				}
+				pendingFrames.clear();
+				super.close(fileOnly);
+				numFrames = 0;
+				numFramesWritten = 0;
+				numFramesPointer = 0;
+				nextSequenceNumber = 0;
 			}
-			super.close(fileOnly);
-			numFrames = 0;
-			numFramesPointer = 0;
-			nextSequenceNumber = 0;
 		}
 
 		// -- Helper Methods --
@@ -866,9 +998,46 @@ public class APNGFormat extends AbstractFormat {
 		}
 
 		private int crc(final byte[] buf, final int off, final int len) {
-			final CRC32 crc = new CRC32();
-			crc.update(buf, off, len);
-			return (int) crc.getValue();
+			checksum.reset();
+			checksum.update(buf, off, len);
+			return (int) checksum.getValue();
+		}
+
+		/**
+		 * Writes the pending frames that have been compressed, in order, waiting
+		 * for the oldest ones until no more than the given number is pending.
+		 */
+		private void writeFrames(final int maxPending) throws FormatException,
+			IOException
+		{
+			while (!pendingFrames.isEmpty() && (pendingFrames.size() > maxPending ||
+				pendingFrames.peekFirst().data.isDone()))
+			{
+				final PendingFrame frame = pendingFrames.pollFirst();
+				final byte[] data;
+				try {
+					data = frame.data.get();
+				}
+				catch (final InterruptedException e) {
+					throw new IOException(e);
+				}
+				catch (final ExecutionException e) {
+					final Throwable cause = e.getCause();
+					if (cause instanceof FormatException) throw (FormatException) cause;
+					if (cause instanceof IOException) throw (IOException) cause;
+					throw new FormatException(cause);
+				}
+
+				if (numFramesWritten == 0) {
+					// This is the first frame, and also the default image
+					writePixels("IDAT", data);
+				}
+				else {
+					writeFCTL(frame.planeIndex);
+					writePixels("fdAT", data);
+				}
+				numFramesWritten++;
+			}
 		}
 
 		private void writeFCTL(final long planeIndex) throws IOException {
@@ -923,84 +1092,176 @@ public class APNGFormat extends AbstractFormat {
 			getHandle().writeInt(crc(b));
 		}
 
-		private void writePixels(final int imageIndex, final String chunk,
-			final Plane plane, final Interval bounds) throws FormatException,
-			IOException
+		/**
+		 * Writes an IDAT or fdAT chunk of compressed pixels. The sequence number
+		 * of fdAT chunks is assigned here, as the chunk is written.
+		 */
+		private void writePixels(final String chunk, final byte[] data)
+			throws IOException
 		{
-			final byte[] stream = plane.getBytes();
+			final boolean fdat = chunk.equals("fdAT");
+			final byte[] header = new byte[fdat ? 8 : 4];
+			System.arraycopy(chunk.getBytes(), 0, header, 0, 4);
+			if (fdat) Bytes.unpack(nextSequenceNumber++, header, 4, 4, false);
+
+			// write chunk length
+			final DataHandle<Location> handle = getHandle();
+			handle.writeInt(header.length - 4 + data.length);
+			handle.write(header);
+			handle.write(data);
 
+			// write checksum
+			checksum.reset();
+			checksum.update(header);
+			checksum.update(data);
+			handle.writeInt((int) checksum.getValue());
+		}
+
+		/**
+		 * Converts a plane to PNG scanlines, filters each row with the filter
+		 * giving the smallest sum of absolute differences, and compresses the
+		 * result. Called from the thread pool.
+		 */
+		private byte[] encodePixels(final int imageIndex, final byte[] stream,
+			final boolean interleaved, final boolean indexed,
+			final CodecOptions options) throws IOException
+		{
 			final ImageMetadata imageMetadata = getMetadata().get(imageIndex);
 			final long rgbCCount = imageMetadata.getAxisLength(Axes.CHANNEL);
-			final boolean interleaved = plane.getImageMetadata()
-				.getInterleavedAxisCount() > 0;
 
 			final int pixelType = imageMetadata.getPixelType();
 			final boolean signed = FormatTools.isSigned(pixelType);
 
-			if (!SCIFIOMetadataTools.wholePlane(imageIndex, getMetadata(), bounds)) {
-				throw new FormatException("APNGWriter does not support writing tiles.");
-			}
-
 			final int width = (int) imageMetadata.getAxisLength(Axes.X);
 			final int height = (int) imageMetadata.getAxisLength(Axes.Y);
 
-			final ByteArrayOutputStream s = new ByteArrayOutputStream();
-			s.write(chunk.getBytes());
-			if (chunk.equals("fdAT")) {
-				s.write(Bytes.fromInt(nextSequenceNumber++, false));
-			}
-			final DeflaterOutputStream deflater = new DeflaterOutputStream(s);
 			final long planeSize = stream.length / rgbCCount;
 			final int rowLen = stream.length / height;
 			final int bytesPerPixel = stream.length / (int) (width * height *
 				rgbCCount);
 			final boolean littleEndian = getMetadata().get(0).isLittleEndian();
-			final byte[] rowBuf = new byte[rowLen];
-			for (int i = 0; i < height; i++) {
-				deflater.write(0);
-				if (interleaved) {
-					if (littleEndian) {
-						for (int col = 0; col < width * rgbCCount; col++) {
-							final int offset = (int) (i * rgbCCount * width + col) *
-								bytesPerPixel;
-							final int pixel = Bytes.toInt(stream, offset, bytesPerPixel,
-								littleEndian);
-							Bytes.unpack(pixel, rowBuf, col * bytesPerPixel, bytesPerPixel,
-								false);
+			final int filterOffset = Math.max(1, (int) rgbCCount * bytesPerPixel);
+
+			final ByteArrayOutputStream s = new ByteArrayOutputStream(stream.length /
+				4 + 64);
+			final Deflater engine = ZlibPool.acquireDeflater(options.compressionLevel,
+				options.compressionStrategy);
+			final DeflaterOutputStream deflater = new DeflaterOutputStream(s, engine,
+				Math.max(512, Math.min(rowLen + 1, 65536)));
+			try {
+				byte[] rowBuf = new byte[rowLen];
+				byte[] priorRow = new byte[rowLen];
+				final byte[][] filtered = new byte[indexed ? 1 : 5][rowLen + 1];
+				for (int i = 0; i < height; i++) {
+					if (interleaved) {
+						if (littleEndian) {
+							for (int col = 0; col < width * rgbCCount; col++) {
+								final int offset = (int) (i * rgbCCount * width + col) *
+									bytesPerPixel;
+								final int pixel = Bytes.toInt(stream, offset, bytesPerPixel,
+									littleEndian);
+								Bytes.unpack(pixel, rowBuf, col * bytesPerPixel, bytesPerPixel,
+									false);
+							}
 						}
+						else System.arraycopy(stream, i * rowLen, rowBuf, 0, rowLen);
 					}
-					else System.arraycopy(stream, i * rowLen, rowBuf, 0, rowLen);
-				}
-				else {
-					final int max = (int) Math.pow(2, bytesPerPixel * 8 - 1);
-					for (int col = 0; col < width; col++) {
-						for (int c = 0; c < rgbCCount; c++) {
-							final int offset = (int) (c * planeSize + (i * width + col) *
-								bytesPerPixel);
-							int pixel = //
-								Bytes.toInt(stream, offset, bytesPerPixel, littleEndian);
-							if (signed) {
-								if (pixel < max) pixel += max;
-								else pixel -= max;
+					else {
+						final int max = (int) Math.pow(2, bytesPerPixel * 8 - 1);
+						for (int col = 0; col < width; col++) {
+							for (int c = 0; c < rgbCCount; c++) {
+								final int offset = (int) (c * planeSize + (i * width + col) *
+									bytesPerPixel);
+								int pixel = //
+									Bytes.toInt(stream, offset, bytesPerPixel, littleEndian);
+								if (signed) {
+									if (pixel < max) pixel += max;
+									else pixel -= max;
+								}
+								final int output = (int) (col * rgbCCount + c) * bytesPerPixel;
+
+								Bytes.unpack(pixel, rowBuf, output, bytesPerPixel, false);
 							}
-							final int output = (int) (col * rgbCCount + c) * bytesPerPixel;
+						}
+					}
 
-							Bytes.unpack(pixel, rowBuf, output, bytesPerPixel, false);
+					// palette indices do not predict well, so are left unfiltered
+					int best = 0;
+					long bestSum = filterRow(FILTER_NONE, rowBuf, priorRow,
+						filterOffset, filtered[0]);
+					for (int type = 1; type < filtered.length; type++) {
+						final long sum = filterRow(type, rowBuf, priorRow, filterOffset,
+							filtered[type]);
+						if (sum < bestSum) {
+							best = type;
+							bestSum = sum;
 						}
 					}
+					deflater.write(filtered[best]);
+
+					final byte[] tmp = priorRow;
+					priorRow = rowBuf;
+					rowBuf = tmp;
 				}
-				deflater.write(rowBuf);
+				deflater.finish();
 			}
-			deflater.finish();
-			final byte[] b = s.toByteArray();
+			finally {
+				ZlibPool.release(engine);
+			}
+			return s.toByteArray();
+		}
 
-			// write chunk length
-			final DataHandle<Location> handle = getHandle();
-			handle.writeInt(b.length - 4);
-			handle.write(b);
+		/**
+		 * Applies a PNG filter to a row of bytes.
+		 *
+		 * @param type The filter type.
+		 * @param row The unfiltered row.
+		 * @param prior The unfiltered previous row, all zeroes for the first row.
+		 * @param offset Number of bytes per complete pixel.
+		 * @param out Receives the filter type byte followed by the filtered row.
+		 * @return The sum of the absolute values of the filtered bytes, taken as
+		 *         signed.
+		 */
+		private static long filterRow(final int type, final byte[] row,
+			final byte[] prior, final int offset, final byte[] out)
+		{
+			out[0] = (byte) type;
+			long sum = 0;
+			for (int i = 0; i < row.length; i++) {
+				final int a = i < offset ? 0 : row[i - offset] & 0xff;
+				final int b = prior[i] & 0xff;
+				final int c = i < offset ? 0 : prior[i - offset] & 0xff;
+				final int predictor;
+				switch (type) {
+					case FILTER_SUB:
+						predictor = a;
+						break;
+					case FILTER_UP:
+						predictor = b;
+						break;
+					case FILTER_AVERAGE:
+						predictor = (a + b) >>> 1;
+						break;
+					case FILTER_PAETH:
+						predictor = paeth(a, b, c);
+						break;
+					default:
+						predictor = 0;
+				}
+				final byte value = (byte) (row[i] - predictor);
+				out[i + 1] = value;
+				sum += Math.abs(value);
+			}
+			return sum;
+		}
 
-			// write checksum
-			handle.writeInt(crc(b));
+		private static int paeth(final int a, final int b, final int c) {
+			final int p = a + b - c;
+			final int pa = Math.abs(p - a);
+			final int pb = Math.abs(p - b);
+			final int pc = Math.abs(p - c);
+			if (pa <= pb && pa <= pc) return a;
+			return pb <= pc ? b : c;
 		}
 
 		private void writeFooter() throws IOException {
@@ -1024,6 +1285,19 @@ public class APNGFormat extends AbstractFormat {
 				.getNumPlays(), b, 8, 4, false);
 			handle.writeInt(crc(b));
 		}
+
+		/** A frame being compressed, with the plane it was written from. */
+		private static class PendingFrame {
+
+			private final long planeIndex;
+
+			private final Future<byte[]> data;
+
+			private PendingFrame(final long planeIndex, final Future<byte[]> data) {
+				this.planeIndex = planeIndex;
+				this.data = data;
+			}
+		}
 	}
 
 	/**
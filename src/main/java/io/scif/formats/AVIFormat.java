@@ -58,7 +58,9 @@ import io.scif.util.SCIFIOMetadataTools;
 
 import java.awt.image.IndexColorModel;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
 
 import net.imagej.axis.Axes;
@@ -74,6 +76,8 @@ import org.scijava.io.handle.DataHandleService;
 import org.scijava.io.location.Location;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
+import org.scijava.util.Bytes;
+import org.scijava.util.LongArray;
 
 /**
  * AVIReader is the file format reader for AVI files. Much of this code was
@@ -96,6 +100,12 @@ public class AVIFormat extends AbstractFormat {
 
 	private static final int Y8 = 538982489;
 
+	// -- OpenDML index types --
+
+	private static final int AVI_INDEX_OF_INDEXES = 0;
+
+	private static final int AVI_INDEX_OF_CHUNKS = 1;
+
 	// -- Constants --
 
 	/** Huffman table for MJPEG data. */
@@ -167,10 +177,22 @@ public class AVIFormat extends AbstractFormat {
 		// -- AVI Metadata --
 
 		/* Offset to each plane. */
-		private List<Long> offsets;
+		private LongArray offsets;
 
 		/* Number of bytes in each plane. */
-		private List<Long> lengths;
+		private LongArray lengths;
+
+		/* Offset of each OpenDML standard index, if the file has a super index. */
+		private long[] indexOffsets;
+
+		/* First plane listed by each OpenDML standard index. */
+		private int[] indexFirstPlanes;
+
+		/* Whether each OpenDML standard index has been read. */
+		private boolean[] indexLoaded;
+
+		/* Movi lists still to be scanned, if the file has no index. */
+		private MoviScan moviScan;
 
 		private short bmpBitsPerPixel;
 
@@ -216,20 +238,245 @@ public class AVIFormat extends AbstractFormat {
 			this.bmpScanLineSize = bmpScanLineSize;
 		}
 
+		/**
+		 * @return The offset to each plane, reading every index not read yet.
+		 * @deprecated Use {@link #getOffset(int)}, which only reads the index of
+		 *             the given plane.
+		 */
+		@Deprecated
 		public List<Long> getOffsets() {
+			loadIndexes();
 			return offsets;
 		}
 
 		public void setOffsets(final List<Long> offsets) {
-			this.offsets = offsets;
+			this.offsets = toLongArray(offsets);
 		}
 
+		/**
+		 * @return The number of bytes in each plane, reading every index not read
+		 *         yet.
+		 * @deprecated Use {@link #getLength(int)}, which only reads the index of
+		 *             the given plane.
+		 */
+		@Deprecated
 		public List<Long> getLengths() {
+			loadIndexes();
 			return lengths;
 		}
 
 		public void setLengths(final List<Long> lengths) {
-			this.lengths = lengths;
+			this.lengths = toLongArray(lengths);
+		}
+
+		/** @return The number of planes listed for the video stream. */
+		public int getPlaneCount() {
+			if (moviScan != null) return moviScan.planeCount;
+			return offsets == null ? 0 : offsets.size();
+		}
+
+		/**
+		 * @return The offset to the data of the given plane, reading the index
+		 *         listing it through the source of this metadata if needed.
+		 */
+		public long getOffset(final int planeIndex) throws IOException {
+			return getOffset(planeIndex, getSource());
+		}
+
+		/**
+		 * @return The offset to the data of the given plane, reading the index
+		 *         listing it through the given handle if needed.
+		 */
+		public long getOffset(final int planeIndex,
+			final DataHandle<Location> handle) throws IOException
+		{
+			loadIndex(planeIndex, handle);
+			return offsets.getValue(planeIndex);
+		}
+
+		/**
+		 * @return The number of bytes in the given plane, reading the index
+		 *         listing it through the source of this metadata if needed.
+		 */
+		public long getLength(final int planeIndex) throws IOException {
+			return getLength(planeIndex, getSource());
+		}
+
+		/**
+		 * @return The number of bytes in the given plane, reading the index
+		 *         listing it through the given handle if needed.
+		 */
+		public long getLength(final int planeIndex,
+			final DataHandle<Location> handle) throws IOException
+		{
+			loadIndex(planeIndex, handle);
+			return lengths.getValue(planeIndex);
+		}
+
+		/**
+		 * Sets the OpenDML standard indexes of the video stream, which are read
+		 * when one of their planes is first accessed.
+		 *
+		 * @param indexOffsets Offset of each standard index chunk.
+		 * @param planeCounts Number of planes listed by each standard index.
+		 */
+		public void setStandardIndexes(final long[] indexOffsets,
+			final int[] planeCounts)
+		{
+			this.indexOffsets = indexOffsets;
+			indexFirstPlanes = new int[indexOffsets.length];
+			indexLoaded = new boolean[indexOffsets.length];
+			int planes = 0;
+			for (int i = 0; i < indexOffsets.length; i++) {
+				indexFirstPlanes[i] = planes;
+				planes += planeCounts[i];
+			}
+			offsets = new LongArray(planes);
+			offsets.setSize(planes);
+			lengths = new LongArray(planes);
+			lengths.setSize(planes);
+		}
+
+		/** @return True iff the planes are listed by OpenDML standard indexes. */
+		public boolean hasStandardIndexes() {
+			return indexOffsets != null;
+		}
+
+		/**
+		 * Adds a movi list of a file without index, whose chunks are scanned when
+		 * one of their planes is first accessed.
+		 *
+		 * @param start Offset of the first chunk of the list.
+		 * @param end Offset of the end of the list.
+		 * @param planeCount Number of planes of the video stream, as given by its
+		 *          header.
+		 */
+		public void addMoviList(final long start, final long end,
+			final int planeCount)
+		{
+			if (moviScan == null) moviScan = new MoviScan(planeCount);
+			moviScan.lists.addValue(start);
+			moviScan.lists.addValue(end);
+			if (moviScan.lists.size() == 2) moviScan.offset = start;
+		}
+
+		/** @return True iff the movi lists are scanned as planes are accessed. */
+		public boolean isScannedLazily() {
+			return moviScan != null;
+		}
+
+		/** Reads the index listing the given plane, if needed. */
+		private synchronized void loadIndex(final int planeIndex,
+			final DataHandle<Location> handle) throws IOException
+		{
+			if (moviScan != null) {
+				scan(planeIndex, handle);
+				return;
+			}
+			if (indexOffsets == null) return;
+			int index = Arrays.binarySearch(indexFirstPlanes, planeIndex);
+			if (index < 0) index = -index - 2;
+			// skip empty indexes starting at the same plane
+			while (index + 1 < indexFirstPlanes.length &&
+				indexFirstPlanes[index + 1] == planeIndex)
+			{
+				index++;
+			}
+			readIndex(index, handle);
+		}
+
+		/** Reads every index which has not been read yet. */
+		private synchronized void loadIndexes() {
+			try {
+				if (moviScan != null && moviScan.planeCount > 0) {
+					scan(moviScan.planeCount - 1, getSource());
+				}
+				else if (indexOffsets != null) {
+					for (int index = 0; index < indexOffsets.length; index++) {
+						readIndex(index, getSource());
+					}
+				}
+			}
+			catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		/** Reads the given OpenDML standard index, if needed. */
+		private void readIndex(final int index, final DataHandle<Location> handle)
+			throws IOException
+		{
+			if (indexLoaded[index]) return;
+
+			// NB: The handle of a forked reader need not be little endian.
+			final long pos = handle.offset();
+			final byte[] header = new byte[24];
+			handle.seek(indexOffsets[index] + 8);
+			handle.readFully(header);
+			final int entries = Bytes.toInt(header, 4, true);
+			final long baseOffset = Bytes.toLong(header, 12, true);
+			final int first = indexFirstPlanes[index];
+			final int count = Math.max(0, Math.min(entries, offsets.size() - first));
+			final byte[] table = new byte[8 * count];
+			handle.readFully(table);
+			for (int i = 0; i < count; i++) {
+				final long offset = Bytes.toInt(table, 8 * i, true) & 0xffffffffL;
+				final long length = Bytes.toInt(table, 8 * i + 4, true) & 0x7fffffff;
+				offsets.setValue(first + i, baseOffset + offset);
+				lengths.setValue(first + i, length);
+			}
+			indexLoaded[index] = true;
+			handle.seek(pos);
+		}
+
+		/**
+		 * Scans the movi lists of a file without index, up to the chunk holding
+		 * the given plane.
+		 */
+		private void scan(final int planeIndex, final DataHandle<Location> handle)
+			throws IOException
+		{
+			if (planeIndex < offsets.size()) return;
+			final LongArray lists = moviScan.lists;
+			final long pos = handle.offset();
+			final byte[] header = new byte[8];
+			while (offsets.size() <= planeIndex && !lists.isEmpty()) {
+				if (moviScan.offset + 8 > lists.getValue(1)) {
+					// done with this list; go on with the next RIFF
+					lists.delete(0, 2);
+					if (!lists.isEmpty()) moviScan.offset = lists.getValue(0);
+					continue;
+				}
+				handle.seek(moviScan.offset);
+				handle.readFully(header);
+				final String id = new String(header, 0, 4, Constants.ENCODING);
+				final long size = Bytes.toInt(header, 4, true) & 0xffffffffL;
+				if (id.equals("LIST")) {
+					// look inside 'rec ' lists
+					moviScan.offset += 12;
+					continue;
+				}
+				if ((id.endsWith("db") || id.endsWith("dc")) && (size > 0 ||
+					bmpCompression != 0))
+				{
+					offsets.addValue(moviScan.offset + 8);
+					lengths.addValue(size);
+				}
+				moviScan.offset += 8 + size + (size & 1);
+			}
+			handle.seek(pos);
+			if (planeIndex >= offsets.size()) {
+				throw new IOException("No data found for plane " + planeIndex);
+			}
+		}
+
+		private static LongArray toLongArray(final List<Long> list) {
+			if (list == null || list instanceof LongArray) return (LongArray) list;
+			final LongArray array = new LongArray(list.size());
+			for (final Long value : list) {
+				array.addValue(value);
+			}
+			return array;
 		}
 
 		public int getBmpColorsUsed() {
@@ -304,18 +551,19 @@ public class AVIFormat extends AbstractFormat {
 			iMeta.setMetadataComplete(true);
 
 			// All planes are timepoints
-			final int sizeT = getOffsets().size();
+			final int sizeT = getPlaneCount();
 
 			getTable().put("Compression", AVIUtils.getCodecName(getBmpCompression()));
 			iMeta.setPlanarAxisCount(2);
 
 			if (getBmpCompression() == JPEG) {
-				final long fileOff = getOffsets().get(0).longValue();
+				long fileOff = 0;
 
 				final CodecOptions options = AVIUtils.createCodecOptions(this, 0, 0);
 
 				int nBytes = 0;
 				try {
+					fileOff = getOffset(0);
 					final int x = 0, y = 0, w = (int) iMeta.getAxisLength(Axes.X), h =
 						(int) iMeta.getAxisLength(Axes.Y);
 					nBytes = AVIUtils.extractCompression(this, options, getSource(), null,
@@ -419,11 +667,32 @@ public class AVIFormat extends AbstractFormat {
 				bytesPerPlane = 0;
 				offsets = null;
 				lengths = null;
+				indexOffsets = null;
+				indexFirstPlanes = null;
+				indexLoaded = null;
+				moviScan = null;
 				lut = null;
 			}
 		}
 	}
 
+	/** Progress scanning the movi lists of a file without index. */
+	private static class MoviScan {
+
+		/** Number of planes given by the header of the video stream. */
+		private final int planeCount;
+
+		/** Start and end of each movi list not fully scanned yet. */
+		private final LongArray lists = new LongArray();
+
+		/** Offset of the next chunk to scan in the first list. */
+		private long offset;
+
+		private MoviScan(final int planeCount) {
+			this.planeCount = planeCount;
+		}
+	}
+
 	public static class Checker extends AbstractChecker {
 
 		// -- Constants --
@@ -460,6 +729,9 @@ public class AVIFormat extends AbstractFormat {
 
 		private int size = -1;
 
+		/** Number of planes of the video stream, as given by its header. */
+		private int videoLength;
+
 		// -- Parser API Methods --
 
 		@Override
@@ -472,8 +744,9 @@ public class AVIFormat extends AbstractFormat {
 			log().info("Verifying AVI format");
 
 			meta.setLastPlaneIndex(-1);
-			meta.setLengths(new ArrayList<>());
-			meta.setOffsets(new ArrayList<>());
+			videoLength = 0;
+			meta.setLengths(new LongArray());
+			meta.setOffsets(new LongArray());
 
 			meta.createImageMetadata(1);
 
@@ -488,6 +761,90 @@ public class AVIFormat extends AbstractFormat {
 
 		// -- Helper Methods --
 
+		/**
+		 * Reads the OpenDML super index of the video stream, along with the
+		 * number of planes in each of the standard indexes it points to. The
+		 * standard indexes themselves are only read when their planes are
+		 * accessed. Invalid super indexes are ignored, so that the movi data is
+		 * scanned instead.
+		 */
+		private void readSuperIndex(final Metadata meta, final int size)
+			throws IOException
+		{
+			final DataHandle<Location> source = getSource();
+			if (meta.hasStandardIndexes() || size < 24) return;
+			final int longsPerEntry = source.readShort();
+			source.skipBytes(1);
+			final int indexType = source.read();
+			final int entries = source.readInt();
+			final String chunkId = source.readString(4);
+			source.skipBytes(12);
+			final boolean video = chunkId.endsWith("db") || chunkId.endsWith("dc");
+			if (!video || indexType != AVI_INDEX_OF_INDEXES || longsPerEntry != 4 ||
+				entries <= 0 || 24 + 16L * entries > size)
+			{
+				return;
+			}
+
+			final long[] indexOffsets = new long[entries];
+			for (int i = 0; i < entries; i++) {
+				indexOffsets[i] = source.readLong();
+				source.skipBytes(8);
+			}
+
+			final long pos = source.offset();
+			final int[] planeCounts = new int[entries];
+			for (int i = 0; i < entries; i++) {
+				if (indexOffsets[i] < 0 || indexOffsets[i] + 32 > source.length()) {
+					source.seek(pos);
+					return;
+				}
+				source.seek(indexOffsets[i]);
+				final String id = source.readString(4);
+				source.skipBytes(4);
+				final int entryLongs = source.readShort();
+				source.skipBytes(1);
+				final int type = source.read();
+				planeCounts[i] = source.readInt();
+				if (!id.startsWith("ix") || entryLongs != 2 ||
+					type != AVI_INDEX_OF_CHUNKS || planeCounts[i] < 0)
+				{
+					source.seek(pos);
+					return;
+				}
+			}
+			source.seek(pos);
+			meta.setStandardIndexes(indexOffsets, planeCounts);
+		}
+
+		/**
+		 * Defers scanning the movi LIST at the given offset until its planes are
+		 * accessed, if the file has no index. This requires the number of planes
+		 * from the header of the video stream, and no idx1 chunk following the
+		 * first movi LIST. Once a file is scanned as it is read, so are all its
+		 * movi lists.
+		 *
+		 * @return True iff the scan of the movi LIST is deferred.
+		 */
+		private boolean deferMoviList(final Metadata meta, final long listStart)
+			throws IOException
+		{
+			final DataHandle<Location> source = getSource();
+			final long pos = source.offset();
+			source.seek(listStart + 4);
+			final long end = Math.min(source.length(), listStart + 8 + (source
+				.readInt() & 0xffffffffL));
+			boolean defer = meta.isScannedLazily();
+			if (!defer && videoLength > 0 && meta.getPlaneCount() == 0) {
+				source.seek(end);
+				defer = end + 8 > source.length() || !source.readString(4).equals(
+					"idx1");
+			}
+			if (defer) meta.addMoviList(listStart + 12, end, videoLength);
+			source.seek(pos);
+			return defer;
+		}
+
 		private void readChunkHeader() throws IOException {
 			readTypeAndSize();
 			fcc = getSource().readString(4);
@@ -601,7 +958,11 @@ public class AVIFormat extends AbstractFormat {
 
 								if (type.equals("strh")) {
 									spos = source.offset();
-									source.skipBytes(40);
+									final boolean video = source.readString(4).equals("vids");
+									source.skipBytes(28);
+									final int length = source.readInt();
+									if (video) videoLength = length;
+									source.skipBytes(4);
 
 									globalTable.put("Stream quality", source.readInt());
 									meta.setBytesPerPlane(source.readInt());
@@ -714,22 +1075,15 @@ public class AVIFormat extends AbstractFormat {
 								}
 							}
 
-							spos = source.offset();
-							readTypeAndSize();
-							if (type.equals("strd")) {
-								source.skipBytes(size);
-							}
-							else {
-								source.seek(spos);
-							}
-
-							spos = source.offset();
-							readTypeAndSize();
-							if (type.equals("strn") || type.equals("indx")) {
-								source.skipBytes(size);
-							}
-							else {
-								source.seek(spos);
+							// look for an OpenDML super index among the other chunks
+							final long streamEnd = Math.min(startPos + 8 + streamSize,
+								source.length());
+							while (source.offset() + 8 <= streamEnd) {
+								readTypeAndSize();
+								final long chunkEnd = source.offset() + size;
+								if (size < 0 || chunkEnd > streamEnd) break;
+								if (type.equals("indx")) readSuperIndex(meta, size);
+								source.seek(chunkEnd + (size & 1));
 							}
 						}
 
@@ -737,6 +1091,18 @@ public class AVIFormat extends AbstractFormat {
 							source.seek(startPos + 8 + streamSize);
 						}
 					}
+					else if (fcc.equals("movi") && meta.hasStandardIndexes()) {
+						// planes are listed by the OpenDML indexes; skip the data
+						readChunkHeader();
+						source.seek(Math.min(source.length(), spos + 8 + (size &
+							0xffffffffL)));
+					}
+					else if (fcc.equals("movi") && deferMoviList(meta, spos)) {
+						// no index; planes are found when they are accessed
+						readChunkHeader();
+						source.seek(Math.min(source.length(), spos + 8 + (size &
+							0xffffffffL)));
+					}
 					else if (fcc.equals("movi")) {
 						readChunkHeader();
 
@@ -760,8 +1126,11 @@ public class AVIFormat extends AbstractFormat {
 										.equals("JUNK"))
 									{
 										source.skipBytes(size);
+										// an index may close the last movi LIST of the file
+										if (source.offset() + 8 > source.length()) return;
 										readTypeAndSize();
 									}
+									spos = source.offset() - 8;
 
 									String check = type.substring(2);
 									boolean foundPixels = false;
@@ -771,8 +1140,8 @@ public class AVIFormat extends AbstractFormat {
 										foundPixels = true;
 										if (check.startsWith("d")) {
 											if (size > 0 || meta.getBmpCompression() != 0) {
-												meta.getOffsets().add(source.offset());
-												meta.getLengths().add((long) size);
+												meta.offsets.addValue(source.offset());
+												meta.lengths.addValue(size);
 												source.skipBytes(size);
 											}
 										}
@@ -820,7 +1189,7 @@ public class AVIFormat extends AbstractFormat {
 						readTypeAndSize();
 					}
 					else if (!type.equals("idx1")) break;
-					if (source.offset() + size + 4 <= source.length()) {
+					if (source.offset() + size <= source.length()) {
 						source.skipBytes(size);
 					}
 					if (type.equals("idx1")) break;
@@ -833,6 +1202,11 @@ public class AVIFormat extends AbstractFormat {
 
 	public static class Reader extends ByteArrayReader<Metadata> {
 
+		// -- Fields --
+
+		/** Packed pixels of the last plane read, reused from plane to plane. */
+		private byte[] rawBuffer;
+
 		// -- AbstractReader API Methods --
 
 		@Override
@@ -840,6 +1214,14 @@ public class AVIFormat extends AbstractFormat {
 			return new String[] { FormatTools.GRAPHICS_DOMAIN };
 		}
 
+		@Override
+		protected boolean isForkable() {
+			// these codecs decode each plane from the previous one, which is
+			// cached in the metadata
+			final int compression = getMetadata().getBmpCompression();
+			return compression != MSRLE && compression != MS_VIDEO;
+		}
+
 		// -- Reader API Methods --
 
 		@Override
@@ -868,9 +1250,9 @@ public class AVIFormat extends AbstractFormat {
 			final int x = (int) bounds.min(xAxis), y = (int) bounds.min(yAxis), //
 					w = (int) bounds.dimension(xAxis), h = (int) bounds.dimension(yAxis);
 
-			final long fileOff = meta.getOffsets().get((int) planeIndex).longValue();
-			final long end = planeIndex < meta.getOffsets().size() - 1 ? meta
-				.getOffsets().get((int) planeIndex + 1) : getHandle().length();
+			final long fileOff = meta.getOffset((int) planeIndex, getHandle());
+			final long end = planeIndex < meta.getPlaneCount() - 1 ? meta.getOffset(
+				(int) planeIndex + 1, getHandle()) : getHandle().length();
 			final long maxBytes = end - fileOff;
 			getHandle().seek(fileOff);
 
@@ -884,11 +1266,14 @@ public class AVIFormat extends AbstractFormat {
 					(int) meta.get(imageIndex).getAxisLength(Axes.Y), imageIndex);
 				rawSize /= (8 / meta.getBmpBitsPerPixel());
 
-				final byte[] b = new byte[rawSize];
+				if (rawBuffer == null || rawBuffer.length < rawSize) {
+					rawBuffer = new byte[rawSize];
+				}
+				final byte[] b = rawBuffer;
 
 				final int len = rawSize / (int) meta.get(imageIndex).getAxisLength(
 					Axes.Y);
-				getHandle().read(b);
+				getHandle().read(b, 0, rawSize);
 
 				final BitBuffer bb = new BitBuffer(b);
 				bb.skipBits(meta.getBmpBitsPerPixel() * len * (meta.get(imageIndex)
@@ -1070,6 +1455,12 @@ public class AVIFormat extends AbstractFormat {
 
 		// -- Constants --
 
+		/**
+		 * Configuration key to set the size, in bytes, above which frames go to a
+		 * new OpenDML RIFF chunk. Values above the default of 1 GB are ignored.
+		 */
+		public static final String RIFF_LIMIT_KEY = "AVI_RIFF_LIMIT";
+
 		private static final long SAVE_MOVI = 4092;
 
 		private static final long SAVE_FILE_SIZE = 4;
@@ -1098,15 +1489,31 @@ public class AVIFormat extends AbstractFormat {
 
 		private static final long FRAME_OFFSET_2 = 140;
 
-		private static final long PADDING_BYTES = 4076 - SAVE_JUNK_SIG;
+		// OpenDML super index of the video stream, closing the strl LIST. It
+		// points to the standard index (ix00) of each RIFF chunk.
+		private static final int SUPER_INDEX_ENTRIES = 128;
+
+		private static final long SAVE_INDX = SAVE_JUNK_SIG;
+
+		private static final long SAVE_STRL_END = SAVE_INDX + 32 +
+			16 * SUPER_INDEX_ENTRIES;
+
+		// OpenDML extended header, closing the hdrl LIST
+		private static final long SAVE_HDRL_END = SAVE_STRL_END + 268;
 
 		private static final long SAVE_LIST2_SIZE = 4088;
 
+		private static final long PADDING_BYTES = SAVE_LIST2_SIZE - 4 -
+			(SAVE_HDRL_END + 8);
+
+		// each RIFF chunk is kept under 1 GB, as expected by OpenDML readers
+		private static final long RIFF_LIMIT = 1L << 30;
+
 		private static final String DATA_SIGNATURE = "00db";
 
-		// -- Fields --
+		private static final int AVIIF_KEYFRAME = 0x10;
 
-		private int planesWritten = 0;
+		// -- Fields --
 
 		private int bytesPerPixel;
 
@@ -1114,13 +1521,40 @@ public class AVIFormat extends AbstractFormat {
 
 		private int microSecPerFrame;
 
-		private List<Long> savedbLength;
+		/** Size of the pixel data of each frame chunk. */
+		private int frameSize;
+
+		/** Frame chunk, header included, assembled before each write. */
+		private byte[] frameBuffer;
+
+		/** Offset of each frame chunk written so far. */
+		private long[] frameOffsets;
 
-		private long idx1Pos;
+		private int framesWritten;
 
-		private long endPos;
+		/** Frames in the first RIFF chunk, as listed by its idx1. */
+		private int firstRiffFrames;
 
-		private long saveidx1Length;
+		private long riffStart;
+
+		private long moviStart;
+
+		private int riffFirstFrame;
+
+		/** Offset, size and frame count of the standard index of each RIFF. */
+		private long[] indexOffsets;
+
+		private int[] indexSizes;
+
+		private int[] indexFrames;
+
+		private int riffCount;
+
+		/** Offset at which the next chunk is written. */
+		private long writePos;
+
+		/** Size above which frames go to a new RIFF chunk. */
+		private long riffLimit = RIFF_LIMIT;
 
 		@Parameter
 		private DataHandleService dataHandleService;
@@ -1161,22 +1595,37 @@ public class AVIFormat extends AbstractFormat {
 			final int width = xDim - xPad;
 			final int height = buf.length / (width * bytesPerPixel);
 
-			final DataHandle<Location> handle = getHandle();
-			handle.seek(idx1Pos);
-			handle.writeBytes(DATA_SIGNATURE);
-			savedbLength.add(handle.offset());
-
-			// Write the data length
-			handle.writeInt(bytesPerPixel * xDim * yDim);
-
-			final int rowPad = xPad * bytesPerPixel;
-
-			final byte[] rowBuffer = new byte[width * bytesPerPixel + rowPad];
+			// start a new RIFF chunk if this frame and the indexes of the current
+			// one would not fit in it
+			final int riffFrames = framesWritten - riffFirstFrame + 1;
+			long indexBytes = 32 + 8L * riffFrames;
+			if (riffCount == 0) indexBytes += 8 + 16L * riffFrames;
+			if (riffFrames > 1 && writePos + 8 + frameSize + indexBytes -
+				riffStart > riffLimit)
+			{
+				if (riffCount == SUPER_INDEX_ENTRIES - 1) {
+					throw new FormatException("AVI is too large: more than " +
+						SUPER_INDEX_ENTRIES + " RIFF chunks");
+				}
+				finishRiff();
+				startRiff();
+			}
 
+			// assemble the whole chunk, bottom row first
+			final byte[] frame = frameBuffer;
+			writeFourCC(frame, 0, DATA_SIGNATURE);
+			writeLE(frame, 4, frameSize);
+			final int rowLength = xDim * bytesPerPixel;
 			for (int row = height - 1; row >= 0; row--) {
+				final int rowStart = 8 + (height - 1 - row) * rowLength;
+				if (nChannels == 1 && bytesPerPixel == 1) {
+					System.arraycopy(buf, row * width, frame, rowStart, width);
+					continue;
+				}
 				for (int col = 0; col < width; col++) {
 					int offset = row * width + col;
 					if (interleaved) offset *= nChannels;
+					final int pixel = rowStart + col * bytesPerPixel;
 					final byte r = buf[offset];
 					if (nChannels > 1) {
 						final byte g = buf[offset + (interleaved ? 1 : width * height)];
@@ -1185,71 +1634,18 @@ public class AVIFormat extends AbstractFormat {
 							b = buf[offset + (interleaved ? 2 : 2 * width * height)];
 						}
 
-						rowBuffer[col * bytesPerPixel] = b;
-						rowBuffer[col * bytesPerPixel + 1] = g;
+						frame[pixel] = b;
+						frame[pixel + 1] = g;
 					}
-					rowBuffer[col * bytesPerPixel + bytesPerPixel - 1] = r;
+					frame[pixel + bytesPerPixel - 1] = r;
 				}
-				handle.write(rowBuffer);
 			}
 
-			planesWritten++;
-
-			// Write the idx1 CHUNK
-			// Write the 'idx1' signature
-			idx1Pos = handle.offset();
-			handle.seek(SAVE_LIST2_SIZE);
-			handle.writeInt((int) (idx1Pos - (SAVE_LIST2_SIZE + 4)));
-
-			handle.seek(idx1Pos);
-			handle.writeBytes("idx1");
-
-			saveidx1Length = handle.offset();
-
-			// Write the length of the idx1 CHUNK not including the idx1
-			// signature
-			handle.writeInt(4 + (planesWritten * 16));
-
-			for (int z = 0; z < planesWritten; z++) {
-				// In the ckid field write the 4 character code to identify the
-				// chunk
-				// 00db or 00dc
-				handle.writeBytes(DATA_SIGNATURE);
-				// Write the flags - select AVIIF_KEYFRAME
-				if (z == 0) handle.writeInt(0x10);
-				else handle.writeInt(0x00);
-
-				// AVIIF_KEYFRAME 0x00000010L
-				// The flag indicates key frames in the video sequence.
-				// Key frames do not need previous video information to be
-				// decompressed.
-				// AVIIF_NOTIME 0x00000100L The CHUNK does not influence video
-				// timing
-				// (for example a palette change CHUNK).
-				// AVIIF_LIST 0x00000001L Marks a LIST CHUNK.
-				// AVIIF_TWOCC 2L
-				// AVIIF_COMPUSE 0x0FFF0000L These bits are for compressor use.
-				handle.writeInt((int) (savedbLength.get(z) - 4 - SAVE_MOVI));
-
-				// Write the offset (relative to the 'movi' field) to the
-				// relevant
-				// CHUNK. Write the length of the relevant CHUNK. Note that this
-				// length
-				// is also written at savedbLength
-				handle.writeInt(bytesPerPixel * xDim * yDim);
-			}
-			endPos = handle.offset();
-			handle.seek(SAVE_FILE_SIZE);
-			handle.writeInt((int) (endPos - (SAVE_FILE_SIZE + 4)));
-
-			handle.seek(saveidx1Length);
-			handle.writeInt((int) (endPos - (saveidx1Length + 4)));
-
-			// write the total number of planes
-			handle.seek(FRAME_OFFSET);
-			handle.writeInt(planesWritten);
-			handle.seek(FRAME_OFFSET_2);
-			handle.writeInt(planesWritten);
+			final DataHandle<Location> handle = getHandle();
+			handle.seek(writePos);
+			handle.write(frame);
+			addFrame(writePos);
+			writePos += frame.length;
 		}
 
 		@Override
@@ -1264,15 +1660,21 @@ public class AVIFormat extends AbstractFormat {
 
 		@Override
 		public void close() throws IOException {
+			if (getHandle() != null && frameOffsets != null) {
+				finishRiff();
+				writeHeaderIndex(getHandle());
+			}
 			super.close();
-			planesWritten = 0;
 			bytesPerPixel = 0;
 			xDim = yDim = zDim = tDim = xPad = 0;
 			microSecPerFrame = 0;
-			savedbLength = null;
-			idx1Pos = 0;
-			endPos = 0;
-			saveidx1Length = 0;
+			frameSize = 0;
+			frameBuffer = null;
+			frameOffsets = null;
+			framesWritten = firstRiffFrames = riffFirstFrame = riffCount = 0;
+			indexOffsets = null;
+			indexSizes = indexFrames = null;
+			riffStart = moviStart = writePos = 0;
 		}
 
 		@Override
@@ -1280,34 +1682,9 @@ public class AVIFormat extends AbstractFormat {
 			final SCIFIOConfig config) throws FormatException, IOException
 		{
 			super.setDest(out, imageIndex, config);
-			savedbLength = new ArrayList<>();
 
 			final Metadata meta = getMetadata();
 
-			// FIXME is this correct behavior?
-			if (out.length() > 0) {
-				final DataHandle<Location> in = dataHandleService.create(out.get());
-				in.setOrder(ByteOrder.LITTLE_ENDIAN);
-				in.seek(FRAME_OFFSET);
-				planesWritten = in.readInt();
-
-				in.seek(SAVE_FILE_SIZE);
-				endPos = in.readInt() + SAVE_FILE_SIZE + 4;
-
-				in.seek(SAVE_LIST2_SIZE);
-				idx1Pos = in.readInt() + SAVE_LIST2_SIZE + 4;
-				saveidx1Length = idx1Pos + 4;
-
-				if (planesWritten > 0) in.seek(saveidx1Length + 4);
-				for (int z = 0; z < planesWritten; z++) {
-					in.skipBytes(8);
-					savedbLength.add(in.readInt() + 4 + SAVE_MOVI);
-					in.skipBytes(4);
-				}
-				in.close();
-				out.seek(idx1Pos);
-			}
-
 			out.setOrder(ByteOrder.LITTLE_ENDIAN);
 
 			final ImageMetadata imageMetadata = meta.get(imageIndex);
@@ -1328,6 +1705,64 @@ public class AVIFormat extends AbstractFormat {
 				xDim += xPad;
 			}
 
+			frameSize = bytesPerPixel * xDim * yDim;
+			frameBuffer = new byte[8 + frameSize];
+			frameOffsets = new long[Math.max(1, tDim * zDim)];
+			framesWritten = firstRiffFrames = riffFirstFrame = riffCount = 0;
+			indexOffsets = new long[SUPER_INDEX_ENTRIES];
+			indexSizes = new int[SUPER_INDEX_ENTRIES];
+			indexFrames = new int[SUPER_INDEX_ENTRIES];
+			riffStart = 0;
+			moviStart = SAVE_LIST2_SIZE - 4;
+			writePos = SAVE_MOVI + 4;
+
+			riffLimit = RIFF_LIMIT;
+			if (config.containsKey(RIFF_LIMIT_KEY)) {
+				final Object o = config.get(RIFF_LIMIT_KEY);
+				final long limit;
+				try {
+					limit = o instanceof Number ? ((Number) o).longValue() : Long
+						.parseLong(String.valueOf(o));
+				}
+				catch (final NumberFormatException e) {
+					throw new FormatException("Invalid " + RIFF_LIMIT_KEY + ": " + o, e);
+				}
+				if (limit > 0) riffLimit = Math.min(limit, RIFF_LIMIT);
+			}
+
+			// NB: A destination which already holds frames is appended to: the
+			// frames listed by its idx1 are kept, and new frames follow them. This
+			// is only supported for files of a single RIFF chunk, as the frames of
+			// any further chunks are not listed by the idx1.
+			if (out.length() > 0) {
+				final DataHandle<Location> in = dataHandleService.create(out.get());
+				in.setOrder(ByteOrder.LITTLE_ENDIAN);
+				in.seek(SAVE_FILE_SIZE);
+				final long riffEnd = in.readInt() + SAVE_FILE_SIZE + 4;
+				if (riffEnd < in.length()) {
+					in.close();
+					throw new FormatException(
+						"Appending to an AVI with more than one RIFF chunk is not supported");
+				}
+				in.seek(FRAME_OFFSET);
+				final int frames = in.readInt();
+
+				in.seek(SAVE_LIST2_SIZE);
+				final long idx1Pos = in.readInt() + SAVE_LIST2_SIZE + 4;
+				writePos = idx1Pos;
+
+				if (frames > 0) in.seek(idx1Pos + 8);
+				for (int z = 0; z < frames; z++) {
+					in.skipBytes(8);
+					addFrame(in.readInt() + SAVE_MOVI);
+					in.skipBytes(4);
+				}
+				in.close();
+				if (frames > 0) {
+					writePos = frameOffsets[frames - 1] + 8 + frameSize;
+				}
+			}
+
 			byte[][] lut = null;
 
 			if (getColorModel() instanceof IndexColorModel) {
@@ -1629,25 +2064,167 @@ public class AVIFormat extends AbstractFormat {
 				out.writeInt(16); // Write length of strn sub-CHUNK
 				out.writeBytes("FileAVI write  ");
 
-				out.seek(SAVE_LIST1_SIZE);
-				out.writeInt((int) (SAVE_JUNK_SIG - (SAVE_LIST1_SIZE + 4)));
-				out.seek(SAVE_LIST1_SUBSIZE);
-				out.writeInt((int) (SAVE_JUNK_SIG - (SAVE_LIST1_SUBSIZE + 4)));
-				out.seek(SAVE_JUNK_SIG);
-
-				// write a JUNK CHUNK for padding
-				out.writeBytes("JUNK");
-				out.writeInt((int) PADDING_BYTES);
-				for (int i = 0; i < PADDING_BYTES / 2; i++) {
-					out.writeShort((short) 0);
-				}
+				// write the (empty) OpenDML indexes and a JUNK CHUNK for padding
+				writeHeaderIndex(out);
 
 				// Write the second LIST chunk, which contains the actual data
 				out.writeBytes("LIST");
 
 				out.writeInt(4); // For now write 0
 				out.writeBytes("movi"); // Write CHUNK type 'movi'
-				idx1Pos = out.offset();
+			}
+		}
+
+		// -- Helper methods --
+
+		private void addFrame(final long offset) {
+			if (framesWritten == frameOffsets.length) {
+				frameOffsets = Arrays.copyOf(frameOffsets, 2 * framesWritten);
+			}
+			frameOffsets[framesWritten++] = offset;
+		}
+
+		/** Starts an OpenDML RIFF-AVIX chunk, holding further frames. */
+		private void startRiff() throws IOException {
+			final DataHandle<Location> handle = getHandle();
+			riffStart = writePos;
+			moviStart = riffStart + 12;
+			riffFirstFrame = framesWritten;
+			handle.seek(riffStart);
+			handle.writeBytes("RIFF");
+			handle.writeInt(0);
+			handle.writeBytes("AVIX");
+			handle.writeBytes("LIST");
+			handle.writeInt(0);
+			handle.writeBytes("movi");
+			writePos = handle.offset();
+		}
+
+		/**
+		 * Closes the current RIFF chunk: writes the standard index of its frames
+		 * at the end of its movi LIST, followed by the idx1 of the first RIFF, and
+		 * fills in the chunk sizes.
+		 */
+		private void finishRiff() throws IOException {
+			final DataHandle<Location> handle = getHandle();
+			final int frames = framesWritten - riffFirstFrame;
+
+			final ByteBuffer ix = ByteBuffer.allocate(32 + 8 * frames).order(
+				java.nio.ByteOrder.LITTLE_ENDIAN);
+			ix.put("ix00".getBytes(Constants.ENCODING));
+			ix.putInt(24 + 8 * frames);
+			ix.putShort((short) 2); // wLongsPerEntry
+			ix.put((byte) 0); // bIndexSubType
+			ix.put((byte) 1); // bIndexType - AVI_INDEX_OF_CHUNKS
+			ix.putInt(frames);
+			ix.put(DATA_SIGNATURE.getBytes(Constants.ENCODING));
+			ix.putLong(moviStart); // qwBaseOffset
+			ix.putInt(0);
+			for (int z = riffFirstFrame; z < framesWritten; z++) {
+				// offset of the frame data, relative to the base offset
+				ix.putInt((int) (frameOffsets[z] + 8 - moviStart));
+				ix.putInt(frameSize);
+			}
+			indexOffsets[riffCount] = writePos;
+			indexSizes[riffCount] = ix.capacity();
+			indexFrames[riffCount] = frames;
+			handle.seek(writePos);
+			handle.write(ix.array());
+			final long moviEnd = handle.offset();
+
+			if (riffCount == 0) {
+				firstRiffFrames = frames;
+				final ByteBuffer idx1 = ByteBuffer.allocate(8 + 16 * frames).order(
+					java.nio.ByteOrder.LITTLE_ENDIAN);
+				idx1.put("idx1".getBytes(Constants.ENCODING));
+				idx1.putInt(16 * frames);
+				for (int z = 0; z < frames; z++) {
+					idx1.put(DATA_SIGNATURE.getBytes(Constants.ENCODING));
+					idx1.putInt(AVIIF_KEYFRAME);
+					// offset of the chunk, relative to the 'movi' field
+					idx1.putInt((int) (frameOffsets[z] - SAVE_MOVI));
+					idx1.putInt(frameSize);
+				}
+				handle.write(idx1.array());
+			}
+			final long riffEnd = handle.offset();
+
+			handle.seek(moviStart + 4);
+			handle.writeInt((int) (moviEnd - (moviStart + 8)));
+			handle.seek(riffStart + 4);
+			handle.writeInt((int) (riffEnd - (riffStart + 8)));
+			riffCount++;
+			riffFirstFrame = framesWritten;
+			writePos = riffEnd;
+			if (handle.length() > writePos) handle.setLength(writePos);
+		}
+
+		/**
+		 * Writes the end of the header: the OpenDML super index closing the strl
+		 * LIST, the OpenDML extended header closing the hdrl LIST, the JUNK
+		 * padding up to the movi LIST, and the frame counts.
+		 */
+		private void writeHeaderIndex(final DataHandle<Location> handle)
+			throws IOException
+		{
+			handle.seek(SAVE_LIST1_SIZE);
+			handle.writeInt((int) (SAVE_HDRL_END - (SAVE_LIST1_SIZE + 4)));
+			handle.seek(SAVE_LIST1_SUBSIZE);
+			handle.writeInt((int) (SAVE_STRL_END - (SAVE_LIST1_SUBSIZE + 4)));
+
+			final ByteBuffer header = ByteBuffer.allocate((int) (SAVE_LIST2_SIZE -
+				4 - SAVE_INDX)).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+			writeSuperIndex(header);
+
+			header.put("LIST".getBytes(Constants.ENCODING));
+			header.putInt(260);
+			header.put("odml".getBytes(Constants.ENCODING));
+			header.put("dmlh".getBytes(Constants.ENCODING));
+			header.putInt(248);
+			header.putInt(framesWritten);
+			header.position((int) (SAVE_HDRL_END - SAVE_INDX));
+
+			header.put("JUNK".getBytes(Constants.ENCODING));
+			header.putInt((int) PADDING_BYTES);
+			handle.seek(SAVE_INDX);
+			handle.write(header.array());
+
+			// avih counts the frames of the first RIFF; strh and dmlh all frames
+			handle.seek(FRAME_OFFSET);
+			handle.writeInt(firstRiffFrames);
+			handle.seek(FRAME_OFFSET_2);
+			handle.writeInt(framesWritten);
+		}
+
+		private void writeSuperIndex(final ByteBuffer indx) throws IOException {
+			final int start = indx.position();
+			indx.put("indx".getBytes(Constants.ENCODING));
+			indx.putInt((int) (SAVE_STRL_END - SAVE_INDX - 8));
+			indx.putShort((short) 4); // wLongsPerEntry
+			indx.put((byte) 0); // bIndexSubType
+			indx.put((byte) 0); // bIndexType - AVI_INDEX_OF_INDEXES
+			indx.putInt(riffCount);
+			indx.put(DATA_SIGNATURE.getBytes(Constants.ENCODING));
+			indx.position(indx.position() + 12); // dwReserved[3]
+			for (int i = 0; i < riffCount; i++) {
+				indx.putLong(indexOffsets[i]);
+				indx.putInt(indexSizes[i]);
+				indx.putInt(indexFrames[i]);
+			}
+			indx.position(start + (int) (SAVE_STRL_END - SAVE_INDX));
+		}
+
+		private static void writeFourCC(final byte[] b, final int off,
+			final String fourcc)
+		{
+			for (int i = 0; i < 4; i++) {
+				b[off + i] = (byte) fourcc.charAt(i);
+			}
+		}
+
+		private static void writeLE(final byte[] b, final int off, final int v) {
+			for (int i = 0; i < 4; i++) {
+				b[off + i] = (byte) (v >> (8 * i));
 			}
 		}
 	}
@@ -1673,8 +2250,8 @@ public class AVIFormat extends AbstractFormat {
 		protected void translateImageMetadata(final List<ImageMetadata> source,
 			final Metadata dest)
 		{
-			final List<Long> offsets = new ArrayList<>();
-			final List<Long> lengths = new ArrayList<>();
+			final LongArray offsets = new LongArray();
+			final LongArray lengths = new LongArray();
 			dest.setOffsets(offsets);
 			dest.setLengths(lengths);
 			dest.add(source.get(0).copy());
@@ -1717,9 +2294,9 @@ public class AVIFormat extends AbstractFormat {
 			for (int i = 0; i < source.get(0).getPlaneCount() /
 				nonplanarChannels; i++)
 			{
-				offsets.add(offset);
+				offsets.addValue(offset);
 
-				lengths.add(length);
+				lengths.addValue(length);
 				offset += length;
 			}
 
@@ -1781,7 +2358,7 @@ public class AVIFormat extends AbstractFormat {
 		{
 			final int bmpCompression = meta.getBmpCompression();
 
-			final long fileOff = meta.getOffsets().get((int) planeIndex).longValue();
+			final long fileOff = meta.getOffset((int) planeIndex, stream);
 			final long filePointer = stream.offset();
 			stream.seek(fileOff);
 
@@ -1791,8 +2368,8 @@ public class AVIFormat extends AbstractFormat {
 				CodecService.class);
 
 			if (bmpCompression == MSRLE) {
-				final byte[] b = new byte[(int) meta.getLengths().get((int) planeIndex)
-					.longValue()];
+				final byte[] b = new byte[(int) meta.getLength((int) planeIndex,
+					stream)];
 				stream.read(b);
 				final MSRLECodec codec = codecService.getCodec(MSRLECodec.class);
 				buf = codec.decompress(b, options);
@@ -1816,8 +2393,8 @@ public class AVIFormat extends AbstractFormat {
 			else if (bmpCompression == JPEG) {
 				final JPEGCodec codec = codecService.getCodec(JPEGCodec.class);
 
-				byte[] tmpPlane = new byte[(int) meta.getLengths().get((int) planeIndex)
-					.longValue()];
+				byte[] tmpPlane = new byte[(int) meta.getLength((int) planeIndex,
+					stream)];
 				stream.read(tmpPlane);
 
 				final boolean motionJPEG = new String(tmpPlane, 6, 4,
@@ -54,13 +54,23 @@ import io.scif.services.FilePatternService;
 import io.scif.services.InitializeService;
 import io.scif.util.FormatTools;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
 import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import net.imagej.axis.Axes;
 import net.imglib2.Interval;
@@ -72,9 +82,11 @@ import org.scijava.io.handle.DataHandle;
 import org.scijava.io.handle.DataHandle.ByteOrder;
 import org.scijava.io.handle.DataHandleService;
 import org.scijava.io.location.BrowsableLocation;
+import org.scijava.io.location.FileLocation;
 import org.scijava.io.location.Location;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
+import org.scijava.thread.ThreadService;
 import org.scijava.util.Bytes;
 import org.scijava.util.DigestUtils;
 
@@ -330,7 +342,7 @@ public class DICOMFormat extends AbstractFormat {
 		// -- ColorTable API Methods --
 
 		@Override
-		public ColorTable getColorTable(final int imageIndex,
+		public synchronized ColorTable getColorTable(final int imageIndex,
 			final long planeIndex)
 		{
 			final int pixelType = get(0).getPixelType();
@@ -590,6 +602,9 @@ public class DICOMFormat extends AbstractFormat {
 		private static final int SEQUENCE_DELIMINATION = 0xFFFEE0DD;
 		private static final int PIXEL_DATA = 0x7FE00010;
 
+		/** First line of a persistent study index. */
+		private static final String INDEX_HEADER = "# SCIFIO DICOM study index";
+
 		@Parameter
 		private CodecService codecService;
 
@@ -599,6 +614,9 @@ public class DICOMFormat extends AbstractFormat {
 		@Parameter
 		private FilePatternService filePatternService;
 
+		@Parameter
+		private ThreadService threadService;
+
 		// -- Parser API Methods --
 
 		@Override
@@ -958,7 +976,7 @@ public class DICOMFormat extends AbstractFormat {
 				// look for matching files in the current directory
 				final BrowsableLocation currentFile = asBrowsableLocation(getSource());
 				BrowsableLocation directory = currentFile.parent();
-				scanDirectory(fileList, directory, false);
+				scanDirectory(fileList, directory, false, config);
 
 				// move up a directory and look for other directories that
 				// could contain matching files
@@ -968,7 +986,7 @@ public class DICOMFormat extends AbstractFormat {
 				if (subdirs != null) {
 					for (final BrowsableLocation subdir : subdirs) {
 						if (!subdir.isDirectory()) continue;
-						scanDirectory(fileList, subdir, true);
+						scanDirectory(fileList, subdir, true, config);
 					}
 				}
 
@@ -1026,132 +1044,315 @@ public class DICOMFormat extends AbstractFormat {
 		}
 
 		/**
-		 * Scan the given directory for files that belong to this dataset.
+		 * Scan the given directory for files that belong to this dataset. The
+		 * headers of the candidate files are read concurrently, and are taken from
+		 * the persistent study index when one is configured and still current.
 		 */
 		private void scanDirectory(
 			final Map<Integer, List<BrowsableLocation>> fileList,
-			final BrowsableLocation dir, final boolean checkSeries)
-			throws FormatException, IOException
+			final BrowsableLocation dir, final boolean checkSeries,
+			final SCIFIOConfig config) throws FormatException, IOException
 		{
-			// FIXME improve performance on large directories
 			final BrowsableLocation currentFile = asBrowsableLocation(getSource());
 			final FilePattern pattern = new FilePattern(filePatternService,
 				currentFile, dir, dataHandleService);
-			Location[] patternFiles = pattern.getFiles();
-			if (patternFiles == null) patternFiles = new Location[0];
-			Arrays.sort(patternFiles);
+			final Location[] patternFiles = pattern.getFiles();
+			if (patternFiles == null) return;
+			final Set<URI> patternURIs = new HashSet<>();
+			for (final Location location : patternFiles) {
+				patternURIs.add(location.getURI());
+			}
 			final Set<BrowsableLocation> files = dir.children();
 			if (files == null) return;
-			for (final BrowsableLocation f : files) {
-				log().debug("Checking file " + f);
 
-				if (!f.equals(getSourceLocation()) && getFormat().createChecker()
-					.isFormat(f) && arrayContains(f, patternFiles))
+			final List<BrowsableLocation> candidates = new ArrayList<>();
+			for (final BrowsableLocation f : files) {
+				if (!f.equals(getSourceLocation()) && patternURIs.contains(f
+					.getURI()))
 				{
-					addFileToList(fileList, f, checkSeries);
+					candidates.add(f);
 				}
 			}
+			if (candidates.isEmpty()) return;
+
+			final File indexFile = indexFile(dir, config);
+			final long modified = indexFile == null ? 0 : ((FileLocation) dir)
+				.getFile().lastModified();
+			final Map<String, SliceInfo> index = readIndex(indexFile, modified);
+
+			final SliceInfo[] slices = new SliceInfo[candidates.size()];
+			final List<Integer> unindexed = new ArrayList<>();
+			for (int i = 0; i < slices.length; i++) {
+				slices[i] = index.get(candidates.get(i).getName());
+				if (slices[i] == null) unindexed.add(i);
+			}
+			readSliceInfos(candidates, slices, unindexed);
+
+			if (indexFile != null && !unindexed.isEmpty()) {
+				for (int i = 0; i < slices.length; i++) {
+					index.put(candidates.get(i).getName(), slices[i]);
+				}
+				writeIndex(indexFile, modified, index);
+			}
+
+			for (int i = 0; i < slices.length; i++) {
+				log().debug("Checking file " + candidates.get(i));
+				addFileToList(fileList, candidates.get(i), slices[i], checkSeries);
+			}
 		}
 
-		private boolean arrayContains(BrowsableLocation f,
-			Location[] patternFiles)
+		/**
+		 * Reads the header tags of the given files on the thread pool.
+		 *
+		 * @param files Files to read from.
+		 * @param slices Receives the tags of each file read.
+		 * @param indices Indices of the files to read.
+		 */
+		private void readSliceInfos(final List<BrowsableLocation> files,
+			final SliceInfo[] slices, final List<Integer> indices)
+			throws FormatException, IOException
 		{
-			for (Location location : patternFiles) {
-				if (location.getURI().equals(f.getURI())) {
-					return true;
+			final int threads = Math.min(indices.size(), Runtime.getRuntime()
+				.availableProcessors());
+			if (threads < 2) {
+				for (final int i : indices) {
+					slices[i] = readSliceInfo(files.get(i));
+				}
+				return;
+			}
+
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < threads; thread++) {
+				final int first = thread;
+				futures.add(threadService.run(() -> {
+					for (int t = first; t < indices.size(); t += threads) {
+						final int i = indices.get(t);
+						slices[i] = readSliceInfo(files.get(i));
+					}
+					return null;
+				}));
+			}
+			for (final Future<?> future : futures) {
+				try {
+					future.get();
+				}
+				catch (final InterruptedException e) {
+					throw new IOException(e);
+				}
+				catch (final ExecutionException e) {
+					final Throwable cause = e.getCause();
+					if (cause instanceof FormatException) throw (FormatException) cause;
+					if (cause instanceof IOException) throw (IOException) cause;
+					throw new FormatException(cause);
 				}
 			}
-			return false;
 		}
 
 		/**
-		 * Determine if the given file belongs in the same dataset as this file.
+		 * Reads the tags identifying the slice in the given file. The file is read
+		 * through a buffer, so only the pages holding its header are loaded, and
+		 * element lengths are checked against the length of the whole file.
+		 *
+		 * @return The tags found, all null if the file is not a DICOM file.
 		 */
-
-		private void addFileToList(
-			final Map<Integer, List<BrowsableLocation>> fileList,
-			final BrowsableLocation file, final boolean checkSeries)
+		private SliceInfo readSliceInfo(final BrowsableLocation file)
 			throws FormatException, IOException
 		{
-			try (final DataHandle<Location> stream = dataHandleService.create(file)) {
+			try (final DataHandle<Location> stream = dataHandleService.readBuffer(
+				file))
+			{
 				if (!getFormat().createChecker().isFormat(stream)) {
-					return;
+					return new SliceInfo(null, null, null, -1);
 				}
-				stream.setOrder(ByteOrder.LITTLE_ENDIAN);
+				return readSliceInfo(stream);
+			}
+		}
 
-				stream.seek(128);
-				if (!"DICM".equals(stream.readString(4))) stream.seek(0);
+		private SliceInfo readSliceInfo(final DataHandle<Location> stream)
+			throws FormatException, IOException
+		{
+			stream.setOrder(ByteOrder.LITTLE_ENDIAN);
 
-				int fileSeries = -1;
+			stream.seek(128);
+			if (!"DICM".equals(stream.readString(4))) stream.seek(0);
 
-				String date = null, time = null, instance = null;
-				while (date == null || time == null || instance == null ||
-					(checkSeries && fileSeries < 0))
-				{
-					final long fp = stream.offset();
-					if (fp + 4 >= stream.length() || fp < 0) break;
-					final DICOMTag tag = DICOMUtils.getNextTag(stream);
-					final String key = TYPES.name(tag.get());
-					if ("Instance Number".equals(key)) {
-						instance = stream.readString(tag.getElementLength()).trim();
-						if (instance.length() == 0) instance = null;
-					}
-					else if ("Acquisition Time".equals(key)) {
-						time = stream.readString(tag.getElementLength());
-					}
-					else if ("Acquisition Date".equals(key)) {
-						date = stream.readString(tag.getElementLength());
-					}
-					else if ("Series Number".equals(key)) {
-						fileSeries = Integer.parseInt(stream.readString(tag
-							.getElementLength()).trim());
-					}
-					else stream.skipBytes(tag.getElementLength());
+			String date = null, time = null, instance = null, series = null;
+			while (date == null || time == null || instance == null ||
+				series == null)
+			{
+				final long fp = stream.offset();
+				if (fp + 4 >= stream.length() || fp < 0) break;
+				final DICOMTag tag = DICOMUtils.getNextTag(stream);
+				final String key = TYPES.name(tag.get());
+				if ("Instance Number".equals(key)) {
+					instance = stream.readString(tag.getElementLength()).trim();
+					if (instance.length() == 0) instance = null;
 				}
-
-				if (date == null || time == null || instance == null || (checkSeries &&
-					fileSeries == getMetadata().getOriginalSeries()))
-				{
-					return;
+				else if ("Acquisition Time".equals(key)) {
+					time = stream.readString(tag.getElementLength());
 				}
+				else if ("Acquisition Date".equals(key)) {
+					date = stream.readString(tag.getElementLength());
+				}
+				else if ("Series Number".equals(key)) {
+					series = stream.readString(tag.getElementLength()).trim();
+				}
+				else stream.skipBytes(tag.getElementLength());
+			}
 
-				int stamp = 0;
+			int fileSeries = -1;
+			if (series != null) {
 				try {
-					stamp = Integer.parseInt(time);
+					fileSeries = Integer.parseInt(series);
 				}
 				catch (final NumberFormatException e) {}
+			}
+			return new SliceInfo(date, time, instance, fileSeries);
+		}
 
-				int timestamp = 0;
-				try {
-					timestamp = Integer.parseInt(getMetadata().getOriginalTime());
+		/**
+		 * @return The persistent study index file of the given directory, or null
+		 *         if no index directory is configured or the directory is not on
+		 *         the local file system.
+		 */
+		private File indexFile(final BrowsableLocation dir,
+			final SCIFIOConfig config)
+		{
+			final File indexDirectory = config.groupableGetIndexDirectory();
+			if (indexDirectory == null || !(dir instanceof FileLocation)) return null;
+			final String key = dir.getURI().toString();
+			return new File(indexDirectory, DigestUtils.hex(DigestUtils.sha1(
+				DigestUtils.bytes(key))) + ".dcmidx");
+		}
+
+		/**
+		 * Reads a persistent study index.
+		 *
+		 * @return The slice tags of each indexed file name; empty if there is no
+		 *         index, or if the directory was modified since it was written.
+		 */
+		private Map<String, SliceInfo> readIndex(final File indexFile,
+			final long modified)
+		{
+			final Map<String, SliceInfo> index = new HashMap<>();
+			if (indexFile == null || !indexFile.isFile()) return index;
+			try (final BufferedReader reader = Files.newBufferedReader(indexFile
+				.toPath(), StandardCharsets.UTF_8))
+			{
+				if (!INDEX_HEADER.equals(reader.readLine()) || !String.valueOf(
+					modified).equals(reader.readLine()))
+				{
+					return index;
 				}
-				catch (final NumberFormatException e) {}
+				String line;
+				while ((line = reader.readLine()) != null) {
+					final String[] fields = line.split("\t", -1);
+					if (fields.length != 5) continue;
+					index.put(fields[0], new SliceInfo(indexValue(fields[1]), indexValue(
+						fields[2]), indexValue(fields[3]), Integer.parseInt(fields[4])));
+				}
+			}
+			catch (final IOException | NumberFormatException e) {
+				log().debug("Could not read study index " + indexFile, e);
+				index.clear();
+			}
+			return index;
+		}
 
-				if (date.equals(getMetadata().getOriginalDate()) && (Math.abs(stamp -
-					timestamp) < 150))
+		/** Writes a persistent study index, replacing any previous one. */
+		private void writeIndex(final File indexFile, final long modified,
+			final Map<String, SliceInfo> index)
+		{
+			final File tmp = new File(indexFile.getPath() + ".tmp");
+			try {
+				Files.createDirectories(indexFile.getParentFile().toPath());
+				try (final BufferedWriter writer = Files.newBufferedWriter(tmp
+					.toPath(), StandardCharsets.UTF_8))
 				{
-					int position = Integer.parseInt(instance) - 1;
-					if (position < 0) position = 0;
-					if (fileList.get(fileSeries) == null) {
-						fileList.put(fileSeries, new ArrayList<BrowsableLocation>());
+					writer.write(INDEX_HEADER);
+					writer.newLine();
+					writer.write(String.valueOf(modified));
+					writer.newLine();
+					for (final Map.Entry<String, SliceInfo> entry : index.entrySet()) {
+						final SliceInfo slice = entry.getValue();
+						writer.write(entry.getKey() + "\t" + indexField(slice.date) +
+							"\t" + indexField(slice.time) + "\t" + indexField(
+								slice.instance) + "\t" + slice.series);
+						writer.newLine();
+					}
+				}
+				Files.move(tmp.toPath(), indexFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (final IOException e) {
+				log().debug("Could not write study index " + indexFile, e);
+				tmp.delete();
+			}
+		}
+
+		/** Index fields are prefixed, to tell null and empty values apart. */
+		private static String indexField(final String value) {
+			return value == null ? "" : "=" + value;
+		}
+
+		private static String indexValue(final String field) {
+			return field.isEmpty() ? null : field.substring(1);
+		}
+
+		/**
+		 * Determine if the given file belongs in the same dataset as this file.
+		 */
+		private void addFileToList(
+			final Map<Integer, List<BrowsableLocation>> fileList,
+			final BrowsableLocation file, final SliceInfo slice,
+			final boolean checkSeries)
+		{
+			final String date = slice.date, time = slice.time;
+			final String instance = slice.instance;
+			final int fileSeries = slice.series;
+
+			if (date == null || time == null || instance == null || (checkSeries &&
+				fileSeries == getMetadata().getOriginalSeries()))
+			{
+				return;
+			}
+
+			int stamp = 0;
+			try {
+				stamp = Integer.parseInt(time);
+			}
+			catch (final NumberFormatException e) {}
+
+			int timestamp = 0;
+			try {
+				timestamp = Integer.parseInt(getMetadata().getOriginalTime());
+			}
+			catch (final NumberFormatException e) {}
+
+			if (date.equals(getMetadata().getOriginalDate()) && (Math.abs(stamp -
+				timestamp) < 150))
+			{
+				int position = Integer.parseInt(instance) - 1;
+				if (position < 0) position = 0;
+				if (fileList.get(fileSeries) == null) {
+					fileList.put(fileSeries, new ArrayList<BrowsableLocation>());
+				}
+				if (position < fileList.get(fileSeries).size()) {
+					while (position < fileList.get(fileSeries).size() && fileList.get(
+						fileSeries).get(position) != null)
+					{
+						position++;
 					}
 					if (position < fileList.get(fileSeries).size()) {
-						while (position < fileList.get(fileSeries).size() && fileList.get(
-							fileSeries).get(position) != null)
-						{
-							position++;
-						}
-						if (position < fileList.get(fileSeries).size()) {
-							fileList.get(fileSeries).set(position, file);
-						}
-						else fileList.get(fileSeries).add(file);
+						fileList.get(fileSeries).set(position, file);
 					}
-					else {
-						while (position > fileList.get(fileSeries).size()) {
-							fileList.get(fileSeries).add(null);
-						}
-						fileList.get(fileSeries).add(file);
+					else fileList.get(fileSeries).add(file);
+				}
+				else {
+					while (position > fileList.get(fileSeries).size()) {
+						fileList.get(fileSeries).add(null);
 					}
+					fileList.get(fileSeries).add(file);
 				}
 			}
 		}
@@ -1381,6 +1582,11 @@ public class DICOMFormat extends AbstractFormat {
 			return new String[] { FormatTools.MEDICAL_DOMAIN };
 		}
 
+		@Override
+		protected boolean isForkable() {
+			return true;
+		}
+
 		// -- Reader API Methods --
 
 		@Override
@@ -1558,6 +1764,23 @@ public class DICOMFormat extends AbstractFormat {
 
 // -- DICOM Helper Classes --
 
+	/** Tags identifying the slice stored in a DICOM file. */
+	private static final class SliceInfo {
+
+		private final String date, time, instance;
+
+		private final int series;
+
+		private SliceInfo(final String date, final String time,
+			final String instance, final int series)
+		{
+			this.date = date;
+			this.time = time;
+			this.instance = instance;
+			this.series = series;
+		}
+	}
+
 	private static class DICOMUtils {
 
 		private static final int AE = 0x4145, AS = 0x4153, AT = 0x4154, CS = 0x4353;
@@ -37,6 +37,7 @@ import io.scif.ByteArrayReader;
 import io.scif.Format;
 import io.scif.FormatException;
 import io.scif.ImageMetadata;
+import io.scif.MappableMetadata;
 import io.scif.config.SCIFIOConfig;
 import io.scif.util.FormatTools;
 
@@ -70,7 +71,9 @@ public class FITSFormat extends AbstractFormat {
 
 	// -- Nested Classes --
 
-	public static class Metadata extends AbstractMetadata {
+	public static class Metadata extends AbstractMetadata implements
+		MappableMetadata
+	{
 
 		// -- Fields --
 
@@ -86,6 +89,18 @@ public class FITSFormat extends AbstractFormat {
 			this.pixelOffset = pixelOffset;
 		}
 
+		// -- MappableMetadata API methods --
+
+		@Override
+		public Location getPixelsLocation(final int imageIndex) {
+			return getSourceLocation();
+		}
+
+		@Override
+		public long getPlaneOffset(final int imageIndex, final long planeIndex) {
+			return pixelOffset + planeIndex * get(imageIndex).getPlaneSize();
+		}
+
 		// -- Metadata API methods --
 
 		@Override
@@ -195,6 +210,11 @@ public class FITSFormat extends AbstractFormat {
 				FormatTools.UNKNOWN_DOMAIN };
 		}
 
+		@Override
+		protected boolean isForkable() {
+			return true;
+		}
+
 		// -- Reader API Methods --
 
 		@Override
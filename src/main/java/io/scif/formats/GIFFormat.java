@@ -43,6 +43,12 @@ import io.scif.config.SCIFIOConfig;
 import io.scif.util.FormatTools;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 import net.imagej.axis.Axes;
@@ -112,7 +118,10 @@ public class GIFFormat extends AbstractFormat {
 		/** Transparent color index. */
 		private int transIndex;
 
-		// LZW working arrays
+		/** Location and layout of each frame. */
+		private transient List<Frame> frames;
+
+		// Former LZW working arrays, no longer used by the reader
 		private transient short[] prefix;
 
 		private transient byte[] suffix;
@@ -243,42 +252,62 @@ public class GIFFormat extends AbstractFormat {
 			this.transIndex = transIndex;
 		}
 
+		/** @deprecated Frames are decoded on demand; this is no longer used. */
+		@Deprecated
 		public short[] getPrefix() {
 			return prefix;
 		}
 
+		/** @deprecated Frames are decoded on demand; this is no longer used. */
+		@Deprecated
 		public void setPrefix(final short[] prefix) {
 			this.prefix = prefix;
 		}
 
+		/** @deprecated Frames are decoded on demand; this is no longer used. */
+		@Deprecated
 		public byte[] getSuffix() {
 			return suffix;
 		}
 
+		/** @deprecated Frames are decoded on demand; this is no longer used. */
+		@Deprecated
 		public void setSuffix(final byte[] suffix) {
 			this.suffix = suffix;
 		}
 
+		/** @deprecated Frames are decoded on demand; this is no longer used. */
+		@Deprecated
 		public byte[] getPixelStack() {
 			return pixelStack;
 		}
 
+		/** @deprecated Frames are decoded on demand; this is no longer used. */
+		@Deprecated
 		public void setPixelStack(final byte[] pixelStack) {
 			this.pixelStack = pixelStack;
 		}
 
+		/** @deprecated Frames are decoded on demand; this is no longer used. */
+		@Deprecated
 		public byte[] getPixels() {
 			return pixels;
 		}
 
+		/** @deprecated Frames are decoded on demand; this is no longer used. */
+		@Deprecated
 		public void setPixels(final byte[] pixels) {
 			this.pixels = pixels;
 		}
 
+		/** @deprecated Frames are decoded on demand; this is no longer used. */
+		@Deprecated
 		public Vector<byte[]> getImages() {
 			return images;
 		}
 
+		/** @deprecated Frames are decoded on demand; this is no longer used. */
+		@Deprecated
 		public void setImages(final Vector<byte[]> images) {
 			this.images = images;
 		}
@@ -317,6 +346,7 @@ public class GIFFormat extends AbstractFormat {
 				ix = iy = iw = ih = blockSize = 0;
 				dispose = lastDispose = transIndex = 0;
 				gct = act;
+				frames = null;
 				prefix = null;
 				suffix = pixelStack = pixels = null;
 				images = null;
@@ -372,9 +402,6 @@ public class GIFFormat extends AbstractFormat {
 
 		private static final int GRAPHICS = 0xf9;
 
-		/** Maximum buffer size. */
-		private static final int MAX_STACK_SIZE = 4096;
-
 		// -- Parser API Methods --
 
 		@Override
@@ -385,7 +412,7 @@ public class GIFFormat extends AbstractFormat {
 			log().info("Verifying GIF format");
 
 			stream.setOrder(ByteOrder.LITTLE_ENDIAN);
-			meta.setImages(new Vector<byte[]>());
+			meta.frames = new ArrayList<>();
 			meta.setColorTables(new Vector<int[]>());
 
 			final String ident = getSource().readString(6);
@@ -482,214 +509,32 @@ public class GIFFormat extends AbstractFormat {
 			if (metadata.getAct() == null) throw new FormatException(
 				"Color table not found.");
 
-			int save = 0;
-
-			if (metadata.isTransparency()) {
-				save = metadata.getAct()[metadata.getTransIndex()];
-				metadata.getAct()[metadata.getTransIndex()] = 0;
+			// index the image data, which is only decoded when read
+			final DataHandle<Location> source = getSource();
+			final long offset = source.offset();
+			source.skipBytes(1);
+			int dataLength = 0;
+			int blockSize = 0;
+			while (source.offset() < source.length()) {
+				blockSize = source.read() & 0xff;
+				if (blockSize == 0) break;
+				dataLength += blockSize;
+				source.skipBytes(blockSize);
 			}
+			metadata.setBlockSize(blockSize);
 
-			decodeImageData();
-			skipBlocks();
+			metadata.frames.add(new Frame(offset, dataLength, metadata.getIx(),
+				metadata.getIy(), metadata.getIw(), metadata.getIh(), metadata
+					.isInterlace(), metadata.getLastDispose()));
+			metadata.getColorTables().add(metadata.getAct());
 
 			// Update the plane count
 			metadata.get(0).setAxisLength(Axes.TIME, metadata.get(0).getAxisLength(
 				Axes.TIME) + 1);
 
-			if (metadata.isTransparency()) metadata.getAct()[metadata
-				.getTransIndex()] = save;
-
 			metadata.setLastDispose(metadata.getDispose());
 		}
 
-		/** Decodes LZW image data into a pixel array. Adapted from ImageMagick. */
-		private void decodeImageData() throws IOException {
-			final int nullCode = -1;
-			final int npix = getMetadata().getIw() * getMetadata().getIh();
-
-			byte[] pixels = getMetadata().getPixels();
-
-			if (pixels == null || pixels.length < npix) pixels = new byte[npix];
-
-			short[] prefix = getMetadata().getPrefix();
-			byte[] suffix = getMetadata().getSuffix();
-			byte[] pixelStack = getMetadata().getPixelStack();
-
-			if (prefix == null) prefix = new short[MAX_STACK_SIZE];
-			if (suffix == null) suffix = new byte[MAX_STACK_SIZE];
-			if (pixelStack == null) pixelStack = new byte[MAX_STACK_SIZE + 1];
-
-			getMetadata().setPrefix(prefix);
-			getMetadata().setSuffix(suffix);
-			getMetadata().setPixelStack(pixelStack);
-
-			// initialize GIF data stream decoder
-
-			final int read = getSource().read();
-			final int dataSize = read & 0xff;
-
-			final int clear = 1 << dataSize;
-			final int eoi = clear + 1;
-			int available = clear + 2;
-			int oldCode = nullCode;
-			int codeSize = dataSize + 1;
-			int codeMask = (1 << codeSize) - 1;
-			int code = 0, inCode = 0;
-			for (code = 0; code < clear; code++) {
-				prefix[code] = 0;
-				suffix[code] = (byte) code;
-			}
-
-			// decode GIF pixel stream
-
-			int datum = 0, first = 0, top = 0, pi = 0, bi = 0, bits = 0, count = 0;
-			int i = 0;
-
-			for (i = 0; i < npix;) {
-				if (top == 0) {
-					if (bits < codeSize) {
-						if (count == 0) {
-							count = readBlock();
-							if (count <= 0) break;
-							bi = 0;
-						}
-						datum += (getMetadata().getdBlock()[bi] & 0xff) << bits;
-						bits += 8;
-						bi++;
-						count--;
-						continue;
-					}
-
-					// get the next code
-					code = datum & codeMask;
-					datum >>= codeSize;
-					bits -= codeSize;
-
-					// interpret the code
-
-					if ((code > available) || (code == eoi)) {
-						break;
-					}
-					if (code == clear) {
-						// reset the decoder
-						codeSize = dataSize + 1;
-						codeMask = (1 << codeSize) - 1;
-						available = clear + 2;
-						oldCode = nullCode;
-						continue;
-					}
-
-					if (oldCode == nullCode) {
-						pixelStack[top++] = suffix[code];
-						oldCode = code;
-						first = code;
-						continue;
-					}
-
-					inCode = code;
-					if (code == available) {
-						pixelStack[top++] = (byte) first;
-						code = oldCode;
-					}
-
-					while (code > clear) {
-						pixelStack[top++] = suffix[code];
-						code = prefix[code];
-					}
-					first = suffix[code] & 0xff;
-
-					if (available >= MAX_STACK_SIZE) break;
-					pixelStack[top++] = (byte) first;
-					prefix[available] = (short) oldCode;
-					suffix[available] = (byte) first;
-					available++;
-
-					if (((available & codeMask) == 0) && (available < MAX_STACK_SIZE)) {
-						codeSize++;
-						codeMask += available;
-					}
-					oldCode = inCode;
-				}
-				top--;
-				pixels[pi++] = pixelStack[top];
-				i++;
-			}
-
-			for (i = pi; i < npix; i++)
-				pixels[i] = 0;
-			getMetadata().setPixels(pixels);
-			setPixels();
-		}
-
-		private void setPixels() {
-			// expose destination image's pixels as an int array
-			final byte[] dest = new byte[(int) (getMetadata().get(0).getAxisLength(
-				Axes.X) * getMetadata().get(0).getAxisLength(Axes.Y))];
-			long lastImage = -1;
-
-			// fill in starting image contents based on last image's dispose
-			// code
-			if (getMetadata().getLastDispose() > 0) {
-				if (getMetadata().getLastDispose() == 3) { // use image before last
-					final long n = getMetadata().get(0).getPlaneCount() - 2;
-					if (n > 0) lastImage = n - 1;
-				}
-
-				if (lastImage != -1) {
-					final byte[] prev = getMetadata().getImages().get((int) lastImage);
-					System.arraycopy(prev, 0, dest, 0, (int) (getMetadata().get(0)
-						.getAxisLength(Axes.X) * getMetadata().get(0).getAxisLength(
-							Axes.Y)));
-				}
-			}
-
-			// copy each source line to the appropriate place in the destination
-
-			int pass = 1;
-			int inc = 8;
-			int iline = 0;
-			for (int i = 0; i < getMetadata().getIh(); i++) {
-				int line = i;
-				if (getMetadata().isInterlace()) {
-					if (iline >= getMetadata().getIh()) {
-						pass++;
-						switch (pass) {
-							case 2:
-								iline = 4;
-								break;
-							case 3:
-								iline = 2;
-								inc = 4;
-								break;
-							case 4:
-								iline = 1;
-								inc = 2;
-								break;
-						}
-					}
-					line = iline;
-					iline += inc;
-				}
-				line += getMetadata().getIy();
-				if (line < getMetadata().get(0).getAxisLength(Axes.Y)) {
-					final int k = line * (int) getMetadata().get(0).getAxisLength(Axes.X);
-					int dx = k + getMetadata().getIx(); // start of line in dest
-					int dlim = dx + getMetadata().getIw(); // end of dest line
-					if ((k + getMetadata().get(0).getAxisLength(Axes.X)) < dlim) dlim =
-						k + (int) getMetadata().get(0).getAxisLength(Axes.X);
-					int sx = i * getMetadata().getIw(); // start of line in
-					// source
-					while (dx < dlim) {
-						// map color and insert in destination
-						final int index = getMetadata().getPixels()[sx++] & 0xff;
-						dest[dx++] = (byte) index;
-					}
-				}
-			}
-			getMetadata().getColorTables().add(getMetadata().getAct());
-			getMetadata().getImages().add(dest);
-		}
-
 		/** Reads the next variable length block. */
 		private int readBlock() throws IOException {
 			if (getSource().offset() == getSource().length()) return -1;
@@ -741,6 +586,42 @@ public class GIFFormat extends AbstractFormat {
 
 	public static class Reader extends ByteArrayReader<Metadata> {
 
+		// -- Constants --
+
+		/** Number of frames between the canvases kept for random access. */
+		private static final int KEYFRAME_INTERVAL = 16;
+
+		/** Maximum number of bytes of canvases kept for random access. */
+		private static final long KEYFRAME_BYTES = 64L * 1024 * 1024;
+
+		/** Maximum number of LZW codes. */
+		private static final int MAX_CODES = 4096;
+
+		// -- Fields --
+
+		// LZW string table: the prefix code, last byte, first byte and length
+		// of the string each code stands for
+		private final short[] prefix = new short[MAX_CODES];
+
+		private final byte[] suffix = new byte[MAX_CODES];
+
+		private final byte[] first = new byte[MAX_CODES];
+
+		private final short[] length = new short[MAX_CODES];
+
+		/** Compressed data of the frame being decoded. */
+		private byte[] data = new byte[0];
+
+		/** Indices of the frame being decoded. */
+		private byte[] pixels = new byte[0];
+
+		/** Canvas of the last frame read. */
+		private Canvas current;
+
+		/** Canvases of every KEYFRAME_INTERVAL-th frame, least recently used first. */
+		private final Map<Integer, Canvas> keyframes = new LinkedHashMap<>(16,
+			0.75f, true);
+
 		// -- AbstractReader API Methods --
 
 		@Override
@@ -750,6 +631,13 @@ public class GIFFormat extends AbstractFormat {
 
 		// -- Reader API Methods --
 
+		@Override
+		public void setMetadata(final Metadata meta) throws IOException {
+			current = null;
+			keyframes.clear();
+			super.setMetadata(meta);
+		}
+
 		@Override
 		public ByteArrayPlane openPlane(final int imageIndex, final long planeIndex,
 			final ByteArrayPlane plane, final Interval bounds,
@@ -766,27 +654,324 @@ public class GIFFormat extends AbstractFormat {
 			final int y = (int) bounds.min(yIndex);
 			final int w = (int) bounds.dimension(xIndex);
 			final int h = (int) bounds.dimension(yIndex);
-			final int[] act = meta.getColorTables().get((int) planeIndex);
 
-			final byte[] b = meta.getImages().get((int) planeIndex);
-			if (planeIndex > 0 && meta.isTransparency()) {
-				final byte[] prev = meta.getImages().get((int) planeIndex - 1);
+			final byte[] b = canvas((int) planeIndex).composite;
+			for (int row = 0; row < h; row++) {
+				System.arraycopy(b, (row + y) * (int) meta.get(imageIndex)
+					.getAxisLength(Axes.X) + x, buf, row * w, w);
+			}
+
+			return plane;
+		}
+
+		@Override
+		public void close(final boolean fileOnly) throws IOException {
+			super.close(fileOnly);
+			current = null;
+			keyframes.clear();
+		}
+
+		// -- Helper Methods --
+
+		/**
+		 * Composites the given frame, starting from the nearest earlier frame
+		 * that is the last one read or one of the cached keyframes.
+		 */
+		private Canvas canvas(final int frameIndex) throws IOException {
+			Canvas canvas = current != null && current.index <= frameIndex
+				? current : null;
+			for (final Canvas keyframe : keyframes.values()) {
+				if (keyframe.index <= frameIndex && (canvas == null ||
+					keyframe.index > canvas.index))
+				{
+					canvas = keyframe;
+				}
+			}
+			if (canvas == null) canvas = new Canvas(-1, null, new byte[3][]);
+			else keyframes.get(canvas.index);
+
+			while (canvas.index < frameIndex) {
+				canvas = nextCanvas(canvas);
+				if (canvas.index % KEYFRAME_INTERVAL == 0) {
+					keyframes.put(canvas.index, canvas);
+					final long canvasBytes = Math.max(1, canvas.composite.length);
+					final Iterator<Canvas> eldest = keyframes.values().iterator();
+					while (keyframes.size() > 1 && keyframes.size() *
+						canvasBytes > KEYFRAME_BYTES)
+					{
+						eldest.next();
+						eldest.remove();
+					}
+				}
+			}
+			current = canvas;
+			return canvas;
+		}
+
+		/** Decodes the frame after the given one onto a new canvas. */
+		private Canvas nextCanvas(final Canvas previous) throws IOException {
+			final Metadata meta = getMetadata();
+			final List<Frame> frames = meta.frames;
+			final int index = previous.index + 1;
+			final Frame frame = frames.get(index);
+			final int sizeX = (int) meta.get(0).getAxisLength(Axes.X);
+			final int sizeY = (int) meta.get(0).getAxisLength(Axes.Y);
+
+			// fill in starting image contents based on last image's dispose
+			// code
+			final byte[] raw = new byte[sizeX * sizeY];
+			if (frame.lastDispose == 3 && previous.raw[0] != null) {
+				// use image before last
+				System.arraycopy(previous.raw[0], 0, raw, 0, raw.length);
+			}
+
+			decodeImageData(frame);
+			setPixels(frame, raw, sizeX, sizeY);
+
+			// transparent pixels show the previous frame
+			byte[] composite = raw;
+			if (index > 0 && meta.isTransparency()) {
+				final int[] act = meta.getColorTables().get(index);
 				int idx = meta.getTransIndex();
 				if (idx >= 127) idx = 0;
-				for (int i = 0; i < b.length; i++) {
-					if ((act[b[i] & 0xff] & 0xffffff) == idx) {
-						b[i] = prev[i];
-					}
+				final boolean[] transparent = new boolean[256];
+				for (int i = 0; i < act.length && i < 256; i++) {
+					transparent[i] = (act[i] & 0xffffff) == idx;
+				}
+				composite = new byte[raw.length];
+				for (int i = 0; i < raw.length; i++) {
+					composite[i] = transparent[raw[i] & 0xff] ? previous.composite[i]
+						: raw[i];
 				}
-				meta.getImages().setElementAt(b, (int) planeIndex);
 			}
 
-			for (int row = 0; row < h; row++) {
-				System.arraycopy(b, (row + y) * (int) meta.get(imageIndex)
-					.getAxisLength(Axes.X) + x, buf, row * w, w);
+			// keep the frames that a later frame's dispose code starts from
+			final boolean restored = index + 3 < frames.size() && frames.get(
+				index + 3).lastDispose == 3;
+			return new Canvas(index, composite, new byte[][] { previous.raw[1],
+				previous.raw[2], restored ? raw : null });
+		}
+
+		/** Reads and decodes the LZW image data of a frame. */
+		private void decodeImageData(final Frame frame) throws IOException {
+			final DataHandle<Location> handle = getHandle();
+			handle.seek(frame.offset);
+			final int dataSize = handle.read() & 0xff;
+
+			// gather the data sub-blocks
+			if (data.length < frame.dataLength) data = new byte[frame.dataLength];
+			int n = 0;
+			while (n < frame.dataLength && handle.offset() < handle.length()) {
+				final int blockSize = Math.min(handle.read() & 0xff, frame.dataLength -
+					n);
+				if (blockSize == 0) break;
+				// NB: a truncated last block is decoded as far as it goes
+				final int count = (int) Math.min(blockSize, handle.length() - handle
+					.offset());
+				handle.readFully(data, n, count);
+				n += count;
 			}
 
-			return plane;
+			final int npix = frame.width * frame.height;
+			if (pixels.length < npix) pixels = new byte[npix];
+			final int pi = decodeLZW(dataSize, n, npix);
+			Arrays.fill(pixels, pi, npix, (byte) 0);
+		}
+
+		/**
+		 * Decodes LZW data into the pixel array. Each code's string is written
+		 * straight into place, back to front along its chain of prefixes.
+		 *
+		 * @return The number of pixels decoded.
+		 */
+		private int decodeLZW(final int dataSize, final int n, final int npix) {
+			final int clear = 1 << dataSize;
+			final int eoi = clear + 1;
+			for (int code = 0; code < clear && code < MAX_CODES; code++) {
+				prefix[code] = 0;
+				suffix[code] = (byte) code;
+				first[code] = (byte) code;
+				length[code] = 1;
+			}
+
+			int available = clear + 2;
+			int codeSize = dataSize + 1;
+			int codeMask = (1 << codeSize) - 1;
+			int oldCode = -1;
+			int datum = 0, bits = 0, bi = 0, pi = 0;
+
+			while (pi < npix) {
+				while (bits < codeSize && bi < n) {
+					datum += (data[bi++] & 0xff) << bits;
+					bits += 8;
+				}
+				if (bits < codeSize) break;
+
+				// get the next code
+				int code = datum & codeMask;
+				datum >>= codeSize;
+				bits -= codeSize;
+
+				// interpret the code
+				if (code > available || code == eoi) break;
+				if (code == clear) {
+					// reset the decoder
+					codeSize = dataSize + 1;
+					codeMask = (1 << codeSize) - 1;
+					available = clear + 2;
+					oldCode = -1;
+					continue;
+				}
+				if (oldCode == -1) {
+					pixels[pi++] = suffix[code];
+					oldCode = code;
+					continue;
+				}
+				if (available >= MAX_CODES) break;
+
+				final byte firstByte;
+				if (code == available) {
+					// the previous string, followed by its own first byte
+					firstByte = first[oldCode];
+					pi = writeString(oldCode, pi, npix);
+					if (pi < npix) pixels[pi++] = firstByte;
+				}
+				else {
+					firstByte = first[code];
+					pi = writeString(code, pi, npix);
+				}
+
+				prefix[available] = (short) oldCode;
+				suffix[available] = firstByte;
+				first[available] = first[oldCode];
+				length[available] = (short) (length[oldCode] + 1);
+				available++;
+
+				if (((available & codeMask) == 0) && (available < MAX_CODES)) {
+					codeSize++;
+					codeMask += available;
+				}
+				oldCode = code;
+			}
+			return pi;
+		}
+
+		/**
+		 * Writes the string of the given code at the given pixel position,
+		 * dropping any bytes past the end of the frame.
+		 *
+		 * @return The pixel position after the string.
+		 */
+		private int writeString(int code, final int pi, final int npix) {
+			final int end = pi + length[code];
+			int p = end - 1;
+			while (p >= npix) {
+				code = prefix[code];
+				p--;
+			}
+			while (p >= pi) {
+				pixels[p--] = suffix[code];
+				code = prefix[code];
+			}
+			return Math.min(end, npix);
+		}
+
+		/** Copies the decoded pixels of a frame to their place on the canvas. */
+		private void setPixels(final Frame frame, final byte[] dest,
+			final int sizeX, final int sizeY)
+		{
+			// copy each source line to the appropriate place in the destination
+
+			int pass = 1;
+			int inc = 8;
+			int iline = 0;
+			for (int i = 0; i < frame.height; i++) {
+				int line = i;
+				if (frame.interlace) {
+					if (iline >= frame.height) {
+						pass++;
+						switch (pass) {
+							case 2:
+								iline = 4;
+								break;
+							case 3:
+								iline = 2;
+								inc = 4;
+								break;
+							case 4:
+								iline = 1;
+								inc = 2;
+								break;
+						}
+					}
+					line = iline;
+					iline += inc;
+				}
+				line += frame.y;
+				if (line < sizeY) {
+					final int k = line * sizeX;
+					final int dx = k + frame.x; // start of line in dest
+					int dlim = dx + frame.width; // end of dest line
+					if ((k + sizeX) < dlim) dlim = k + sizeX;
+					if (dlim > dx) {
+						System.arraycopy(pixels, i * frame.width, dest, dx, dlim - dx);
+					}
+				}
+			}
+		}
+	}
+
+	/** Location and layout of the image data of one frame. */
+	private static final class Frame {
+
+		/** Offset of the LZW minimum code size, followed by the data blocks. */
+		private final long offset;
+
+		/** Number of bytes of LZW data. */
+		private final int dataLength;
+
+		/** Frame rectangle within the canvas. */
+		private final int x, y, width, height;
+
+		private final boolean interlace;
+
+		/** Dispose code of the previous frame. */
+		private final int lastDispose;
+
+		private Frame(final long offset, final int dataLength, final int x,
+			final int y, final int width, final int height, final boolean interlace,
+			final int lastDispose)
+		{
+			this.offset = offset;
+			this.dataLength = dataLength;
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+			this.interlace = interlace;
+			this.lastDispose = lastDispose;
+		}
+	}
+
+	/** A composited frame, with the uncomposited frames later ones build on. */
+	private static final class Canvas {
+
+		private final int index;
+
+		private final byte[] composite;
+
+		/**
+		 * The uncomposited canvases of this frame and the two before it, or null
+		 * where no later frame starts from them.
+		 */
+		private final byte[][] raw;
+
+		private Canvas(final int index, final byte[] composite,
+			final byte[][] raw)
+		{
+			this.index = index;
+			this.composite = composite;
+			this.raw = raw;
 		}
 	}
 }
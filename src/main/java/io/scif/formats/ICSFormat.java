@@ -39,6 +39,7 @@ import io.scif.ByteArrayReader;
 import io.scif.Format;
 import io.scif.FormatException;
 import io.scif.ImageMetadata;
+import io.scif.MappableMetadata;
 import io.scif.Plane;
 import io.scif.Translator;
 import io.scif.common.DateTools;
@@ -94,7 +95,9 @@ public class ICSFormat extends AbstractFormat {
 	/**
 	 * SCIFIO Metadata object for ICS images.
 	 */
-	public static class Metadata extends AbstractMetadata {
+	public static class Metadata extends AbstractMetadata implements
+		MappableMetadata
+	{
 
 		// -- Constants --
 
@@ -323,6 +326,24 @@ public class ICSFormat extends AbstractFormat {
 			if (!fileOnly) keyValPairs = new HashMap<>();
 		}
 
+		// -- MappableMetadata API Methods --
+
+		@Override
+		public Location getPixelsLocation(final int imageIndex) {
+			return idsLocation;
+		}
+
+		@Override
+		public long getPlaneOffset(final int imageIndex, final long planeIndex) {
+			// gzipped and RGB-interleaved pixels have to go through the reader
+			if (offset < 0 || "gzip".equals(getCompression()) || storedRGB &&
+				!get(imageIndex).isMultichannel())
+			{
+				return -1;
+			}
+			return offset + planeIndex * get(imageIndex).getPlaneSize();
+		}
+
 		// -- ICSMetadata Methods --
 
 		public boolean storedRGB() {
@@ -1415,6 +1436,11 @@ public class ICSFormat extends AbstractFormat {
 				FormatTools.UNKNOWN_DOMAIN };
 		}
 
+		@Override
+		protected boolean isForkable() {
+			return true;
+		}
+
 		// -- Reader API Methods --
 
 		@Override
@@ -1449,6 +1475,8 @@ public class ICSFormat extends AbstractFormat {
 			else {
 				long toSkip = (planeIndex - prevPlane - 1) * len;
 				if (gzipStream == null || planeIndex <= prevPlane) {
+					// end the superseded stream's inflater now rather than at GC time
+					if (gzipStream != null) gzipStream.close();
 					DataHandle<Location> fis = null;
 					toSkip = planeIndex * len;
 					if (getMetadata().versionTwo) {
@@ -52,8 +52,13 @@ import io.scif.codec.JPEG2000SegmentMarker;
 import io.scif.config.SCIFIOConfig;
 import io.scif.util.FormatTools;
 
+import java.awt.Rectangle;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import net.imagej.axis.Axes;
 import net.imglib2.Interval;
@@ -63,11 +68,13 @@ import net.imglib2.display.ColorTable8;
 
 import org.scijava.io.handle.DataHandle;
 import org.scijava.io.handle.DataHandle.ByteOrder;
+import org.scijava.io.handle.DataHandleInputStream;
 import org.scijava.io.handle.DataHandleService;
 import org.scijava.io.location.BytesLocation;
 import org.scijava.io.location.Location;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
+import org.scijava.thread.ThreadService;
 import org.scijava.util.Bytes;
 
 /**
@@ -102,6 +109,12 @@ public class JPEG2000Format extends AbstractFormat {
 		/** The number of JPEG 2000 resolution levels the file has. */
 		private Integer resolutionLevels;
 
+		/** Width of the codestream tiles at full resolution. */
+		private transient int tileWidth;
+
+		/** Height of the codestream tiles at full resolution. */
+		private transient int tileHeight;
+
 		/** The color lookup table associated with this file. */
 		private transient int[][] lut;
 
@@ -128,7 +141,7 @@ public class JPEG2000Format extends AbstractFormat {
 			if (lastIndex == null) lastIndex = new Index(imageIndex, planeIndex);
 			else {
 				lastIndex.setImageIndex(imageIndex);
-				lastIndex.setPlaneIndex(imageIndex);
+				lastIndex.setPlaneIndex(planeIndex);
 			}
 		}
 
@@ -148,6 +161,22 @@ public class JPEG2000Format extends AbstractFormat {
 			this.resolutionLevels = resolutionLevels;
 		}
 
+		public int getTileWidth() {
+			return tileWidth;
+		}
+
+		public void setTileWidth(final int tileWidth) {
+			this.tileWidth = tileWidth;
+		}
+
+		public int getTileHeight() {
+			return tileHeight;
+		}
+
+		public void setTileHeight(final int tileHeight) {
+			this.tileHeight = tileHeight;
+		}
+
 		public int[][] getLut() {
 			return lut;
 		}
@@ -167,17 +196,16 @@ public class JPEG2000Format extends AbstractFormat {
 			iMeta.setPlanarAxisCount(3);
 
 			// New core metadata now that we know how many sub-resolutions we
-			// have.
+			// have. Each resolution level is exposed as its own image, halving
+			// the dimensions of the level before it.
 			if (getResolutionLevels() != null) {
 				final int imageCount = resolutionLevels + 1;
-				// TODO set resolution count get(0).resolutionCount =
-				// imageCount;
 
 				for (int i = 1; i < imageCount; i++) {
 					final ImageMetadata ms = new DefaultImageMetadata(iMeta);
 					add(ms);
-					ms.setAxisLength(Axes.X, iMeta.getAxisLength(Axes.X) / 2);
-					ms.setAxisLength(Axes.Y, iMeta.getAxisLength(Axes.Y) / 2);
+					ms.setAxisLength(Axes.X, reduce(iMeta.getAxisLength(Axes.X), i));
+					ms.setAxisLength(Axes.Y, reduce(iMeta.getAxisLength(Axes.Y), i));
 					ms.setThumbnail(true);
 				}
 			}
@@ -185,7 +213,7 @@ public class JPEG2000Format extends AbstractFormat {
 
 		@Override
 		public int getImageCount() {
-			return 1;
+			return getAll().size();
 		}
 
 		@Override
@@ -202,6 +230,16 @@ public class JPEG2000Format extends AbstractFormat {
 			}
 		}
 
+		// -- Helper methods --
+
+		/**
+		 * Returns the length of a full resolution dimension after the given
+		 * number of wavelet decompositions.
+		 */
+		static long reduce(final long length, final int levels) {
+			return (length + (1L << levels) - 1) >> levels;
+		}
+
 		// -- HasColorTable API Methods --
 
 		@Override
@@ -586,11 +624,15 @@ public class JPEG2000Format extends AbstractFormat {
 							// Skipping:
 							// * Horizontal image offset (uint32)
 							// * Vertical image offset (uint32)
-							// * Tile width (uint32)
-							// * Tile height (uint32)
+							getSource().skipBytes(8);
+							meta.setTileWidth(getSource().readInt());
+							meta.setTileHeight(getSource().readInt());
+							log().trace("Read tile size " + meta.getTileWidth() + "x" +
+								meta.getTileHeight() + " at " + getSource().offset());
+							// Skipping:
 							// * Horizontal tile offset (uint32)
 							// * Vertical tile offset (uint32)
-							getSource().skipBytes(24);
+							getSource().skipBytes(8);
 							codestreamSizeC = getSource().readShort();
 							log().trace("Read total components " + codestreamSizeC + " at " +
 								getSource().offset());
@@ -740,6 +782,9 @@ public class JPEG2000Format extends AbstractFormat {
 		@Parameter
 		private CodecService codecService;
 
+		@Parameter
+		private ThreadService threadService;
+
 		// -- AbstractReader API Methods --
 
 		@Override
@@ -749,6 +794,12 @@ public class JPEG2000Format extends AbstractFormat {
 
 		// -- Reader API Methods --
 
+		@Override
+		public int getResolutionCount(final int imageIndex) {
+			// the reduced resolution levels follow the full resolution image
+			return imageIndex == 0 ? getMetadata().getImageCount() : 1;
+		}
+
 		@Override
 		public ByteArrayPlane openPlane(final int imageIndex, final long planeIndex,
 			final ByteArrayPlane plane, final Interval bounds,
@@ -761,10 +812,10 @@ public class JPEG2000Format extends AbstractFormat {
 			FormatTools.checkPlaneForReading(meta, imageIndex, planeIndex, buf.length,
 				bounds);
 
-			if (meta.getLastIndex().getImageIndex() == imageIndex && meta
-				.getLastIndex().getPlaneIndex() == planeIndex && meta
-					.getLastIndexBytes() != null)
-			{
+			final boolean lastIndex = meta.getLastIndex()
+				.getImageIndex() == imageIndex && meta.getLastIndex()
+					.getPlaneIndex() == planeIndex;
+			if (lastIndex && meta.getLastIndexBytes() != null) {
 				final DataHandle<Location> s = dataHandleService.create(
 					new BytesLocation(meta.getLastIndexBytes()));
 
@@ -784,9 +835,31 @@ public class JPEG2000Format extends AbstractFormat {
 				options.resolution = imageIndex;
 			}
 
-			getHandle().seek(meta.getPixelsOffset());
-			final JPEG2000Codec codec = codecService.getCodec(JPEG2000Codec.class);
-			final byte[] lastIndexPlane = codec.decompress(getHandle(), options);
+			final ImageMetadata iMeta = meta.get(imageIndex);
+			final int xAxis = iMeta.getAxisIndex(Axes.X);
+			final int yAxis = iMeta.getAxisIndex(Axes.Y);
+			final Rectangle region = new Rectangle((int) bounds.min(xAxis),
+				(int) bounds.min(yAxis), (int) bounds.dimension(xAxis), (int) bounds
+					.dimension(yAxis));
+			final boolean wholePlane = region.width == iMeta.getAxisLength(
+				Axes.X) && region.height == iMeta.getAxisLength(Axes.Y);
+			final boolean allChannels = bounds.dimension(iMeta.getAxisIndex(
+				Axes.CHANNEL)) == iMeta.getAxisLength(Axes.CHANNEL);
+
+			if (allChannels && !wholePlane && !lastIndex) {
+				// only decode the code-blocks needed for the requested region; once
+				// a second region of the plane is requested, it is decoded and cached
+				// whole, so reading a plane tile by tile decodes it at most twice
+				final byte[] tile = decodeRegion(options, region, imageIndex);
+				System.arraycopy(tile, 0, buf, 0, tile.length);
+				meta.setLastIndexBytes(null);
+				meta.setLastIndex(imageIndex, planeIndex);
+				return plane;
+			}
+
+			final byte[] lastIndexPlane = decodeRegion(options, new Rectangle(0, 0,
+				(int) iMeta.getAxisLength(Axes.X), (int) iMeta.getAxisLength(Axes.Y)),
+				imageIndex);
 			meta.setLastIndexBytes(lastIndexPlane);
 			final DataHandle<Location> s = dataHandleService.create(new BytesLocation(
 				meta.getLastIndexBytes()));
@@ -796,6 +869,87 @@ public class JPEG2000Format extends AbstractFormat {
 			return plane;
 		}
 
+		// -- Helper methods --
+
+		/**
+		 * Decodes the given region of the given resolution level, streaming the
+		 * codestream from the source. If the region spans several rows of
+		 * codestream tiles, it is split into bands along tile boundaries which
+		 * are decoded concurrently, each from its own handle on the source.
+		 *
+		 * @return The interleaved pixels of the region.
+		 */
+		private byte[] decodeRegion(final JPEG2000CodecOptions options,
+			final Rectangle region, final int imageIndex) throws FormatException,
+			IOException
+		{
+			final JPEG2000Codec codec = codecService.getCodec(JPEG2000Codec.class);
+			final long offset = getMetadata().getPixelsOffset();
+			final int tileHeight = (int) Metadata.reduce(getMetadata()
+				.getTileHeight(), imageIndex);
+			final int firstRow = tileHeight > 0 ? region.y / tileHeight : 0;
+			final int tileRows = tileHeight > 0 ? (region.y + region.height - 1) /
+				tileHeight - firstRow + 1 : 1;
+			final int bands = Math.min(tileRows, Runtime.getRuntime()
+				.availableProcessors());
+
+			if (bands < 2) {
+				options.region = region;
+				getHandle().seek(offset);
+				// NB: The stream is not closed, as it would close the source.
+				return codec.decompress(new BufferedInputStream(
+					new DataHandleInputStream<>(getHandle())), options);
+			}
+
+			final List<Future<byte[]>> futures = new ArrayList<>();
+			for (int b = 0; b < bands; b++) {
+				final int start = Math.max(region.y, (firstRow + b * tileRows /
+					bands) * tileHeight);
+				final int end = Math.min(region.y + region.height, (firstRow + (b +
+					1) * tileRows / bands) * tileHeight);
+				final JPEG2000CodecOptions bandOptions = new JPEG2000CodecOptions(
+					options);
+				bandOptions.region = new Rectangle(region.x, start, region.width, end -
+					start);
+				futures.add(threadService.run(() -> {
+					try (DataHandle<Location> handle = dataHandleService.create(
+						getHandle().get()))
+					{
+						handle.seek(offset);
+						return codec.decompress(new BufferedInputStream(
+							new DataHandleInputStream<>(handle)), bandOptions);
+					}
+				}));
+			}
+
+			final byte[][] decoded = new byte[bands][];
+			int length = 0;
+			for (int b = 0; b < bands; b++) {
+				try {
+					decoded[b] = futures.get(b).get();
+				}
+				catch (final InterruptedException e) {
+					throw new IOException(e);
+				}
+				catch (final ExecutionException e) {
+					if (e.getCause() instanceof FormatException) {
+						throw (FormatException) e.getCause();
+					}
+					throw new FormatException(e.getCause());
+				}
+				length += decoded[b].length;
+			}
+
+			// bands are whole rows of interleaved pixels, so they are contiguous
+			final byte[] pixels = new byte[length];
+			int pos = 0;
+			for (final byte[] band : decoded) {
+				System.arraycopy(band, 0, pixels, pos, band.length);
+				pos += band.length;
+			}
+			return pixels;
+		}
+
 	}
 
 	public static class Writer extends AbstractWriter<Metadata> {
@@ -35,16 +35,20 @@ import io.scif.AbstractMetadata;
 import io.scif.AbstractParser;
 import io.scif.ByteArrayPlane;
 import io.scif.ByteArrayReader;
+import io.scif.CacheableMetadata;
 import io.scif.Format;
 import io.scif.FormatException;
 import io.scif.HasColorTable;
 import io.scif.ImageMetadata;
+import io.scif.MappableMetadata;
 import io.scif.codec.JPEG2000CodecOptions;
 import io.scif.config.SCIFIOConfig;
+import io.scif.formats.tiff.FillOrder;
 import io.scif.formats.tiff.IFD;
 import io.scif.formats.tiff.IFDList;
 import io.scif.formats.tiff.PhotoInterp;
 import io.scif.formats.tiff.TiffCompression;
+import io.scif.formats.tiff.TiffFloatConverter;
 import io.scif.formats.tiff.TiffParser;
 import io.scif.services.FormatService;
 import io.scif.util.FormatTools;
@@ -65,7 +69,6 @@ import org.scijava.io.handle.DataHandle.ByteOrder;
 import org.scijava.io.location.Location;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
-import org.scijava.util.Bytes;
 
 /**
  * MinimalTiffReader is the superclass for file format readers compatible with
@@ -90,7 +93,7 @@ public class MinimalTIFFFormat extends AbstractFormat {
 	// -- Nested classes --
 
 	public static class Metadata extends AbstractMetadata implements
-		HasColorTable
+		HasColorTable, CacheableMetadata, MappableMetadata
 	{
 
 		// -- Fields --
@@ -107,7 +110,8 @@ public class MinimalTIFFFormat extends AbstractFormat {
 		 */
 		private List<IFDList> subResolutionIFDs;
 
-		private TiffParser tiffParser;
+		/** Parser of the source; rebuilt on demand for cached metadata. */
+		private transient TiffParser tiffParser;
 
 		private boolean equalStrips = false;
 
@@ -121,7 +125,7 @@ public class MinimalTIFFFormat extends AbstractFormat {
 		private Integer resolutionLevels;
 
 		/** Codec options to use when decoding JPEG 2000 data. */
-		private JPEG2000CodecOptions j2kCodecOptions;
+		private transient JPEG2000CodecOptions j2kCodecOptions;
 
 		// -- MinimalTIFFMetadata getters and setters --
 
@@ -150,9 +154,31 @@ public class MinimalTIFFFormat extends AbstractFormat {
 		}
 
 		public TiffParser getTiffParser() {
+			if (tiffParser == null && getSource() != null) {
+				// NB: Metadata restored from the cache was not parsed from this source.
+				tiffParser = createTiffParser(getSource());
+			}
 			return tiffParser;
 		}
 
+		/**
+		 * Creates a parser reading the planes described by this metadata from
+		 * the given handle, which must be open on the same file as the source.
+		 */
+		public TiffParser createTiffParser(final DataHandle<Location> handle) {
+			final TiffParser parser = new TiffParser(getContext(), handle);
+			parser.setDoCaching(false);
+			parser.setUse64BitOffsets(use64Bit);
+			parser.setAssumeEqualStrips(equalStrips);
+			try {
+				parser.checkHeader();
+			}
+			catch (final IOException e) {
+				log().error("Error reading TIFF header", e);
+			}
+			return parser;
+		}
+
 		public void setTiffParser(final TiffParser tiffParser) {
 			this.tiffParser = tiffParser;
 		}
@@ -198,6 +224,9 @@ public class MinimalTIFFFormat extends AbstractFormat {
 		}
 
 		public JPEG2000CodecOptions getJ2kCodecOptions() {
+			if (j2kCodecOptions == null) {
+				j2kCodecOptions = JPEG2000CodecOptions.getDefaultOptions();
+			}
 			return j2kCodecOptions;
 		}
 
@@ -248,40 +277,35 @@ public class MinimalTIFFFormat extends AbstractFormat {
 					}
 				}
 				ms0.setBitsPerPixel(firstIFD.getBitsPerSample()[0]);
+			}
+			catch (final FormatException e) {
+				log().error("Error populating TIFF image metadata", e);
+			}
 
-				// New core metadata now that we know how many sub-resolutions
-				// we have.
-				if (resolutionLevels != null && subResolutionIFDs.size() > 0) {
-					final IFDList ifds = subResolutionIFDs.get(0);
-
-					// FIXME: support sub resolutions in SCIFIO.. or something..
-					// int seriesCount = ifds.size() + 1;
-					// if (!hasFlattenedResolutions()) {
-					// ms0.resolutionCount = seriesCount;
-					// }
-
-					if (ifds.size() + 1 < ms0.getAxisLength(Axes.TIME)) {
-						ms0.setAxisLength(Axes.TIME, ms0.getAxisLength(Axes.TIME) - (ifds
-							.size() + 1));
-					}
+			populateResolutionMetadata();
+		}
 
-					for (final IFD ifd : ifds) {
-						final ImageMetadata ms = ms0.copy();
-						add(ms);
-						ms.setAxisLength(Axes.X, (int) ifd.getImageWidth());
-						ms.setAxisLength(Axes.Y, (int) ifd.getImageLength());
-						ms.setAxisLength(Axes.TIME, ms0.getAxisLength(Axes.TIME));
-						ms.setThumbnail(true);
-						ms.setThumbSizeX(ms0.getThumbSizeX());
-						ms.setThumbSizeY(ms0.getThumbSizeY());
-						// TODO subresolutions
-						// ms.resolutionCount = 1;
-					}
+		/**
+		 * Adds one image per sub-resolution IFD, describing the reduced resolution
+		 * levels of the first image. Any previously added levels are replaced, so
+		 * this must be called again whenever the first image changes.
+		 */
+		protected void populateResolutionMetadata() {
+			if (subResolutionIFDs == null || subResolutionIFDs.isEmpty()) return;
+			final ImageMetadata ms0 = get(0);
+			getAll().subList(1, getImageCount()).clear();
 
+			try {
+				for (final IFD ifd : subResolutionIFDs.get(0)) {
+					final ImageMetadata ms = ms0.copy();
+					ms.setAxisLength(Axes.X, (int) ifd.getImageWidth());
+					ms.setAxisLength(Axes.Y, (int) ifd.getImageLength());
+					ms.setThumbnail(true);
+					add(ms);
 				}
 			}
 			catch (final FormatException e) {
-				log().error("Error populating TIFF image metadata", e);
+				log().error("Error populating TIFF sub-resolution metadata", e);
 			}
 		}
 
@@ -306,6 +330,53 @@ public class MinimalTIFFFormat extends AbstractFormat {
 			}
 		}
 
+		// -- MappableMetadata API methods --
+
+		@Override
+		public Location getPixelsLocation(final int imageIndex) {
+			return getSourceLocation();
+		}
+
+		@Override
+		public long getPlaneOffset(final int imageIndex, final long planeIndex) {
+			// sub-resolutions are only mapped through the reader
+			if (imageIndex != 0 || ifds == null || planeIndex >= ifds.size()) {
+				return -1;
+			}
+			final ImageMetadata iMeta = get(imageIndex);
+			final IFD ifd = ifds.get((int) planeIndex);
+			try {
+				// only single-sample strips that the parser would copy verbatim
+				final int bits = 8 * FormatTools.getBytesPerPixel(iMeta
+					.getPixelType());
+				final PhotoInterp photo = ifd.getPhotometricInterpretation();
+				if (ifd.getCompression() != TiffCompression.UNCOMPRESSED || //
+					ifd.isTiled() || ifd.getSamplesPerPixel() != 1 || //
+					ifd.getBitsPerSample()[0] != bits || //
+					photo == PhotoInterp.WHITE_IS_ZERO || //
+					ifd.getFillOrder() == FillOrder.REVERSED)
+				{
+					return -1;
+				}
+				final long[] offsets = ifd.getStripOffsets();
+				final long[] counts = ifd.getStripByteCounts();
+				if (offsets == null || counts == null || offsets.length == 0) {
+					return -1;
+				}
+				long end = offsets[0];
+				for (int i = 0; i < offsets.length; i++) {
+					final long count = equalStrips ? counts[0] : counts[i];
+					if (offsets[i] != end) return -1;
+					end += count;
+				}
+				return end - offsets[0] < iMeta.getPlaneSize() ? -1 : offsets[0];
+			}
+			catch (final FormatException e) {
+				log().debug("Could not locate TIFF plane " + planeIndex, e);
+				return -1;
+			}
+		}
+
 		// -- HasColorTable API methods --
 
 		@Override
@@ -428,8 +499,17 @@ public class MinimalTIFFFormat extends AbstractFormat {
 
 			meta.setIfds(ifds);
 			meta.setThumbnailIFDs(thumbnailIFDs);
+			if (meta.getSubResolutionIFDs() == null) {
+				meta.setSubResolutionIFDs(new ArrayList<>());
+			}
 
-			for (final IFD ifd : allIFDs) {
+			// SubIFDs of the top-level IFDs hold the reduced resolution levels
+			// of a pyramid, rather than additional planes
+			final IFDList mainIFDs = tiffParser.getMainIFDs();
+			final boolean pyramid = !mainIFDs.isEmpty() && !tiffParser.getSubIFDs(
+				mainIFDs.get(0)).isEmpty();
+
+			for (final IFD ifd : pyramid ? mainIFDs : allIFDs) {
 				final Number subfile = (Number) ifd.getIFDValue(IFD.NEW_SUBFILE_TYPE);
 				final int subfileType = subfile == null ? 0 : subfile.intValue();
 				if (subfileType != 1 || allIFDs.size() <= 1) {
@@ -445,7 +525,14 @@ public class MinimalTIFFFormat extends AbstractFormat {
 			tiffParser.setAssumeEqualStrips(meta.isEqualStrips());
 			for (final IFD ifd : ifds) {
 				tiffParser.fillInIFD(ifd);
-				if (ifd.getCompression() == TiffCompression.JPEG_2000 || ifd
+				if (pyramid) {
+					final IFDList subIFDs = tiffParser.getSubIFDs(ifd);
+					for (final IFD subIFD : subIFDs) {
+						tiffParser.fillInIFD(subIFD);
+					}
+					meta.getSubResolutionIFDs().add(subIFDs);
+				}
+				else if (ifd.getCompression() == TiffCompression.JPEG_2000 || ifd
 					.getCompression() == TiffCompression.JPEG_2000_LOSSY)
 				{
 					log().debug("Found IFD with JPEG 2000 compression");
@@ -529,6 +616,11 @@ public class MinimalTIFFFormat extends AbstractFormat {
 
 	public static class Reader<M extends Metadata> extends ByteArrayReader<M> {
 
+		// -- Fields --
+
+		/** Parser reading through the handle of a forked reader. */
+		private TiffParser forkParser;
+
 		// -- AbstractReader API Methods --
 
 		@Override
@@ -536,6 +628,11 @@ public class MinimalTIFFFormat extends AbstractFormat {
 			return new String[] { FormatTools.GRAPHICS_DOMAIN };
 		}
 
+		@Override
+		protected boolean isForkable() {
+			return true;
+		}
+
 		// -- Reader API Methods --
 
 		@Override
@@ -547,7 +644,7 @@ public class MinimalTIFFFormat extends AbstractFormat {
 			plane.setColorTable(meta.getColorTable(imageIndex, planeIndex));
 			final byte[] buf = plane.getBytes();
 			final IFDList ifds = meta.getIfds();
-			final TiffParser tiffParser = meta.getTiffParser();
+			final TiffParser tiffParser = getTiffParser();
 			final int xIndex = meta.get(imageIndex).getAxisIndex(Axes.X);
 			final int yIndex = meta.get(imageIndex).getAxisIndex(Axes.Y);
 			final int x = (int) bounds.min(xIndex);
@@ -558,17 +655,17 @@ public class MinimalTIFFFormat extends AbstractFormat {
 				bounds);
 
 			final IFD firstIFD = ifds.get(0);
-			meta.setLastPlane(planeIndex);
-			final IFD ifd = ifds.get((int) planeIndex);
+			if (!isFork()) meta.setLastPlane(planeIndex);
+			IFD ifd = ifds.get((int) planeIndex);
+			if (imageIndex > 0) {
+				ifd = meta.getSubResolutionIFDs().get((int) planeIndex).get(
+					imageIndex - 1);
+			}
 			if ((firstIFD.getCompression() == TiffCompression.JPEG_2000 || firstIFD
 				.getCompression() == TiffCompression.JPEG_2000_LOSSY) && meta
 					.getResolutionLevels() != null)
 			{
-				// FIXME: resolution levels
-//        if (getCoreIndex() > 0) {
-//          ifd = meta.getSubResolutionIFDs().get(planeIndex).get(getCoreIndex() - 1);
-//        }
-				setResolutionLevel(ifd);
+				setResolutionLevel(imageIndex);
 			}
 
 			tiffParser.getSamples(ifd, buf, x, y, w, h);
@@ -583,51 +680,25 @@ public class MinimalTIFFFormat extends AbstractFormat {
 			if (float16 || float24) {
 				final int nPixels = w * h * (int) meta.get(imageIndex).getAxisLength(
 					Axes.CHANNEL);
-				final int nBytes = float16 ? 2 : 3;
-				final int mantissaBits = float16 ? 10 : 16;
-				final int exponentBits = float16 ? 5 : 7;
-				final int maxExponent = (int) Math.pow(2, exponentBits) - 1;
-				final int bits = (nBytes * 8) - 1;
-
-				final byte[] newBuf = new byte[buf.length];
-				for (int i = 0; i < nPixels; i++) {
-					final int v = Bytes.toInt(buf, i * nBytes, nBytes, meta.get(
-						imageIndex).isLittleEndian());
-					final int sign = v >> bits;
-					int exponent = (v >> mantissaBits) & (int) (Math.pow(2,
-						exponentBits) - 1);
-					int mantissa = v & (int) (Math.pow(2, mantissaBits) - 1);
-
-					if (exponent == 0) {
-						if (mantissa != 0) {
-							while ((mantissa & (int) Math.pow(2, mantissaBits)) == 0) {
-								mantissa <<= 1;
-								exponent--;
-							}
-							exponent++;
-							mantissa &= (int) (Math.pow(2, mantissaBits) - 1);
-							exponent += 127 - (Math.pow(2, exponentBits - 1) - 1);
-						}
-					}
-					else if (exponent == maxExponent) {
-						exponent = 255;
-					}
-					else {
-						exponent += 127 - (Math.pow(2, exponentBits - 1) - 1);
-					}
-
-					mantissa <<= (23 - mantissaBits);
-
-					final int value = (sign << 31) | (exponent << 23) | mantissa;
-					Bytes.unpack(value, newBuf, i * 4, 4, meta.get(imageIndex)
-						.isLittleEndian());
-				}
-				System.arraycopy(newBuf, 0, buf, 0, newBuf.length);
+				TiffFloatConverter.expand(buf, nPixels, float16 ? 2 : 3, meta.get(
+					imageIndex).isLittleEndian());
 			}
 
 			return plane;
 		}
 
+		@Override
+		public int getResolutionCount(final int imageIndex) {
+			final List<IFDList> subResolutionIFDs = getMetadata()
+				.getSubResolutionIFDs();
+			if (imageIndex > 0 || subResolutionIFDs == null || subResolutionIFDs
+				.isEmpty())
+			{
+				return 1;
+			}
+			return subResolutionIFDs.get(0).size() + 1;
+		}
+
 		@Override
 		public long getOptimalTileWidth(final int imageIndex) {
 			FormatTools.assertId(getHandle().get().getName(), true, 1);
@@ -655,19 +726,39 @@ public class MinimalTIFFFormat extends AbstractFormat {
 		/**
 		 * Sets the resolution level when we have JPEG 2000 compressed data.
 		 *
-		 * @param ifd The active IFD that is being used in our current
-		 *          {@code openBytes()} calling context. It will be the
-		 *          sub-resolution IFD if {@code currentSeries > 0}.
+		 * @param imageIndex The image being read; image 0 is the full resolution
+		 *          and each following image halves the one before it.
 		 */
-		protected void setResolutionLevel(final IFD ifd) {
+		protected void setResolutionLevel(final int imageIndex) {
 			final Metadata meta = getMetadata();
-			final JPEG2000CodecOptions j2kCodecOptions = meta.getJ2kCodecOptions();
-			j2kCodecOptions.resolution = 0;
-			// FIXME: resolution levels
-//      j2kCodecOptions.resolution = Math.abs(getCoreIndex() - resolutionLevels);
+			// NB: The options of the metadata may be shared with forked readers.
+			final JPEG2000CodecOptions j2kCodecOptions = new JPEG2000CodecOptions(
+				meta.getJ2kCodecOptions());
+			j2kCodecOptions.resolution = Math.abs(imageIndex - meta
+				.getResolutionLevels());
 			log().debug("Using JPEG 2000 resolution level " +
 				j2kCodecOptions.resolution);
-			meta.getTiffParser().setCodecOptions(j2kCodecOptions);
+			getTiffParser().setCodecOptions(j2kCodecOptions);
+		}
+
+		/**
+		 * Gets the parser reading the planes of this reader. Forked readers have
+		 * one of their own, reading through their handle.
+		 */
+		protected TiffParser getTiffParser() {
+			if (!isFork()) return getMetadata().getTiffParser();
+			if (forkParser == null) {
+				forkParser = getMetadata().createTiffParser(getHandle());
+			}
+			return forkParser;
+		}
+
+		// -- HasSource API Methods --
+
+		@Override
+		public void close(final boolean fileOnly) throws IOException {
+			super.close(fileOnly);
+			forkParser = null;
 		}
 	}
 }
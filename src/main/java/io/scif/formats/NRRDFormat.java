@@ -38,6 +38,7 @@ import io.scif.ByteArrayReader;
 import io.scif.Format;
 import io.scif.FormatException;
 import io.scif.ImageMetadata;
+import io.scif.MappableMetadata;
 import io.scif.MetadataLevel;
 import io.scif.UnsupportedCompressionException;
 import io.scif.config.SCIFIOConfig;
@@ -72,7 +73,9 @@ public class NRRDFormat extends AbstractFormat {
 
 	// -- Nested classes --
 
-	public static class Metadata extends AbstractMetadata {
+	public static class Metadata extends AbstractMetadata implements
+		MappableMetadata
+	{
 
 		// -- Fields --
 
@@ -152,6 +155,19 @@ public class NRRDFormat extends AbstractFormat {
 			this.initializeHelper = initializeHelper;
 		}
 
+		// -- MappableMetadata API methods --
+
+		@Override
+		public Location getPixelsLocation(final int imageIndex) {
+			return dataFile == null ? getSourceLocation() : dataFile;
+		}
+
+		@Override
+		public long getPlaneOffset(final int imageIndex, final long planeIndex) {
+			if (!"raw".equals(encoding)) return -1;
+			return offset + planeIndex * get(imageIndex).getPlaneSize();
+		}
+
 		// -- Metadata API methods --
 
 		@Override
@@ -443,11 +459,19 @@ public class NRRDFormat extends AbstractFormat {
 		@Parameter
 		private DataHandleService dataHandleService;
 
+		/** Fork of the metadata's helper reader, if this reader is a fork. */
+		private io.scif.Reader helperFork;
+
 		@Override
 		protected String[] createDomainArray() {
 			return new String[] { FormatTools.UNKNOWN_DOMAIN };
 		}
 
+		@Override
+		protected boolean isForkable() {
+			return true;
+		}
+
 		// -- Groupable API Methods --
 
 		@Override
@@ -476,6 +500,15 @@ public class NRRDFormat extends AbstractFormat {
 			return getMetadata().get(imageIndex).getAxisLength(Axes.Y);
 		}
 
+		@Override
+		public io.scif.Reader fork() throws FormatException, IOException {
+			final Reader fork = (Reader) super.fork();
+			// the helper reads through a handle of its own, so it is forked too
+			final io.scif.Reader helper = getMetadata().getHelper();
+			if (fork.isFork() && helper != null) fork.helperFork = helper.fork();
+			return fork;
+		}
+
 		@Override
 		public ByteArrayPlane openPlane(final int imageIndex, final long planeIndex,
 			final ByteArrayPlane plane, final Interval bounds,
@@ -510,16 +543,28 @@ public class NRRDFormat extends AbstractFormat {
 			}
 
 			// open the data file using our helper format
-			if (meta.isInitializeHelper() && meta.getDataFile() != null && meta
-				.getHelper() != null)
+			final io.scif.Reader helper = helperFork == null ? meta.getHelper()
+				: helperFork;
+			if (meta.isInitializeHelper() && meta.getDataFile() != null &&
+				helper != null)
 			{
-				meta.getHelper().openPlane(imageIndex, planeIndex, plane, bounds,
-					config);
+				helper.openPlane(imageIndex, planeIndex, plane, bounds, config);
 				return plane;
 			}
 
 			throw new FormatException("Could not find a supporting Format");
 		}
 
+		// -- HasSource API Methods --
+
+		@Override
+		public void close(final boolean fileOnly) throws IOException {
+			super.close(fileOnly);
+			if (helperFork != null) {
+				helperFork.close(fileOnly);
+				if (!fileOnly) helperFork = null;
+			}
+		}
+
 	}
 }
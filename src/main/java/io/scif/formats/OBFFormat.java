@@ -38,6 +38,7 @@ import io.scif.ByteArrayReader;
 import io.scif.Format;
 import io.scif.FormatException;
 import io.scif.ImageMetadata;
+import io.scif.codec.ZlibPool;
 import io.scif.config.SCIFIOConfig;
 import io.scif.util.FormatTools;
 
@@ -79,7 +80,7 @@ public class OBFFormat extends AbstractFormat {
 
 		private Frame currentInflatedFrame = new Frame();
 
-		private Inflater inflater = new Inflater();
+		private Inflater inflater;
 
 		private List<Stack> stacks = new ArrayList<>();
 
@@ -94,10 +95,12 @@ public class OBFFormat extends AbstractFormat {
 		}
 
 		public Inflater getInflater() {
+			if (inflater == null) inflater = ZlibPool.acquireInflater();
 			return inflater;
 		}
 
 		public void setInflater(final Inflater inflater) {
+			if (this.inflater != inflater) ZlibPool.release(this.inflater);
 			this.inflater = inflater;
 		}
 
@@ -124,7 +127,8 @@ public class OBFFormat extends AbstractFormat {
 		public void close(final boolean fileOnly) throws IOException {
 			stacks = new ArrayList<>();
 			currentInflatedFrame = new Frame();
-			inflater = new Inflater();
+			ZlibPool.release(inflater);
+			inflater = null;
 
 			super.close(fileOnly);
 		}
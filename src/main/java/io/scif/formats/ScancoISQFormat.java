@@ -39,6 +39,7 @@ import io.scif.Field;
 import io.scif.Format;
 import io.scif.FormatException;
 import io.scif.ImageMetadata;
+import io.scif.MappableMetadata;
 import io.scif.config.SCIFIOConfig;
 import io.scif.util.FormatTools;
 
@@ -143,7 +144,9 @@ public class ScancoISQFormat extends AbstractFormat {
 		}
 	}
 
-	public static class Metadata extends AbstractMetadata {
+	public static class Metadata extends AbstractMetadata implements
+		MappableMetadata
+	{
 
 		/**
 		 * The unit of the spatial calibration, e.g. "voxel size"
@@ -475,6 +478,16 @@ public class ScancoISQFormat extends AbstractFormat {
 			this.width = width;
 		}
 
+		@Override
+		public Location getPixelsLocation(final int imageIndex) {
+			return getSourceLocation();
+		}
+
+		@Override
+		public long getPlaneOffset(final int imageIndex, final long planeIndex) {
+			return dataOffset + (long) sliceBytes * planeIndex;
+		}
+
 		// TODO Populate calibration metadata when it's supported
 		@Override
 		public void populateImageMetadata() {
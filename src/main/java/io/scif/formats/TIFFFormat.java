@@ -49,6 +49,7 @@ import io.scif.formats.tiff.IFDList;
 import io.scif.formats.tiff.PhotoInterp;
 import io.scif.formats.tiff.TiffCompression;
 import io.scif.formats.tiff.TiffParser;
+import io.scif.formats.tiff.TiffPyramidSaver;
 import io.scif.formats.tiff.TiffRational;
 import io.scif.formats.tiff.TiffSaver;
 import io.scif.gui.AWTImageTools;
@@ -139,7 +140,7 @@ public class TIFFFormat extends AbstractFormat {
 
 		private byte[][] lut;
 
-		private List<ColorTable> colorTable;
+		private transient List<ColorTable> colorTable;
 
 		// -- TIFFMetadata getters and setters --
 
@@ -323,6 +324,8 @@ public class TIFFFormat extends AbstractFormat {
 			catch (final FormatException e) {
 				log().error("Failed to get x, y pixel sizes", e);
 			}
+
+			populateResolutionMetadata();
 		}
 
 		@Override
@@ -1364,11 +1367,39 @@ public class TIFFFormat extends AbstractFormat {
 
 		public static final String BIG_TIFF_KEY = "WRITE_BIG_TIFF";
 
+		/**
+		 * Configuration key to write tiled, pyramidal planes. The value may be a
+		 * boolean, or the number of reduced resolution levels to write.
+		 */
+		public static final String PYRAMID_KEY = "WRITE_PYRAMID";
+
+		/**
+		 * Configuration key to hold IFDs back until the writer is closed, and
+		 * then write them together after the pixel data. An unclosed file has no
+		 * directory in this mode.
+		 */
+		public static final String PACK_IFDS_KEY = "WRITE_PACKED_IFDS";
+
+		/** Upper bound of the bytes taken by an IFD, besides its strip tables. */
+		private static final int IFD_OVERHEAD = 4096;
+
 		// -- Fields --
 
 		/** Whether or not the output file is a BigTIFF file. */
 		private Boolean isBigTIFF = null;
 
+		/**
+		 * Number of reduced resolution levels to write, -1 to choose them
+		 * automatically, or {@code null} to write flat planes.
+		 */
+		private Integer pyramidLevels = null;
+
+		/** Whether or not IFDs are written together when closing. */
+		private boolean packIFDs = false;
+
+		/** The saver writing pyramidal planes, if enabled. */
+		private TiffPyramidSaver pyramidSaver;
+
 		/** The TiffSaver that will do most of the writing. */
 		private TiffSaver tiffSaver;
 
@@ -1389,8 +1420,8 @@ public class TIFFFormat extends AbstractFormat {
 		// -- TIFFWriter API Methods --
 
 		/**
-		 * Sets whether or not BigTIFF files should be written. This flag is not
-		 * reset when close() is called.
+		 * Sets whether or not BigTIFF files should be written. This flag applies
+		 * to the current file, and is reset when close() is called.
 		 */
 		public void setBigTiff(final boolean bigTiff) {
 			isBigTIFF = bigTiff;
@@ -1403,6 +1434,43 @@ public class TIFFFormat extends AbstractFormat {
 			return isBigTIFF == null ? false : isBigTIFF;
 		}
 
+		/**
+		 * Sets whether or not planes should be written as tiled pyramids, with
+		 * reduced resolution levels in SubIFDs. In this mode, the regions of each
+		 * plane must span the full image width and be written from top to bottom.
+		 *
+		 * This setting applies to the current file, and is reset when close() is
+		 * called.
+		 *
+		 * @param levels The number of reduced resolution levels, -1 to add levels
+		 *          until the image fits into a single tile, or {@code null} to
+		 *          write flat planes.
+		 */
+		public void setPyramidLevels(final Integer levels) {
+			pyramidLevels = levels;
+		}
+
+		/** @return Whether or not this Writer is configured to write pyramids. */
+		public boolean isPyramid() {
+			return pyramidLevels != null;
+		}
+
+		/**
+		 * Sets whether or not IFDs should be held back until the writer is closed,
+		 * and then written back to back after the pixel data. Otherwise each IFD
+		 * is written along with its plane, and linked to the IFD of the plane
+		 * before, so planes must be saved whole, one at a time, in order. This
+		 * flag applies to the current file, and is reset when close() is called.
+		 */
+		public void setPackingIFDs(final boolean pack) {
+			packIFDs = pack;
+		}
+
+		/** @return Whether or not this Writer is configured to pack IFDs. */
+		public boolean isPackingIFDs() {
+			return packIFDs;
+		}
+
 		/**
 		 * Saves the given image to the specified series in the current file. The
 		 * IFD hashtable allows specification of TIFF parameters such as bit depth,
@@ -1429,9 +1497,9 @@ public class TIFFFormat extends AbstractFormat {
 				}
 			}
 
-			tiffSaver.writeImage(buf, ifd, index, type, x, y, w, h,
+			tiffSaver.writeImage(buf, ifd, imageIndex, index, type, x, y, w, h,
 				planeIndex == getMetadata().get(imageIndex).getPlaneCount() - 1 &&
-					imageIndex == getMetadata().getImageCount() - 1);
+					imageIndex == getMetadata().getImageCount() - 1, null, false);
 		}
 
 		// -- AbstractWriter Methods --
@@ -1479,9 +1547,43 @@ public class TIFFFormat extends AbstractFormat {
 				}
 			}
 
-			// if isBigTIFF is not explicitly set and the dataset is > 2GB,
-			// write bigTIFF to be safe.
-			if (isBigTIFF == null && getMetadata().getDatasetSize() > 2147483648L) {
+			// Check if a pyramid was requested
+			if (config.containsKey(PYRAMID_KEY)) {
+				final Object o = config.get(PYRAMID_KEY);
+				if (o instanceof Number) {
+					pyramidLevels = ((Number) o).intValue();
+				}
+				else {
+					final String v = String.valueOf(o).toLowerCase();
+					if (v.startsWith("t")) {
+						pyramidLevels = -1;
+					}
+					else if (v.startsWith("f")) {
+						pyramidLevels = null;
+					}
+				}
+			}
+
+			// Check if packed IFDs were requested
+			if (config.containsKey(PACK_IFDS_KEY)) {
+				final Object o = config.get(PACK_IFDS_KEY);
+				if (o instanceof Boolean) {
+					packIFDs = (Boolean) o;
+				}
+				else {
+					final String v = String.valueOf(o).toLowerCase();
+					if (v.startsWith("t")) {
+						packIFDs = true;
+					}
+					else if (v.startsWith("f")) {
+						packIFDs = false;
+					}
+				}
+			}
+
+			// if isBigTIFF is not explicitly set and the file may grow beyond
+			// 2GB, write bigTIFF to be safe.
+			if (isBigTIFF == null && estimateFileSize(dest) > 2147483648L) {
 				isBigTIFF = true;
 			}
 
@@ -1495,8 +1597,14 @@ public class TIFFFormat extends AbstractFormat {
 			final Plane plane, final Interval bounds) throws FormatException,
 			IOException
 		{
+			if (isPyramid()) {
+				writePyramidPlane(imageIndex, planeIndex, plane, bounds);
+				return;
+			}
+			// NB: When packing, the TiffSaver keeps the IFD of each plane until the
+			// writer is closed, so regions of a plane written earlier are preserved.
 			IFD ifd = new IFD(log());
-			if (!writeSequential()) {
+			if (!isPackingIFDs() && !writeSequential()) {
 				final TiffParser parser = new TiffParser(getContext(), getHandle()
 					.get());
 				try {
@@ -1522,6 +1630,22 @@ public class TIFFFormat extends AbstractFormat {
 			return true;
 		}
 
+		@Override
+		public boolean canSaveConcurrently() {
+			// NB: Planes are laid out under lock, but compressed concurrently.
+			// Unpacked and pyramid IFDs are linked in the order planes complete,
+			// though; packed IFDs are kept by plane index until closing.
+			return !isPyramid() && isPackingIFDs();
+		}
+
+		@Override
+		public boolean canSaveRegions() {
+			// NB: Pyramids must be written one plane at a time, top to bottom.
+			// Unpacked IFDs are found by their position in the chain, which is
+			// only the plane index when each plane is written whole, in order.
+			return !isPyramid() && isPackingIFDs();
+		}
+
 		@Override
 		public int[] getPixelTypes(final String codec) {
 			if (codec != null && codec.equals(COMPRESSION_JPEG)) {
@@ -1540,14 +1664,72 @@ public class TIFFFormat extends AbstractFormat {
 
 		@Override
 		public void close() throws IOException {
+			if (tiffSaver != null && getHandle() != null) {
+				try {
+					tiffSaver.writePackedIFDs();
+				}
+				catch (final FormatException e) {
+					throw new IOException(e);
+				}
+			}
 			super.close();
+			pyramidSaver = null;
 			if (in != null) {
 				in.close();
 			}
+			// NB: These settings are per file, so that the writer can be reused.
+			isBigTIFF = null;
+			pyramidLevels = null;
+			packIFDs = false;
 		}
 
 		// -- Helper methods --
 
+		/**
+		 * Writes the given full-width region of a plane in pyramid mode. The
+		 * plane's IFDs are written once its last row has been given.
+		 */
+		private void writePyramidPlane(final int imageIndex,
+			final long planeIndex, final Plane plane, final Interval bounds)
+			throws FormatException, IOException
+		{
+			final byte[] buf = plane.getBytes();
+			if (checkParams) checkParams(imageIndex, planeIndex, buf, bounds);
+			final ImageMetadata imageMeta = getMetadata().get(imageIndex);
+			final int xAxis = imageMeta.getAxisIndex(Axes.X);
+			final int yAxis = imageMeta.getAxisIndex(Axes.Y);
+			final int x = (int) bounds.min(xAxis), y = (int) bounds.min(yAxis), //
+					w = (int) bounds.dimension(xAxis), h = (int) bounds.dimension(yAxis);
+			final int width = (int) imageMeta.getAxisLength(Axes.X);
+			final int height = (int) imageMeta.getAxisLength(Axes.Y);
+			if (x != 0 || w != width) {
+				throw new FormatException(
+					"Pyramidal TIFF planes must be written in full-width regions");
+			}
+
+			synchronized (this) {
+				if (y == 0) {
+					final IFD ifd = new IFD(log());
+					if (planeIndex == 0) addDimensionalAxisInfo(ifd, imageIndex);
+					synchronized (tiffSaver) {
+						prepareToWritePlane(imageIndex, planeIndex, plane, ifd, x, y, w,
+							h);
+					}
+					if (pyramidSaver == null) {
+						pyramidSaver = new TiffPyramidSaver(tiffSaver, getCodecOptions(),
+							pyramidLevels);
+					}
+					final int bpp = FormatTools.getBytesPerPixel(imageMeta
+						.getPixelType());
+					pyramidSaver.startPlane(ifd, imageMeta.getPixelType(), width, height,
+						buf.length / (w * h * bpp));
+				}
+				pyramidSaver.writeRows(buf, y, h, imageMeta
+					.getInterleavedAxisCount() > 0);
+				if (y + h == height) pyramidSaver.finishPlane();
+			}
+		}
+
 		/**
 		 * Sets the compression code for the specified IFD.
 		 *
@@ -1667,19 +1849,92 @@ public class TIFFFormat extends AbstractFormat {
 		}
 
 		private void setupTiffSaver(final DataHandle<Location> handle,
-			final int imageIndex)
+			final int imageIndex) throws FormatException, IOException
 		{
 			final Metadata meta = getMetadata();
+			// finish the IFDs of any previous destination
+			if (tiffSaver != null) tiffSaver.writePackedIFDs();
 			tiffSaver = new TiffSaver(getContext(), handle);
+			pyramidSaver = null;
 
 			final boolean littleEndian = meta.get(imageIndex).isLittleEndian();
 
 			tiffSaver.setWritingSequentially(writeSequential());
+			tiffSaver.setPackingIFDs(isPackingIFDs());
 			tiffSaver.setLittleEndian(littleEndian);
 			tiffSaver.setBigTiff(isBigTiff());
 			tiffSaver.setCodecOptions(getCodecOptions());
 		}
 
+		/**
+		 * Estimates the size of the file once all planes described by the
+		 * metadata have been written: the compressed pixel data, their IFDs and
+		 * strip or tile tables, the reduced levels of pyramids, and whatever the
+		 * file already contains.
+		 */
+		private long estimateFileSize(final DataHandle<Location> handle)
+			throws IOException
+		{
+			final Metadata meta = getMetadata();
+			double ratio = 1;
+			if (COMPRESSION_JPEG.equals(getCompression()) ||
+				COMPRESSION_J2K_LOSSY.equals(getCompression()))
+			{
+				// NB: Lossless schemes can expand incompressible data; only count on
+				// lossy ones to shrink it.
+				ratio = 0.5;
+			}
+			long size = 0;
+			for (final ImageMetadata imageMeta : meta.getAll()) {
+				if (isPyramid()) {
+					size += imageMeta.getPlaneCount() * estimatePyramidSize(imageMeta,
+						ratio);
+					continue;
+				}
+				// one strip per row (and channel, unless interleaved), each with an
+				// 8-byte offset and byte count, plus the fixed IFD entries
+				final long strips = imageMeta.getAxisLength(Axes.Y) * imageMeta
+					.getAxisLength(Axes.CHANNEL);
+				size += imageMeta.getPlaneCount() * ((long) (imageMeta
+					.getPlaneSize() * ratio) + IFD_OVERHEAD + 16 * strips);
+			}
+			if (handle.exists()) size += handle.length();
+			return size;
+		}
+
+		/**
+		 * Estimates the bytes taken by one pyramidal plane: the full and reduced
+		 * levels, each padded to whole tiles, as {@link TiffPyramidSaver} writes
+		 * them, with their IFDs and tile tables.
+		 */
+		private long estimatePyramidSize(final ImageMetadata imageMeta,
+			final double ratio)
+		{
+			final long width = imageMeta.getAxisLength(Axes.X);
+			final long height = imageMeta.getAxisLength(Axes.Y);
+			final double pixelBytes = (double) imageMeta.getPlaneSize() /
+				Math.max(1, width * height);
+			final long tile = TiffPyramidSaver.DEFAULT_TILE_SIZE;
+			long levels = pyramidLevels;
+			if (levels < 0) {
+				levels = 0;
+				for (long w = width, h = height; w > tile || h > tile; levels++) {
+					w = (w + 1) / 2;
+					h = (h + 1) / 2;
+				}
+			}
+			long size = 0;
+			long w = width, h = height;
+			for (long l = 0; l <= levels; l++) {
+				final long tiles = ((w + tile - 1) / tile) * ((h + tile - 1) / tile);
+				size += (long) (tiles * tile * tile * pixelBytes * ratio) +
+					IFD_OVERHEAD + 16 * tiles;
+				w = (w + 1) / 2;
+				h = (h + 1) / 2;
+			}
+			return size;
+		}
+
 		private void addDimensionalAxisInfo(final IFD ifd, final int imageIndex) {
 			// NB: Add dimensional metadata to TIFF comment of first plane's IFD.
 			final ImageMetadata imageMeta = getMetadata().get(imageIndex);
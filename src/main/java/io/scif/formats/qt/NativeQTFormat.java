@@ -75,6 +75,9 @@ import org.scijava.io.location.Location;
 import org.scijava.log.LogService;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
+import org.scijava.util.Bytes;
+import org.scijava.util.IntArray;
+import org.scijava.util.LongArray;
 
 /**
  * NativeQTReader is the file format reader for QuickTime movie files. It does
@@ -121,7 +124,7 @@ public class NativeQTFormat extends AbstractFormat {
 		private int rawSize;
 
 		/** Offsets to each plane's pixel data. */
-		private List<Integer> offsets;
+		private LongArray offsets;
 
 		/** Pixel data for the previous image plane. */
 		private byte[] prevPixels;
@@ -145,7 +148,7 @@ public class NativeQTFormat extends AbstractFormat {
 		private int scale;
 
 		/** Number of bytes in each plane. */
-		private List<Integer> chunkSizes;
+		private IntArray chunkSizes;
 
 		/** Set to true if the scanlines in a plane are interlaced (mjpb only). */
 		private boolean interlaced;
@@ -189,11 +192,36 @@ public class NativeQTFormat extends AbstractFormat {
 			this.rawSize = rawSize;
 		}
 
+		/**
+		 * @return A copy of the offset to each plane's pixel data.
+		 * @deprecated Offsets may not fit in 32 bits; use
+		 *             {@link #getPlaneOffsets()}.
+		 */
+		@Deprecated
 		public List<Integer> getOffsets() {
-			return offsets;
+			final List<Integer> list = new ArrayList<>(offsets.size());
+			for (int i = 0; i < offsets.size(); i++) {
+				list.add((int) offsets.getValue(i));
+			}
+			return list;
 		}
 
+		/** @deprecated Use {@link #setPlaneOffsets(LongArray)}. */
+		@Deprecated
 		public void setOffsets(final List<Integer> offsets) {
+			final LongArray array = new LongArray(offsets.size());
+			for (final Integer offset : offsets) {
+				array.addValue(offset);
+			}
+			this.offsets = array;
+		}
+
+		/** @return The offset to each plane's pixel data. */
+		public LongArray getPlaneOffsets() {
+			return offsets;
+		}
+
+		public void setPlaneOffsets(final LongArray offsets) {
 			this.offsets = offsets;
 		}
 
@@ -245,10 +273,20 @@ public class NativeQTFormat extends AbstractFormat {
 			this.altPlanes = altPlanes;
 		}
 
+		/**
+		 * @deprecated No longer used: planes are read relative to the offset of
+		 *             the first plane.
+		 */
+		@Deprecated
 		public int getScale() {
 			return scale;
 		}
 
+		/**
+		 * @deprecated No longer used: planes are read relative to the offset of
+		 *             the first plane.
+		 */
+		@Deprecated
 		public void setScale(final int scale) {
 			this.scale = scale;
 		}
@@ -258,7 +296,14 @@ public class NativeQTFormat extends AbstractFormat {
 		}
 
 		public void setChunkSizes(final List<Integer> chunkSizes) {
-			this.chunkSizes = chunkSizes;
+			if (chunkSizes == null || chunkSizes instanceof IntArray) {
+				this.chunkSizes = (IntArray) chunkSizes;
+				return;
+			}
+			this.chunkSizes = new IntArray(chunkSizes.size());
+			for (final Integer size : chunkSizes) {
+				this.chunkSizes.addValue(size);
+			}
 		}
 
 		public boolean isInterlaced() {
@@ -364,10 +409,10 @@ public class NativeQTFormat extends AbstractFormat {
 		{
 
 			meta.setSpork(true);
-			final List<Integer> offsets = new ArrayList<>();
-			final List<Integer> chunkSizes = new ArrayList<>();
+			final LongArray offsets = new LongArray();
+			final IntArray chunkSizes = new IntArray();
 
-			meta.setOffsets(offsets);
+			meta.setPlaneOffsets(offsets);
 			meta.setChunkSizes(chunkSizes);
 			meta.createImageMetadata(1);
 			log().info("Parsing tags");
@@ -451,7 +496,7 @@ public class NativeQTFormat extends AbstractFormat {
 			}
 		}
 
-		private void parseLocation(final Metadata meta, final List<Integer> offsets,
+		private void parseLocation(final Metadata meta, final LongArray offsets,
 			final Location f) throws IOException, FormatException
 		{
 			try (final DataHandle<Location> tmpStream = dataHandleService.create(f)) {
@@ -466,6 +511,11 @@ public class NativeQTFormat extends AbstractFormat {
 
 	public static class Reader extends ByteArrayReader<Metadata> {
 
+		// -- Fields --
+
+		/** Compressed bytes of the last plane read, reused from plane to plane. */
+		private byte[] pixelBuffer;
+
 		// -- AbstractReader API Methods --
 
 		@Override
@@ -490,34 +540,43 @@ public class NativeQTFormat extends AbstractFormat {
 			if (planeIndex >= meta.get(imageIndex).getPlaneCount() - meta
 				.getAltPlanes()) code = meta.altCodec;
 
-			int offset = meta.getOffsets().get((int) planeIndex).intValue();
-			int nextOffset = (int) meta.getPixelBytes();
+			// offsets are relative to the first plane
+			final LongArray offsets = meta.getPlaneOffsets();
+			final long first = offsets.getValue(0);
+			long offset = offsets.getValue((int) planeIndex) - first;
+			long nextOffset = meta.getPixelBytes();
 
-			meta.setScale(meta.getOffsets().get(0).intValue());
-			offset -= meta.getScale();
-
-			if (planeIndex < meta.getOffsets().size() - 1) {
-				nextOffset = meta.getOffsets().get((int) planeIndex + 1).intValue() -
-					meta.getScale();
+			if (planeIndex < offsets.size() - 1) {
+				nextOffset = offsets.getValue((int) planeIndex + 1) - first;
 			}
 
 			if ((nextOffset - offset) < 0) {
-				final int temp = offset;
+				final long temp = offset;
 				offset = nextOffset;
 				nextOffset = temp;
 			}
 
-			final byte[] pixs = new byte[nextOffset - offset];
-
-			getHandle().seek(meta.getPixelOffset() + offset);
-			getHandle().read(pixs);
-
 			meta.setCanUsePrevious((meta.getPrevPixels() != null) && (meta
 				.getPrevPlane() == planeIndex - 1) && !code.equals(meta.getAltCodec()));
 
-			byte[] t = meta.getPrevPlane() == planeIndex && meta
-				.getPrevPixels() != null && !code.equals(meta.getAltCodec()) ? meta
-					.getPrevPixels() : NativeQTUtils.uncompress(pixs, code, meta);
+			final boolean cached = meta.getPrevPlane() == planeIndex && meta
+				.getPrevPixels() != null && !code.equals(meta.getAltCodec());
+			byte[] t;
+			if (cached) {
+				// the same plane again, e.g. one region at a time
+				t = meta.getPrevPixels();
+			}
+			else {
+				final int length = (int) (nextOffset - offset);
+				// raw planes become the cached pixels, so only reuse compressed bytes
+				final byte[] pixs = code.equals("raw ") || pixelBuffer == null ||
+					pixelBuffer.length != length ? new byte[length] : pixelBuffer;
+				if (!code.equals("raw ")) pixelBuffer = pixs;
+
+				getHandle().seek(meta.getPixelOffset() + offset);
+				getHandle().read(pixs);
+				t = NativeQTUtils.uncompress(pixs, code, meta);
+			}
 			if (code.equals("rpza")) {
 				for (int i = 0; i < t.length; i++) {
 					t[i] = (byte) (255 - t[i]);
@@ -1362,32 +1421,38 @@ public class NativeQTFormat extends AbstractFormat {
 								"Compressed header not supported.");
 						}
 					}
-					else if (atomType.equals("stco")) {
-						// we've found the plane offsets
+					else if (atomType.equals("stco") || atomType.equals("co64")) {
+						// we've found the plane offsets (64-bit for co64)
 
-						if (meta.getOffsets().size() > 0) break;
+						if (meta.getPlaneOffsets().size() > 0) break;
 						meta.setSpork(false);
 						stream.skipBytes(4);
 						final int planeCount = (int) meta.get(0).getAxisLength(Axes.TIME);
 						final int numPlanes = stream.readInt();
+						final LongArray offsets = meta.getPlaneOffsets();
 						if (numPlanes != planeCount) {
 							stream.seek(stream.offset() - 4);
-							int off = stream.readInt();
-							meta.getOffsets().add(off);
+							long off = stream.readInt();
+							offsets.addValue(off);
 							for (int i = 1; i < planeCount; i++) {
 								if ((meta.getChunkSizes().isEmpty()) && (i < meta
 									.getChunkSizes().size()))
 								{
-									meta.setRawSize(meta.getChunkSizes().get(i).intValue());
+									meta.setRawSize(meta.getChunkSizes().get(i));
 								}
 								else i = planeCount;
 								off += meta.getRawSize();
-								meta.getOffsets().add(off);
+								offsets.addValue(off);
 							}
 						}
 						else {
+							final boolean wide = atomType.equals("co64");
+							final byte[] table = new byte[numPlanes * (wide ? 8 : 4)];
+							stream.readFully(table);
+							offsets.ensureCapacity(numPlanes);
 							for (int i = 0; i < numPlanes; i++) {
-								meta.getOffsets().add(stream.readInt());
+								offsets.addValue(wide ? Bytes.toLong(table, 8 * i, false)
+									: Bytes.toInt(table, 4 * i, false) & 0xffffffffL);
 							}
 						}
 					}
@@ -1438,7 +1503,7 @@ public class NativeQTFormat extends AbstractFormat {
 						if (meta.getRawSize() == 0) {
 							stream.seek(stream.offset() - 4);
 							for (int b = 0; b < meta.get(0).getAxisLength(Axes.TIME); b++) {
-								meta.getChunkSizes().add(stream.readInt());
+								meta.chunkSizes.addValue(stream.readInt());
 							}
 						}
 					}
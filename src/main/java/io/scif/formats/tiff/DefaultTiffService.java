@@ -30,13 +30,13 @@
 package io.scif.formats.tiff;
 
 import io.scif.FormatException;
+import io.scif.enumeration.EnumException;
 
 import org.scijava.log.LogService;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
 import org.scijava.service.AbstractService;
 import org.scijava.service.Service;
-import org.scijava.util.Bytes;
 
 /**
  * Default service for working with TIFF files.
@@ -53,56 +53,45 @@ public class DefaultTiffService extends AbstractService implements TiffService {
 	public void difference(final byte[] input, final IFD ifd)
 		throws FormatException
 	{
-		final int predictor = ifd.getIFDIntValue(IFD.PREDICTOR, 1);
-		if (predictor == 2) {
-			log.debug("performing horizontal differencing");
-			final int[] bitsPerSample = ifd.getBitsPerSample();
-			final long width = ifd.getImageWidth();
-			final boolean little = ifd.isLittleEndian();
-			final int planarConfig = ifd.getPlanarConfiguration();
-			final int bytes = ifd.getBytesPerSample()[0];
-			final int len = bytes * (planarConfig == 2 ? 1 : bitsPerSample.length);
-
-			for (int b = input.length - bytes; b >= 0; b -= bytes) {
-				if (b / len % width == 0) continue;
-				int value = Bytes.toInt(input, b, bytes, little);
-				value -= Bytes.toInt(input, b - len, bytes, little);
-				Bytes.unpack(value, input, b, bytes, little);
-			}
-		}
-		else if (predictor != 1) {
-			throw new FormatException("Unknown Predictor (" + predictor + ")");
-		}
+		final TiffPredictor predictor = getPredictor(ifd);
+		if (predictor == TiffPredictor.NONE) return;
+		log.debug("performing " + predictor.getName() + " prediction");
+		predictor.difference(input, (int) ifd.getTileWidth(), getSamplesPerPixel(
+			ifd), ifd.getBytesPerSample()[0], ifd.isLittleEndian());
 	}
 
 	@Override
 	public void undifference(final byte[] input, final IFD ifd)
 		throws FormatException
 	{
-		final int predictor = ifd.getIFDIntValue(IFD.PREDICTOR, 1);
-		if (predictor == 2) {
-			log.debug("reversing horizontal differencing");
-			final int[] bitsPerSample = ifd.getBitsPerSample();
-			int len = bitsPerSample.length;
-			final long width = ifd.getImageWidth();
-			final boolean little = ifd.isLittleEndian();
-			final int planarConfig = ifd.getPlanarConfiguration();
-
-			final int bytes = ifd.getBytesPerSample()[0];
+		final TiffPredictor predictor = getPredictor(ifd);
+		if (predictor == TiffPredictor.NONE) return;
+		log.debug("reversing " + predictor.getName() + " prediction");
+		predictor.undifference(input, (int) ifd.getTileWidth(), getSamplesPerPixel(
+			ifd), ifd.getBytesPerSample()[0], ifd.isLittleEndian());
+	}
 
-			if (planarConfig == 2 || bitsPerSample[len - 1] == 0) len = 1;
-			len *= bytes;
+	// -- Helper methods --
 
-			for (int b = 0; b <= input.length - bytes; b += bytes) {
-				if (b / len % width == 0) continue;
-				int value = Bytes.toInt(input, b, bytes, little);
-				value += Bytes.toInt(input, b - len, bytes, little);
-				Bytes.unpack(value, input, b, bytes, little);
-			}
+	private TiffPredictor getPredictor(final IFD ifd) throws FormatException {
+		final int predictor = ifd.getIFDIntValue(IFD.PREDICTOR, 1);
+		try {
+			return TiffPredictor.get(predictor);
 		}
-		else if (predictor != 1) {
+		catch (final EnumException e) {
 			throw new FormatException("Unknown Predictor (" + predictor + ")");
 		}
 	}
 
+	/** Number of samples interleaved within each strip or tile. */
+	private int getSamplesPerPixel(final IFD ifd) throws FormatException {
+		final int[] bitsPerSample = ifd.getBitsPerSample();
+		if (ifd.getPlanarConfiguration() == 2 ||
+			bitsPerSample[bitsPerSample.length - 1] == 0)
+		{
+			return 1;
+		}
+		return bitsPerSample.length;
+	}
+
 }
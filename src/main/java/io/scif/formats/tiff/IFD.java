@@ -38,6 +38,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 
 import org.scijava.log.LogService;
+import org.scijava.log.StderrLogService;
 import org.scijava.util.DebugUtils;
 
 /**
@@ -323,7 +324,7 @@ public class IFD extends HashMap<Integer, Object> {
 
 	// -- Fields --
 
-	private final LogService log;
+	private transient LogService log;
 
 	// -- Constructors --
 
@@ -704,7 +705,7 @@ public class IFD extends HashMap<Integer, Object> {
 
 		final int samplesPerPixel = getSamplesPerPixel();
 		if (bitsPerSample.length < samplesPerPixel) {
-			log.debug("BitsPerSample length (" + bitsPerSample.length +
+			log().debug("BitsPerSample length (" + bitsPerSample.length +
 				") does not match SamplesPerPixel (" + samplesPerPixel + ")");
 			final int bits = bitsPerSample[0];
 			bitsPerSample = new int[samplesPerPixel];
@@ -1118,28 +1119,28 @@ public class IFD extends HashMap<Integer, Object> {
 
 	/** Prints the contents of this IFD. */
 	public void printIFD() {
-		log.trace("IFD directory entry values:");
+		log().trace("IFD directory entry values:");
 
 		for (final Integer tag : keySet()) {
 			final Object value = get(tag);
 			String v = null;
 			if (value == null) {
-				log.trace("\t" + getIFDTagName(tag.intValue()) + "=null");
+				log().trace("\t" + getIFDTagName(tag.intValue()) + "=null");
 			}
 			else if ((value instanceof Boolean) || (value instanceof Number) ||
 				(value instanceof String) || (value instanceof PhotoInterp) ||
 				(value instanceof TiffCompression) || (value instanceof TiffIFDEntry))
 			{
 				v = value.toString();
-				log.trace("\t" + getIFDTagName(tag.intValue()) + "=" + v);
+				log().trace("\t" + getIFDTagName(tag.intValue()) + "=" + v);
 			}
 			else {
 				// this is an array of primitive types, Strings, or
 				// TiffRationals
-				log.trace("\t" + getIFDTagName(tag.intValue()) + "=");
+				log().trace("\t" + getIFDTagName(tag.intValue()) + "=");
 				final int nElements = Array.getLength(value);
 				for (int i = 0; i < nElements; i++) {
-					log.trace("\t\t" + Array.get(value, i));
+					log().trace("\t\t" + Array.get(value, i));
 				}
 			}
 		}
@@ -1164,4 +1165,12 @@ public class IFD extends HashMap<Integer, Object> {
 		return DebugUtils.getFieldName(IFD.class, value);
 	}
 
+	// -- Helper methods --
+
+	/** Gets the log, which is not restored along with a serialized IFD. */
+	private LogService log() {
+		if (log == null) log = new StderrLogService();
+		return log;
+	}
+
 }
@@ -55,10 +55,20 @@ public class OnDemandLongArray {
 	}
 
 	public long get(final int index) throws IOException {
-		final long fp = stream.offset();
-		stream.seek(start + index * 8);
-		final long value = stream.readLong();
-		stream.seek(fp);
+		return get(stream, index);
+	}
+
+	/**
+	 * Reads the value at the given index through the given handle, which must
+	 * be open on the same file as the one this array was created from.
+	 */
+	public long get(final DataHandle<Location> in, final int index)
+		throws IOException
+	{
+		final long fp = in.offset();
+		in.seek(start + index * 8);
+		final long value = in.readLong();
+		in.seek(fp);
 		return value;
 	}
 
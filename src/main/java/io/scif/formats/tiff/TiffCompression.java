@@ -95,6 +95,7 @@ public enum TiffCompression implements CodedEnum {
 					final JPEG2000CodecOptions o = (JPEG2000CodecOptions) opt;
 					j2k.numDecompositionLevels = o.numDecompositionLevels;
 					j2k.resolution = o.resolution;
+					j2k.region = o.region;
 					if (o.codeBlockSize != null) j2k.codeBlockSize = o.codeBlockSize;
 					if (o.quality > 0) j2k.quality = o.quality;
 				}
@@ -123,6 +124,7 @@ public enum TiffCompression implements CodedEnum {
 					final JPEG2000CodecOptions o = (JPEG2000CodecOptions) opt;
 					j2k.numDecompositionLevels = o.numDecompositionLevels;
 					j2k.resolution = o.resolution;
+					j2k.region = o.region;
 					if (o.codeBlockSize != null) j2k.codeBlockSize = o.codeBlockSize;
 					if (o.quality > 0) j2k.quality = o.quality;
 				}
@@ -151,6 +153,7 @@ public enum TiffCompression implements CodedEnum {
 					final JPEG2000CodecOptions o = (JPEG2000CodecOptions) opt;
 					j2k.numDecompositionLevels = o.numDecompositionLevels;
 					j2k.resolution = o.resolution;
+					j2k.region = o.region;
 					if (o.codeBlockSize != null) j2k.codeBlockSize = o.codeBlockSize;
 					if (o.quality > 0) j2k.quality = o.quality;
 				}
@@ -180,6 +183,7 @@ public enum TiffCompression implements CodedEnum {
 					final JPEG2000CodecOptions o = (JPEG2000CodecOptions) opt;
 					j2k.numDecompositionLevels = o.numDecompositionLevels;
 					j2k.resolution = o.resolution;
+					j2k.region = o.region;
 					if (o.codeBlockSize != null) j2k.codeBlockSize = o.codeBlockSize;
 					if (o.quality > 0) j2k.quality = o.quality;
 				}
@@ -0,0 +1,169 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.formats.tiff;
+
+/**
+ * Utility class for expanding the reduced-precision floating point samples
+ * some TIFF files contain (16-bit "half" floats and 24-bit floats) into
+ * standard 32-bit IEEE 754 floats.
+ * <p>
+ * Half floats are converted through a lookup table covering all 65536
+ * values, which is built on first use. 24-bit floats (1 sign bit, 7 exponent
+ * bits, 16 mantissa bits) are converted arithmetically.
+ * </p>
+ */
+public final class TiffFloatConverter {
+
+	// -- Constructor --
+
+	private TiffFloatConverter() {}
+
+	// -- TiffFloatConverter methods --
+
+	/** Converts a 16-bit half float to the bits of a 32-bit float. */
+	public static int halfToFloatBits(final int half) {
+		return HalfTable.TABLE[half & 0xffff];
+	}
+
+	/** Converts a 24-bit float to the bits of a 32-bit float. */
+	public static int float24ToFloatBits(final int value) {
+		return toFloatBits(value & 0xffffff, 16, 7);
+	}
+
+	/**
+	 * Expands packed 16- or 24-bit float samples to 32-bit floats, in place.
+	 * The buffer must hold at least {@code 4 * count} bytes; the packed samples
+	 * occupy its beginning, and are converted from the last to the first so
+	 * that no intermediate copy is needed.
+	 *
+	 * @param buf Buffer containing the packed samples.
+	 * @param count Number of samples to convert.
+	 * @param bytesPerSample Size of a packed sample: 2 or 3.
+	 * @param littleEndian Byte order of both the packed and expanded samples.
+	 */
+	public static void expand(final byte[] buf, final int count,
+		final int bytesPerSample, final boolean littleEndian)
+	{
+		if (buf.length < 4L * count) {
+			throw new IllegalArgumentException("Buffer too small: " + buf.length +
+				" < " + 4L * count);
+		}
+		if (bytesPerSample == 2) {
+			final int[] table = HalfTable.TABLE;
+			final int lo = littleEndian ? 0 : 1, hi = 1 - lo;
+			for (int i = count - 1; i >= 0; i--) {
+				final int src = i * 2;
+				final int half = (buf[src + hi] & 0xff) << 8 | (buf[src + lo] & 0xff);
+				putInt(buf, i * 4, table[half], littleEndian);
+			}
+		}
+		else if (bytesPerSample == 3) {
+			final int lo = littleEndian ? 0 : 2, hi = 2 - lo;
+			for (int i = count - 1; i >= 0; i--) {
+				final int src = i * 3;
+				final int v = (buf[src + hi] & 0xff) << 16 | (buf[src + 1] & 0xff) <<
+					8 | (buf[src + lo] & 0xff);
+				putInt(buf, i * 4, toFloatBits(v, 16, 7), littleEndian);
+			}
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported float size: " +
+				bytesPerSample + " bytes");
+		}
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Converts a reduced-precision float with the given field widths to the
+	 * bits of a 32-bit float. Subnormal values are normalized, and the maximum
+	 * exponent maps to infinity/NaN.
+	 */
+	private static int toFloatBits(final int v, final int mantissaBits,
+		final int exponentBits)
+	{
+		final int maxExponent = (1 << exponentBits) - 1;
+		final int mantissaMask = (1 << mantissaBits) - 1;
+		final int bias = 127 - ((1 << (exponentBits - 1)) - 1);
+
+		final int sign = (v >>> (mantissaBits + exponentBits)) & 1;
+		int exponent = (v >>> mantissaBits) & maxExponent;
+		int mantissa = v & mantissaMask;
+
+		if (exponent == 0) {
+			if (mantissa != 0) {
+				// normalize the subnormal value
+				final int shift = Integer.numberOfLeadingZeros(mantissa) -
+					(31 - mantissaBits);
+				mantissa = (mantissa << shift) & mantissaMask;
+				exponent = 1 - shift + bias;
+			}
+		}
+		else if (exponent == maxExponent) {
+			exponent = 255;
+		}
+		else {
+			exponent += bias;
+		}
+		return sign << 31 | exponent << 23 | mantissa << (23 - mantissaBits);
+	}
+
+	private static void putInt(final byte[] b, final int i, final int v,
+		final boolean little)
+	{
+		if (little) {
+			b[i] = (byte) v;
+			b[i + 1] = (byte) (v >> 8);
+			b[i + 2] = (byte) (v >> 16);
+			b[i + 3] = (byte) (v >> 24);
+		}
+		else {
+			b[i] = (byte) (v >> 24);
+			b[i + 1] = (byte) (v >> 16);
+			b[i + 2] = (byte) (v >> 8);
+			b[i + 3] = (byte) v;
+		}
+	}
+
+	// -- Helper classes --
+
+	/** Lazily initialized half float lookup table. */
+	private static final class HalfTable {
+
+		private static final int[] TABLE = new int[1 << 16];
+
+		static {
+			for (int i = 0; i < TABLE.length; i++) {
+				TABLE[i] = toFloatBits(i, 10, 5);
+			}
+		}
+	}
+
+}
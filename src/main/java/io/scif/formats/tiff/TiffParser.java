@@ -33,12 +33,17 @@ import io.scif.FormatException;
 import io.scif.SCIFIO;
 import io.scif.codec.BitBuffer;
 import io.scif.codec.CodecOptions;
+import io.scif.codec.JPEG2000CodecOptions;
 import io.scif.common.Constants;
 import io.scif.enumeration.EnumException;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.scijava.AbstractContextual;
 import org.scijava.Context;
@@ -223,28 +228,48 @@ public class TiffParser extends AbstractContextual {
 			final IFD ifd = getIFD(offset);
 			if (ifd == null) continue;
 			if (ifd.containsKey(IFD.IMAGE_WIDTH)) ifds.add(ifd);
-			long[] subOffsets = null;
-			try {
-				if (!doCaching && ifd.containsKey(IFD.SUB_IFD)) {
-					fillInIFD(ifd);
-				}
-				subOffsets = ifd.getIFDLongArray(IFD.SUB_IFD);
-			}
-			catch (final FormatException e) {}
-			if (subOffsets != null) {
-				for (final long subOffset : subOffsets) {
-					final IFD sub = getIFD(subOffset);
-					if (sub != null) {
-						ifds.add(sub);
-					}
-				}
-			}
+			ifds.addAll(getSubIFDs(ifd));
 		}
 		if (doCaching) ifdList = ifds;
 
 		return ifds;
 	}
 
+	/** Returns the top-level IFDs in the file, without their SubIFDs. */
+	public IFDList getMainIFDs() throws IOException {
+		final IFDList ifds = new IFDList();
+		for (final long offset : getIFDOffsets()) {
+			final IFD ifd = getIFD(offset);
+			if (ifd != null && ifd.containsKey(IFD.IMAGE_WIDTH)) ifds.add(ifd);
+		}
+		return ifds;
+	}
+
+	/**
+	 * Returns the SubIFDs of the given IFD. In pyramidal files, these are the
+	 * reduced resolution levels of the image, largest first.
+	 */
+	public IFDList getSubIFDs(final IFD ifd) throws IOException {
+		final IFDList subIFDs = new IFDList();
+		long[] subOffsets = null;
+		try {
+			if (!doCaching && ifd.containsKey(IFD.SUB_IFD)) {
+				fillInIFD(ifd);
+			}
+			subOffsets = ifd.getIFDLongArray(IFD.SUB_IFD);
+		}
+		catch (final FormatException e) {}
+		if (subOffsets != null) {
+			for (final long subOffset : subOffsets) {
+				final IFD sub = getIFD(subOffset);
+				if (sub != null) {
+					subIFDs.add(sub);
+				}
+			}
+		}
+		return subIFDs;
+	}
+
 	/** Returns thumbnail IFDs. */
 	public IFDList getThumbnailIFDs() throws IOException {
 		final IFDList ifds = getIFDs();
@@ -631,99 +656,13 @@ public class TiffParser extends AbstractContextual {
 	public byte[] getTile(final IFD ifd, byte[] buf, final int row, final int col)
 		throws FormatException, IOException
 	{
-		final byte[] jpegTable = (byte[]) ifd.getIFDValue(IFD.JPEG_TABLES);
-
 		codecOptions.interleaved = true;
 		codecOptions.littleEndian = ifd.isLittleEndian();
 
-		final long tileWidth = ifd.getTileWidth();
-		final long tileLength = ifd.getTileLength();
-		final int samplesPerPixel = ifd.getSamplesPerPixel();
-		final int planarConfig = ifd.getPlanarConfiguration();
-		final TiffCompression compression = ifd.getCompression();
-
-		final long numTileCols = ifd.getTilesPerRow();
-
-		final int pixel = ifd.getBytesPerSample()[0];
-		final int effectiveChannels = planarConfig == 2 ? 1 : samplesPerPixel;
-
-		final long[] stripByteCounts = ifd.getStripByteCounts();
-		final long[] rowsPerStrip = ifd.getRowsPerStrip();
-
-		final int offsetIndex = (int) (row * numTileCols + col);
-		int countIndex = offsetIndex;
-		if (equalStrips) {
-			countIndex = 0;
-		}
-		if (stripByteCounts[countIndex] == (rowsPerStrip[0] * tileWidth) &&
-			pixel > 1)
-		{
-			stripByteCounts[countIndex] *= pixel;
-		}
-
-		long stripOffset = 0;
-		long nStrips = 0;
-
-		if (ifd.getOnDemandStripOffsets() != null) {
-			final OnDemandLongArray stripOffsets = ifd.getOnDemandStripOffsets();
-			stripOffset = stripOffsets.get(offsetIndex);
-			nStrips = stripOffsets.size();
-		}
-		else {
-			final long[] stripOffsets = ifd.getStripOffsets();
-			stripOffset = stripOffsets[offsetIndex];
-			nStrips = stripOffsets.length;
-		}
-
-		final int size = (int) (tileWidth * tileLength * pixel * effectiveChannels);
-
-		if (buf == null) buf = new byte[size];
-		if (stripByteCounts[countIndex] == 0 || stripOffset >= in.length()) {
-			return buf;
-		}
-		byte[] tile = new byte[(int) stripByteCounts[countIndex]];
-
-		log.debug("Reading tile Length " + tile.length + " Offset " + stripOffset);
-		in.seek(stripOffset);
-		in.read(tile);
-
-		codecOptions.maxBytes = Math.max(size, tile.length);
-		codecOptions.ycbcr = ifd
-			.getPhotometricInterpretation() == PhotoInterp.Y_CB_CR && ifd
-				.getIFDIntValue(IFD.Y_CB_CR_SUB_SAMPLING) == 1 && ycbcrCorrection;
-
-		if (jpegTable != null) {
-			final byte[] q = new byte[jpegTable.length + tile.length - 4];
-			System.arraycopy(jpegTable, 0, q, 0, jpegTable.length - 2);
-			System.arraycopy(tile, 2, q, jpegTable.length - 2, tile.length - 2);
-			tile = compression.decompress(scifio.codec(), q, codecOptions);
-		}
-		else tile = compression.decompress(scifio.codec(), tile, codecOptions);
-		scifio.tiff().undifference(tile, ifd);
-		unpackBytes(buf, 0, tile, ifd);
-
-		if (planarConfig == 2 && !ifd.isTiled() && ifd.getSamplesPerPixel() > 1) {
-			final int channel = (int) (row % nStrips);
-			if (channel < ifd.getBytesPerSample().length) {
-				final int realBytes = ifd.getBytesPerSample()[channel];
-				if (realBytes != pixel) {
-					// re-pack pixels to account for differing bits per sample
-
-					final boolean littleEndian = ifd.isLittleEndian();
-					final int[] samples = new int[buf.length / pixel];
-					for (int i = 0; i < samples.length; i++) {
-						samples[i] = Bytes.toInt(buf, i * realBytes, realBytes,
-							littleEndian);
-					}
-
-					for (int i = 0; i < samples.length; i++) {
-						Bytes.unpack(samples[i], buf, i * pixel, pixel, littleEndian);
-					}
-				}
-			}
-		}
-
-		return buf;
+		if (buf == null) buf = new byte[getTileSize(ifd)];
+		final byte[] tile = readTileBytes(ifd, row, col);
+		if (tile == null) return buf;
+		return decodeTile(ifd, tile, buf, row, codecOptions);
 	}
 
 	public byte[] getSamples(final IFD ifd, final byte[] buf)
@@ -866,6 +805,7 @@ public class TiffParser extends AbstractContextual {
 		final IntRect tileBounds = new IntRect(0, 0, (int) tileWidth,
 			(int) tileLength);
 
+		final List<int[]> tiles = new ArrayList<>();
 		for (int row = 0; row < numTileRows; row++) {
 			// make the first row shorter to account for row overlap
 			if (row == 0) {
@@ -885,59 +825,241 @@ public class TiffParser extends AbstractContextual {
 					tileBounds.y = (int) ((row % nrows) * (tileLength - overlapY));
 				}
 
-				if (!imageBounds.intersects(tileBounds)) continue;
+				if (imageBounds.intersects(tileBounds)) {
+					tiles.add(new int[] { row, col, tileBounds.x, tileBounds.y });
+				}
+			}
+		}
+
+		final byte[][] decodedTiles = decodeTilesConcurrently(ifd, tiles);
+
+		for (int t = 0; t < tiles.size(); t++) {
+			final int row = tiles.get(t)[0];
+			tileBounds.x = tiles.get(t)[2];
+			tileBounds.y = tiles.get(t)[3];
+			final byte[] tileBuffer = decodedTiles == null ? getTile(ifd,
+				cachedTileBuffer, row, tiles.get(t)[1]) : decodedTiles[t];
+
+			// adjust tile bounds, if necessary
+
+			final int tileX = Math.max(tileBounds.x, x);
+			final int tileY = Math.max(tileBounds.y, y);
+			int realX = tileX % (int) (tileWidth - overlapX);
+			int realY = tileY % (int) (tileLength - overlapY);
+
+			int twidth = (int) Math.min(endX - tileX, tileWidth - realX);
+			if (twidth <= 0) {
+				twidth = (int) Math.max(endX - tileX, tileWidth - realX);
+			}
+			int theight = (int) Math.min(endY - tileY, tileLength - realY);
+			if (theight <= 0) {
+				theight = (int) Math.max(endY - tileY, tileLength - realY);
+			}
 
-				getTile(ifd, cachedTileBuffer, row, col);
+			// copy appropriate portion of the tile to the output buffer
 
-				// adjust tile bounds, if necessary
+			final int copy = pixel * twidth;
 
-				final int tileX = Math.max(tileBounds.x, x);
-				final int tileY = Math.max(tileBounds.y, y);
-				int realX = tileX % (int) (tileWidth - overlapX);
-				int realY = tileY % (int) (tileLength - overlapY);
+			realX *= pixel;
+			realY *= rowLen;
 
-				int twidth = (int) Math.min(endX - tileX, tileWidth - realX);
-				if (twidth <= 0) {
-					twidth = (int) Math.max(endX - tileX, tileWidth - realX);
+			for (int q = 0; q < effectiveChannels; q++) {
+				int src = q * tileSize + realX + realY;
+				int dest = q * planeSize + pixel * (tileX - x) + outputRowLen *
+					(tileY - y);
+				if (planarConfig == 2) dest += (planeSize * (row / nrows));
+
+				// copying the tile directly will only work if there is no
+				// overlap;
+				// otherwise, we may be overwriting a previous tile
+				// (or the current tile may be overwritten by a subsequent
+				// tile)
+				if (rowLen == outputRowLen && overlapX == 0 && overlapY == 0) {
+					System.arraycopy(tileBuffer, src, buf, dest, copy * theight);
 				}
-				int theight = (int) Math.min(endY - tileY, tileLength - realY);
-				if (theight <= 0) {
-					theight = (int) Math.max(endY - tileY, tileLength - realY);
+				else {
+					for (int tileRow = 0; tileRow < theight; tileRow++) {
+						System.arraycopy(tileBuffer, src, buf, dest, copy);
+						src += rowLen;
+						dest += outputRowLen;
+					}
 				}
+			}
+		}
 
-				// copy appropriate portion of the tile to the output buffer
+		return adjustFillOrder(ifd, buf);
+	}
 
-				final int copy = pixel * twidth;
+	/**
+	 * Reads the still-compressed bytes of a tile or strip.
+	 *
+	 * @return The raw bytes, or {@code null} if the tile has no data.
+	 */
+	private byte[] readTileBytes(final IFD ifd, final int row, final int col)
+		throws FormatException, IOException
+	{
+		final long tileWidth = ifd.getTileWidth();
+		final long numTileCols = ifd.getTilesPerRow();
+		final int pixel = ifd.getBytesPerSample()[0];
 
-				realX *= pixel;
-				realY *= rowLen;
+		final long[] stripByteCounts = ifd.getStripByteCounts();
+		final long[] rowsPerStrip = ifd.getRowsPerStrip();
 
-				for (int q = 0; q < effectiveChannels; q++) {
-					int src = q * tileSize + realX + realY;
-					int dest = q * planeSize + pixel * (tileX - x) + outputRowLen *
-						(tileY - y);
-					if (planarConfig == 2) dest += (planeSize * (row / nrows));
+		final int offsetIndex = (int) (row * numTileCols + col);
+		int countIndex = offsetIndex;
+		if (equalStrips) {
+			countIndex = 0;
+		}
+		if (stripByteCounts[countIndex] == (rowsPerStrip[0] * tileWidth) &&
+			pixel > 1)
+		{
+			stripByteCounts[countIndex] *= pixel;
+		}
+
+		final long stripOffset;
+		if (ifd.getOnDemandStripOffsets() != null) {
+			stripOffset = ifd.getOnDemandStripOffsets().get(in, offsetIndex);
+		}
+		else {
+			stripOffset = ifd.getStripOffsets()[offsetIndex];
+		}
+
+		if (stripByteCounts[countIndex] == 0 || stripOffset >= in.length()) {
+			return null;
+		}
+		final byte[] tile = new byte[(int) stripByteCounts[countIndex]];
+
+		log.debug("Reading tile Length " + tile.length + " Offset " + stripOffset);
+		in.seek(stripOffset);
+		in.read(tile);
+		return tile;
+	}
+
+	/**
+	 * Decompresses, undifferences and unpacks a tile or strip into the given
+	 * buffer. This method does not touch the input stream, so it may be called
+	 * concurrently with distinct buffers and codec options.
+	 */
+	private byte[] decodeTile(final IFD ifd, byte[] tile, final byte[] buf,
+		final int row, final CodecOptions options) throws FormatException,
+		IOException
+	{
+		final byte[] jpegTable = (byte[]) ifd.getIFDValue(IFD.JPEG_TABLES);
+		final TiffCompression compression = ifd.getCompression();
+		final int pixel = ifd.getBytesPerSample()[0];
 
-					// copying the tile directly will only work if there is no
-					// overlap;
-					// otherwise, we may be overwriting a previous tile
-					// (or the current tile may be overwritten by a subsequent
-					// tile)
-					if (rowLen == outputRowLen && overlapX == 0 && overlapY == 0) {
-						System.arraycopy(cachedTileBuffer, src, buf, dest, copy * theight);
+		options.maxBytes = Math.max(getTileSize(ifd), tile.length);
+		options.ycbcr = ifd.getPhotometricInterpretation() == PhotoInterp.Y_CB_CR &&
+			ifd.getIFDIntValue(IFD.Y_CB_CR_SUB_SAMPLING) == 1 && ycbcrCorrection;
+
+		if (jpegTable != null) {
+			final byte[] q = new byte[jpegTable.length + tile.length - 4];
+			System.arraycopy(jpegTable, 0, q, 0, jpegTable.length - 2);
+			System.arraycopy(tile, 2, q, jpegTable.length - 2, tile.length - 2);
+			tile = compression.decompress(scifio.codec(), q, options);
+		}
+		else tile = compression.decompress(scifio.codec(), tile, options);
+		scifio.tiff().undifference(tile, ifd);
+		unpackBytes(buf, 0, tile, ifd);
+
+		if (ifd.getPlanarConfiguration() == 2 && !ifd.isTiled() && ifd
+			.getSamplesPerPixel() > 1)
+		{
+			final long nStrips = ifd.getOnDemandStripOffsets() != null ? ifd
+				.getOnDemandStripOffsets().size() : ifd.getStripOffsets().length;
+			final int channel = (int) (row % nStrips);
+			if (channel < ifd.getBytesPerSample().length) {
+				final int realBytes = ifd.getBytesPerSample()[channel];
+				if (realBytes != pixel) {
+					// re-pack pixels to account for differing bits per sample
+
+					final boolean littleEndian = ifd.isLittleEndian();
+					final int[] samples = new int[buf.length / pixel];
+					for (int i = 0; i < samples.length; i++) {
+						samples[i] = Bytes.toInt(buf, i * realBytes, realBytes,
+							littleEndian);
 					}
-					else {
-						for (int tileRow = 0; tileRow < theight; tileRow++) {
-							System.arraycopy(cachedTileBuffer, src, buf, dest, copy);
-							src += rowLen;
-							dest += outputRowLen;
-						}
+
+					for (int i = 0; i < samples.length; i++) {
+						Bytes.unpack(samples[i], buf, i * pixel, pixel, littleEndian);
 					}
 				}
 			}
 		}
 
-		return adjustFillOrder(ifd, buf);
+		return buf;
+	}
+
+	/** Size in bytes of one decoded tile or strip. */
+	private int getTileSize(final IFD ifd) throws FormatException {
+		final int effectiveChannels = ifd.getPlanarConfiguration() == 2 ? 1 : ifd
+			.getSamplesPerPixel();
+		return (int) (ifd.getTileWidth() * ifd.getTileLength() * ifd
+			.getBytesPerSample()[0] * effectiveChannels);
+	}
+
+	/**
+	 * Decodes the given tiles on several threads, if their compression scheme is
+	 * expensive enough to benefit from it. Compressed bytes are read serially,
+	 * since the input stream is shared.
+	 *
+	 * @param tiles The {row, column} of each tile to decode.
+	 * @return The decoded tiles, in the order given, or {@code null} if the tiles
+	 *         should be decoded one at a time with {@link #getTile}.
+	 */
+	private byte[][] decodeTilesConcurrently(final IFD ifd,
+		final List<int[]> tiles) throws FormatException, IOException
+	{
+		final TiffCompression compression = ifd.getCompression();
+		final int threads = Math.min(tiles.size(), Runtime.getRuntime()
+			.availableProcessors());
+		if (threads < 2 || !isJPEG2000(compression)) return null;
+
+		final byte[][] raw = new byte[tiles.size()][];
+		for (int t = 0; t < raw.length; t++) {
+			raw[t] = readTileBytes(ifd, tiles.get(t)[0], tiles.get(t)[1]);
+		}
+
+		final int tileSize = getTileSize(ifd);
+		final byte[][] decoded = new byte[raw.length][];
+		final List<Future<?>> futures = new ArrayList<>();
+		for (int thread = 0; thread < threads; thread++) {
+			final int first = thread;
+			final CodecOptions options = new JPEG2000CodecOptions(codecOptions);
+			options.interleaved = true;
+			options.littleEndian = ifd.isLittleEndian();
+			futures.add(scifio.thread().run(() -> {
+				for (int t = first; t < raw.length; t += threads) {
+					decoded[t] = new byte[tileSize];
+					if (raw[t] != null) {
+						decodeTile(ifd, raw[t], decoded[t], tiles.get(t)[0], options);
+					}
+				}
+				return null;
+			}));
+		}
+		for (final Future<?> future : futures) {
+			try {
+				future.get();
+			}
+			catch (final InterruptedException e) {
+				throw new IOException(e);
+			}
+			catch (final ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof FormatException) throw (FormatException) cause;
+				if (cause instanceof IOException) throw (IOException) cause;
+				throw new FormatException(cause);
+			}
+		}
+		return decoded;
+	}
+
+	private static boolean isJPEG2000(final TiffCompression compression) {
+		return compression == TiffCompression.JPEG_2000 ||
+			compression == TiffCompression.JPEG_2000_LOSSY ||
+			compression == TiffCompression.ALT_JPEG2000 ||
+			compression == TiffCompression.OLYMPUS_JPEG2000;
 	}
 
 	public TiffIFDEntry readTiffIFDEntry() throws IOException {
@@ -0,0 +1,352 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.formats.tiff;
+
+import io.scif.enumeration.CodedEnum;
+import io.scif.enumeration.EnumException;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Utility class for working with TIFF predictors. A predictor is applied to
+ * each strip or tile before compression, and reversed after decompression.
+ * <p>
+ * The implementations work in place on whole rows of samples, with loops
+ * specialized by the number of bytes per sample so that the JIT can keep them
+ * tight.
+ * </p>
+ */
+public enum TiffPredictor implements CodedEnum {
+
+		/** No prediction scheme used before coding. */
+		NONE(1, "None"),
+
+		/** Horizontal differencing of integer samples. */
+		HORIZONTAL(2, "Horizontal differencing")
+		{
+
+			@Override
+			public void difference(final byte[] input, final int width,
+				final int samplesPerPixel, final int bytesPerSample,
+				final boolean littleEndian)
+			{
+				final int stride = samplesPerPixel * bytesPerSample;
+				final int rowLen = width * stride;
+				final int length = input.length - input.length % bytesPerSample;
+				for (int row = 0; row < length; row += rowLen) {
+					final int end = Math.min(row + rowLen, length);
+					differenceRow(input, row, end, stride, bytesPerSample, littleEndian);
+				}
+			}
+
+			@Override
+			public void undifference(final byte[] input, final int width,
+				final int samplesPerPixel, final int bytesPerSample,
+				final boolean littleEndian)
+			{
+				final int stride = samplesPerPixel * bytesPerSample;
+				final int rowLen = width * stride;
+				final int length = input.length - input.length % bytesPerSample;
+				for (int row = 0; row < length; row += rowLen) {
+					final int end = Math.min(row + rowLen, length);
+					undifferenceRow(input, row, end, stride, bytesPerSample,
+						littleEndian);
+				}
+			}
+		},
+
+		/**
+		 * Floating point prediction, as described in Adobe Photoshop TIFF Technical
+		 * Note 3: the bytes of each row are regrouped by significance and then
+		 * differenced byte-wise.
+		 */
+		FLOATING_POINT(3, "Floating point")
+		{
+
+			@Override
+			public void difference(final byte[] input, final int width,
+				final int samplesPerPixel, final int bytesPerSample,
+				final boolean littleEndian)
+			{
+				final int count = width * samplesPerPixel;
+				final int rowLen = count * bytesPerSample;
+				final byte[] tmp = new byte[rowLen];
+				for (int row = 0; row + rowLen <= input.length; row += rowLen) {
+					// regroup bytes, most significant first
+					for (int k = 0; k < bytesPerSample; k++) {
+						final int src = row + (littleEndian ? bytesPerSample - 1 - k : k);
+						final int dest = k * count;
+						for (int i = 0; i < count; i++) {
+							tmp[dest + i] = input[src + i * bytesPerSample];
+						}
+					}
+					System.arraycopy(tmp, 0, input, row, rowLen);
+					for (int i = row + rowLen - 1; i >= row + samplesPerPixel; i--) {
+						input[i] -= input[i - samplesPerPixel];
+					}
+				}
+			}
+
+			@Override
+			public void undifference(final byte[] input, final int width,
+				final int samplesPerPixel, final int bytesPerSample,
+				final boolean littleEndian)
+			{
+				final int count = width * samplesPerPixel;
+				final int rowLen = count * bytesPerSample;
+				final byte[] tmp = new byte[rowLen];
+				for (int row = 0; row + rowLen <= input.length; row += rowLen) {
+					final int end = row + rowLen;
+					for (int i = row + samplesPerPixel; i < end; i++) {
+						input[i] += input[i - samplesPerPixel];
+					}
+					// restore sample byte order
+					for (int k = 0; k < bytesPerSample; k++) {
+						final int src = row + k * count;
+						final int dest = littleEndian ? bytesPerSample - 1 - k : k;
+						for (int i = 0; i < count; i++) {
+							tmp[dest + i * bytesPerSample] = input[src + i];
+						}
+					}
+					System.arraycopy(tmp, 0, input, row, rowLen);
+				}
+			}
+		};
+
+	/** Code for the predictor in the actual TIFF file. */
+	private int code;
+
+	/** Name of the predictor. */
+	private String name;
+
+	private static final Map<Integer, TiffPredictor> lookup = new HashMap<>();
+
+	/** Reverse lookup of code to predictor enumerate value. */
+	static {
+		for (final TiffPredictor v : EnumSet.allOf(TiffPredictor.class)) {
+			lookup.put(v.getCode(), v);
+		}
+	}
+
+	// -- Constructor --
+
+	/**
+	 * Default constructor.
+	 *
+	 * @param code Integer "code" for the predictor.
+	 * @param name Given name of the predictor.
+	 */
+	private TiffPredictor(final int code, final String name) {
+		this.code = code;
+		this.name = name;
+	}
+
+	// -- TiffPredictor methods --
+
+	/**
+	 * Retrieves a predictor by reverse lookup of its "code".
+	 *
+	 * @param code The code to look up.
+	 * @return The {@code TiffPredictor} instance for the {@code code}.
+	 * @throws EnumException If no predictor exists for the {@code code}.
+	 */
+	public static TiffPredictor get(final int code) {
+		final TiffPredictor toReturn = lookup.get(code);
+		if (toReturn == null) {
+			throw new EnumException("Unable to find TiffPredictor with code: " +
+				code);
+		}
+		return toReturn;
+	}
+
+	@Override
+	public int getCode() {
+		return code;
+	}
+
+	/**
+	 * Retrieves the given name of the predictor.
+	 *
+	 * @return See above.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Applies this predictor in place to a buffer of decoded rows.
+	 *
+	 * @param input Rows of samples, each {@code width} pixels wide.
+	 * @param width Width of a row in pixels (the tile width for tiled images).
+	 * @param samplesPerPixel Number of interleaved samples per pixel.
+	 * @param bytesPerSample Number of bytes per sample.
+	 * @param littleEndian Byte order of the samples.
+	 */
+	public void difference(final byte[] input, final int width,
+		final int samplesPerPixel, final int bytesPerSample,
+		final boolean littleEndian)
+	{
+		// no-op
+	}
+
+	/**
+	 * Reverses this predictor in place on a buffer of rows. Parameters are as for
+	 * {@link #difference(byte[], int, int, int, boolean)}.
+	 */
+	public void undifference(final byte[] input, final int width,
+		final int samplesPerPixel, final int bytesPerSample,
+		final boolean littleEndian)
+	{
+		// no-op
+	}
+
+	// -- Helper methods --
+
+	/** Subtracts each sample from its predecessor, walking backwards. */
+	private static void differenceRow(final byte[] b, final int start,
+		final int end, final int stride, final int bytes, final boolean little)
+	{
+		final int first = start + stride;
+		if (bytes == 1) {
+			for (int i = end - 1; i >= first; i--) {
+				b[i] -= b[i - stride];
+			}
+		}
+		else if (bytes == 2) {
+			final int lo = little ? 0 : 1, hi = 1 - lo;
+			for (int i = end - 2; i >= first; i -= 2) {
+				final int j = i - stride;
+				final int v = ((b[i + hi] & 0xff) << 8 | (b[i + lo] & 0xff)) -
+					((b[j + hi] & 0xff) << 8 | (b[j + lo] & 0xff));
+				b[i + lo] = (byte) v;
+				b[i + hi] = (byte) (v >> 8);
+			}
+		}
+		else if (bytes == 4) {
+			for (int i = end - 4; i >= first; i -= 4) {
+				final int v = getInt(b, i, little) - getInt(b, i - stride, little);
+				putInt(b, i, v, little);
+			}
+		}
+		else {
+			for (int i = end - bytes; i >= first; i -= bytes) {
+				subtract(b, i, i - stride, bytes, little);
+			}
+		}
+	}
+
+	/** Adds each sample to its (already restored) predecessor. */
+	private static void undifferenceRow(final byte[] b, final int start,
+		final int end, final int stride, final int bytes, final boolean little)
+	{
+		final int first = start + stride;
+		if (bytes == 1) {
+			for (int i = first; i < end; i++) {
+				b[i] += b[i - stride];
+			}
+		}
+		else if (bytes == 2) {
+			final int lo = little ? 0 : 1, hi = 1 - lo;
+			for (int i = first; i <= end - 2; i += 2) {
+				final int j = i - stride;
+				final int v = ((b[i + hi] & 0xff) << 8 | (b[i + lo] & 0xff)) +
+					((b[j + hi] & 0xff) << 8 | (b[j + lo] & 0xff));
+				b[i + lo] = (byte) v;
+				b[i + hi] = (byte) (v >> 8);
+			}
+		}
+		else if (bytes == 4) {
+			for (int i = first; i <= end - 4; i += 4) {
+				final int v = getInt(b, i, little) + getInt(b, i - stride, little);
+				putInt(b, i, v, little);
+			}
+		}
+		else {
+			for (int i = first; i <= end - bytes; i += bytes) {
+				add(b, i, i - stride, bytes, little);
+			}
+		}
+	}
+
+	private static int getInt(final byte[] b, final int i, final boolean little) {
+		if (little) {
+			return (b[i] & 0xff) | (b[i + 1] & 0xff) << 8 | (b[i + 2] & 0xff) << 16 |
+				b[i + 3] << 24;
+		}
+		return b[i] << 24 | (b[i + 1] & 0xff) << 16 | (b[i + 2] & 0xff) << 8 |
+			(b[i + 3] & 0xff);
+	}
+
+	private static void putInt(final byte[] b, final int i, final int v,
+		final boolean little)
+	{
+		if (little) {
+			b[i] = (byte) v;
+			b[i + 1] = (byte) (v >> 8);
+			b[i + 2] = (byte) (v >> 16);
+			b[i + 3] = (byte) (v >> 24);
+		}
+		else {
+			b[i] = (byte) (v >> 24);
+			b[i + 1] = (byte) (v >> 16);
+			b[i + 2] = (byte) (v >> 8);
+			b[i + 3] = (byte) v;
+		}
+	}
+
+	/** Adds the sample at {@code src} to the sample at {@code dest}. */
+	private static void add(final byte[] b, final int dest, final int src,
+		final int bytes, final boolean little)
+	{
+		int carry = 0;
+		for (int k = 0; k < bytes; k++) {
+			final int n = little ? k : bytes - 1 - k;
+			final int sum = (b[dest + n] & 0xff) + (b[src + n] & 0xff) + carry;
+			b[dest + n] = (byte) sum;
+			carry = sum >> 8;
+		}
+	}
+
+	/** Subtracts the sample at {@code src} from the sample at {@code dest}. */
+	private static void subtract(final byte[] b, final int dest, final int src,
+		final int bytes, final boolean little)
+	{
+		int borrow = 0;
+		for (int k = 0; k < bytes; k++) {
+			final int n = little ? k : bytes - 1 - k;
+			final int diff = (b[dest + n] & 0xff) - (b[src + n] & 0xff) - borrow;
+			b[dest + n] = (byte) diff;
+			borrow = diff < 0 ? 1 : 0;
+		}
+	}
+
+}
@@ -0,0 +1,548 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.formats.tiff;
+
+import io.scif.FormatException;
+import io.scif.SCIFIO;
+import io.scif.codec.CodecOptions;
+import io.scif.util.FormatTools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.scijava.io.handle.DataHandle;
+import org.scijava.io.location.Location;
+
+/**
+ * Writes planes as tiled, pyramidal TIFF images. Each plane is stored in a
+ * top-level IFD holding the full resolution image, whose SubIFDs hold
+ * successively halved resolution levels.
+ * <p>
+ * The rows of each plane must be supplied in order, from top to bottom, and
+ * span the full width of the image. Reduced levels are computed on the fly by
+ * averaging 2x2 blocks of the level above, so at most one row of tiles per
+ * level is held in memory at any time. All tiles completed by the same row of
+ * full resolution tiles are compressed in parallel.
+ * </p>
+ * <p>
+ * Samples are always written interleaved (PlanarConfiguration 1), and both
+ * classic TIFF and BigTIFF files are supported, following the
+ * {@link TiffSaver} this saver is created with.
+ * </p>
+ */
+public class TiffPyramidSaver {
+
+	// -- Constants --
+
+	/** Default width and height of the written tiles. */
+	public static final int DEFAULT_TILE_SIZE = 256;
+
+	// -- Fields --
+
+	private final TiffSaver saver;
+
+	private final DataHandle<Location> out;
+
+	private final SCIFIO scifio;
+
+	/** The codec options, or {@code null} for the defaults. */
+	private final CodecOptions options;
+
+	/** Width and height of the written tiles. */
+	private final int tileSize;
+
+	/** Number of reduced resolution levels, or -1 to choose automatically. */
+	private final int levelCount;
+
+	/** Position of the offset pointing to the next top-level IFD. */
+	private long nextIFDPointer = -1;
+
+	/** The top-level IFD of the plane being written. */
+	private IFD ifd;
+
+	private TiffCompression compression;
+
+	private int pixelType, bytesPerPixel, channels;
+
+	private ByteOrder order;
+
+	/** The resolution levels of the plane being written, largest first. */
+	private Level[] levels;
+
+	/** Number of full resolution rows written so far. */
+	private int rowsWritten;
+
+	// -- Constructors --
+
+	/**
+	 * Constructs a new pyramid saver with the default tile size.
+	 *
+	 * @param saver The saver whose output stream, byte order and BigTIFF flag
+	 *          are used. Its header must already have been written.
+	 * @param options The codec options to compress tiles with, or {@code null}.
+	 * @param levels The number of reduced resolution levels to write below the
+	 *          full resolution, or -1 to keep halving the image until it fits
+	 *          into a single tile.
+	 */
+	public TiffPyramidSaver(final TiffSaver saver, final CodecOptions options,
+		final int levels)
+	{
+		this(saver, options, levels, DEFAULT_TILE_SIZE);
+	}
+
+	/**
+	 * Constructs a new pyramid saver.
+	 *
+	 * @param saver The saver whose output stream, byte order and BigTIFF flag
+	 *          are used. Its header must already have been written.
+	 * @param options The codec options to compress tiles with, or {@code null}.
+	 * @param levels The number of reduced resolution levels to write below the
+	 *          full resolution, or -1 to keep halving the image until it fits
+	 *          into a single tile.
+	 * @param tileSize The width and height of the tiles; a multiple of 16.
+	 */
+	public TiffPyramidSaver(final TiffSaver saver, final CodecOptions options,
+		final int levels, final int tileSize)
+	{
+		if (tileSize <= 0 || tileSize % 16 != 0) {
+			throw new IllegalArgumentException("Invalid tile size: " + tileSize);
+		}
+		this.saver = saver;
+		this.out = saver.getStream();
+		this.scifio = new SCIFIO(saver.getContext());
+		this.options = options;
+		this.levelCount = levels;
+		this.tileSize = tileSize;
+	}
+
+	// -- TiffPyramidSaver methods --
+
+	/**
+	 * Starts writing a new plane.
+	 *
+	 * @param planeIFD The IFD of the full resolution image. Every reduced level
+	 *          gets a copy of it, without the image description.
+	 * @param type The pixel type, as defined in {@link FormatTools}.
+	 * @param width The width of the full resolution image.
+	 * @param height The height of the full resolution image.
+	 * @param nChannels The number of interleaved channels.
+	 */
+	public void startPlane(final IFD planeIFD, final int type, final int width,
+		final int height, final int nChannels) throws FormatException,
+		IOException
+	{
+		if (levels != null) {
+			throw new FormatException("The previous plane was not finished: " +
+				rowsWritten + " of " + levels[0].height + " rows were written");
+		}
+		switch (type) {
+			case FormatTools.INT8:
+			case FormatTools.UINT8:
+			case FormatTools.INT16:
+			case FormatTools.UINT16:
+			case FormatTools.INT32:
+			case FormatTools.UINT32:
+			case FormatTools.FLOAT:
+			case FormatTools.DOUBLE:
+				break;
+			default:
+				throw new FormatException("Unsupported pixel type for pyramidal " +
+					"TIFF: " + FormatTools.getPixelTypeString(type));
+		}
+		// NB: Must happen before any tiles are appended to the file.
+		if (nextIFDPointer < 0) nextIFDPointer = saver.findNextIFDPointer();
+
+		ifd = planeIFD;
+		pixelType = type;
+		bytesPerPixel = FormatTools.getBytesPerPixel(type);
+		channels = nChannels;
+		order = saver.isLittleEndian() ? ByteOrder.LITTLE_ENDIAN
+			: ByteOrder.BIG_ENDIAN;
+
+		saver.makeValidIFD(ifd, type, nChannels);
+		ifd.remove(IFD.ROWS_PER_STRIP);
+		ifd.remove(IFD.STRIP_OFFSETS);
+		ifd.remove(IFD.STRIP_BYTE_COUNTS);
+		ifd.putIFDValue(IFD.PLANAR_CONFIGURATION, 1);
+		ifd.putIFDValue(IFD.IMAGE_WIDTH, (long) width);
+		ifd.putIFDValue(IFD.IMAGE_LENGTH, (long) height);
+		ifd.putIFDValue(IFD.TILE_WIDTH, (long) tileSize);
+		ifd.putIFDValue(IFD.TILE_LENGTH, (long) tileSize);
+		compression = ifd.getCompression();
+
+		int count = levelCount;
+		if (count < 0) {
+			count = 0;
+			for (long w = width, h = height; w > tileSize || h > tileSize; count++) {
+				w = (w + 1) / 2;
+				h = (h + 1) / 2;
+			}
+		}
+		levels = new Level[count + 1];
+		int w = width, h = height;
+		for (int l = 0; l < levels.length; l++) {
+			levels[l] = new Level(w, h);
+			if (l > 0) levels[l - 1].next = levels[l];
+			w = (w + 1) / 2;
+			h = (h + 1) / 2;
+		}
+		rowsWritten = 0;
+	}
+
+	/**
+	 * Writes the next rows of the current plane.
+	 *
+	 * @param buf The samples of the rows, spanning the full image width.
+	 * @param y The index of the first row, which must directly follow the rows
+	 *          written before.
+	 * @param h The number of rows.
+	 * @param interleaved Whether the channels in {@code buf} are interleaved
+	 *          rather than stored one after the other.
+	 */
+	public void writeRows(final byte[] buf, final int y, final int h,
+		final boolean interleaved) throws FormatException, IOException
+	{
+		if (levels == null) {
+			throw new FormatException("No plane has been started");
+		}
+		if (y != rowsWritten || y + h > levels[0].height) {
+			throw new FormatException("Pyramidal TIFF rows must be written in " +
+				"order: expected row " + rowsWritten + " but got rows " + y + "-" +
+				(y + h - 1));
+		}
+		final Level full = levels[0];
+		final byte[] rows = interleaved || channels == 1 ? buf : interleave(buf,
+			full.width, h);
+		final List<Tile> tiles = new ArrayList<>();
+		for (int row = 0; row < h; row++) {
+			addRow(full, rows, row * full.rowBytes, tiles);
+			if (full.bufferedRows == 0) {
+				writeTiles(tiles);
+				tiles.clear();
+			}
+		}
+		rowsWritten += h;
+	}
+
+	/**
+	 * Finishes the current plane, by writing the IFDs of all its resolution
+	 * levels and linking them into the file.
+	 */
+	public void finishPlane() throws FormatException, IOException {
+		if (levels == null || rowsWritten < levels[0].height) {
+			throw new FormatException("Cannot finish an incomplete plane");
+		}
+		final long[] subIFDs = new long[levels.length - 1];
+		for (int l = 1; l < levels.length; l++) {
+			final IFD sub = new IFD(ifd, scifio.log());
+			sub.remove(IFD.IMAGE_DESCRIPTION);
+			sub.remove(IFD.LITTLE_ENDIAN);
+			sub.remove(IFD.REUSE);
+			sub.putIFDValue(IFD.NEW_SUBFILE_TYPE, 1L);
+			putLevel(sub, levels[l]);
+			subIFDs[l - 1] = out.length();
+			out.seek(subIFDs[l - 1]);
+			saver.writeIFD(sub, 0);
+		}
+
+		putLevel(ifd, levels[0]);
+		if (subIFDs.length > 0) ifd.putIFDValue(IFD.SUB_IFD, subIFDs);
+		final long offset = out.length();
+		out.seek(offset);
+		saver.writeIFD(ifd, 0);
+
+		// link the new IFD to the previous one, or to the header
+		saver.writeIFDOffset(nextIFDPointer, offset);
+		nextIFDPointer = saver.getNextIFDPointer(ifd, offset);
+
+		levels = null;
+		ifd = null;
+	}
+
+	// -- Helper methods --
+
+	/** Appends one row to the given level, cascading to the levels below. */
+	private void addRow(final Level level, final byte[] src, final int offset,
+		final List<Tile> tiles)
+	{
+		final int row = level.rowsDone + level.bufferedRows;
+		System.arraycopy(src, offset, level.rows, level.bufferedRows *
+			level.rowBytes, level.rowBytes);
+		level.bufferedRows++;
+		final boolean last = row == level.height - 1;
+
+		final Level next = level.next;
+		if (next != null) {
+			if (row % 2 == 0) {
+				System.arraycopy(src, offset, level.pending, 0, level.rowBytes);
+				if (last) {
+					downsample(level, level.pending, src, offset);
+					addRow(next, level.reduced, 0, tiles);
+				}
+			}
+			else {
+				downsample(level, level.pending, src, offset);
+				addRow(next, level.reduced, 0, tiles);
+			}
+		}
+
+		if (level.bufferedRows == tileSize || last) {
+			cutTiles(level, tiles);
+			level.rowsDone += level.bufferedRows;
+			level.bufferedRows = 0;
+		}
+	}
+
+	/**
+	 * Averages two rows of the given level into one row of the next level,
+	 * stored in {@link Level#reduced}.
+	 */
+	private void downsample(final Level level, final byte[] a, final byte[] b,
+		final int bOffset)
+	{
+		final ByteBuffer top = ByteBuffer.wrap(a).order(order);
+		final ByteBuffer bottom = ByteBuffer.wrap(b).order(order);
+		final ByteBuffer dest = ByteBuffer.wrap(level.reduced).order(order);
+		final int pixelBytes = channels * bytesPerPixel;
+		for (int x = 0; x < level.next.width; x++) {
+			final int x0 = 2 * x * pixelBytes;
+			final int x1 = Math.min(2 * x + 1, level.width - 1) * pixelBytes;
+			for (int c = 0; c < channels; c++) {
+				final int s = c * bytesPerPixel;
+				final double sum = get(top, x0 + s) + get(top, x1 + s) + //
+					get(bottom, bOffset + x0 + s) + get(bottom, bOffset + x1 + s);
+				put(dest, x * pixelBytes + s, sum / 4);
+			}
+		}
+	}
+
+	private double get(final ByteBuffer buf, final int index) {
+		switch (pixelType) {
+			case FormatTools.INT8:
+				return buf.get(index);
+			case FormatTools.UINT8:
+				return buf.get(index) & 0xff;
+			case FormatTools.INT16:
+				return buf.getShort(index);
+			case FormatTools.UINT16:
+				return buf.getShort(index) & 0xffff;
+			case FormatTools.INT32:
+				return buf.getInt(index);
+			case FormatTools.UINT32:
+				return buf.getInt(index) & 0xffffffffL;
+			case FormatTools.FLOAT:
+				return buf.getFloat(index);
+			default:
+				return buf.getDouble(index);
+		}
+	}
+
+	private void put(final ByteBuffer buf, final int index, final double value) {
+		switch (pixelType) {
+			case FormatTools.INT8:
+			case FormatTools.UINT8:
+				buf.put(index, (byte) Math.round(value));
+				break;
+			case FormatTools.INT16:
+			case FormatTools.UINT16:
+				buf.putShort(index, (short) Math.round(value));
+				break;
+			case FormatTools.INT32:
+			case FormatTools.UINT32:
+				buf.putInt(index, (int) Math.round(value));
+				break;
+			case FormatTools.FLOAT:
+				buf.putFloat(index, (float) value);
+				break;
+			default:
+				buf.putDouble(index, value);
+		}
+	}
+
+	/** Splits the buffered rows of the given level into zero-padded tiles. */
+	private void cutTiles(final Level level, final List<Tile> tiles) {
+		final int pixelBytes = channels * bytesPerPixel;
+		final int tileRowBytes = tileSize * pixelBytes;
+		final int tileRow = level.rowsDone / tileSize;
+		for (int col = 0; col < level.tilesPerRow; col++) {
+			final byte[] tile = new byte[tileSize * tileRowBytes];
+			final int x = col * tileSize;
+			final int len = Math.min(tileSize, level.width - x) * pixelBytes;
+			for (int r = 0; r < level.bufferedRows; r++) {
+				System.arraycopy(level.rows, r * level.rowBytes + x * pixelBytes, tile,
+					r * tileRowBytes, len);
+			}
+			tiles.add(new Tile(level, tileRow * level.tilesPerRow + col, tile));
+		}
+	}
+
+	/**
+	 * Compresses the given tiles, on several threads if there are enough of
+	 * them, and appends them to the file.
+	 */
+	private void writeTiles(final List<Tile> tiles) throws FormatException,
+		IOException
+	{
+		final int threads = Math.min(tiles.size(), Runtime.getRuntime()
+			.availableProcessors());
+		if (threads < 2) {
+			for (final Tile tile : tiles) {
+				compress(tile);
+			}
+		}
+		else {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < threads; thread++) {
+				final int first = thread;
+				futures.add(scifio.thread().run(() -> {
+					for (int t = first; t < tiles.size(); t += threads) {
+						compress(tiles.get(t));
+					}
+					return null;
+				}));
+			}
+			for (final Future<?> future : futures) {
+				try {
+					future.get();
+				}
+				catch (final InterruptedException e) {
+					throw new IOException(e);
+				}
+				catch (final ExecutionException e) {
+					final Throwable cause = e.getCause();
+					if (cause instanceof FormatException) throw (FormatException) cause;
+					if (cause instanceof IOException) throw (IOException) cause;
+					throw new FormatException(cause);
+				}
+			}
+		}
+
+		out.seek(out.length());
+		for (final Tile tile : tiles) {
+			tile.level.offsets[tile.index] = out.offset();
+			tile.level.byteCounts[tile.index] = tile.data.length;
+			out.write(tile.data);
+		}
+	}
+
+	private void compress(final Tile tile) throws FormatException {
+		scifio.tiff().difference(tile.data, ifd);
+		final CodecOptions codecOptions = compression.getCompressionCodecOptions(
+			ifd, options);
+		codecOptions.width = tileSize;
+		codecOptions.height = tileSize;
+		codecOptions.channels = channels;
+		tile.data = compression.compress(scifio.codec(), tile.data, codecOptions);
+	}
+
+	private void putLevel(final IFD levelIFD, final Level level) {
+		levelIFD.putIFDValue(IFD.IMAGE_WIDTH, (long) level.width);
+		levelIFD.putIFDValue(IFD.IMAGE_LENGTH, (long) level.height);
+		levelIFD.putIFDValue(IFD.TILE_OFFSETS, level.offsets);
+		levelIFD.putIFDValue(IFD.TILE_BYTE_COUNTS, level.byteCounts);
+	}
+
+	/** Converts planar samples to interleaved ones. */
+	private byte[] interleave(final byte[] buf, final int width,
+		final int height)
+	{
+		final int pixels = width * height;
+		final byte[] interleaved = new byte[pixels * channels * bytesPerPixel];
+		for (int c = 0; c < channels; c++) {
+			for (int i = 0; i < pixels; i++) {
+				System.arraycopy(buf, (c * pixels + i) * bytesPerPixel, interleaved,
+					(i * channels + c) * bytesPerPixel, bytesPerPixel);
+			}
+		}
+		return interleaved;
+	}
+
+	// -- Helper classes --
+
+	/** The state of one resolution level of the plane being written. */
+	private final class Level {
+
+		private final int width, height, rowBytes, tilesPerRow;
+
+		/** Offsets and byte counts of the tiles written so far. */
+		private final long[] offsets, byteCounts;
+
+		/** The rows of the current row of tiles. */
+		private final byte[] rows;
+
+		/** An even row, waiting for its odd neighbor to be reduced. */
+		private final byte[] pending;
+
+		/** A row of the next level, as reduced from two rows of this one. */
+		private final byte[] reduced;
+
+		private Level next;
+
+		/** Number of rows already cut into tiles. */
+		private int rowsDone;
+
+		/** Number of rows in {@link #rows}. */
+		private int bufferedRows;
+
+		private Level(final int width, final int height) {
+			this.width = width;
+			this.height = height;
+			rowBytes = width * channels * bytesPerPixel;
+			tilesPerRow = (width + tileSize - 1) / tileSize;
+			final int tiles = tilesPerRow * ((height + tileSize - 1) / tileSize);
+			offsets = new long[tiles];
+			byteCounts = new long[tiles];
+			rows = new byte[tileSize * rowBytes];
+			pending = new byte[rowBytes];
+			reduced = new byte[((width + 1) / 2) * channels * bytesPerPixel];
+		}
+	}
+
+	/** A tile, compressed in place before it is written. */
+	private static final class Tile {
+
+		private final Level level;
+
+		private final int index;
+
+		private byte[] data;
+
+		private Tile(final Level level, final int index, final byte[] data) {
+			this.level = level;
+			this.index = index;
+			this.data = data;
+		}
+	}
+}
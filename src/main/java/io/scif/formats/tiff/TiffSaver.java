@@ -40,7 +40,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.scijava.AbstractContextual;
@@ -81,6 +83,15 @@ public class TiffSaver extends AbstractContextual {
 
 	private boolean sequentialWrite = false;
 
+	/**
+	 * IFDs of the planes written so far, by image and plane index, when IFDs are
+	 * packed into a single directory region; {@code null} otherwise.
+	 */
+	private Map<Integer, Map<Long, IFD>> packedIFDs;
+
+	/** Position of the offset that should point to the next IFD, once known. */
+	private long nextIFDPointer = -1;
+
 	/** The codec options if set. */
 	private CodecOptions options;
 
@@ -171,6 +182,40 @@ public class TiffSaver extends AbstractContextual {
 		sequentialWrite = sequential;
 	}
 
+	/**
+	 * Sets whether IFDs are packed into a single directory region. When set, the
+	 * IFDs of the written planes are kept in memory, with their strip offset
+	 * tables, instead of being written, and patched, after each plane. They are
+	 * then written back to back by {@link #writePackedIFDs()}, which must be
+	 * called once all planes have been written: until then, the file has no
+	 * directory for them.
+	 */
+	public void setPackingIFDs(final boolean pack) {
+		packedIFDs = pack ? new TreeMap<>() : null;
+	}
+
+	/**
+	 * Writes the IFDs held back since packing was enabled, or since this method
+	 * was last called, to the end of the file, in plane order. Each is linked to
+	 * the last IFD already in the file.
+	 */
+	public void writePackedIFDs() throws FormatException, IOException {
+		synchronized (this) {
+			if (packedIFDs == null || packedIFDs.isEmpty()) return;
+			if (nextIFDPointer < 0) nextIFDPointer = findNextIFDPointer();
+			for (final Map<Long, IFD> ifds : packedIFDs.values()) {
+				for (final IFD ifd : ifds.values()) {
+					final long offset = out.length();
+					writeIFDOffset(nextIFDPointer, offset);
+					out.seek(offset);
+					writeIFD(ifd, 0);
+					nextIFDPointer = getNextIFDPointer(ifd, offset);
+				}
+			}
+			packedIFDs.clear();
+		}
+	}
+
 	/** Gets the stream from which TIFF data is being saved. */
 	public DataHandle<Location> getStream() {
 		return out;
@@ -295,8 +340,23 @@ public class TiffSaver extends AbstractContextual {
 
 	public void writeImage(final byte[] buf, final IFD ifd, final long planeIndex,
 		final int pixelType, final int x, final int y, final int w, final int h,
-		final boolean last, Integer nChannels, final boolean copyDirectly)
+		final boolean last, final Integer nChannels, final boolean copyDirectly)
 		throws FormatException, IOException
+	{
+		writeImage(buf, ifd, 0, planeIndex, pixelType, x, y, w, h, last,
+			nChannels, copyDirectly);
+	}
+
+	/**
+	 * Writes to any rectangle of a plane of the given image. The image index
+	 * only tells apart the planes of different images when packing IFDs.
+	 *
+	 * @see #setPackingIFDs(boolean)
+	 */
+	public void writeImage(final byte[] buf, final IFD ifd, final int imageIndex,
+		final long planeIndex, final int pixelType, final int x, final int y,
+		final int w, final int h, final boolean last, Integer nChannels,
+		final boolean copyDirectly) throws FormatException, IOException
 	{
 		log.debug("Attempting to write image.");
 		// b/c method is public should check parameters again
@@ -413,7 +473,8 @@ public class TiffSaver extends AbstractContextual {
 
 		// This operation is synchronized
 		synchronized (this) {
-			writeImageIFD(ifd, planeIndex, strips, nChannels, last, x, y);
+			writeImageIFD(ifd, imageIndex, planeIndex, strips, nChannels, last, x,
+				y);
 		}
 	}
 
@@ -422,6 +483,7 @@ public class TiffSaver extends AbstractContextual {
 	 * TIFF for a given image or sub-image.
 	 *
 	 * @param ifd The Image File Directories. Mustn't be {@code null}.
+	 * @param imageIndex The index of the image the plane belongs to.
 	 * @param planeIndex The image index within the current file, starting from 0.
 	 * @param strips The strips to write to the file.
 	 * @param last Pass {@code true} if it is the last image, {@code false}
@@ -431,9 +493,10 @@ public class TiffSaver extends AbstractContextual {
 	 * @throws FormatException
 	 * @throws IOException
 	 */
-	private void writeImageIFD(IFD ifd, final long planeIndex,
-		final byte[][] strips, final int nChannels, final boolean last, final int x,
-		final int y) throws FormatException, IOException
+	private void writeImageIFD(IFD ifd, final int imageIndex,
+		final long planeIndex, final byte[][] strips, final int nChannels,
+		final boolean last, final int x, final int y) throws FormatException,
+		IOException
 	{
 		log.debug("Attempting to write image IFD.");
 		final int tilesPerRow = (int) ifd.getTilesPerRow();
@@ -441,7 +504,15 @@ public class TiffSaver extends AbstractContextual {
 		final boolean interleaved = ifd.getPlanarConfiguration() == 1;
 		final boolean isTiled = ifd.isTiled();
 
-		if (!sequentialWrite) {
+		if (packedIFDs != null) {
+			if (nextIFDPointer < 0) nextIFDPointer = findNextIFDPointer();
+			final Map<Long, IFD> ifds = packedIFDs.computeIfAbsent(imageIndex,
+				k -> new TreeMap<>());
+			final IFD packed = ifds.get(planeIndex);
+			if (packed != null) ifd = packed;
+			else ifds.put(planeIndex, ifd);
+		}
+		else if (!sequentialWrite) {
 			DataHandle<Location> in = null;
 			if (loc != null) {
 				in = dataHandleService.create(loc);
@@ -525,7 +596,7 @@ public class TiffSaver extends AbstractContextual {
 		}
 
 		final long fp = out.offset();
-		writeIFD(ifd, 0);
+		if (packedIFDs == null) writeIFD(ifd, 0);
 
 		for (int i = 0; i < strips.length; i++) {
 			out.seek(out.length());
@@ -547,6 +618,9 @@ public class TiffSaver extends AbstractContextual {
 			ifd.putIFDValue(IFD.STRIP_BYTE_COUNTS, toPrimitiveArray(byteCounts));
 			ifd.putIFDValue(IFD.STRIP_OFFSETS, toPrimitiveArray(offsets));
 		}
+		// NB: Packed IFDs are written by writePackedIFDs.
+		if (packedIFDs != null) return;
+
 		final long endFP = out.offset();
 		if (log.isDebug()) {
 			log.debug("Offset before IFD write: " + out.offset() + " Seeking to: " +
@@ -931,6 +1005,48 @@ public class TiffSaver extends AbstractContextual {
 		return toReturn;
 	}
 
+	/**
+	 * Follows the chain of IFDs already in the file, and returns the position of
+	 * the last offset in it: that of the header if there are no IFDs yet.
+	 */
+	long findNextIFDPointer() throws IOException {
+		long pointer = bigTiff ? 8 : 4;
+		out.seek(pointer);
+		long offset = bigTiff ? out.readLong() : out.readInt() & 0xffffffffL;
+		while (offset > 0 && offset < out.length()) {
+			out.seek(offset);
+			final long entries = bigTiff ? out.readLong() : out.readUnsignedShort();
+			pointer = offset + (bigTiff ? 8 : 2) + entries * (bigTiff
+				? TiffConstants.BIG_TIFF_BYTES_PER_ENTRY
+				: TiffConstants.BYTES_PER_ENTRY);
+			out.seek(pointer);
+			offset = bigTiff ? out.readLong() : out.readInt() & 0xffffffffL;
+		}
+		return pointer;
+	}
+
+	/**
+	 * Returns the position of the next IFD offset of the given IFD, when written
+	 * at the given offset by {@link #writeIFD}.
+	 */
+	long getNextIFDPointer(final IFD ifd, final long ifdOffset) {
+		int keyCount = ifd.size();
+		if (ifd.containsKey(IFD.LITTLE_ENDIAN)) keyCount--;
+		if (ifd.containsKey(IFD.BIG_TIFF)) keyCount--;
+		if (ifd.containsKey(IFD.REUSE)) keyCount--;
+		final int bytesPerEntry = bigTiff ? TiffConstants.BIG_TIFF_BYTES_PER_ENTRY
+			: TiffConstants.BYTES_PER_ENTRY;
+		return ifdOffset + (bigTiff ? 8 : 2) + (long) bytesPerEntry * keyCount;
+	}
+
+	/** Overwrites the IFD offset at the given position. */
+	void writeIFDOffset(final long pointer, final long ifdOffset)
+		throws IOException
+	{
+		out.seek(pointer);
+		writeIntValue(out, ifdOffset);
+	}
+
 	/**
 	 * Write the given value to the given RandomAccessOutputStream. If the
 	 * 'bigTiff' flag is set, then the value will be written as an 8 byte long;
@@ -954,7 +1070,7 @@ public class TiffSaver extends AbstractContextual {
 	 * @param pixelType The pixel type.
 	 * @param nChannels The number of channels.
 	 */
-	private void makeValidIFD(final IFD ifd, final int pixelType,
+	void makeValidIFD(final IFD ifd, final int pixelType,
 		final int nChannels)
 	{
 		final int bytesPerPixel = FormatTools.getBytesPerPixel(pixelType);
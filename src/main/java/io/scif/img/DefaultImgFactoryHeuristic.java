@@ -58,6 +58,11 @@ import org.scijava.util.ArrayUtils;
  * <li>If ImgMode.PLANAR, select if plane size &lt; 2GB and dataset fits memory.
  * <li>
  * <li>If ImgMode.CELL, return a SCIFIOCellImgFactory.</li>
+ * <li>If ImgMode.MAPPED, select a MappedImgFactory if the format may store raw
+ * planes. Images which turn out not to be mappable are read as though the
+ * remaining modes had been requested.</li>
+ * <li>If ImgMode.VIRTUAL, select a VirtualPlanarImgFactory if planes are two
+ * dimensional and smaller than 2GB.</li>
  * <li>If ImgMode.AUTO or none of the requested types could be selected, check
  * as though the order were ARRAY -&gt; PLANAR -&gt; CELL.</li>
  * </ul>
@@ -135,6 +140,16 @@ public class DefaultImgFactoryHeuristic implements ImgFactoryHeuristic {
 					if (planeSize < maxSize && fitsInMemory)
 						return new PlanarImgFactory<>(type);
 					break;
+				case MAPPED:
+					if (MappedImgFactory.isMappable(m)) {
+						return new MappedImgFactory<>(type);
+					}
+					break;
+				case VIRTUAL:
+					if (planeSize < maxSize && m.get(0).getPlanarAxisCount() == 2) {
+						return new VirtualPlanarImgFactory<>(type);
+					}
+					break;
 				case CELL:
 					// FIXME: No CellImgFactory right now.
 					// Isn't guaranteed to handle all images well (e.g. RGB).
@@ -36,6 +36,7 @@ import io.scif.Metadata;
 import io.scif.Plane;
 import io.scif.Reader;
 import io.scif.config.SCIFIOConfig;
+import io.scif.config.SCIFIOConfig.ImgMode;
 import io.scif.filters.ChannelFiller;
 import io.scif.filters.MinMaxFilter;
 import io.scif.filters.PlaneSeparator;
@@ -44,6 +45,7 @@ import io.scif.img.cell.SCIFIOCellImgFactory;
 import io.scif.img.converters.PlaneConverter;
 import io.scif.img.converters.PlaneConverterService;
 import io.scif.services.InitializeService;
+import io.scif.services.PlanePoolService;
 import io.scif.util.FormatTools;
 
 import java.io.IOException;
@@ -96,6 +98,9 @@ public class ImgOpener extends AbstractImgIOComponent {
 	@Parameter
 	private LocationService locationService;
 
+	@Parameter(required = false)
+	private PlanePoolService planePool;
+
 	// -- Constructors --
 
 	public ImgOpener() {
@@ -389,27 +394,45 @@ public class ImgOpener extends AbstractImgIOComponent {
 			imageRange = config.imgOpenerGetRange();
 		}
 
+		// whether any image reads its planes through the reader on demand
+		boolean onDemand = false;
+
 		for (final Long imageIndex : imageRange) {
+			// read the requested resolution level, which may be its own image
+			final int index = reader.getResolutionImageIndex(i(imageIndex), config
+				.imgOpenerGetResolution());
 
 			// create image and read metadata
 			final long[] dimLengths = utils().getConstrainedLengths(reader
-				.getMetadata(), i(imageIndex), config);
-			if (SCIFIOCellImgFactory.class.isAssignableFrom(imgFactory.getClass())) {
-				((SCIFIOCellImgFactory<?>) imgFactory).setReader(reader, i(imageIndex));
-				((SCIFIOCellImgFactory<?>) imgFactory).setSubRegion(config
+				.getMetadata(), index, config);
+			final ImgFactory<T> factory = getFactory(reader, index, imgFactory,
+				config);
+			final boolean cell = SCIFIOCellImgFactory.class.isAssignableFrom(factory
+				.getClass());
+			if (cell) {
+				((SCIFIOCellImgFactory<?>) factory).setReader(reader, index);
+				((SCIFIOCellImgFactory<?>) factory).setSubRegion(config
 					.imgOpenerGetRegion());
+				onDemand = true;
 			}
-			final Img<T> img = imgFactory.create(dimLengths);
-			final SCIFIOImgPlus<T> imgPlus = makeImgPlus(img, reader, i(imageIndex));
+			final boolean virtual = factory instanceof VirtualPlanarImgFactory;
+			if (virtual) {
+				((VirtualPlanarImgFactory<?>) factory).setReader(reader, index);
+				((VirtualPlanarImgFactory<?>) factory).setSubRegion(config
+					.imgOpenerGetRegion());
+				onDemand = true;
+			}
+			final Img<T> img = factory.create(dimLengths);
+			final SCIFIOImgPlus<T> imgPlus = makeImgPlus(img, reader, index);
 
 			final Location id = reader.getCurrentLocation();
 			final URI uri = id.getURI();
 			imgPlus.setSource(uri == null ? null : uri.toString());
-			imgPlus.initializeColorTables(i(reader.getPlaneCount(i(imageIndex))));
+			imgPlus.initializeColorTables(i(reader.getPlaneCount(index)));
 
 			if (config.imgOpenerIsComputeMinMax()) {
 				final long[] defaultMinMax = FormatTools.defaultMinMax(reader
-					.getMetadata().get(i(imageIndex)));
+					.getMetadata().get(index));
 				for (int c = 0; c < imgPlus.getCompositeChannelCount(); c++) {
 					imgPlus.setChannelMinimum(c, defaultMinMax[0]);
 					imgPlus.setChannelMaximum(c, defaultMinMax[1]);
@@ -419,16 +442,16 @@ public class ImgOpener extends AbstractImgIOComponent {
 			// Put this image's metadata into the ImgPlus's properties table.
 			final Metadata meta = reader.getMetadata();
 			imgPlus.setMetadata(meta);
-			imgPlus.setImageMetadata(meta.get(i(imageIndex)));
-			imgPlus.setROIsAndTablesProperties(meta, i(imageIndex));
+			imgPlus.setImageMetadata(meta.get(index));
+			imgPlus.setROIsAndTablesProperties(meta, index);
 
 			// If we have a planar img, read the planes now. Otherwise they
-			// will be read on demand.
-			if (!SCIFIOCellImgFactory.class.isAssignableFrom(imgFactory.getClass())) {
+			// will be read on demand, or are mapped already.
+			if (!cell && !virtual && !(factory instanceof MappedImgFactory)) {
 				final float startTime = System.currentTimeMillis();
-				final long planeCount = reader.getPlaneCount(i(imageIndex));
+				final long planeCount = reader.getPlaneCount(index);
 				try {
-					readPlanes(reader, i(imageIndex), imgPlus, config);
+					readPlanes(reader, index, imgPlus, config);
 				}
 				catch (FormatException | IOException e) {
 					throw new ImgIOException(e);
@@ -442,8 +465,8 @@ public class ImgOpener extends AbstractImgIOComponent {
 		}
 
 		// Close the reader if needed
-		if (SCIFIOCellImgFactory.class.isAssignableFrom(imgFactory.getClass())) {
-			statusService.showStatus("Created CellImg for dynamic loading");
+		if (onDemand) {
+			statusService.showStatus("Created image for dynamic loading");
 		}
 		else {
 			try {
@@ -462,6 +485,37 @@ public class ImgOpener extends AbstractImgIOComponent {
 		return utils().makeType(r.getMetadata().get(0).getPixelType());
 	}
 
+	/**
+	 * Returns the factory to create the given image with: the given factory,
+	 * unless it is a {@link MappedImgFactory} which cannot map the image. Such
+	 * images are read as though {@link ImgMode#MAPPED} had not been requested.
+	 */
+	private <T> ImgFactory<T> getFactory(final Reader reader,
+		final int imageIndex, final ImgFactory<T> imgFactory,
+		final SCIFIOConfig config) throws ImgIOException
+	{
+		if (!(imgFactory instanceof MappedImgFactory)) return imgFactory;
+		try {
+			if (((MappedImgFactory<?>) imgFactory).setReader(reader, imageIndex,
+				config)) return imgFactory;
+		}
+		catch (final IOException e) {
+			log().warn("Could not map image " + imageIndex + ", reading it instead",
+				e);
+		}
+		final List<ImgMode> modes = new ArrayList<>();
+		for (final ImgMode mode : config.imgOpenerGetImgModes()) {
+			if (mode != ImgMode.MAPPED) modes.add(mode);
+		}
+		try {
+			return getHeuristic(config).createFactory(reader.getMetadata(), modes
+				.toArray(new ImgMode[modes.size()]), imgFactory.type());
+		}
+		catch (final IncompatibleTypeException e) {
+			throw new ImgIOException(e);
+		}
+	}
+
 	private ImgFactoryHeuristic getHeuristic(final SCIFIOConfig imgOptions) {
 		ImgFactoryHeuristic heuristic = imgOptions
 			.imgOpenerGetImgFactoryHeuristic();
@@ -617,7 +671,7 @@ public class ImgOpener extends AbstractImgIOComponent {
 		// 1) an array container type using one byte array per plane
 		// 2) as #1, but with an Reader reference reading planes on demand
 		// 3) as PlanarRandomAccess, but with an Reader reference
-		// reading planes on demand
+		// reading planes on demand (see VirtualPlanarImg)
 
 		// PlanarRandomAccess is useful for efficient access to pixels in ImageJ
 		// (e.g., getPixels)
@@ -710,8 +764,12 @@ public class ImgOpener extends AbstractImgIOComponent {
 		final Interval bounds, final Range[] npRanges, final long[] npIndices)
 		throws FormatException, IOException
 	{
-		read(imageIndex, imgPlus, r, config, converter, null, bounds, npRanges,
-			npIndices, 0, new int[] { 0 });
+		final Plane plane = read(imageIndex, imgPlus, r, config, converter, null,
+			bounds, npRanges, npIndices, 0, new int[] { 0 });
+		// the plane was only used to copy the data into the ImgPlus
+		if (planePool != null && config.readerIsPooledPlanes()) {
+			planePool.recycle(plane);
+		}
 	}
 
 	@SuppressWarnings({ "unchecked", "rawtypes" })
@@ -745,7 +803,7 @@ public class ImgOpener extends AbstractImgIOComponent {
 			// FIXME: what if tmpPlane length does not match bounds size?
 			// Invent a utility method for checking tmpPlane vs. bounds.
 			if (tmpPlane == null) {
-				tmpPlane = r.openPlane(imageIndex, planeIndex, bounds);
+				tmpPlane = r.openPlane(imageIndex, planeIndex, bounds, config);
 			}
 			else {
 				tmpPlane = r.openPlane(imageIndex, planeIndex, tmpPlane, bounds,
@@ -45,9 +45,13 @@ import io.scif.util.SCIFIOMetadataTools;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import net.imagej.ImgPlus;
 import net.imagej.axis.Axes;
@@ -58,6 +62,7 @@ import net.imglib2.exception.ImgLibException;
 import net.imglib2.exception.IncompatibleTypeException;
 import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
 import net.imglib2.img.basictypeaccess.array.ByteArray;
 import net.imglib2.img.basictypeaccess.array.CharArray;
 import net.imglib2.img.basictypeaccess.array.DoubleArray;
@@ -65,6 +70,9 @@ import net.imglib2.img.basictypeaccess.array.FloatArray;
 import net.imglib2.img.basictypeaccess.array.IntArray;
 import net.imglib2.img.basictypeaccess.array.LongArray;
 import net.imglib2.img.basictypeaccess.array.ShortArray;
+import net.imglib2.img.cell.AbstractCellImg;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.cell.CellGrid;
 import net.imglib2.img.planar.PlanarImg;
 import net.imglib2.type.numeric.ComplexType;
 import net.imglib2.type.numeric.integer.GenericByteType;
@@ -79,7 +87,7 @@ import org.scijava.app.StatusService;
 import org.scijava.io.location.Location;
 import org.scijava.io.location.LocationService;
 import org.scijava.plugin.Parameter;
-import org.scijava.util.Bytes;
+import org.scijava.thread.ThreadService;
 
 /**
  * Writes out an {@link ImgPlus} using SCIFIO.
@@ -101,6 +109,9 @@ public class ImgSaver extends AbstractImgIOComponent {
 	@Parameter
 	private LocationService locationService;
 
+	@Parameter
+	private ThreadService threadService;
+
 	// -- Constructors --
 
 	public ImgSaver() {
@@ -594,7 +605,9 @@ public class ImgSaver extends AbstractImgIOComponent {
 			final long startTime = System.currentTimeMillis();
 
 			// write pixels
-			writePlanes(w, imageIndex, imgPlus);
+			if (!writeCells(w, imageIndex, imgPlus)) {
+				writePlanes(w, imageIndex, imgPlus);
+			}
 
 			// Print time statistics
 			final long endTime = System.currentTimeMillis();
@@ -629,8 +642,13 @@ public class ImgSaver extends AbstractImgIOComponent {
 
 	/**
 	 * Iterates through the planes of the provided {@link SCIFIOImgPlus},
-	 * converting each to a byte[] if necessary (the SCIFIO writer requires a
-	 * byte[]) and saving the plane.
+	 * serializing each into a byte[] in the writer's byte order and saving it.
+	 * <p>
+	 * Planes are serialized in batches, one per thread, into buffers reused from
+	 * batch to batch. If the writer supports it, each plane is also saved - and
+	 * so compressed - on its thread; otherwise the planes of a batch are saved
+	 * in order once they are serialized.
+	 * </p>
 	 */
 	private void writePlanes(final Writer w, final int imageIndex,
 		final SCIFIOImgPlus<?> imgPlus) throws ImgIOException,
@@ -640,15 +658,16 @@ public class ImgSaver extends AbstractImgIOComponent {
 		final Metadata mOut = w.getMetadata();
 		validate(mOut, w);
 
-		final int rgbChannelCount = mOut.get(imageIndex).isMultichannel()
-			? (int) mOut.get(imageIndex).getAxisLength(Axes.CHANNEL) : 1;
-		final boolean interleaved = mOut.get(imageIndex)
-			.getInterleavedAxisCount() > 0;
-
-		byte[] sourcePlane = null;
+		final ImageMetadata imageMeta = mOut.get(imageIndex);
+		final int rgbChannelCount = imageMeta.isMultichannel() ? (int) imageMeta
+			.getAxisLength(Axes.CHANNEL) : 1;
+		final boolean interleaved = imageMeta.getInterleavedAxisCount() > 0;
+		final int bpp = FormatTools.getBytesPerPixel(imageMeta.getPixelType());
+		final ByteOrder order = imageMeta.isLittleEndian()
+			? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
 
 		// iterate over each plane
-		final long planeOutCount = w.getMetadata().get(imageIndex).getPlaneCount();
+		final long planeOutCount = imageMeta.getPlaneCount();
 
 		final Img<?> img = imgPlus.getImg();
 		final int planeCount = getPlaneCount(img);
@@ -659,88 +678,235 @@ public class ImgSaver extends AbstractImgIOComponent {
 					planeOutCount, true);
 		}
 
-		for (int planeIndex = 0; planeIndex < planeOutCount; planeIndex++) {
-			statusService.showStatus(planeIndex, (int) planeOutCount,
-				"Saving plane " + (planeIndex + 1) + "/" + planeOutCount);
-			// save bytes
-			try {
-				final Metadata meta = w.getMetadata();
-
-				final long[] planarLengths = meta.get(imageIndex)
-					.getAxesLengthsPlanar();
-				final long[] planarMin = SCIFIOMetadataTools.modifyPlanar(imageIndex,
-					meta, new long[planarLengths.length]);
-				final long[] planarMax = new long[planarMin.length];
-				for (int d = 0; d < planarMax.length; d++)
-					planarMax[d] = planarMin[d] + planarLengths[d] - 1;
-				final FinalInterval bounds = new FinalInterval(planarMin, planarMax);
-				final ByteArrayPlane destPlane = new ByteArrayPlane(meta.get(
-					imageIndex), bounds);
+		final long[] planarLengths = imageMeta.getAxesLengthsPlanar();
+		final long[] planarMin = SCIFIOMetadataTools.modifyPlanar(imageIndex, mOut,
+			new long[planarLengths.length]);
+		final long[] planarMax = new long[planarMin.length];
+		for (int d = 0; d < planarMax.length; d++)
+			planarMax[d] = planarMin[d] + planarLengths[d] - 1;
+		final FinalInterval bounds = new FinalInterval(planarMin, planarMax);
+
+		final boolean concurrent = w.canSaveConcurrently();
+		final int batchSize = (int) Math.min(planeOutCount, Runtime.getRuntime()
+			.availableProcessors());
+		final ByteArrayPlane[] planes = new ByteArrayPlane[batchSize];
+
+		for (int first = 0; first < planeOutCount; first += batchSize) {
+			final int count = (int) Math.min(batchSize, planeOutCount - first);
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < count; i++) {
+				if (planes[i] == null) {
+					planes[i] = new ByteArrayPlane(imageMeta, bounds);
+				}
+				final ByteArrayPlane plane = planes[i];
+				final int planeIndex = first + i;
+				futures.add(threadService.run(() -> {
+					serializePlane(img, planeIndex, rgbChannelCount, interleaved, bpp,
+						ByteBuffer.wrap(plane.getData()).order(order));
+					if (concurrent) w.savePlane(imageIndex, planeIndex, plane);
+					return null;
+				}));
+			}
+			for (int i = 0; i < count; i++) {
+				final int planeIndex = first + i;
+				statusService.showStatus(planeIndex, (int) planeOutCount,
+					"Saving plane " + (planeIndex + 1) + "/" + planeOutCount);
+				await(futures.get(i));
+				if (concurrent) continue;
+				try {
+					w.savePlane(imageIndex, planeIndex, planes[i]);
+				}
+				catch (final FormatException e) {
+					throw new ImgIOException(e);
+				}
+				catch (final IOException e) {
+					throw new ImgIOException(e);
+				}
+			}
+		}
 
-				for (int cIndex = 0; cIndex < rgbChannelCount; cIndex++) {
-					final Object curPlane = getPlaneArray(img, rgbChannelCount, cIndex,
-						planeIndex);
+		try {
+			w.close();
+		}
+		catch (final IOException e) {
+			throw new ImgIOException(e);
+		}
+	}
 
-					final Class<?> planeClass = curPlane.getClass();
+	/**
+	 * Saves a cell image band by band, if the writer can save planes region by
+	 * region. The cell grid is walked one row of cells at a time, loading each
+	 * cell once, and the rows of every plane that row of cells spans are saved
+	 * as soon as it is complete. Only one row of cells is thus held in memory,
+	 * rather than whole planes.
+	 *
+	 * @return false if the image or writer do not allow streaming, in which case
+	 *         nothing was written.
+	 */
+	private boolean writeCells(final Writer w, final int imageIndex,
+		final SCIFIOImgPlus<?> imgPlus) throws ImgIOException,
+		IncompatibleTypeException
+	{
+		final Img<?> img = imgPlus.getImg();
+		if (!(img instanceof AbstractCellImg) || !w.canSaveRegions()) return false;
 
-					// Convert current plane if necessary
-					if (planeClass == int[].class) {
-						sourcePlane = Bytes.fromInts((int[]) curPlane, false);
-					}
-					else if (planeClass == byte[].class) {
-						sourcePlane = (byte[]) curPlane;
-					}
-					else if (planeClass == short[].class) {
-						sourcePlane = Bytes.fromShorts((short[]) curPlane, false);
-					}
-					else if (planeClass == long[].class) {
-						sourcePlane = Bytes.fromLongs((long[]) curPlane, false);
+		final Metadata mOut = w.getMetadata();
+		validate(mOut, w);
+		final ImageMetadata imageMeta = mOut.get(imageIndex);
+		final int rgbChannelCount = imageMeta.isMultichannel() ? (int) imageMeta
+			.getAxisLength(Axes.CHANNEL) : 1;
+		final boolean interleaved = imageMeta.getInterleavedAxisCount() > 0;
+		final int channels = interleaved ? rgbChannelCount : 1;
+		final int bpp = FormatTools.getBytesPerPixel(imageMeta.getPixelType());
+		final ByteOrder order = imageMeta.isLittleEndian()
+			? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+		if (imageMeta.getPlaneCount() != getPlaneCount(img) / rgbChannelCount) {
+			return false;
+		}
+
+		final AbstractCellImg<?, ?, ?, ?> cellImg =
+			(AbstractCellImg<?, ?, ?, ?>) img;
+		final CellGrid grid = cellImg.getCellGrid();
+		final RandomAccess<? extends Cell<?>> cells = cellImg.getCells()
+			.randomAccess();
+		final int n = img.numDimensions();
+		final long[] gridPosition = new long[n];
+		cells.setPosition(gridPosition);
+		if (storageArray(cells.get(), bpp) == null) return false;
+
+		// planes are indexed by the axes after X, Y and the channels
+		final int first = rgbChannelCount > 1 ? 3 : 2;
+		final long[] planeLengths = new long[n - first];
+		final long[] slabLengths = new long[n - first];
+		long slabCount = 1;
+		for (int d = first; d < n; d++) {
+			planeLengths[d - first] = img.dimension(d);
+			slabLengths[d - first] = grid.gridDimension(d);
+			slabCount *= slabLengths[d - first];
+		}
+		final long[] planarLengths = imageMeta.getAxesLengthsPlanar();
+		final long[] planarMin = SCIFIOMetadataTools.modifyPlanar(imageIndex, mOut,
+			new long[planarLengths.length]);
+		final long[] planarMax = new long[planarMin.length];
+		for (int d = 0; d < planarMax.length; d++)
+			planarMax[d] = planarMin[d] + planarLengths[d] - 1;
+		final int yAxis = imageMeta.getAxisIndex(Axes.Y);
+
+		final int width = (int) img.dimension(0);
+		final boolean concurrent = w.canSaveConcurrently();
+		final long[] position = new long[n];
+		final long[] planePosition = new long[n - first];
+		final long[] extent = new long[n - first];
+		final long[] local = new long[n - 2];
+		final long[] localLengths = new long[n - 2];
+		final int[] cellDimensions = new int[n];
+		byte[][] bands = null;
+
+		for (long slab = 0; slab < slabCount; slab++) {
+			// the planes spanned by this slab of cells
+			final long[] slabPosition = FormatTools.rasterToPosition(slabLengths,
+				slab);
+			int planes = 1;
+			for (int d = first; d < n; d++) {
+				gridPosition[d] = slabPosition[d - first];
+				extent[d - first] = grid.getCellDimension(d, gridPosition[d]);
+				planes *= extent[d - first];
+			}
+
+			for (long gy = 0; gy < grid.gridDimension(1); gy++) {
+				statusService.showStatus((int) (slab * grid.gridDimension(1) + gy),
+					(int) (slabCount * grid.gridDimension(1)), "Saving rows of cells");
+				final long y0 = grid.getCellMin(1, gy);
+				final int bandHeight = grid.getCellDimension(1, gy);
+				final int bandPixels = width * bandHeight;
+				final int bandSize = bandPixels * rgbChannelCount * bpp;
+				if (bands == null || bands.length != planes ||
+					bands[0].length != bandSize)
+				{
+					bands = new byte[planes][bandSize];
+				}
+				final ByteBuffer[] buffers = new ByteBuffer[planes];
+				for (int j = 0; j < planes; j++)
+					buffers[j] = ByteBuffer.wrap(bands[j]).order(order);
+
+				// copy every cell of the row, each row of pixels to its plane
+				gridPosition[1] = gy;
+				final long channelCells = first == 3 ? grid.gridDimension(2) : 1;
+				for (long gc = 0; gc < channelCells; gc++) {
+					if (first == 3) gridPosition[2] = gc;
+					for (long gx = 0; gx < grid.gridDimension(0); gx++) {
+						gridPosition[0] = gx;
+						cells.setPosition(gridPosition);
+						final Cell<?> cell = cells.get();
+						final Object array = storageArray(cell, bpp);
+						if (array == null) {
+							throw new ImgIOException("Unsupported cell storage: " + cell
+								.getData().getClass().getName());
+						}
+						cell.dimensions(cellDimensions);
+						long localCount = 1;
+						for (int d = 2; d < n; d++) {
+							localLengths[d - 2] = cellDimensions[d];
+							localCount *= cellDimensions[d];
+						}
+						final int rowLength = cellDimensions[0];
+						for (long l = 0; l < localCount; l++) {
+							FormatTools.rasterToPosition(localLengths, l, local);
+							for (int d = 2; d < n; d++)
+								position[d] = cell.min(d) + local[d - 2];
+							for (int d = first; d < n; d++)
+								planePosition[d - first] = local[d - 2];
+							final int band = (int) FormatTools.positionToRaster(extent,
+								planePosition);
+							final int c = first == 3 ? (int) position[2] : 0;
+							position[0] = cell.min(0);
+							for (position[1] = cell.min(1); position[1] <= cell
+								.max(1); position[1]++)
+							{
+								final int pixel = (int) ((position[1] - y0) * width +
+									position[0]);
+								copy(array, cell.globalPositionToIndex(position), rowLength,
+									buffers[band], interleaved ? pixel : c * bandPixels + pixel,
+									interleaved ? c : 0, channels);
+							}
+						}
 					}
-					else if (planeClass == double[].class) {
-						sourcePlane = Bytes.fromDoubles((double[]) curPlane, false);
+				}
+
+				// save the band of every plane
+				planarMin[yAxis] = y0;
+				planarMax[yAxis] = y0 + bandHeight - 1;
+				final FinalInterval bounds = new FinalInterval(planarMin, planarMax);
+				final List<Future<?>> futures = new ArrayList<>();
+				for (int j = 0; j < planes; j++) {
+					FormatTools.rasterToPosition(extent, j, planePosition);
+					for (int d = first; d < n; d++) {
+						planePosition[d - first] += grid.getCellMin(d, gridPosition[d]);
 					}
-					else if (planeClass == float[].class) {
-						sourcePlane = Bytes.fromFloats((float[]) curPlane, false);
+					final long planeIndex = FormatTools.positionToRaster(planeLengths,
+						planePosition);
+					final ByteArrayPlane plane = new ByteArrayPlane();
+					plane.populate(imageMeta, bands[j], bounds);
+					if (concurrent) {
+						futures.add(threadService.run(() -> {
+							w.savePlane(imageIndex, planeIndex, plane, bounds);
+							return null;
+						}));
+						continue;
 					}
-					else {
-						throw new IncompatibleTypeException(new ImgLibException(),
-							"Plane data type: " + planeClass + " not supported.");
+					try {
+						w.savePlane(imageIndex, planeIndex, plane, bounds);
 					}
-
-					if (interleaved) {
-						final int bpp = FormatTools.getBytesPerPixel(meta.get(imageIndex)
-							.getPixelType());
-
-						// TODO: Assign all elements in a for loop rather than
-						// using many small System.arraycopy calls. Calling
-						// System.arraycopy is less efficient than
-						// element-by-element
-						// copying for small array lengths (~24 elements or
-						// less).
-						// See: http://stackoverflow.com/a/12366983
-						for (int i = 0; i < sourcePlane.length / bpp; i += bpp) {
-							System.arraycopy(sourcePlane, i, destPlane.getData(), ((i *
-								rgbChannelCount) + cIndex) * bpp, bpp);
-						}
+					catch (final FormatException e) {
+						throw new ImgIOException(e);
 					}
-					else {
-						// TODO: Consider using destPlane.setData(sourcePlane)
-						// instead.
-						// Ideally would also make modifications to avoid the
-						// initial
-						// allocation overhead of the destPlane's internal
-						// buffer.
-						System.arraycopy(sourcePlane, 0, destPlane.getData(), cIndex *
-							sourcePlane.length, sourcePlane.length);
+					catch (final IOException e) {
+						throw new ImgIOException(e);
 					}
 				}
-				w.savePlane(imageIndex, planeIndex, destPlane);
-			}
-			catch (final FormatException e) {
-				throw new ImgIOException(e);
-			}
-			catch (final IOException e) {
-				throw new ImgIOException(e);
+				for (final Future<?> future : futures) {
+					await(future);
+				}
 			}
 		}
 
@@ -750,6 +916,236 @@ public class ImgSaver extends AbstractImgIOComponent {
 		catch (final IOException e) {
 			throw new ImgIOException(e);
 		}
+		return true;
+	}
+
+	/**
+	 * @return The storage array of the given cell, or null if it does not hold
+	 *         a plain array of the output pixel size.
+	 */
+	private static Object storageArray(final Cell<?> cell, final int bpp) {
+		if (!(cell.getData() instanceof ArrayDataAccess)) return null;
+		final Object array = ((ArrayDataAccess<?>) cell.getData())
+			.getCurrentStorageArray();
+		return elementSize(array) == bpp ? array : null;
+	}
+
+	/** Waits for the given task, rethrowing its exception if it failed. */
+	private void await(final Future<?> future) throws ImgIOException,
+		IncompatibleTypeException
+	{
+		try {
+			future.get();
+		}
+		catch (final InterruptedException e) {
+			throw new ImgIOException(e);
+		}
+		catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IncompatibleTypeException) {
+				throw (IncompatibleTypeException) cause;
+			}
+			if (cause instanceof ImgIOException) throw (ImgIOException) cause;
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			throw new ImgIOException(cause);
+		}
+	}
+
+	/**
+	 * Serializes all channels of the given plane into the given buffer. Planes
+	 * of {@link PlanarImg}s, {@link ArrayImg}s and {@link AbstractCellImg}s are
+	 * read straight from their storage; other images are copied into an
+	 * intermediate array first.
+	 */
+	private void serializePlane(final Img<?> img, final int planeIndex,
+		final int rgbChannelCount, final boolean interleaved, final int bpp,
+		final ByteBuffer dest) throws IncompatibleTypeException
+	{
+		final int planeSize = (int) (img.dimension(0) * img.dimension(1));
+		final int channels = interleaved ? rgbChannelCount : 1;
+		for (int cIndex = 0; cIndex < rgbChannelCount; cIndex++) {
+			// offset of the channel, in pixels, if channels are not interleaved
+			final int offset = interleaved ? 0 : cIndex * planeSize;
+			final int c = interleaved ? cIndex : 0;
+			final int index = cIndex + planeIndex * rgbChannelCount;
+			if (!copyStorage(img, index, bpp, dest, offset, c, channels)) {
+				final Object array = getPlaneArray(img, rgbChannelCount, cIndex,
+					planeIndex);
+				copy(array, 0, planeSize, dest, offset, c, channels);
+			}
+		}
+	}
+
+	/**
+	 * Copies the given plane of the given image straight from its storage, if
+	 * possible.
+	 *
+	 * @return false if the image's storage does not hold plain arrays of the
+	 *         output pixel size.
+	 */
+	private boolean copyStorage(final Img<?> img, final int index,
+		final int bpp, final ByteBuffer dest, final int offset, final int c,
+		final int channels) throws IncompatibleTypeException
+	{
+		final int planeSize = (int) (img.dimension(0) * img.dimension(1));
+
+		// PlanarImg case
+		if (img instanceof PlanarImg) {
+			final Object array = ((PlanarImg<?, ?>) img).getPlane(index)
+				.getCurrentStorageArray();
+			if (elementSize(array) != bpp) return false;
+			copy(array, 0, planeSize, dest, offset, c, channels);
+			return true;
+		}
+
+		// ArrayImg case
+		if (img instanceof ArrayImg) {
+			final Object store = ((ArrayImg<?, ?>) img).update(null);
+			if (!(store instanceof ArrayDataAccess)) return false;
+			final Object array = ((ArrayDataAccess<?>) store)
+				.getCurrentStorageArray();
+			if (elementSize(array) != bpp) return false;
+			copy(array, planeSize * index, planeSize, dest, offset, c, channels);
+			return true;
+		}
+
+		// CellImg case - copy the rows of each cell intersecting the plane
+		if (img instanceof AbstractCellImg) {
+			final AbstractCellImg<?, ?, ?, ?> cellImg =
+				(AbstractCellImg<?, ?, ?, ?>) img;
+			final CellGrid grid = cellImg.getCellGrid();
+			final int n = img.numDimensions();
+			final long width = img.dimension(0);
+
+			final long[] lengths = new long[n - 2];
+			for (int d = 2; d < n; d++)
+				lengths[d - 2] = img.dimension(d);
+			final long[] planePosition = FormatTools.rasterToPosition(lengths,
+				index);
+			final long[] position = new long[n];
+			final long[] gridPosition = new long[n];
+			for (int d = 2; d < n; d++) {
+				position[d] = planePosition[d - 2];
+				gridPosition[d] = position[d] / grid.cellDimension(d);
+			}
+
+			final RandomAccess<? extends Cell<?>> cells = cellImg.getCells()
+				.randomAccess();
+			for (int y = 0; y < grid.gridDimension(1); y++) {
+				for (int x = 0; x < grid.gridDimension(0); x++) {
+					gridPosition[0] = x;
+					gridPosition[1] = y;
+					cells.setPosition(gridPosition);
+					final Cell<?> cell = cells.get();
+					final Object array = storageArray(cell, bpp);
+					if (array == null) return false;
+					final int rowLength = (int) cell.dimension(0);
+					position[0] = cell.min(0);
+					for (position[1] = cell.min(1); position[1] <= cell
+						.max(1); position[1]++)
+					{
+						copy(array, cell.globalPositionToIndex(position), rowLength, dest,
+							offset + (int) (position[1] * width + position[0]), c, channels);
+					}
+				}
+			}
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return The size in bytes of the elements of the given primitive array, or
+	 *         -1 if it is not a supported array.
+	 */
+	private static int elementSize(final Object array) {
+		if (array instanceof byte[]) return 1;
+		if (array instanceof short[] || array instanceof char[]) return 2;
+		if (array instanceof int[] || array instanceof float[]) return 4;
+		if (array instanceof long[] || array instanceof double[]) return 8;
+		return -1;
+	}
+
+	/**
+	 * Copies {@code length} elements of the given primitive array to the given
+	 * buffer, in the buffer's byte order.
+	 *
+	 * @param pixel Index of the first pixel to write in {@code dest}.
+	 * @param c Channel to write, if there are several interleaved channels.
+	 * @param channels The number of interleaved channels in {@code dest}.
+	 */
+	private static void copy(final Object src, final int srcOffset,
+		final int length, final ByteBuffer dest, final int pixel, final int c,
+		final int channels) throws IncompatibleTypeException
+	{
+		final int size = elementSize(src);
+		if (size < 0) {
+			throw new IncompatibleTypeException(new ImgLibException(),
+				"Plane data type: " + src.getClass() + " not supported.");
+		}
+		if (channels == 1) {
+			// contiguous: bulk copy through a view of the buffer
+			final ByteBuffer view = dest.duplicate().order(dest.order());
+			view.position(pixel * size);
+			if (src instanceof byte[]) view.put((byte[]) src, srcOffset, length);
+			else if (src instanceof short[]) {
+				view.asShortBuffer().put((short[]) src, srcOffset, length);
+			}
+			else if (src instanceof char[]) {
+				view.asCharBuffer().put((char[]) src, srcOffset, length);
+			}
+			else if (src instanceof int[]) {
+				view.asIntBuffer().put((int[]) src, srcOffset, length);
+			}
+			else if (src instanceof float[]) {
+				view.asFloatBuffer().put((float[]) src, srcOffset, length);
+			}
+			else if (src instanceof long[]) {
+				view.asLongBuffer().put((long[]) src, srcOffset, length);
+			}
+			else view.asDoubleBuffer().put((double[]) src, srcOffset, length);
+			return;
+		}
+
+		// interleaved: one element per pixel
+		final int stride = channels * size;
+		int pos = (pixel * channels + c) * size;
+		if (src instanceof byte[]) {
+			final byte[] a = (byte[]) src;
+			for (int i = 0; i < length; i++, pos += stride)
+				dest.put(pos, a[srcOffset + i]);
+		}
+		else if (src instanceof short[]) {
+			final short[] a = (short[]) src;
+			for (int i = 0; i < length; i++, pos += stride)
+				dest.putShort(pos, a[srcOffset + i]);
+		}
+		else if (src instanceof char[]) {
+			final char[] a = (char[]) src;
+			for (int i = 0; i < length; i++, pos += stride)
+				dest.putChar(pos, a[srcOffset + i]);
+		}
+		else if (src instanceof int[]) {
+			final int[] a = (int[]) src;
+			for (int i = 0; i < length; i++, pos += stride)
+				dest.putInt(pos, a[srcOffset + i]);
+		}
+		else if (src instanceof float[]) {
+			final float[] a = (float[]) src;
+			for (int i = 0; i < length; i++, pos += stride)
+				dest.putFloat(pos, a[srcOffset + i]);
+		}
+		else if (src instanceof long[]) {
+			final long[] a = (long[]) src;
+			for (int i = 0; i < length; i++, pos += stride)
+				dest.putLong(pos, a[srcOffset + i]);
+		}
+		else {
+			final double[] a = (double[]) src;
+			for (int i = 0; i < length; i++, pos += stride)
+				dest.putDouble(pos, a[srcOffset + i]);
+		}
 	}
 
 	/**
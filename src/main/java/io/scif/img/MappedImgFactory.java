@@ -0,0 +1,339 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.img;
+
+import io.scif.ByteBufferPlane;
+import io.scif.ImageMetadata;
+import io.scif.MappableMetadata;
+import io.scif.Metadata;
+import io.scif.Reader;
+import io.scif.config.SCIFIOConfig;
+import io.scif.filters.MetadataWrapper;
+import io.scif.filters.ReaderFilter;
+import io.scif.img.converters.ByteBufferImgs;
+import io.scif.util.FormatTools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import net.imagej.axis.Axes;
+import net.imagej.axis.CalibratedAxis;
+import net.imglib2.FinalInterval;
+import net.imglib2.exception.IncompatibleTypeException;
+import net.imglib2.img.ImgFactory;
+import net.imglib2.img.NativeImgFactory;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.cell.CellGrid;
+import net.imglib2.img.cell.LazyCellImg;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.integer.ByteType;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.integer.ShortType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedIntType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+
+import org.scijava.io.location.FileLocation;
+import org.scijava.io.location.Location;
+import org.scijava.util.IntArray;
+
+/**
+ * Factory for images whose planes are read-only views of a memory-mapped file.
+ * <p>
+ * Only images stored as raw planes in a local file, as described by
+ * {@link MappableMetadata}, can be mapped. The planes are mapped by
+ * {@link #setReader(Reader, int, SCIFIOConfig)}, runs of planes following each
+ * other in the file together, in regions of up to 2 GB, so that large images
+ * of small planes take few mappings. Each plane becomes a cell of the created
+ * {@link LazyCellImg}, so no pixel is copied or cached on the heap; the byte
+ * order of the file is handled by the cell accesses. The created images
+ * cannot be written to.
+ * </p>
+ *
+ * @see io.scif.config.SCIFIOConfig.ImgMode#MAPPED
+ */
+public class MappedImgFactory<T extends NativeType<T>> extends
+	NativeImgFactory<T>
+{
+
+	// -- Constants --
+
+	/** Largest region of a file mapped at once, in bytes. */
+	private static final long MAX_REGION_SIZE = Integer.MAX_VALUE;
+
+	// -- Fields --
+
+	/** Mapped planes of the image to create, in rasterized order. */
+	private ByteBufferPlane[] planes;
+
+	// -- Constructor --
+
+	public MappedImgFactory(final T type) {
+		super(type);
+	}
+
+	// -- MappedImgFactory methods --
+
+	/**
+	 * @param m Metadata of a dataset, possibly wrapped by filters.
+	 * @return Whether the format of the dataset may store its images as raw
+	 *         planes. Whether a given image can actually be mapped is only known
+	 *         once {@link #setReader(Reader, int, SCIFIOConfig)} is called.
+	 */
+	public static boolean isMappable(Metadata m) {
+		while (m instanceof MetadataWrapper) {
+			m = ((MetadataWrapper) m).unwrap();
+		}
+		return m instanceof MappableMetadata;
+	}
+
+	/**
+	 * Maps the planes of the given image, to be viewed by the next image
+	 * created by this factory.
+	 *
+	 * @param r Reader whose image will be mapped.
+	 * @param imageIndex Index of the image to map.
+	 * @param config Configuration the image is opened with.
+	 * @return False if the image is not stored in a way that can be mapped, in
+	 *         which case it has to be read instead.
+	 * @throws IOException If the planes could not be mapped.
+	 */
+	public boolean setReader(final Reader r, final int imageIndex,
+		final SCIFIOConfig config) throws IOException
+	{
+		planes = null;
+		final Reader tail = r instanceof ReaderFilter ? ((ReaderFilter) r)
+			.getTail() : r;
+		if (config.imgOpenerGetRegion() != null || !(tail
+			.getMetadata() instanceof MappableMetadata))
+		{
+			return false;
+		}
+		final MappableMetadata meta = (MappableMetadata) tail.getMetadata();
+		final ImageMetadata iMeta = meta.get(imageIndex);
+		if (!isRaw(r.getMetadata().get(imageIndex), iMeta)) return false;
+
+		final Location location = meta.getPixelsLocation(imageIndex);
+		if (!(location instanceof FileLocation)) return false;
+
+		final long planeCount = iMeta.getPlaneCount();
+		final long planeSize = iMeta.getPlaneSize();
+		final long[] offsets = new long[(int) planeCount];
+		for (int p = 0; p < offsets.length; p++) {
+			offsets[p] = meta.getPlaneOffset(imageIndex, p);
+			if (offsets[p] < 0) return false;
+		}
+
+		final FinalInterval bounds = new FinalInterval(iMeta
+			.getAxesLengthsPlanar());
+		final ByteBufferPlane[] mapped = new ByteBufferPlane[offsets.length];
+		try (FileChannel channel = FileChannel.open(((FileLocation) location)
+			.getFile().toPath(), StandardOpenOption.READ))
+		{
+			final long length = channel.size();
+			for (int p = 0; p < offsets.length; p++) {
+				// a truncated file is left to the reader to report
+				if (offsets[p] + planeSize > length) return false;
+			}
+			if (planeSize > MAX_REGION_SIZE) {
+				for (int p = 0; p < offsets.length; p++) {
+					mapped[p] = ByteBufferPlane.map(iMeta, bounds, channel, offsets[p],
+						MapMode.READ_ONLY);
+				}
+			}
+			else {
+				final int[] regions = regions(offsets, planeSize, MAX_REGION_SIZE);
+				for (int i = 0; i < regions.length - 1; i++) {
+					final int first = regions[i], last = regions[i + 1] - 1;
+					final long start = offsets[first];
+					final ByteBuffer region = channel.map(MapMode.READ_ONLY, start,
+						offsets[last] + planeSize - start);
+					for (int p = first; p <= last; p++) {
+						mapped[p] = ByteBufferPlane.slice(iMeta, bounds, region,
+							(int) (offsets[p] - start));
+					}
+				}
+			}
+		}
+		planes = mapped;
+		return true;
+	}
+
+	// -- ImgFactory API Methods --
+
+	@Override
+	public LazyCellImg<T, ?> create(final long... dimensions) {
+		if (planes == null) {
+			throw new IllegalStateException(
+				"Tried to create a mapped image without mapped planes.\n" +
+					"Call setReader(Reader, int, SCIFIOConfig) before invoking create()");
+		}
+		final int[] cellDimensions = new int[dimensions.length];
+		for (int d = 0; d < dimensions.length; d++) {
+			cellDimensions[d] = d < 2 ? (int) dimensions[d] : 1;
+		}
+		final CellGrid grid = new CellGrid(dimensions, cellDimensions);
+		if (count(grid.getGridDimensions()) != planes.length) {
+			throw new IllegalArgumentException("Dimensions do not match the " +
+				planes.length + " mapped planes");
+		}
+
+		@SuppressWarnings("unchecked")
+		final Cell<Object>[] cells = new Cell[planes.length];
+		final long[] cellMin = new long[dimensions.length];
+		final int[] cellDims = new int[dimensions.length];
+		for (int p = 0; p < cells.length; p++) {
+			grid.getCellDimensions(p, cellMin, cellDims);
+			cells[p] = new Cell<>(cellDims.clone(), cellMin.clone(), ByteBufferImgs
+				.access(planes[p]));
+		}
+		planes = null;
+		return new LazyCellImg<>(grid, type(), index -> cells[(int) index]);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Override
+	public <S> ImgFactory<S> imgFactory(final S type)
+		throws IncompatibleTypeException
+	{
+		if (NativeType.class.isInstance(type)) return new MappedImgFactory(
+			(NativeType) type);
+		throw new IncompatibleTypeException(this, type.getClass()
+			.getCanonicalName() + " does not implement NativeType.");
+	}
+
+	@Deprecated
+	@Override
+	public LazyCellImg<T, ?> create(final long[] dim, final T type) {
+		cache(type);
+		return create(dim);
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Groups planes into regions of a file to map together: runs of planes
+	 * whose offsets increase by at least a plane each, spanning at most the
+	 * given size. Planes may be apart, e.g. separated by chunk headers.
+	 *
+	 * @param offsets Offsets of the planes in the file.
+	 * @param planeSize Size of each plane, at most {@code maxSize}.
+	 * @param maxSize Largest size of a region.
+	 * @return The index of the first plane of each region, followed by the
+	 *         number of planes.
+	 */
+	static int[] regions(final long[] offsets, final long planeSize,
+		final long maxSize)
+	{
+		final IntArray starts = new IntArray();
+		int first = -1;
+		for (int p = 0; p < offsets.length; p++) {
+			if (first < 0 || offsets[p] < offsets[p - 1] + planeSize || offsets[p] +
+				planeSize - offsets[first] > maxSize)
+			{
+				first = p;
+				starts.addValue(p);
+			}
+		}
+		starts.addValue(offsets.length);
+		return starts.copyArray();
+	}
+
+	/**
+	 * Checks that the opened image is the stored image as is: same axes, planes
+	 * of X and Y only and a pixel type matching the type of this factory.
+	 */
+	private boolean isRaw(final ImageMetadata opened,
+		final ImageMetadata stored)
+	{
+		if (stored.getPlanarAxisCount() != 2 || stored.getAxisIndex(Axes.X) != 0 ||
+			stored.getAxisIndex(Axes.Y) != 1 || stored.isIndexed())
+		{
+			return false;
+		}
+		if (opened.getPixelType() != stored.getPixelType() || opened
+			.isLittleEndian() != stored.isLittleEndian())
+		{
+			return false;
+		}
+		final List<CalibratedAxis> axes = stored.getAxes();
+		if (opened.getAxes().size() != axes.size()) return false;
+		for (int d = 0; d < axes.size(); d++) {
+			if (opened.getAxis(d).type() != axes.get(d).type() || opened
+				.getAxisLength(d) != stored.getAxisLength(d))
+			{
+				return false;
+			}
+		}
+		final long pixels = stored.getAxisLength(Axes.X) * stored.getAxisLength(
+			Axes.Y);
+		return pixels <= Integer.MAX_VALUE && stored
+			.getPlaneCount() <= Integer.MAX_VALUE && type().getClass() == typeOf(
+				stored.getPixelType());
+	}
+
+	/** The class of the type images of the given pixel type are opened as. */
+	private static Class<?> typeOf(final int pixelType) {
+		switch (pixelType) {
+			case FormatTools.INT8:
+				return ByteType.class;
+			case FormatTools.UINT8:
+				return UnsignedByteType.class;
+			case FormatTools.INT16:
+				return ShortType.class;
+			case FormatTools.UINT16:
+				return UnsignedShortType.class;
+			case FormatTools.INT32:
+				return IntType.class;
+			case FormatTools.UINT32:
+				return UnsignedIntType.class;
+			case FormatTools.FLOAT:
+				return FloatType.class;
+			case FormatTools.DOUBLE:
+				return DoubleType.class;
+			default:
+				return null;
+		}
+	}
+
+	private static long count(final long[] dims) {
+		long count = 1;
+		for (final long dim : dims) {
+			count *= dim;
+		}
+		return count;
+	}
+}
@@ -154,6 +154,17 @@ public class SCIFIOImgPlus<T> extends ImgPlus<T> implements Disposable {
 
 			setColorTable(table, planeIndex);
 		}
+		else if (table == null && getImg() instanceof VirtualPlanarImg) {
+			try {
+				table = ((VirtualPlanarImg<?, ?>) getImg()).getColorTable(imageIndex,
+					planeIndex);
+			}
+			catch (final FormatException | IOException e) {
+				return null;
+			}
+
+			setColorTable(table, planeIndex);
+		}
 
 		return table;
 	}
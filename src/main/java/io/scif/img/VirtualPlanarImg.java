@@ -0,0 +1,229 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.img;
+
+import io.scif.FormatException;
+import io.scif.Reader;
+import io.scif.img.cell.loaders.AbstractArrayLoader;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+import net.imglib2.Interval;
+import net.imglib2.display.ColorTable;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.NativeType;
+import net.imglib2.util.Fraction;
+
+import org.scijava.Disposable;
+
+/**
+ * {@link PlanarImg} whose planes are read from a SCIFIO {@link Reader} when
+ * they are accessed.
+ * <p>
+ * Planes are read straight into a small ring of the most recently used
+ * planes, without the cache and disk cache of
+ * {@link io.scif.img.cell.SCIFIOCellImg}. This suits streaming algorithms
+ * which visit each plane once or a few times. Once as many other planes have
+ * been read as the ring holds, the storage of a plane is reused for the next
+ * plane read: accesses obtained through {@link #getPlane(int)} must not be
+ * kept for longer, nor used by more threads at once than the ring has slots.
+ * Changes to the pixels of a plane are lost when it leaves the ring.
+ * </p>
+ *
+ * @see VirtualPlanarImgFactory
+ */
+public class VirtualPlanarImg<T extends NativeType<T>, //
+	A extends ArrayDataAccess<A>> extends PlanarImg<T, A> implements Disposable
+{
+
+	// -- Fields --
+
+	private final Reader reader;
+
+	private final AbstractArrayLoader<A> loader;
+
+	private final Ring<A> ring;
+
+	// -- Constructor --
+
+	/**
+	 * @param reader Reader to read planes with.
+	 * @param loader Loader converting the planes read to arrays.
+	 * @param dimensions Dimensions of the image.
+	 * @param entitiesPerPixel Entities per pixel of the image type.
+	 * @param bounds Bounds of each plane in the reader, by plane index.
+	 * @param ringSize Number of planes kept in memory.
+	 */
+	VirtualPlanarImg(final Reader reader, final AbstractArrayLoader<A> loader,
+		final long[] dimensions, final Fraction entitiesPerPixel,
+		final IntFunction<Interval> bounds, final int ringSize)
+	{
+		this(reader, loader, new Ring<>(loader, bounds, numberOfSlices(
+			dimensions), planeEntities(dimensions, entitiesPerPixel), ringSize),
+			dimensions, entitiesPerPixel);
+	}
+
+	private VirtualPlanarImg(final Reader reader,
+		final AbstractArrayLoader<A> loader, final Ring<A> ring,
+		final long[] dimensions, final Fraction entitiesPerPixel)
+	{
+		super(ring, dimensions, entitiesPerPixel);
+		this.reader = reader;
+		this.loader = loader;
+		this.ring = ring;
+	}
+
+	// -- VirtualPlanarImg methods --
+
+	public Reader reader() {
+		return reader;
+	}
+
+	/**
+	 * @return The number of planes kept in memory.
+	 */
+	public int getRingSize() {
+		return ring.slots.length;
+	}
+
+	/**
+	 * Returns the ColorTable of the specified image and plane index.
+	 * <p>
+	 * NB: opens the underlying image if the plane has not been read yet.
+	 * </p>
+	 */
+	public ColorTable getColorTable(final int imageIndex, final int planeIndex)
+		throws FormatException, IOException
+	{
+		return loader.loadTable(imageIndex, planeIndex);
+	}
+
+	// -- PlanarAccess API methods --
+
+	/**
+	 * @throws UnsupportedOperationException as planes are read from the
+	 *           reader.
+	 */
+	@Override
+	public void setPlane(final int no, final A plane) {
+		throw new UnsupportedOperationException(
+			"Planes of a virtual image cannot be replaced");
+	}
+
+	// -- Disposable API methods --
+
+	@Override
+	public void dispose() {
+		try {
+			reader.close();
+		}
+		catch (final IOException e) {}
+	}
+
+	// -- Helper methods --
+
+	private static int planeEntities(final long[] dimensions,
+		final Fraction entitiesPerPixel)
+	{
+		final long pixels = dimensions.length < 2 ? dimensions[0] : dimensions[0] *
+			dimensions[1];
+		return (int) entitiesPerPixel.mulCeil(pixels);
+	}
+
+	// -- Helper classes --
+
+	/**
+	 * Planes of the image, read on demand into a fixed number of slots which
+	 * are reused in turn.
+	 */
+	private static final class Ring<A> extends AbstractList<A> {
+
+		private final AbstractArrayLoader<A> loader;
+
+		private final IntFunction<Interval> bounds;
+
+		private final int size;
+
+		private final int entities;
+
+		/** Plane read into each slot, or -1. */
+		private final int[] indices;
+
+		private final Object[] slots;
+
+		/** Slot the next plane is read into. */
+		private int next;
+
+		private Ring(final AbstractArrayLoader<A> loader,
+			final IntFunction<Interval> bounds, final int size, final int entities,
+			final int ringSize)
+		{
+			if (ringSize < 1) {
+				throw new IllegalArgumentException("Invalid ring size: " + ringSize);
+			}
+			this.loader = loader;
+			this.bounds = bounds;
+			this.size = size;
+			this.entities = entities;
+			indices = new int[ringSize];
+			Arrays.fill(indices, -1);
+			slots = new Object[ringSize];
+		}
+
+		@Override
+		public synchronized A get(final int index) {
+			for (int s = 0; s < slots.length; s++) {
+				if (indices[s] == index) return slot(s);
+			}
+			final int s = next;
+			next = (next + 1) % slots.length;
+			if (slots[s] == null) slots[s] = loader.emptyArray(entities);
+			// NB: the slot is invalid until the plane is read
+			indices[s] = -1;
+			loader.loadArray(bounds.apply(index), slot(s));
+			indices[s] = index;
+			return slot(s);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@SuppressWarnings("unchecked")
+		private A slot(final int s) {
+			return (A) slots[s];
+		}
+	}
+}
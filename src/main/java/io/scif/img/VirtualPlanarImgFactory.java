@@ -0,0 +1,244 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.img;
+
+import io.scif.ImageMetadata;
+import io.scif.Reader;
+import io.scif.img.cell.loaders.AbstractArrayLoader;
+import io.scif.img.cell.loaders.ByteArrayLoader;
+import io.scif.img.cell.loaders.CharArrayLoader;
+import io.scif.img.cell.loaders.DoubleArrayLoader;
+import io.scif.img.cell.loaders.FloatArrayLoader;
+import io.scif.img.cell.loaders.IntArrayLoader;
+import io.scif.img.cell.loaders.LongArrayLoader;
+import io.scif.img.cell.loaders.ShortArrayLoader;
+
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.exception.IncompatibleTypeException;
+import net.imglib2.img.ImgFactory;
+import net.imglib2.img.NativeImgFactory;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.NativeTypeFactory;
+
+/**
+ * Factory for creating {@link VirtualPlanarImg}s, which read their planes from
+ * a {@link Reader} on demand and keep only the most recently used ones.
+ *
+ * @see io.scif.config.SCIFIOConfig.ImgMode#VIRTUAL
+ */
+public class VirtualPlanarImgFactory<T extends NativeType<T>> extends
+	NativeImgFactory<T>
+{
+
+	// -- Constants --
+
+	/** Default number of planes kept in memory by each image. */
+	public static final int DEFAULT_RING_SIZE = 4;
+
+	// -- Fields --
+
+	private final int ringSize;
+
+	private int index;
+
+	private Reader reader;
+
+	private ImageRegion subregion;
+
+	// -- Constructors --
+
+	/**
+	 * Create a new {@link VirtualPlanarImgFactory} keeping
+	 * {@link #DEFAULT_RING_SIZE} planes in memory.
+	 */
+	public VirtualPlanarImgFactory(final T type) {
+		this(type, DEFAULT_RING_SIZE);
+	}
+
+	/**
+	 * Create a new {@link VirtualPlanarImgFactory}.
+	 *
+	 * @param ringSize Number of planes kept in memory by each created image.
+	 */
+	public VirtualPlanarImgFactory(final T type, final int ringSize) {
+		super(type);
+		if (ringSize < 1) {
+			throw new IllegalArgumentException("Invalid ring size: " + ringSize);
+		}
+		this.ringSize = ringSize;
+	}
+
+	// -- ImgFactory API Methods --
+
+	@Override
+	public VirtualPlanarImg<T, ?> create(final long... dimensions) {
+		if (reader == null) {
+			throw new IllegalStateException(
+				"Tried to create a new VirtualPlanarImg without a Reader to " +
+					"use for opening planes.\n" +
+					"Call setReader(Reader, int) before invoking create()");
+		}
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		final VirtualPlanarImg<T, ?> img = create(dimensions,
+			(NativeTypeFactory) type().getNativeTypeFactory());
+		return img;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Override
+	public <S> ImgFactory<S> imgFactory(final S type)
+		throws IncompatibleTypeException
+	{
+		if (NativeType.class.isInstance(type)) return new VirtualPlanarImgFactory(
+			(NativeType) type, ringSize);
+		throw new IncompatibleTypeException(this, type.getClass()
+			.getCanonicalName() + " does not implement NativeType.");
+	}
+
+	@Deprecated
+	@Override
+	public VirtualPlanarImg<T, ?> create(final long[] dim, final T type) {
+		cache(type);
+		return create(dim);
+	}
+
+	// -- VirtualPlanarImgFactory methods --
+
+	/**
+	 * @return The {@link Reader} attached to this factory, which created images
+	 *         read their planes with.
+	 */
+	public Reader reader() {
+		return reader;
+	}
+
+	/**
+	 * @param r Reader to use for any created {@link VirtualPlanarImg}s.
+	 * @param imageIndex Image index within the given reader that will be read
+	 *          by {@link VirtualPlanarImg}s.
+	 */
+	public void setReader(final Reader r, final int imageIndex) {
+		reader = r;
+		index = imageIndex;
+	}
+
+	/**
+	 * @param region The {@link ImageRegion} that will be operated on by any
+	 *          created {@link VirtualPlanarImg}s.
+	 */
+	public void setSubRegion(final ImageRegion region) {
+		subregion = region;
+	}
+
+	/**
+	 * @return The number of planes kept in memory by each created image.
+	 */
+	public int getRingSize() {
+		return ringSize;
+	}
+
+	// -- Helper Methods --
+
+	private <A extends ArrayDataAccess<A>> VirtualPlanarImg<T, A> create(
+		final long[] dimensions, final NativeTypeFactory<T, A> typeFactory)
+	{
+		final ImageMetadata iMeta = reader.getMetadata().get(index);
+		if (iMeta.getPlanarAxisCount() != 2 || dimensions.length != iMeta
+			.getAxes().size())
+		{
+			throw new IllegalArgumentException(
+				"Virtual images need planes of two dimensions");
+		}
+		final AbstractArrayLoader<A> loader = createLoader(typeFactory);
+		loader.setIndex(index);
+
+		final long[] dims = dimensions.clone();
+		final VirtualPlanarImg<T, A> img = new VirtualPlanarImg<>(reader, loader,
+			dims, type().getEntitiesPerPixel(), p -> bounds(iMeta, dims, p),
+			ringSize);
+		img.setLinkedType(typeFactory.createLinkedType(img));
+		return img;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private <A extends ArrayDataAccess<A>> AbstractArrayLoader<A> createLoader(
+		final NativeTypeFactory<T, A> typeFactory)
+	{
+		switch (typeFactory.getPrimitiveType()) {
+			case BYTE:
+				return (AbstractArrayLoader) new ByteArrayLoader(reader, subregion);
+			case CHAR:
+				return (AbstractArrayLoader) new CharArrayLoader(reader, subregion);
+			case DOUBLE:
+				return (AbstractArrayLoader) new DoubleArrayLoader(reader, subregion);
+			case FLOAT:
+				return (AbstractArrayLoader) new FloatArrayLoader(reader, subregion);
+			case INT:
+				return (AbstractArrayLoader) new IntArrayLoader(reader, subregion);
+			case LONG:
+				return (AbstractArrayLoader) new LongArrayLoader(reader, subregion);
+			case SHORT:
+				return (AbstractArrayLoader) new ShortArrayLoader(reader, subregion);
+			default:
+				throw new IllegalArgumentException();
+		}
+	}
+
+	/**
+	 * Returns the bounds, in the reader, of the given plane of an image with the
+	 * given dimensions. Positions are mapped through the ranges of the
+	 * subregion, if any.
+	 */
+	private Interval bounds(final ImageMetadata iMeta, final long[] dimensions,
+		final int planeIndex)
+	{
+		final long[] min = new long[dimensions.length];
+		final long[] max = new long[dimensions.length];
+		long remainder = planeIndex;
+		for (int d = 0; d < dimensions.length; d++) {
+			final Range range = subregion == null ? null : subregion.getRange(iMeta
+				.getAxis(d).type());
+			if (d < 2) {
+				min[d] = range == null ? 0 : range.get(0);
+				max[d] = range == null ? dimensions[d] - 1 : range.get(range.size() -
+					1);
+			}
+			else {
+				final long position = remainder % dimensions[d];
+				remainder /= dimensions[d];
+				min[d] = max[d] = range == null ? position : range.get(
+					(int) position);
+			}
+		}
+		return new FinalInterval(min, max);
+	}
+}
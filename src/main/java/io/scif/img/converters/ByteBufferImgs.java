@@ -0,0 +1,266 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.img.converters;
+
+import io.scif.ByteBufferPlane;
+import io.scif.util.FormatTools;
+
+import java.nio.ByteBuffer;
+
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.ByteAccess;
+import net.imglib2.img.basictypeaccess.DoubleAccess;
+import net.imglib2.img.basictypeaccess.FloatAccess;
+import net.imglib2.img.basictypeaccess.IntAccess;
+import net.imglib2.img.basictypeaccess.ShortAccess;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.RealType;
+
+/**
+ * Wraps {@link ByteBufferPlane}s as imglib2 images without copying them.
+ * <p>
+ * The image has the dimensions of the plane's bounds and reads and writes
+ * the plane's buffers, in the byte order they were created with. Planes of
+ * more than {@link Integer#MAX_VALUE} pixels cannot be wrapped, as
+ * {@link ArrayImg}s are int-indexed.
+ * </p>
+ */
+public final class ByteBufferImgs {
+
+	private ByteBufferImgs() {
+		// NB: prevent instantiation of utility class.
+	}
+
+	/**
+	 * Wraps the given plane as an image of the type matching its pixel type.
+	 *
+	 * @throws IllegalArgumentException If the pixel type is not supported, or
+	 *           the plane has too many pixels.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends RealType<T> & NativeType<T>> ArrayImg<T, ?> wrap(
+		final ByteBufferPlane plane)
+	{
+		final long[] dims = plane.getLengths();
+		long pixels = 1;
+		for (final long dim : dims) {
+			pixels *= dim;
+		}
+		if (pixels > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Plane of " + pixels +
+				" pixels cannot be wrapped");
+		}
+
+		final Object access = access(plane);
+		final int pixelType = plane.getImageMetadata().getPixelType();
+		final ArrayImg<?, ?> img;
+		switch (pixelType) {
+			case FormatTools.INT8:
+				img = ArrayImgs.bytes((ByteAccess) access, dims);
+				break;
+			case FormatTools.UINT8:
+				img = ArrayImgs.unsignedBytes((ByteAccess) access, dims);
+				break;
+			case FormatTools.INT16:
+				img = ArrayImgs.shorts((ShortAccess) access, dims);
+				break;
+			case FormatTools.UINT16:
+				img = ArrayImgs.unsignedShorts((ShortAccess) access, dims);
+				break;
+			case FormatTools.INT32:
+				img = ArrayImgs.ints((IntAccess) access, dims);
+				break;
+			case FormatTools.UINT32:
+				img = ArrayImgs.unsignedInts((IntAccess) access, dims);
+				break;
+			case FormatTools.FLOAT:
+				img = ArrayImgs.floats((FloatAccess) access, dims);
+				break;
+			default:
+				img = ArrayImgs.doubles((DoubleAccess) access, dims);
+				break;
+		}
+		return (ArrayImg<T, ?>) img;
+	}
+
+	/**
+	 * Creates an access to the pixels of the given plane: a {@link ByteAccess},
+	 * {@link ShortAccess}, {@link IntAccess}, {@link FloatAccess} or
+	 * {@link DoubleAccess} depending on its pixel type.
+	 *
+	 * @throws IllegalArgumentException If the pixel type is not supported.
+	 */
+	public static Object access(final ByteBufferPlane plane) {
+		final ByteBuffer[] segments = plane.getSegments();
+		final int pixelType = plane.getImageMetadata().getPixelType();
+		switch (pixelType) {
+			case FormatTools.INT8:
+			case FormatTools.UINT8:
+				return new Bytes(segments);
+			case FormatTools.INT16:
+			case FormatTools.UINT16:
+				return new Shorts(segments);
+			case FormatTools.INT32:
+			case FormatTools.UINT32:
+				return new Ints(segments);
+			case FormatTools.FLOAT:
+				return new Floats(segments);
+			case FormatTools.DOUBLE:
+				return new Doubles(segments);
+			default:
+				throw new IllegalArgumentException("Unsupported pixel type: " +
+					FormatTools.getPixelTypeString(pixelType));
+		}
+	}
+
+	// -- Helper classes --
+
+	/**
+	 * Access to the segments of a plane. As segments span a power of two bytes,
+	 * no value spans two of them.
+	 */
+	private abstract static class SegmentAccess {
+
+		private final ByteBuffer[] segments;
+
+		private final int shift;
+
+		private SegmentAccess(final ByteBuffer[] segments, final int bytes) {
+			this.segments = segments;
+			shift = Integer.numberOfTrailingZeros(bytes);
+		}
+
+		/** Segment holding the value of the given index. */
+		protected ByteBuffer segment(final int index) {
+			final long pos = (long) index << shift;
+			return segments[(int) (pos >>> ByteBufferPlane.SEGMENT_BITS)];
+		}
+
+		/** Offset of the value of the given index within its segment. */
+		protected int offset(final int index) {
+			final long pos = (long) index << shift;
+			return (int) (pos & (ByteBufferPlane.SEGMENT_SIZE - 1));
+		}
+	}
+
+	private static final class Bytes extends SegmentAccess implements
+		ByteAccess
+	{
+
+		private Bytes(final ByteBuffer[] segments) {
+			super(segments, Byte.BYTES);
+		}
+
+		@Override
+		public byte getValue(final int index) {
+			return segment(index).get(offset(index));
+		}
+
+		@Override
+		public void setValue(final int index, final byte value) {
+			segment(index).put(offset(index), value);
+		}
+	}
+
+	private static final class Shorts extends SegmentAccess implements
+		ShortAccess
+	{
+
+		private Shorts(final ByteBuffer[] segments) {
+			super(segments, Short.BYTES);
+		}
+
+		@Override
+		public short getValue(final int index) {
+			return segment(index).getShort(offset(index));
+		}
+
+		@Override
+		public void setValue(final int index, final short value) {
+			segment(index).putShort(offset(index), value);
+		}
+	}
+
+	private static final class Ints extends SegmentAccess implements IntAccess {
+
+		private Ints(final ByteBuffer[] segments) {
+			super(segments, Integer.BYTES);
+		}
+
+		@Override
+		public int getValue(final int index) {
+			return segment(index).getInt(offset(index));
+		}
+
+		@Override
+		public void setValue(final int index, final int value) {
+			segment(index).putInt(offset(index), value);
+		}
+	}
+
+	private static final class Floats extends SegmentAccess implements
+		FloatAccess
+	{
+
+		private Floats(final ByteBuffer[] segments) {
+			super(segments, Float.BYTES);
+		}
+
+		@Override
+		public float getValue(final int index) {
+			return segment(index).getFloat(offset(index));
+		}
+
+		@Override
+		public void setValue(final int index, final float value) {
+			segment(index).putFloat(offset(index), value);
+		}
+	}
+
+	private static final class Doubles extends SegmentAccess implements
+		DoubleAccess
+	{
+
+		private Doubles(final ByteBuffer[] segments) {
+			super(segments, Double.BYTES);
+		}
+
+		@Override
+		public double getValue(final int index) {
+			return segment(index).getDouble(offset(index));
+		}
+
+		@Override
+		public void setValue(final int index, final double value) {
+			segment(index).putDouble(offset(index), value);
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.services;
+
+import io.scif.SCIFIOService;
+import io.scif.config.SCIFIOConfig;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+import org.scijava.io.location.BrowsableLocation;
+import org.scijava.io.location.Location;
+
+/**
+ * Converts many image files at once, each file read and written whole by one
+ * of a pool of workers.
+ * <p>
+ * Workers take files from each other as they finish, reuse their
+ * {@link io.scif.Reader}s and {@link io.scif.Writer}s from file to file, and
+ * share the formats detected for each file extension. A file is only started
+ * once there is memory available for its planes. A failure converting one file
+ * is recorded in its {@link Report} and does not stop the others.
+ * </p>
+ */
+public interface BatchConversionService extends SCIFIOService {
+
+	/**
+	 * As {@link #convert(Collection, Function, SCIFIOConfig, int)} with default
+	 * configuration and one worker per processor.
+	 */
+	List<Report> convert(Collection<? extends Location> sources,
+		Function<Location, Location> destinations);
+
+	/**
+	 * As {@link #convert(Collection, Function, SCIFIOConfig, int)}, writing each
+	 * source to the given directory, under its own name with the extension
+	 * replaced.
+	 *
+	 * @param directory Directory in which to write the converted files.
+	 * @param extension Extension, without the dot, giving the output format.
+	 * @throws IOException if a destination can not be created in the directory.
+	 */
+	List<Report> convert(Collection<? extends Location> sources,
+		BrowsableLocation directory, String extension) throws IOException;
+
+	/**
+	 * Converts each source to its destination.
+	 *
+	 * @param sources The image sources to convert.
+	 * @param destinations Gives the destination for each source. Its output
+	 *          format follows from its extension.
+	 * @param config Configuration used when opening and writing each file.
+	 * @param workers Number of files to convert at a time.
+	 * @return A {@link Report} for each source, in the order given.
+	 */
+	List<Report> convert(Collection<? extends Location> sources,
+		Function<Location, Location> destinations, SCIFIOConfig config,
+		int workers);
+
+	/** Outcome and timing of the conversion of one file. */
+	final class Report {
+
+		private final Location source;
+
+		private final Location destination;
+
+		private final long elapsedTime;
+
+		private final long bytes;
+
+		private final Exception error;
+
+		public Report(final Location source, final Location destination,
+			final long elapsedTime, final long bytes, final Exception error)
+		{
+			this.source = source;
+			this.destination = destination;
+			this.elapsedTime = elapsedTime;
+			this.bytes = bytes;
+			this.error = error;
+		}
+
+		/** @return The converted source. */
+		public Location getSource() {
+			return source;
+		}
+
+		/** @return Where the source was written. */
+		public Location getDestination() {
+			return destination;
+		}
+
+		/** @return Time spent converting the file, in milliseconds. */
+		public long getElapsedTime() {
+			return elapsedTime;
+		}
+
+		/** @return Number of pixel bytes written. */
+		public long getBytes() {
+			return bytes;
+		}
+
+		/** @return The reason the conversion failed, or null if it succeeded. */
+		public Exception getError() {
+			return error;
+		}
+
+		/** @return True iff the file was converted. */
+		public boolean isSuccess() {
+			return error == null;
+		}
+
+		@Override
+		public String toString() {
+			return source + " -> " + destination + ": " +
+				(error == null ? bytes + " bytes in " + elapsedTime + " ms" : error
+					.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,367 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.services;
+
+import io.scif.Checker;
+import io.scif.DefaultReader;
+import io.scif.Format;
+import io.scif.FormatException;
+import io.scif.ImageMetadata;
+import io.scif.Metadata;
+import io.scif.Plane;
+import io.scif.Reader;
+import io.scif.Writer;
+import io.scif.config.SCIFIOConfig;
+import io.scif.util.MemoryTools;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+import org.scijava.Priority;
+import org.scijava.io.location.BrowsableLocation;
+import org.scijava.io.location.Location;
+import org.scijava.log.LogService;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.service.AbstractService;
+import org.scijava.service.Service;
+
+/**
+ * Default {@link BatchConversionService} implementation, running the files of
+ * a batch as {@link ForkJoinPool} tasks.
+ *
+ * @see io.scif.services.BatchConversionService
+ */
+@Plugin(type = Service.class, priority = Priority.LOW)
+public class DefaultBatchConversionService extends AbstractService implements
+	BatchConversionService
+{
+
+	// -- Parameters --
+
+	@Parameter
+	private FormatService formatService;
+
+	@Parameter
+	private TranslatorService translatorService;
+
+	@Parameter
+	private LogService log;
+
+	// -- Fields --
+
+	/** Last format detected for each source extension. */
+	private final Map<String, Format> formatsBySuffix =
+		new ConcurrentHashMap<>();
+
+	/** Memory reserved by the files being converted, in bytes. */
+	private long reserved;
+
+	// -- BatchConversionService API Methods --
+
+	@Override
+	public List<Report> convert(final Collection<? extends Location> sources,
+		final Function<Location, Location> destinations)
+	{
+		return convert(sources, destinations, new SCIFIOConfig().checkerSetOpen(
+			false), Runtime.getRuntime().availableProcessors());
+	}
+
+	@Override
+	public List<Report> convert(final Collection<? extends Location> sources,
+		final BrowsableLocation directory, final String extension)
+		throws IOException
+	{
+		final Map<Location, Location> destinations = new HashMap<>();
+		for (final Location source : sources) {
+			final String name = source.getName();
+			final int dot = name.lastIndexOf('.');
+			destinations.put(source, directory.child((dot < 0 ? name : name
+				.substring(0, dot)) + "." + extension));
+		}
+		return convert(sources, destinations::get);
+	}
+
+	@Override
+	public List<Report> convert(final Collection<? extends Location> sources,
+		final Function<Location, Location> destinations, final SCIFIOConfig config,
+		final int workers)
+	{
+		final Location[] files = sources.toArray(new Location[sources.size()]);
+		final Report[] reports = new Report[files.length];
+		if (files.length == 0) return new ArrayList<>();
+
+		final List<Worker> allWorkers = new ArrayList<>();
+		final ThreadLocal<Worker> worker = ThreadLocal.withInitial(() -> {
+			final Worker w = new Worker();
+			synchronized (allWorkers) {
+				allWorkers.add(w);
+			}
+			return w;
+		});
+
+		final ForkJoinPool pool = new ForkJoinPool(Math.max(1, workers));
+		try {
+			pool.invoke(new Batch(0, files.length, i -> reports[i] = worker.get()
+				.convert(files[i], destinations, config)));
+		}
+		finally {
+			pool.shutdown();
+			for (final Worker w : allWorkers) {
+				w.dispose();
+			}
+		}
+		return new ArrayList<>(Arrays.asList(reports));
+	}
+
+	// -- Helper methods --
+
+	private static String suffix(final Location location) {
+		final String name = location.getName();
+		final int dot = name == null ? -1 : name.lastIndexOf('.');
+		return dot < 0 ? "" : name.substring(dot + 1).toLowerCase();
+	}
+
+	/**
+	 * Blocks until the given number of bytes fits in the available memory
+	 * alongside those reserved by the other files. A file is always admitted
+	 * when no other file holds memory, so that large files still proceed, and
+	 * a waiting file is woken whenever another releases its memory.
+	 */
+	private synchronized void reserve(final long bytes)
+		throws InterruptedException
+	{
+		while (reserved > 0 && reserved + bytes > MemoryTools
+			.totalAvailableMemory())
+		{
+			wait();
+		}
+		reserved += bytes;
+	}
+
+	private synchronized void release(final long bytes) {
+		reserved -= bytes;
+		notifyAll();
+	}
+
+	// -- Helper classes --
+
+	/** Action converting one file of a batch. */
+	@FunctionalInterface
+	private interface FileAction {
+
+		void run(int index);
+	}
+
+	/** Splits a range of files until each is its own task. */
+	private static class Batch extends RecursiveAction {
+
+		private final int start;
+
+		private final int end;
+
+		private final FileAction action;
+
+		private Batch(final int start, final int end, final FileAction action) {
+			this.start = start;
+			this.end = end;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start == 1) {
+				action.run(start);
+				return;
+			}
+			final int mid = (start + end) >>> 1;
+			invokeAll(new Batch(start, mid, action), new Batch(mid, end, action));
+		}
+	}
+
+	/**
+	 * State of one pool thread: the checkers, readers and writers it has
+	 * created, by format, for reuse by its next files.
+	 */
+	private class Worker {
+
+		private final Map<Format, Checker> checkers = new HashMap<>();
+
+		private final Map<Format, Reader> readers = new HashMap<>();
+
+		private final Map<Format, Writer> writers = new HashMap<>();
+
+		private Report convert(final Location source,
+			final Function<Location, Location> destinations,
+			final SCIFIOConfig config)
+		{
+			final long start = System.nanoTime();
+			Location dest = null;
+			Reader reader = null;
+			Writer writer = null;
+			long bytes = 0;
+			long memory = 0;
+			long admitted = 0;
+			Exception error = null;
+			try {
+				dest = destinations.apply(source);
+
+				final Format sFormat = getFormat(source, config);
+				reader = readers.remove(sFormat);
+				if (reader == null) reader = sFormat.createReader();
+				if (reader.getClass() == DefaultReader.class) {
+					throw new IOException("Format is write-only!");
+				}
+				reader.setSource(source, config);
+
+				final Format dFormat = formatService.getWriterForLocation(dest)
+					.getFormat();
+				writer = writers.remove(dFormat);
+				if (writer == null) writer = dFormat.createWriter();
+				writer.setMetadata(destinationMetadata(reader.getMetadata(), dFormat,
+					dest));
+				writer.setDest(dest, config);
+
+				// reserve room for a plane of each image being read and written
+				final Metadata meta = reader.getMetadata();
+				for (int i = 0; i < meta.getImageCount(); i++) {
+					memory = Math.max(memory, 2 * meta.get(i).getPlaneSize());
+				}
+				reserve(memory);
+				admitted = memory;
+
+				for (int i = 0; i < meta.getImageCount(); i++) {
+					final ImageMetadata iMeta = meta.get(i);
+					Plane plane = null;
+					for (long j = 0; j < iMeta.getPlaneCount(); j++) {
+						plane = plane == null ? reader.openPlane(i, j, config) : reader
+							.openPlane(i, j, plane, config);
+						writer.savePlane(i, j, plane);
+						bytes += iMeta.getPlaneSize();
+					}
+				}
+				writer.close();
+				reader.close();
+				writers.put(dFormat, writer);
+				readers.put(sFormat, reader);
+			}
+			catch (final FormatException | IOException | RuntimeException e) {
+				error = e;
+			}
+			catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				error = e;
+			}
+			finally {
+				if (admitted > 0) release(admitted);
+			}
+			if (error != null) {
+				// drop the failed reader and writer, as their state is unknown
+				close(reader, writer);
+				log.debug("Could not convert " + source, error);
+			}
+			return new Report(source, dest, (System.nanoTime() - start) / 1000000,
+				bytes, error);
+		}
+
+		/**
+		 * Finds the format of a source, trying the format last found for its
+		 * extension before a full detection.
+		 */
+		private Format getFormat(final Location source,
+			final SCIFIOConfig config) throws FormatException
+		{
+			final String suffix = suffix(source);
+			final Format cached = formatsBySuffix.get(suffix);
+			if (cached != null) {
+				Checker checker = checkers.get(cached);
+				if (checker == null) {
+					checker = cached.createChecker();
+					checkers.put(cached, checker);
+				}
+				if (checker.isFormat(source, config)) return cached;
+			}
+			final Format format = formatService.getFormat(source, config);
+			if (format == null) {
+				throw new FormatException("No format found for: " + source);
+			}
+			formatsBySuffix.put(suffix, format);
+			return format;
+		}
+
+		/**
+		 * Translates the metadata of the source into new metadata of the
+		 * destination format. This holds even when both formats are the same,
+		 * as the writer changes its metadata, and the source metadata belongs to
+		 * a reader kept for later files.
+		 */
+		private Metadata destinationMetadata(final Metadata sourceMeta,
+			final Format dFormat, final Location dest) throws FormatException
+		{
+			final Metadata destMeta = dFormat.createMetadata();
+			translatorService.translate(sourceMeta, destMeta, false);
+			destMeta.setDatasetName(dest.getName());
+			return destMeta;
+		}
+
+		private void close(final Reader reader, final Writer writer) {
+			try {
+				if (writer != null) writer.close();
+			}
+			catch (final IOException e) {
+				log.debug(e);
+			}
+			try {
+				if (reader != null) reader.close();
+			}
+			catch (final IOException e) {
+				log.debug(e);
+			}
+		}
+
+		private void dispose() {
+			for (final Reader reader : readers.values()) {
+				close(reader, null);
+			}
+			for (final Writer writer : writers.values()) {
+				close(null, writer);
+			}
+		}
+	}
+}
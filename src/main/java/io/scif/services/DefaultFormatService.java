@@ -50,17 +50,20 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.scijava.app.AppService;
+import org.scijava.event.EventHandler;
 import org.scijava.io.handle.DataHandle;
 import org.scijava.io.location.Location;
 import org.scijava.io.location.RemoteLocation;
-import org.scijava.log.LogService;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
 import org.scijava.plugin.PluginService;
 import org.scijava.service.AbstractService;
 import org.scijava.service.Service;
+import org.scijava.service.event.ServicesLoadedEvent;
 import org.scijava.thread.ThreadService;
 
 /**
@@ -74,6 +77,12 @@ public class DefaultFormatService extends AbstractService implements
 	FormatService
 {
 
+	/**
+	 * System property which, when set to {@code true}, skips the background
+	 * loading of formats. They are then only instantiated when first needed.
+	 */
+	public static final String LAZY_PROPERTY = "scifio.formats.lazy";
+
 	// -- Parameters --
 
 	@Parameter
@@ -85,9 +94,6 @@ public class DefaultFormatService extends AbstractService implements
 	@Parameter
 	private ThreadService threadService;
 
-	@Parameter
-	private LogService logService;
-
 	// -- Fields --
 
 	/*
@@ -134,8 +140,14 @@ public class DefaultFormatService extends AbstractService implements
 
 	private boolean dirtyFormatCache = false;
 
+	// Whether the component maps have been filled from the known formats.
+	private volatile boolean componentsIndexed = false;
+
 	// Flag to mark if this service has been initialized or not.
-	private boolean initialized = false;
+	private volatile boolean initialized = false;
+
+	// Loads the formats once, either in the background or on first access.
+	private FutureTask<Void> loader;
 
 	// If this value returns true, the current thread has permission to access
 	// uninitialized data structures.
@@ -172,7 +184,7 @@ public class DefaultFormatService extends AbstractService implements
 			if (formatMap().get(format.getClass()) == null) {
 				formats().add(format);
 				formatMap().put(format.getClass(), format);
-				addComponents(format);
+				if (componentsIndexed) putComponents(format);
 			}
 		}
 
@@ -182,19 +194,19 @@ public class DefaultFormatService extends AbstractService implements
 
 	@Override
 	public boolean removeFormat(final Format format) {
-		removeComponents(format);
-		formatMap().remove(format.getClass());
-		dirtyFormatCache = true;
-		return formats().remove(format);
+		if (componentsIndexed) removeComponents(format);
+		synchronized (formats) {
+			// synchronized lock to protect format removal
+			formatMap().remove(format.getClass());
+			dirtyFormatCache = true;
+			return formats().remove(format);
+		}
 	}
 
 	@Override
 	public void addComponents(final Format format) {
-		checkerMap().put(format.getCheckerClass(), format);
-		parserMap().put(format.getParserClass(), format);
-		readerMap().put(format.getReaderClass(), format);
-		writerMap().put(format.getWriterClass(), format);
-		metadataMap().put(format.getMetadataClass(), format);
+		checkComponents();
+		putComponents(format);
 	}
 
 	@Override
@@ -428,43 +440,55 @@ public class DefaultFormatService extends AbstractService implements
 
 	@Override
 	public void initialize() {
-		// TODO replace with preload implementation.
-		// See https://github.com/scijava/scijava-common/issues/145
-		threadService.run(() -> {
+		formats = new TreeSet<>();
+		formatMap = new HashMap<>();
+		checkerMap = new HashMap<>();
+		parserMap = new HashMap<>();
+		readerMap = new HashMap<>();
+		writerMap = new HashMap<>();
+		metadataMap = new HashMap<>();
+		formatCache = new WeakHashMap<>();
+
+		// NB: Formats with a FormatService parameter can only be injected once
+		// this service is registered with the context, which happens after this
+		// method returns. So the formats are loaded by whichever comes first:
+		// the background task started when all services are loaded, or the
+		// first call needing them.
+		loader = new FutureTask<>(() -> {
 			// Allow this thread to bypass the initialization check
 			threadLock.set(true);
-
-			formats = new TreeSet<>();
-			formatMap = new HashMap<>();
-			checkerMap = new HashMap<>();
-			parserMap = new HashMap<>();
-			readerMap = new HashMap<>();
-			writerMap = new HashMap<>();
-			metadataMap = new HashMap<>();
-			formatCache = new WeakHashMap<>();
-
-			// HACK: Wait until the FormatService is available from the context
-			// before initializing all the formats. Otherwise, any Format that
-			// has the FormatService as a parameter will fail to inject.
-			// TODO: Fix this to be less nightmarish.
-			while (context().getService(DefaultFormatService.class) == null) {
-				try {
-					Thread.sleep(50);
+			try {
+				for (final Format format : pluginService.createInstancesOfType(
+					Format.class))
+				{
+					addFormat(format);
 				}
-				catch (final InterruptedException exc) {}
 			}
-
-			// Initialize format information
-			for (final Format format : pluginService
-					.createInstancesOfType(Format.class))
-			{
-				addFormat(format);
+			finally {
+				threadLock.set(false);
 			}
-
 			initialized = true;
+			return null;
 		});
 	}
 
+	// -- Event handlers --
+
+	/** Loads the formats in the background, unless they are loaded lazily. */
+	@EventHandler
+	protected void onEvent(final ServicesLoadedEvent evt) {
+		if (!initialized && !Boolean.getBoolean(LAZY_PROPERTY)) {
+			threadService.run(loader);
+		}
+	}
+
+	// -- DefaultFormatService methods --
+
+	/** Gets whether the formats have been loaded, without loading them. */
+	boolean isLoaded() {
+		return initialized;
+	}
+
 	// -- Private Methods --
 
 	private Set<Format> formats() {
@@ -478,27 +502,27 @@ public class DefaultFormatService extends AbstractService implements
 	}
 
 	private Map<Class<?>, Format> checkerMap() {
-		checkLock();
+		checkComponents();
 		return checkerMap;
 	}
 
 	private Map<Class<?>, Format> parserMap() {
-		checkLock();
+		checkComponents();
 		return parserMap;
 	}
 
 	private Map<Class<?>, Format> readerMap() {
-		checkLock();
+		checkComponents();
 		return readerMap;
 	}
 
 	private Map<Class<?>, Format> writerMap() {
-		checkLock();
+		checkComponents();
 		return writerMap;
 	}
 
 	private Map<Class<?>, Format> metadataMap() {
-		checkLock();
+		checkComponents();
 		return metadataMap;
 	}
 
@@ -516,6 +540,33 @@ public class DefaultFormatService extends AbstractService implements
 		return formatCache;
 	}
 
+	/**
+	 * Fills the component maps from the known formats, the first time any of
+	 * them is needed. Until then, formats need not discover their components.
+	 */
+	private void checkComponents() {
+		checkLock();
+		if (componentsIndexed) return;
+		synchronized (formats) {
+			if (!componentsIndexed) {
+				// NB: Iterate over a snapshot of the formats.
+				for (final Format format : new ArrayList<>(formats)) {
+					putComponents(format);
+				}
+				componentsIndexed = true;
+			}
+		}
+	}
+
+	/** Maps the component classes of the given format to the format. */
+	private void putComponents(final Format format) {
+		checkerMap.put(format.getCheckerClass(), format);
+		parserMap.put(format.getParserClass(), format);
+		readerMap.put(format.getReaderClass(), format);
+		writerMap.put(format.getWriterClass(), format);
+		metadataMap.put(format.getMetadataClass(), format);
+	}
+
 	/**
 	 * Helper method that checks if one of these is true:
 	 * <ul>
@@ -523,24 +574,27 @@ public class DefaultFormatService extends AbstractService implements
 	 * initialization</li>
 	 * <li>The FormatService is initialized</li>
 	 * </ul>
-	 * If either is true, returns harmlessly. If not, this thread waits for the
-	 * initialization thread to complete.
+	 * If either is true, returns harmlessly. If not, this thread loads the
+	 * formats itself, or waits for the thread already loading them.
+	 *
+	 * @throws IllegalStateException If the formats could not be loaded.
 	 */
 	private void checkLock() {
-		if (!(initialized || threadLock.get())) {
-			synchronized (this) {
-				// Double locked to avoid missing signals
-				while (!(initialized || threadLock.get())) {
-					try {
-						// Limit excessive polling
-						Thread.sleep(100);
-					}
-					catch (final InterruptedException e) {
-						logService.error("DefaultFormatService: " +
-							"Interrupted while waiting for format initialization.", e);
-					}
-				}
-			}
+		if (initialized || threadLock.get()) return;
+		// NB: Runs the loader if no thread has started it yet; otherwise this
+		// is a no-op and get() blocks until the loading thread is done.
+		loader.run();
+		try {
+			loader.get();
+		}
+		catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("DefaultFormatService: " +
+				"Interrupted while waiting for format initialization.", e);
+		}
+		catch (final ExecutionException e) {
+			throw new IllegalStateException("DefaultFormatService: " +
+				"Format initialization failed.", e.getCause());
 		}
 	}
 }
@@ -0,0 +1,480 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.services;
+
+import io.scif.AbstractMetadata;
+import io.scif.CacheableMetadata;
+import io.scif.DefaultImageMetadata;
+import io.scif.DefaultMetaTable;
+import io.scif.Format;
+import io.scif.ImageMetadata;
+import io.scif.MetaTable;
+import io.scif.Metadata;
+import io.scif.config.SCIFIOConfig;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.imagej.axis.Axes;
+import net.imagej.axis.AxisType;
+import net.imagej.axis.CalibratedAxis;
+import net.imagej.axis.DefaultLinearAxis;
+import net.imagej.axis.LinearAxis;
+
+import org.scijava.io.handle.DataHandle;
+import org.scijava.io.handle.DataHandleService;
+import org.scijava.io.location.Location;
+import org.scijava.log.LogService;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.service.AbstractService;
+import org.scijava.service.Service;
+import org.scijava.util.DigestUtils;
+
+/**
+ * Default {@link MetadataCacheService} implementation.
+ * <p>
+ * Each entry holds the serialized format-specific {@link Metadata}, followed
+ * by its {@link ImageMetadata}, which are written field by field since they
+ * are not serializable. Entries are kept in memory as bytes, so each restore
+ * yields a fresh copy, and are written to the on-disk store as they are.
+ * </p>
+ *
+ * @see io.scif.services.MetadataCacheService
+ */
+@Plugin(type = Service.class)
+public class DefaultMetadataCacheService extends AbstractService implements
+	MetadataCacheService
+{
+
+	// -- Constants --
+
+	/** Version of the entry layout, to be bumped whenever it changes. */
+	private static final int VERSION = 1;
+
+	/** Suffix of the entries in the on-disk store. */
+	private static final String SUFFIX = ".scmeta";
+
+	/** Upper bound on the size of the entries kept in memory. */
+	private static final long MAX_MEMORY_BYTES = 64L << 20;
+
+	// -- Parameters --
+
+	@Parameter
+	private DataHandleService dataHandleService;
+
+	@Parameter
+	private LogService log;
+
+	// -- Fields --
+
+	/* Serialized entries by key, least recently used first. */
+	private final Map<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f,
+		true);
+
+	/* Total size of the entries kept in memory. */
+	private long memoryBytes;
+
+	/* Directory of the on-disk store, if any. */
+	private volatile File directory;
+
+	// -- MetadataCacheService API Methods --
+
+	@Override
+	public Metadata restore(final Format format,
+		final DataHandle<Location> handle, final SCIFIOConfig config)
+	{
+		if (!CacheableMetadata.class.isAssignableFrom(format.getMetadataClass())) {
+			return null;
+		}
+		final String key = key(format, handle.get(), config);
+		if (key == null) return null;
+
+		byte[] bytes = get(key);
+		if (bytes == null) {
+			bytes = readEntry(key);
+			if (bytes == null) return null;
+			put(key, bytes);
+		}
+
+		try {
+			return decode(format, key, bytes);
+		}
+		catch (final IOException | ClassNotFoundException | ClassCastException e) {
+			log.debug("Discarding cached metadata of " + handle.get(), e);
+			remove(key);
+			return null;
+		}
+	}
+
+	@Override
+	public void store(final DataHandle<Location> handle, final Metadata meta,
+		final SCIFIOConfig config)
+	{
+		if (!(meta instanceof CacheableMetadata)) return;
+		final String key = key(meta.getFormat(), handle.get(), config);
+		if (key == null) return;
+
+		final byte[] bytes;
+		try {
+			bytes = encode(key, meta);
+		}
+		catch (final IOException e) {
+			log.debug("Metadata of " + handle.get() + " cannot be cached", e);
+			return;
+		}
+		put(key, bytes);
+		writeEntry(key, bytes);
+	}
+
+	@Override
+	public void setDirectory(final File directory) {
+		this.directory = directory;
+	}
+
+	@Override
+	public File getDirectory() {
+		return directory;
+	}
+
+	@Override
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+			memoryBytes = 0;
+		}
+		final File dir = directory;
+		final File[] files = dir == null ? null : dir.listFiles((d,
+			name) -> name.endsWith(SUFFIX));
+		if (files == null) return;
+		for (final File file : files) {
+			if (!file.delete()) log.debug("Could not delete " + file);
+		}
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Builds the key of an entry. Besides the format and the source, it covers
+	 * the source's length and modification time, so that entries of modified
+	 * files are never hit, and the parser settings affecting the result.
+	 *
+	 * @return The key, or null if the source cannot be identified reliably.
+	 */
+	private String key(final Format format, final Location loc,
+		final SCIFIOConfig config)
+	{
+		final URI uri = loc.getURI();
+		if (format == null || uri == null) return null;
+		try (DataHandle<Location> stat = dataHandleService.create(loc)) {
+			if (stat == null || !stat.exists()) return null;
+			final Date modified = stat.lastModified();
+			if (modified == null) return null;
+			return format.getClass().getName() + "\t" + uri + "\t" + stat
+				.length() + "\t" + modified.getTime() + "\t" + config
+					.parserIsFiltered() + "\t" + config.parserGetLevel();
+		}
+		catch (final IOException e) {
+			log.debug("Could not identify " + loc, e);
+			return null;
+		}
+	}
+
+	private byte[] get(final String key) {
+		synchronized (entries) {
+			return entries.get(key);
+		}
+	}
+
+	private void put(final String key, final byte[] bytes) {
+		if (bytes.length > MAX_MEMORY_BYTES) return;
+		synchronized (entries) {
+			final byte[] old = entries.put(key, bytes);
+			if (old != null) memoryBytes -= old.length;
+			memoryBytes += bytes.length;
+			final Iterator<byte[]> iter = entries.values().iterator();
+			while (memoryBytes > MAX_MEMORY_BYTES && iter.hasNext()) {
+				memoryBytes -= iter.next().length;
+				iter.remove();
+			}
+		}
+	}
+
+	private void remove(final String key) {
+		synchronized (entries) {
+			final byte[] old = entries.remove(key);
+			if (old != null) memoryBytes -= old.length;
+		}
+		final File file = entryFile(key);
+		if (file != null) file.delete();
+	}
+
+	/** @return The file of the given entry, or null if there is no store. */
+	private File entryFile(final String key) {
+		final File dir = directory;
+		if (dir == null) return null;
+		return new File(dir, DigestUtils.hex(DigestUtils.sha1(DigestUtils.bytes(
+			key))) + SUFFIX);
+	}
+
+	private byte[] readEntry(final String key) {
+		final File file = entryFile(key);
+		if (file == null || !file.isFile()) return null;
+		try {
+			return Files.readAllBytes(file.toPath());
+		}
+		catch (final IOException e) {
+			log.debug("Could not read cached metadata " + file, e);
+			return null;
+		}
+	}
+
+	private void writeEntry(final String key, final byte[] bytes) {
+		final File file = entryFile(key);
+		if (file == null) return;
+		File tmp = null;
+		try {
+			Files.createDirectories(file.getParentFile().toPath());
+			tmp = File.createTempFile("scmeta", ".tmp", file.getParentFile());
+			Files.write(tmp.toPath(), bytes);
+			Files.move(tmp.toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (final IOException e) {
+			log.debug("Could not write cached metadata " + file, e);
+			if (tmp != null) tmp.delete();
+		}
+	}
+
+	private byte[] encode(final String key, final Metadata meta)
+		throws IOException
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeInt(VERSION);
+			out.writeUTF(key);
+			out.writeObject(meta);
+			out.writeInt(meta.getImageCount());
+			for (final ImageMetadata image : meta.getAll()) {
+				writeImage(out, image);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private Metadata decode(final Format format, final String key,
+		final byte[] bytes) throws IOException, ClassNotFoundException
+	{
+		try (ObjectInputStream in = new PluginObjectInputStream(
+			new ByteArrayInputStream(bytes), format))
+		{
+			// NB: Guards against colliding file names in the on-disk store.
+			if (in.readInt() != VERSION || !key.equals(in.readUTF())) return null;
+			final Metadata meta = (Metadata) in.readObject();
+			meta.setContext(getContext());
+			final int imageCount = in.readInt();
+			for (int i = 0; i < imageCount; i++) {
+				meta.add(readImage(in));
+			}
+			return meta;
+		}
+	}
+
+	private static void writeImage(final ObjectOutputStream out,
+		final ImageMetadata image) throws IOException
+	{
+		out.writeObject(image.getName());
+		out.writeInt(image.getPixelType());
+		out.writeInt(image.getBitsPerPixel());
+		out.writeBoolean(image.isOrderCertain());
+		out.writeBoolean(image.isLittleEndian());
+		out.writeBoolean(image.isIndexed());
+		out.writeBoolean(image.isFalseColor());
+		out.writeBoolean(image.isMetadataComplete());
+		out.writeBoolean(image.isThumbnail());
+		out.writeLong(image.getThumbSizeX());
+		out.writeLong(image.getThumbSizeY());
+		out.writeInt(image.getPlanarAxisCount());
+		out.writeInt(image.getInterleavedAxisCount());
+
+		final List<CalibratedAxis> axes = image.getAxes();
+		out.writeInt(axes.size());
+		for (final CalibratedAxis axis : axes) {
+			if (!(axis instanceof LinearAxis)) {
+				throw new NotSerializableException(axis.getClass().getName());
+			}
+			final LinearAxis linear = (LinearAxis) axis;
+			out.writeUTF(axis.type().getLabel());
+			out.writeBoolean(axis.type().isSpatial());
+			out.writeObject(axis.unit());
+			out.writeDouble(linear.scale());
+			out.writeDouble(linear.origin());
+			out.writeLong(image.getAxisLength(axis));
+		}
+		out.writeObject(image.getTable());
+	}
+
+	private static ImageMetadata readImage(final ObjectInputStream in)
+		throws IOException, ClassNotFoundException
+	{
+		final ImageMetadata image = new DefaultImageMetadata();
+		image.setName((String) in.readObject());
+		image.setPixelType(in.readInt());
+		image.setBitsPerPixel(in.readInt());
+		image.setOrderCertain(in.readBoolean());
+		image.setLittleEndian(in.readBoolean());
+		image.setIndexed(in.readBoolean());
+		image.setFalseColor(in.readBoolean());
+		image.setMetadataComplete(in.readBoolean());
+		image.setThumbnail(in.readBoolean());
+		image.setThumbSizeX(in.readLong());
+		image.setThumbSizeY(in.readLong());
+		final int planarAxisCount = in.readInt();
+		final int interleavedAxisCount = in.readInt();
+
+		final CalibratedAxis[] axes = new CalibratedAxis[in.readInt()];
+		final long[] lengths = new long[axes.length];
+		for (int i = 0; i < axes.length; i++) {
+			final String label = in.readUTF();
+			final AxisType type = Axes.get(label, in.readBoolean());
+			final String unit = (String) in.readObject();
+			final double scale = in.readDouble();
+			final double origin = in.readDouble();
+			axes[i] = new DefaultLinearAxis(type, unit, scale, origin);
+			lengths[i] = in.readLong();
+		}
+		image.setAxes(axes, lengths);
+		image.setPlanarAxisCount(planarAxisCount);
+		image.setInterleavedAxisCount(interleavedAxisCount);
+		image.setTable((MetaTable) in.readObject());
+		return image;
+	}
+
+	// -- Helper classes --
+
+	/**
+	 * Resolves classes with the class loader of the format first, since the
+	 * format may have been discovered by a different loader than SCIFIO.
+	 * <p>
+	 * Since entries may come from the on-disk store, only the classes cached
+	 * metadata are made of are resolved: the basic values and collections of
+	 * the JDK, the core SCIFIO metadata classes, and the classes of the format's
+	 * package and its subpackages. Anything else, including proxies, fails the
+	 * read before it is instantiated.
+	 * </p>
+	 */
+	private static class PluginObjectInputStream extends ObjectInputStream {
+
+		/** JDK classes which may be held by cached metadata. */
+		private static final Set<String> JDK_CLASSES = new HashSet<>(Arrays
+			.asList("java.lang.Boolean", "java.lang.Byte", "java.lang.Character",
+				"java.lang.Double", "java.lang.Enum", "java.lang.Float",
+				"java.lang.Integer", "java.lang.Long", "java.lang.Number",
+				"java.lang.Short", "java.lang.String", "java.math.BigDecimal",
+				"java.math.BigInteger", "java.util.ArrayList", "java.util.Date",
+				"java.util.HashMap", "java.util.HashSet", "java.util.Hashtable",
+				"java.util.LinkedHashMap", "java.util.LinkedHashSet",
+				"java.util.LinkedList"));
+
+		/** SCIFIO classes which may be held by any cached metadata. */
+		private static final Set<String> SCIFIO_CLASSES = new HashSet<>(Arrays
+			.asList(AbstractMetadata.class.getName(), DefaultMetaTable.class
+				.getName()));
+
+		private final ClassLoader loader;
+
+		/** Package of the format, whose classes are resolved too. */
+		private final String formatPackage;
+
+		public PluginObjectInputStream(final InputStream in, final Format format)
+			throws IOException
+		{
+			super(in);
+			loader = format.getClass().getClassLoader();
+			final String name = format.getClass().getName();
+			formatPackage = name.substring(0, name.lastIndexOf('.') + 1);
+		}
+
+		@Override
+		protected Class<?> resolveClass(final ObjectStreamClass desc)
+			throws IOException, ClassNotFoundException
+		{
+			if (!isAllowed(desc.getName())) {
+				throw new InvalidClassException(desc.getName(),
+					"Not allowed in cached metadata");
+			}
+			try {
+				return Class.forName(desc.getName(), false, loader);
+			}
+			catch (final ClassNotFoundException e) {
+				return super.resolveClass(desc);
+			}
+		}
+
+		@Override
+		protected Class<?> resolveProxyClass(final String[] interfaces)
+			throws IOException
+		{
+			throw new InvalidClassException("Proxies are not allowed in cached " +
+				"metadata");
+		}
+
+		private boolean isAllowed(final String name) {
+			if (name.startsWith("[")) {
+				// NB: Arrays are allowed if their elements are.
+				final String element = name.replaceFirst("^\\[+", "");
+				if (element.length() == 1) return true;
+				return element.startsWith("L") && element.endsWith(";") &&
+					isAllowed(element.substring(1, element.length() - 1));
+			}
+			return JDK_CLASSES.contains(name) || SCIFIO_CLASSES.contains(name) ||
+				!formatPackage.isEmpty() && name.startsWith(formatPackage);
+		}
+	}
+}
@@ -0,0 +1,379 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.services;
+
+import io.scif.ByteArrayPlane;
+import io.scif.DataPlane;
+import io.scif.ImageMetadata;
+import io.scif.Plane;
+import io.scif.util.FormatTools;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.imglib2.Interval;
+
+import org.scijava.log.LogService;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.service.AbstractService;
+import org.scijava.service.Service;
+
+/**
+ * Default {@link PlanePoolService} implementation.
+ * <p>
+ * Free buffers are kept in one queue per size class, up to the configured
+ * capacity, and by identity so that a buffer recycled twice is rejected
+ * rather than handed out to two callers. In debug mode, each buffer taken is
+ * watched through a weak reference remembering where it was taken, which is
+ * dropped when the buffer is recycled; references enqueued by the garbage
+ * collector are leaks.
+ * </p>
+ *
+ * @see io.scif.services.PlanePoolService
+ */
+@Plugin(type = Service.class)
+public class DefaultPlanePoolService extends AbstractService implements
+	PlanePoolService
+{
+
+	// -- Constants --
+
+	/** Default upper bound on the total size of the pooled buffers. */
+	private static final long DEFAULT_CAPACITY = 64L << 20;
+
+	// -- Parameters --
+
+	@Parameter
+	private LogService log;
+
+	// -- Fields --
+
+	/* Free arrays by length. */
+	private final Map<Integer, ArrayDeque<byte[]>> arrays = new HashMap<>();
+
+	/* Free heap buffers by capacity. */
+	private final Map<Integer, ArrayDeque<ByteBuffer>> heapBuffers =
+		new HashMap<>();
+
+	/* Free direct buffers by capacity. */
+	private final Map<Integer, ArrayDeque<ByteBuffer>> directBuffers =
+		new HashMap<>();
+
+	/* Free buffers of all kinds, by identity. */
+	private final Set<Object> pooled = Collections.newSetFromMap(
+		new IdentityHashMap<>());
+
+	/* Total size of the free buffers. */
+	private long pooledBytes;
+
+	private long capacity = DEFAULT_CAPACITY;
+
+	private long hits;
+
+	private long misses;
+
+	private long leaks;
+
+	private volatile boolean debug = Boolean.getBoolean(DEBUG_PROPERTY);
+
+	/* Buffers taken in debug mode, by identity hash code. */
+	private final Map<Integer, List<LeakRef>> taken = new HashMap<>();
+
+	private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+	// -- PlanePoolService API Methods --
+
+	@Override
+	public byte[] take(final int length) {
+		byte[] buffer;
+		synchronized (this) {
+			buffer = poll(arrays, length);
+			if (buffer != null) pooledBytes -= length;
+		}
+		if (buffer == null) buffer = new byte[length];
+		watch(buffer);
+		return buffer;
+	}
+
+	@Override
+	public ByteArrayPlane takePlane(final ImageMetadata meta,
+		final Interval bounds)
+	{
+		long length = FormatTools.getBytesPerPixel(meta.getPixelType());
+		for (int d = 0; d < bounds.numDimensions(); d++) {
+			length *= bounds.dimension(d);
+		}
+		if (length > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Plane too large: " + length +
+				" bytes");
+		}
+		final byte[] buffer = take((int) length);
+		// readers may leave parts of a plane untouched, e.g. missing tiles
+		Arrays.fill(buffer, (byte) 0);
+		return new ByteArrayPlane().populate(meta, buffer, bounds);
+	}
+
+	@Override
+	public ByteBuffer takeBuffer(final int capacity, final boolean direct) {
+		final int size = sizeClass(capacity);
+		ByteBuffer buffer;
+		synchronized (this) {
+			buffer = poll(direct ? directBuffers : heapBuffers, size);
+			if (buffer != null) pooledBytes -= size;
+		}
+		if (buffer == null) {
+			buffer = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(
+				size);
+		}
+		buffer.clear().limit(capacity);
+		watch(buffer);
+		return buffer;
+	}
+
+	@Override
+	public void recycle(final byte[] buffer) {
+		if (buffer == null) return;
+		unwatch(buffer);
+		synchronized (this) {
+			checkNotPooled(buffer);
+			if (pooledBytes + buffer.length > capacity) return;
+			offer(arrays, buffer.length, buffer);
+			pooledBytes += buffer.length;
+		}
+	}
+
+	@Override
+	public void recycle(final Plane plane) {
+		if (!(plane instanceof DataPlane)) return;
+		final Object data = ((DataPlane<?>) plane).getData();
+		if (!(data instanceof byte[])) return;
+		@SuppressWarnings("unchecked")
+		final DataPlane<byte[]> bytePlane = (DataPlane<byte[]>) plane;
+		bytePlane.setData(null);
+		recycle((byte[]) data);
+	}
+
+	@Override
+	public void recycle(final ByteBuffer buffer) {
+		if (buffer == null) return;
+		unwatch(buffer);
+		final int size = buffer.capacity();
+		// buffers not taken from this pool may fall outside the size classes
+		if (size != sizeClass(size)) return;
+		synchronized (this) {
+			checkNotPooled(buffer);
+			if (pooledBytes + size > capacity) return;
+			offer(buffer.isDirect() ? directBuffers : heapBuffers, size, buffer);
+			pooledBytes += size;
+		}
+	}
+
+	@Override
+	public synchronized void setCapacity(final long bytes) {
+		capacity = bytes;
+		if (pooledBytes > capacity) drop();
+	}
+
+	@Override
+	public synchronized long getCapacity() {
+		return capacity;
+	}
+
+	@Override
+	public void setDebug(final boolean debug) {
+		this.debug = debug;
+	}
+
+	@Override
+	public boolean isDebug() {
+		return debug;
+	}
+
+	@Override
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	@Override
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	@Override
+	public synchronized double getHitRate() {
+		final long requests = hits + misses;
+		return requests == 0 ? 0 : (double) hits / requests;
+	}
+
+	@Override
+	public long getLeaks() {
+		pollLeaks();
+		synchronized (this) {
+			return leaks;
+		}
+	}
+
+	@Override
+	public void clear() {
+		pollLeaks();
+		synchronized (this) {
+			drop();
+			hits = misses = leaks = 0;
+		}
+		synchronized (taken) {
+			taken.clear();
+		}
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Rounds the given capacity up to its size class, the next power of two.
+	 */
+	private static int sizeClass(final int capacity) {
+		if (capacity <= 1) return 1;
+		final int size = Integer.highestOneBit(capacity - 1) << 1;
+		// capacities beyond the largest power of two form their own class
+		return size <= 0 ? capacity : size;
+	}
+
+	/** Takes a free buffer of the given size class, counting hits and misses. */
+	private <T> T poll(final Map<Integer, ArrayDeque<T>> pool, final int size) {
+		final ArrayDeque<T> queue = pool.get(size);
+		final T buffer = queue == null ? null : queue.poll();
+		if (buffer == null) misses++;
+		else {
+			hits++;
+			pooled.remove(buffer);
+		}
+		return buffer;
+	}
+
+	private <T> void offer(final Map<Integer, ArrayDeque<T>> pool,
+		final int size, final T buffer)
+	{
+		pool.computeIfAbsent(size, s -> new ArrayDeque<>()).push(buffer);
+		pooled.add(buffer);
+	}
+
+	/**
+	 * Rejects a buffer which is already free, as pooling it again would hand it
+	 * out to two callers at once.
+	 *
+	 * @throws IllegalArgumentException If the buffer is already in the pool.
+	 */
+	private void checkNotPooled(final Object buffer) {
+		if (pooled.contains(buffer)) {
+			throw new IllegalArgumentException("Buffer recycled twice");
+		}
+	}
+
+	/** Drops all free buffers. */
+	private void drop() {
+		arrays.clear();
+		heapBuffers.clear();
+		directBuffers.clear();
+		pooled.clear();
+		pooledBytes = 0;
+	}
+
+	/** Starts watching a buffer taken in debug mode. */
+	private void watch(final Object buffer) {
+		pollLeaks();
+		if (!debug) return;
+		final LeakRef ref = new LeakRef(buffer, collected);
+		synchronized (taken) {
+			taken.computeIfAbsent(ref.hash, h -> new ArrayList<>()).add(ref);
+		}
+	}
+
+	/** Stops watching a buffer which is being recycled. */
+	private void unwatch(final Object buffer) {
+		pollLeaks();
+		final Integer hash = System.identityHashCode(buffer);
+		synchronized (taken) {
+			final List<LeakRef> refs = taken.get(hash);
+			if (refs == null) return;
+			for (final Iterator<LeakRef> iter = refs.iterator(); iter.hasNext();) {
+				final LeakRef ref = iter.next();
+				if (ref.get() != buffer) continue;
+				ref.clear();
+				iter.remove();
+				break;
+			}
+			if (refs.isEmpty()) taken.remove(hash);
+		}
+	}
+
+	/** Reports the watched buffers collected without having been recycled. */
+	private void pollLeaks() {
+		LeakRef ref;
+		while ((ref = (LeakRef) collected.poll()) != null) {
+			synchronized (taken) {
+				final List<LeakRef> refs = taken.get(ref.hash);
+				if (refs == null || !refs.remove(ref)) continue;
+				if (refs.isEmpty()) taken.remove(ref.hash);
+			}
+			synchronized (this) {
+				leaks++;
+			}
+			log.warn("Plane buffer garbage collected without being recycled; " +
+				"it was taken at:", ref.origin);
+		}
+	}
+
+	// -- Helper classes --
+
+	/** Weak reference to a buffer taken in debug mode. */
+	private static class LeakRef extends WeakReference<Object> {
+
+		private final Integer hash;
+
+		private final Throwable origin;
+
+		private LeakRef(final Object buffer, final ReferenceQueue<Object> queue) {
+			super(buffer, queue);
+			hash = System.identityHashCode(buffer);
+			origin = new Throwable("Buffer taken");
+		}
+	}
+}
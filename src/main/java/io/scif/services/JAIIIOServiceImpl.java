@@ -136,6 +136,9 @@ public class JAIIIOServiceImpl extends AbstractService implements
 		if (options.resolution != null) {
 			param.setResolution(options.resolution.intValue());
 		}
+		if (options.region != null) {
+			param.setSourceRegion(options.region);
+		}
 		return reader.read(0, param);
 	}
 
@@ -159,6 +162,9 @@ public class JAIIIOServiceImpl extends AbstractService implements
 		if (options.resolution != null) {
 			param.setResolution(options.resolution.intValue());
 		}
+		if (options.region != null) {
+			param.setSourceRegion(options.region);
+		}
 		return reader.readRaster(0, param);
 	}
 
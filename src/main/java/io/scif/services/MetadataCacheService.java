@@ -0,0 +1,94 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.services;
+
+import io.scif.Format;
+import io.scif.Metadata;
+import io.scif.SCIFIOService;
+import io.scif.config.SCIFIOConfig;
+
+import java.io.File;
+
+import org.scijava.io.handle.DataHandle;
+import org.scijava.io.location.Location;
+
+/**
+ * A cache of parsed {@link Metadata}, so that reopening a dataset does not
+ * parse its headers again. Entries are kept in memory and, if a directory is
+ * set, on disk, keyed by the format, the location of the source and its
+ * length and modification time. Only metadata implementing
+ * {@link io.scif.CacheableMetadata} is cached.
+ * <p>
+ * NB: Caching is opt-in; parsers only consult this service when
+ * {@link SCIFIOConfig#parserIsCacheMetadata()} is set.
+ * </p>
+ *
+ * @see io.scif.Parser
+ * @see io.scif.CacheableMetadata
+ */
+public interface MetadataCacheService extends SCIFIOService {
+
+	/**
+	 * Restores the metadata cached for the given source, if there is any and
+	 * the source has not changed since.
+	 *
+	 * @param format Format whose metadata is wanted.
+	 * @param handle Source of the metadata.
+	 * @param config Configuration the metadata would be parsed with.
+	 * @return The restored metadata, with its context set but not yet attached
+	 *         to the source, or null if there is no current entry.
+	 */
+	Metadata restore(Format format, DataHandle<Location> handle,
+		SCIFIOConfig config);
+
+	/**
+	 * Caches the given metadata, freshly parsed from the given source. Metadata
+	 * which cannot be serialized is silently skipped.
+	 *
+	 * @param handle Source the metadata was parsed from.
+	 * @param meta Metadata to cache.
+	 * @param config Configuration the metadata was parsed with.
+	 */
+	void store(DataHandle<Location> handle, Metadata meta, SCIFIOConfig config);
+
+	/**
+	 * @param directory Directory of the on-disk store, or null to only cache in
+	 *          memory.
+	 */
+	void setDirectory(File directory);
+
+	/**
+	 * @return Directory of the on-disk store, or null if there is none.
+	 */
+	File getDirectory();
+
+	/** Discards all cached entries, in memory and on disk. */
+	void clear();
+}
@@ -0,0 +1,142 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.services;
+
+import io.scif.ByteArrayPlane;
+import io.scif.ImageMetadata;
+import io.scif.Plane;
+import io.scif.SCIFIOService;
+import io.scif.config.SCIFIOConfig;
+
+import java.nio.ByteBuffer;
+
+import net.imglib2.Interval;
+
+/**
+ * A pool of plane buffers, so that streaming reads can reuse the buffers of
+ * the planes they are done with instead of allocating new ones. Byte arrays
+ * are pooled by their exact length, as readers fill whole arrays; direct
+ * buffers are pooled by power of two capacities.
+ * <p>
+ * NB: Pooling is opt-in; readers, filters and the
+ * {@link io.scif.img.ImgOpener} only draw planes from this service when
+ * {@link SCIFIOConfig#readerIsPooledPlanes()} is set. Buffers which are not
+ * recycled are simply garbage collected; in debug mode, such leaks are
+ * reported along with where the buffer was taken.
+ * </p>
+ *
+ * @see io.scif.Reader#openPlane(int, long, Interval, SCIFIOConfig)
+ */
+public interface PlanePoolService extends SCIFIOService {
+
+	/**
+	 * System property enabling debug mode, in which planes that are garbage
+	 * collected without having been recycled are logged.
+	 */
+	String DEBUG_PROPERTY = "scifio.planes.debug";
+
+	/**
+	 * Takes a byte array of the given length from the pool, or allocates a new
+	 * one if none is available. Its contents are undefined.
+	 */
+	byte[] take(int length);
+
+	/**
+	 * Takes a plane spanning the given bounds, with a buffer from the pool.
+	 * Its pixels are zeroed, as those of a newly created plane.
+	 *
+	 * @throws IllegalArgumentException If the plane does not fit in an array.
+	 */
+	ByteArrayPlane takePlane(ImageMetadata meta, Interval bounds);
+
+	/**
+	 * Takes a buffer of the given capacity from the pool, or allocates a new
+	 * one. Its position is zero and its limit is the given capacity.
+	 *
+	 * @param capacity Number of bytes needed.
+	 * @param direct Whether to take a direct buffer.
+	 */
+	ByteBuffer takeBuffer(int capacity, boolean direct);
+
+	/**
+	 * Returns the given array to the pool. It must not be used afterwards.
+	 *
+	 * @throws IllegalArgumentException If the array is already in the pool.
+	 */
+	void recycle(byte[] buffer);
+
+	/**
+	 * Returns the buffer of the given plane to the pool, and clears the plane's
+	 * data. Neither must be used afterwards. Planes which do not hold their
+	 * pixels in a byte array are left as they are.
+	 */
+	void recycle(Plane plane);
+
+	/**
+	 * Returns the given buffer to the pool. It must not be used afterwards.
+	 *
+	 * @throws IllegalArgumentException If the buffer is already in the pool.
+	 */
+	void recycle(ByteBuffer buffer);
+
+	/**
+	 * @param bytes Upper bound on the total size of the pooled buffers; buffers
+	 *          recycled beyond it are dropped.
+	 */
+	void setCapacity(long bytes);
+
+	/** @return Upper bound on the total size of the pooled buffers. */
+	long getCapacity();
+
+	/**
+	 * @param debug Whether to report buffers which are garbage collected
+	 *          without having been recycled. This records where each buffer is
+	 *          taken, so it is much slower.
+	 */
+	void setDebug(boolean debug);
+
+	/** @return Whether unrecycled buffers are reported. */
+	boolean isDebug();
+
+	/** @return Number of buffers taken from the pool. */
+	long getHits();
+
+	/** @return Number of buffers allocated as the pool had none to offer. */
+	long getMisses();
+
+	/** @return Fraction of the requests served from the pool. */
+	double getHitRate();
+
+	/** @return Number of buffers reported as not recycled in debug mode. */
+	long getLeaks();
+
+	/** Drops all pooled buffers and resets the statistics. */
+	void clear();
+}
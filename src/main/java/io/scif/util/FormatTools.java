@@ -29,6 +29,7 @@
 
 package io.scif.util;
 
+import io.scif.ByteBufferPlane;
 import io.scif.FormatException;
 import io.scif.ImageMetadata;
 import io.scif.Metadata;
@@ -36,6 +37,7 @@ import io.scif.Plane;
 import io.scif.Reader;
 import io.scif.Writer;
 import io.scif.config.SCIFIOConfig;
+import io.scif.convert.ConversionPipeline;
 
 import java.io.IOException;
 import java.util.List;
@@ -113,6 +115,9 @@ public final class FormatTools {
 
 	// -- Constants - miscellaneous --
 
+	/** Upper bound on the size of the bands of a {@link ByteBufferPlane}. */
+	private static final long BAND_BYTES = 64L << 20;
+
 	/** File grouping options. */
 	public static final int MUST_GROUP = 0;
 
@@ -1019,6 +1024,72 @@ public final class FormatTools {
 		return totalPlanes / filenames.length;
 	}
 
+	// -- Utility methods - reading --
+
+	/**
+	 * Reads the given plane of a reader into a {@link ByteBufferPlane}, in bands
+	 * of whole rows opened as the reader's own planes, so that planes too large
+	 * for a single array can be read. The bands are aligned to the
+	 * {@link Reader#getOptimalTileHeight optimal tile height}.
+	 *
+	 * @param reader Reader opening the bands.
+	 * @param imageIndex Index of the image.
+	 * @param planeIndex Index of the plane within the image.
+	 * @param plane Plane to fill.
+	 * @param bounds Bounds of the planar axes to read.
+	 * @param config Configuration to open the bands with.
+	 * @return The given plane.
+	 */
+	public static ByteBufferPlane openBufferPlane(final Reader reader,
+		final int imageIndex, final long planeIndex, final ByteBufferPlane plane,
+		final Interval bounds, final SCIFIOConfig config) throws FormatException,
+		IOException
+	{
+		final ImageMetadata meta = reader.getMetadata().get(imageIndex);
+		final int yIndex = meta.getAxisIndex(Axes.Y);
+		if (yIndex < 0 || yIndex >= bounds.numDimensions()) {
+			plane.put(0, reader.openPlane(imageIndex, planeIndex, bounds, config)
+				.getBytes(), 0, (int) plane.getSize());
+			return plane;
+		}
+
+		// The plane is laid out as [outer axes][Y][inner axes], so each band
+		// is copied as one chunk per position along the outer axes.
+		long rowBytes = getBytesPerPixel(meta.getPixelType());
+		long outer = 1;
+		for (int d = 0; d < bounds.numDimensions(); d++) {
+			if (d < yIndex) rowBytes *= bounds.dimension(d);
+			else if (d > yIndex) outer *= bounds.dimension(d);
+		}
+		final long height = bounds.dimension(yIndex);
+		final long tileHeight = Math.max(1, reader.getOptimalTileHeight(
+			imageIndex));
+		long bandHeight = Math.max(1, BAND_BYTES / (rowBytes * outer));
+		if (bandHeight > tileHeight) bandHeight -= bandHeight % tileHeight;
+		bandHeight = Math.min(bandHeight, height);
+
+		final long[] min = Intervals.minAsLongArray(bounds);
+		final long[] max = Intervals.maxAsLongArray(bounds);
+		Plane band = null;
+		for (long y = 0; y < height; y += bandHeight) {
+			final long h = Math.min(bandHeight, height - y);
+			min[yIndex] = bounds.min(yIndex) + y;
+			max[yIndex] = min[yIndex] + h - 1;
+			final Interval bandBounds = new FinalInterval(min, max);
+			band = band == null || h != bandHeight ? reader.openPlane(imageIndex,
+				planeIndex, bandBounds, config) : reader.openPlane(imageIndex,
+					planeIndex, band, bandBounds, config);
+
+			final byte[] bytes = band.getBytes();
+			final int chunk = (int) (h * rowBytes);
+			for (int o = 0; o < outer; o++) {
+				plane.put((o * height + y) * rowBytes, bytes, o * chunk, chunk);
+			}
+		}
+		plane.setColorTable(band.getColorTable());
+		return plane;
+	}
+
 	// -- Conversion convenience methods --
 
 	/**
@@ -1035,22 +1106,13 @@ public final class FormatTools {
 	public static void convert(final Reader input, final Writer output,
 		final String outputFile) throws FormatException, IOException
 	{
-
-		Plane p = null;
-
-		for (int i = 0; i < input.getImageCount(); i++) {
-			for (int j = 0; j < input.getPlaneCount(i); j++) {
-				p = input.openPlane(i, j);
-				output.savePlane(i, j, p);
-			}
-		}
-
-		input.close();
-		output.close();
+		convert(input, output, outputFile, new SCIFIOConfig());
 	}
 
 	/**
 	 * As {@link #convert(Reader, Writer, String)}, with configuration options.
+	 * Planes are copied through a {@link ConversionPipeline} with its default
+	 * settings.
 	 *
 	 * @param input the pre-initialized Reader used for reading data.
 	 * @param output the uninitialized Writer used for writing data.
@@ -1064,15 +1126,7 @@ public final class FormatTools {
 		final String outputFile, final SCIFIOConfig config) throws FormatException,
 		IOException
 	{
-
-		Plane p = null;
-
-		for (int i = 0; i < input.getImageCount(); i++) {
-			for (int j = 0; j < input.getPlaneCount(i); j++) {
-				p = input.openPlane(i, j, config);
-				output.savePlane(i, j, p);
-			}
-		}
+		new ConversionPipeline(input.getContext()).convert(input, output, config);
 
 		input.close();
 		output.close();
@@ -30,6 +30,7 @@
 package io.scif.util;
 
 import io.scif.FormatException;
+import io.scif.ImageMetadata;
 import io.scif.Metadata;
 import io.scif.filters.MetadataWrapper;
 
@@ -41,6 +42,7 @@ import java.util.Map;
 import net.imagej.axis.Axes;
 import net.imagej.axis.AxisType;
 import net.imagej.axis.CalibratedAxis;
+import net.imglib2.FinalInterval;
 import net.imglib2.Interval;
 
 import org.scijava.io.handle.DataHandle;
@@ -89,6 +91,30 @@ public class SCIFIOMetadataTools {
 		return true;
 	}
 
+	/**
+	 * Returns an interval spanning a whole plane of the given image. The given
+	 * interval is returned as is if it still spans one, so that callers can
+	 * cache it instead of creating a new interval per plane.
+	 *
+	 * @param imageMeta Metadata of the image.
+	 * @param bounds Interval returned by a previous call, or null.
+	 */
+	public static Interval planarBounds(final ImageMetadata imageMeta,
+		final Interval bounds)
+	{
+		final int planarAxisCount = imageMeta.getPlanarAxisCount();
+		if (bounds != null && bounds.numDimensions() == planarAxisCount) {
+			int d = 0;
+			while (d < planarAxisCount && bounds.min(d) == 0 && bounds.dimension(
+				d) == imageMeta.getAxisLength(d))
+			{
+				d++;
+			}
+			if (d == planarAxisCount) return bounds;
+		}
+		return new FinalInterval(imageMeta.getAxesLengthsPlanar());
+	}
+
 	/**
 	 * Replaces the first values.length of the provided Metadata's planar axes
 	 * with the values.
@@ -0,0 +1,263 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.scif.config.SCIFIOConfig;
+import io.scif.filters.ChannelFiller;
+import io.scif.filters.MinMaxFilter;
+import io.scif.filters.PlaneSeparator;
+import io.scif.filters.ReaderFilter;
+import io.scif.img.converters.ByteBufferImgs;
+import io.scif.io.location.TestImgLocation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import net.imagej.axis.Axes;
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.util.Intervals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.io.location.Location;
+import org.scijava.util.Bytes;
+
+/**
+ * Tests {@link ByteBufferPlane}.
+ */
+public class ByteBufferPlaneTest {
+
+	private SCIFIO scifio;
+
+	private Reader reader;
+
+	@Before
+	public void setUp() throws FormatException, IOException {
+		scifio = new SCIFIO();
+		final Location loc = TestImgLocation.builder().name("buffer").pixelType(
+			"uint16").axes("X", "Y", "Channel").lengths(64, 48, 3).planarDims(3)
+			.build();
+		reader = scifio.initializer().initializeReader(loc);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		reader.close();
+		scifio.getContext().dispose();
+	}
+
+	/** Tests that buffer planes are read as byte array planes are. */
+	@Test
+	public void testOpen() throws FormatException, IOException {
+		final ImageMetadata meta = reader.getMetadata().get(0);
+		final Interval bounds = new FinalInterval(meta.getAxesLengthsPlanar());
+		final ByteBufferPlane plane = new ByteBufferPlane(meta, bounds, true);
+		assertTrue(plane.getData().isDirect());
+
+		reader.openPlane(0, 0, plane, bounds, new SCIFIOConfig());
+		assertArrayEquals(reader.openPlane(0, 0).getBytes(), plane.getBytes());
+	}
+
+	/** Tests that wrapped planes read the plane's pixels. */
+	@Test
+	public void testWrap() throws FormatException, IOException {
+		final ImageMetadata meta = reader.getMetadata().get(0);
+		final Interval bounds = new FinalInterval(meta.getAxesLengthsPlanar());
+		final ByteBufferPlane plane = new ByteBufferPlane(meta, bounds);
+		reader.openPlane(0, 0, plane, bounds, new SCIFIOConfig());
+
+		final ArrayImg<UnsignedShortType, ?> img = ByteBufferImgs.wrap(plane);
+		assertArrayEquals(plane.getLengths(), Intervals.dimensionsAsLongArray(img));
+		final byte[] bytes = plane.getBytes();
+		final Cursor<UnsignedShortType> cursor = img.cursor();
+		for (int i = 0; i < bytes.length; i += 2) {
+			assertEquals(Bytes.toShort(bytes, i, meta.isLittleEndian()) & 0xffff,
+				cursor.next().get());
+		}
+
+		// writes go to the plane's buffer
+		img.firstElement().set(12345);
+		assertEquals(12345, plane.getData().getShort(0) & 0xffff);
+	}
+
+	/** Tests long-indexed and bulk access. */
+	@Test
+	public void testAccess() {
+		final ByteBufferPlane plane = new ByteBufferPlane();
+		plane.setData(ByteBuffer.allocate(16));
+		assertEquals(16, plane.getSize());
+
+		plane.put(3L, (byte) 7);
+		assertEquals(7, plane.get(3L));
+		plane.put(8L, new byte[] { 1, 2, 3 }, 0, 3);
+		final byte[] dest = new byte[3];
+		plane.get(8L, dest, 0, 3);
+		assertArrayEquals(new byte[] { 1, 2, 3 }, dest);
+		assertEquals(7, plane.getBytes()[3]);
+
+		try {
+			plane.setSegments(ByteBuffer.allocate(16), ByteBuffer.allocate(16));
+			fail("Expected IllegalArgumentException");
+		}
+		catch (final IllegalArgumentException e) {
+			// expected: only the last segment may be partial
+		}
+	}
+
+	/** Tests that planes can map a region of a file. */
+	@Test
+	public void testMap() throws FormatException, IOException {
+		final ImageMetadata meta = reader.getMetadata().get(0);
+		final Interval bounds = new FinalInterval(meta.getAxesLengthsPlanar());
+		final byte[] bytes = reader.openPlane(0, 1).getBytes();
+
+		final File file = File.createTempFile("scifio-plane", ".raw");
+		try {
+			final byte[] header = new byte[10];
+			Files.write(file.toPath(), header);
+			Files.write(file.toPath(), bytes, StandardOpenOption.APPEND);
+			try (FileChannel channel = FileChannel.open(file.toPath())) {
+				final ByteBufferPlane plane = ByteBufferPlane.map(meta, bounds,
+					channel, header.length, MapMode.READ_ONLY);
+				assertEquals(bytes.length, plane.getSize());
+				assertArrayEquals(bytes, plane.getBytes());
+			}
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	/** Tests that planes can view regions of a mapping shared between them. */
+	@Test
+	public void testSlice() throws FormatException, IOException {
+		final ImageMetadata meta = reader.getMetadata().get(0);
+		final Interval bounds = new FinalInterval(meta.getAxesLengthsPlanar());
+		final byte[] first = reader.openPlane(0, 0).getBytes();
+		final byte[] second = reader.openPlane(0, 1).getBytes();
+
+		final File file = File.createTempFile("scifio-planes", ".raw");
+		try {
+			final byte[] header = new byte[10];
+			Files.write(file.toPath(), header);
+			Files.write(file.toPath(), first, StandardOpenOption.APPEND);
+			Files.write(file.toPath(), second, StandardOpenOption.APPEND);
+			try (FileChannel channel = FileChannel.open(file.toPath())) {
+				final ByteBuffer region = channel.map(MapMode.READ_ONLY, 0, channel
+					.size());
+				final ByteBufferPlane plane = ByteBufferPlane.slice(meta, bounds,
+					region, header.length);
+				assertEquals(first.length, plane.getSize());
+				assertArrayEquals(first, plane.getBytes());
+				assertArrayEquals(second, ByteBufferPlane.slice(meta, bounds, region,
+					header.length + first.length).getBytes());
+				try {
+					ByteBufferPlane.slice(meta, bounds, region, header.length + 1 +
+						first.length);
+					fail("Expected IndexOutOfBoundsException");
+				}
+				catch (final IndexOutOfBoundsException e) {
+					// expected: the plane exceeds the mapping
+				}
+			}
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	/** Tests that buffer planes are filled through the filters. */
+	@Test
+	public void testFilters() throws FormatException, IOException {
+		final ReaderFilter filter = (ReaderFilter) reader;
+		filter.enable(PlaneSeparator.class);
+		final MinMaxFilter minMax = filter.enable(MinMaxFilter.class);
+		assertEquals(3, filter.getPlaneCount(0));
+		final ImageMetadata meta = filter.getMetadata().get(0);
+		for (int p = 0; p < 3; p++) {
+			final byte[] bytes = assertBufferPlane(filter, p);
+			int max = 0;
+			for (int i = 0; i < bytes.length; i += 2) {
+				max = Math.max(max, Bytes.toShort(bytes, i, meta.isLittleEndian()) &
+					0xffff);
+			}
+			assertEquals(max, minMax.getPlaneMaximum(0, p), 0);
+		}
+
+		final Location loc = TestImgLocation.builder().name("indexed").pixelType(
+			"uint8").indexed(true).axes("X", "Y", "Channel").lengths(50, 40, 1)
+			.planarDims(3).build();
+		final ReaderFilter indexed = scifio.initializer().initializeReader(loc);
+		try {
+			indexed.enable(ChannelFiller.class);
+			assertEquals(3, indexed.getMetadata().get(0).getAxisLength(
+				Axes.CHANNEL));
+			assertBufferPlane(indexed, 0);
+		}
+		finally {
+			indexed.close();
+		}
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Reads the given plane into a {@link ByteBufferPlane} and checks it against
+	 * the plane the reader opens itself.
+	 */
+	private static byte[] assertBufferPlane(final Reader r, final long planeIndex)
+		throws FormatException, IOException
+	{
+		final ImageMetadata meta = r.getMetadata().get(0);
+		final Interval bounds = new FinalInterval(meta.getAxesLengthsPlanar());
+		final ByteBufferPlane plane = new ByteBufferPlane(meta, bounds, true);
+		assertSame(plane, r.openPlane(0, planeIndex, plane, bounds,
+			new SCIFIOConfig()));
+		final byte[] bytes = r.openPlane(0, planeIndex).getBytes();
+		assertArrayEquals(bytes, plane.getBytes());
+		return bytes;
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.scif.filters.PlaneSeparator;
+import io.scif.filters.ReaderFilter;
+import io.scif.formats.TIFFFormat;
+import io.scif.io.location.TestImgLocation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.imagej.axis.Axes;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.io.location.FileLocation;
+import org.scijava.io.location.Location;
+
+/**
+ * Tests forking {@link Reader}s.
+ */
+public class ReaderTest {
+
+	private SCIFIO scifio;
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		scifio = new SCIFIO();
+		file = File.createTempFile("scifio-fork", ".tif");
+		try (InputStream in = getClass().getResourceAsStream(
+			"/io/scif/io/test_img.tif"))
+		{
+			Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	@After
+	public void tearDown() {
+		scifio.getContext().dispose();
+		file.delete();
+	}
+
+	/**
+	 * Tests that forks share the metadata, but not the handle, and read the same
+	 * planes concurrently.
+	 */
+	@Test
+	public void testFork() throws FormatException, IOException,
+		InterruptedException, ExecutionException
+	{
+		final Reader reader = scifio.format().getFormatFromClass(TIFFFormat.class)
+			.createReader();
+		reader.setSource(new FileLocation(file));
+		final byte[] expected = reader.openPlane(0, 0).getBytes();
+
+		final List<Reader> forks = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			final Reader fork = reader.fork();
+			assertSame(reader.getMetadata(), fork.getMetadata());
+			assertNotSame(reader.getHandle(), fork.getHandle());
+			forks.add(fork);
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(forks
+			.size());
+		try {
+			final List<Future<byte[]>> planes = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				final Reader fork = forks.get(i % forks.size());
+				planes.add(executor.submit(() -> fork.openPlane(0, 0).getBytes()));
+			}
+			for (final Future<byte[]> plane : planes) {
+				assertArrayEquals(expected, plane.get());
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+
+		// closing a fork leaves the shared metadata open
+		for (final Reader fork : forks) {
+			fork.close();
+		}
+		assertArrayEquals(expected, reader.openPlane(0, 0).getBytes());
+		reader.close();
+	}
+
+	/** Tests that readers which cannot share their metadata parse it again. */
+	@Test
+	public void testForkUnshared() throws FormatException, IOException {
+		final Location loc = TestImgLocation.builder().name("fork").lengths(64,
+			48).build();
+		final Reader reader = scifio.initializer().initializeReader(loc);
+		final Reader fork = reader.fork();
+		assertNotSame(reader.getMetadata(), fork.getMetadata());
+		assertArrayEquals(reader.openPlane(0, 0).getBytes(), fork.openPlane(0, 0)
+			.getBytes());
+		fork.close();
+		reader.close();
+	}
+
+	/** Tests that forks of a filtered reader keep its configured filters. */
+	@Test
+	public void testForkFiltered() throws FormatException, IOException {
+		final Location loc = TestImgLocation.builder().name("filtered").axes("X",
+			"Y", "Channel").lengths(32, 24, 3).planarDims(3).build();
+		final ReaderFilter reader = scifio.initializer().initializeReader(loc);
+		reader.enable(PlaneSeparator.class).separate(Axes.CHANNEL);
+		assertEquals(3, reader.getPlaneCount(0));
+
+		final Reader fork = reader.fork();
+		assertTrue(fork instanceof ReaderFilter);
+		assertEquals(reader.getPlaneCount(0), fork.getPlaneCount(0));
+		assertEquals(2, fork.getMetadata().get(0).getPlanarAxisCount());
+		assertArrayEquals(reader.getMetadata().get(0).getAxesLengths(), fork
+			.getMetadata().get(0).getAxesLengths());
+		for (int p = 0; p < reader.getPlaneCount(0); p++) {
+			assertArrayEquals(reader.openPlane(0, p).getBytes(), fork.openPlane(0, p)
+				.getBytes());
+		}
+
+		// closing the fork leaves the original filters usable
+		fork.close();
+		assertEquals(2, reader.getMetadata().get(0).getPlanarAxisCount());
+		reader.openPlane(0, 2);
+		reader.close();
+	}
+}
@@ -0,0 +1,115 @@
+/*-
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.scif.FormatException;
+import io.scif.SCIFIO;
+
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests {@link ZlibCodec} and {@link ZlibPool}.
+ */
+public class ZlibCodecTest {
+
+	private static SCIFIO scifio;
+
+	private static Codec codec;
+
+	@BeforeClass
+	public static void setUp() {
+		scifio = new SCIFIO();
+		codec = scifio.codec().getCodec(ZlibCodec.class);
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		scifio.getContext().dispose();
+		ZlibPool.clear();
+	}
+
+	@Test
+	public void testRoundTripAllLevels() throws FormatException {
+		final byte[] data = makeData();
+		final int[] sizes = new int[Deflater.BEST_COMPRESSION + 1];
+		for (int level = 0; level < sizes.length; level++) {
+			final CodecOptions options = CodecOptions.getDefaultOptions();
+			options.compressionLevel = level;
+			final byte[] compressed = codec.compress(data, options);
+			assertArrayEquals("level " + level, data, codec.decompress(compressed));
+			sizes[level] = compressed.length;
+		}
+		assertTrue(sizes[Deflater.BEST_COMPRESSION] < sizes[Deflater.NO_COMPRESSION]);
+	}
+
+	@Test
+	public void testDefaultOptions() throws FormatException {
+		final byte[] data = makeData();
+		final byte[] compressed = codec.compress(data, null);
+		assertArrayEquals(data, codec.decompress(compressed));
+		final CodecOptions options = new CodecOptions();
+		options.compressionStrategy = Deflater.HUFFMAN_ONLY;
+		assertArrayEquals(data, codec.decompress(codec.compress(data, options)));
+	}
+
+	@Test
+	public void testPoolReuse() {
+		final Deflater deflater = ZlibPool.acquireDeflater();
+		ZlibPool.release(deflater);
+		assertSame(deflater, ZlibPool.acquireDeflater(1, Deflater.FILTERED));
+		ZlibPool.release(deflater);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidLevel() {
+		ZlibPool.acquireDeflater(10, Deflater.DEFAULT_STRATEGY);
+	}
+
+	// -- Helper methods --
+
+	/** Generates compressible data: a noisy ramp. */
+	private static byte[] makeData() {
+		final Random r = new Random(0xdeadbeefL);
+		final byte[] data = new byte[100000];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) ((i / 64) + r.nextInt(4));
+		}
+		return data;
+	}
+}
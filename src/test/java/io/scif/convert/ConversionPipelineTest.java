@@ -0,0 +1,113 @@
+/*-
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+package io.scif.convert;
+
+import static org.junit.Assert.assertEquals;
+
+import io.scif.FormatException;
+import io.scif.Reader;
+import io.scif.SCIFIO;
+import io.scif.Writer;
+import io.scif.config.SCIFIOConfig;
+import io.scif.io.location.TestImgLocation;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.io.location.Location;
+
+/**
+ * Tests {@link ConversionPipeline}.
+ */
+public class ConversionPipelineTest {
+
+	private SCIFIO scifio;
+
+	@Before
+	public void setUp() {
+		scifio = new SCIFIO();
+	}
+
+	@After
+	public void tearDown() {
+		scifio.getContext().dispose();
+	}
+
+	/**
+	 * Tests that planes filtered on several threads are still saved in order by
+	 * writers which cannot save concurrently.
+	 */
+	@Test
+	public void testFilteredOrder() throws FormatException, IOException {
+		final Location loc = TestImgLocation.builder().name("order").axes("X", "Y",
+			"Time").lengths(8, 8, 64).build();
+		final Reader reader = scifio.initializer().initializeReader(loc);
+		final List<Long> saved = Collections.synchronizedList(new ArrayList<>());
+		final Writer writer = (Writer) Proxy.newProxyInstance(getClass()
+			.getClassLoader(), new Class<?>[] { Writer.class }, (proxy, method,
+				args) -> {
+				switch (method.getName()) {
+					case "getMetadata":
+						return reader.getMetadata();
+					case "canSaveConcurrently":
+					case "canSaveRegions":
+						return false;
+					case "savePlane":
+						saved.add((Long) args[1]);
+						return null;
+					default:
+						throw new UnsupportedOperationException(method.getName());
+				}
+			});
+
+		new ConversionPipeline(scifio.getContext()).setFilterThreads(4)
+			.setFilter(plane -> {
+				try {
+					Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+				}
+				catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return plane;
+			}).convert(reader, writer, new SCIFIOConfig());
+
+		assertEquals(64, saved.size());
+		for (int i = 0; i < saved.size(); i++) {
+			assertEquals(i, saved.get(i).longValue());
+		}
+		reader.close();
+	}
+}
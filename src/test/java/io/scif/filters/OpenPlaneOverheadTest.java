@@ -0,0 +1,147 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.filters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.scif.FormatException;
+import io.scif.ImageMetadata;
+import io.scif.Plane;
+import io.scif.SCIFIO;
+import io.scif.config.SCIFIOConfig;
+import io.scif.io.location.TestImgLocation;
+import io.scif.util.SCIFIOMetadataTools;
+
+import java.io.IOException;
+
+import net.imagej.axis.Axes;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.io.location.Location;
+
+/**
+ * Measures the overhead of opening small tiles through a full
+ * {@link ReaderFilter} stack. The number of calls can be raised with the
+ * {@code scifio.benchmark.calls} system property, e.g. to profile the stack.
+ */
+public class OpenPlaneOverheadTest {
+
+	private SCIFIO scifio;
+
+	private ReaderFilter reader;
+
+	@Before
+	public void setUp() throws FormatException, IOException {
+		scifio = new SCIFIO();
+		final Location loc = new TestImgLocation.Builder().name("overhead")
+			.lengths(256, 256, 16).axes("X", "Y", "Z").build();
+		reader = (ReaderFilter) scifio.initializer().initializeReader(loc);
+		reader.enable(ChannelFiller.class);
+		reader.enable(PlaneSeparator.class);
+		reader.enable(MinMaxFilter.class);
+		reader.enable(DimensionSwapper.class);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		reader.close();
+		scifio.getContext().dispose();
+	}
+
+	/** Tests that the shared default configuration cannot be changed. */
+	@Test
+	public void testDefaultConfig() {
+		try {
+			SCIFIOConfig.DEFAULT.checkerSetOpen(false);
+			fail("Default configuration was modified");
+		}
+		catch (final UnsupportedOperationException e) {
+			// expected
+		}
+		try {
+			SCIFIOConfig.DEFAULT.put("key", "value");
+			fail("Default configuration was modified");
+		}
+		catch (final UnsupportedOperationException e) {
+			// expected
+		}
+		final SCIFIOConfig copy = SCIFIOConfig.DEFAULT.clone();
+		assertNotSame(SCIFIOConfig.DEFAULT, copy);
+		assertSame(copy, copy.checkerSetOpen(false));
+	}
+
+	/** Tests that whole plane bounds are reused until the image changes. */
+	@Test
+	public void testPlanarBounds() {
+		final PlaneSeparator separator = reader.enable(PlaneSeparator.class);
+		final Interval bounds = separator.planarBounds(0);
+		assertEquals(256, bounds.dimension(0));
+		assertEquals(256, bounds.dimension(1));
+		assertSame(bounds, separator.planarBounds(0));
+
+		final ImageMetadata imageMeta = separator.getMetadata().get(0).copy();
+		imageMeta.setAxisLength(Axes.X, 128);
+		final Interval resized = SCIFIOMetadataTools.planarBounds(imageMeta,
+			bounds);
+		assertNotSame(bounds, resized);
+		assertEquals(128, resized.dimension(0));
+	}
+
+	/** Times opening 16x16 tiles through the whole filter stack. */
+	@Test
+	public void testOverhead() throws FormatException, IOException {
+		final int calls = Integer.getInteger("scifio.benchmark.calls", 20000);
+		final Interval tile = new FinalInterval(new long[] { 16, 16 }, new long[] {
+			31, 31 });
+		final long planes = reader.getPlaneCount(0);
+		final Plane plane = reader.openPlane(0, 0, tile);
+
+		// NB: The first half warms up the stack.
+		long elapsed = 0;
+		for (int i = 0; i < 2 * calls; i++) {
+			final long start = System.nanoTime();
+			reader.openPlane(0, i % planes, plane, tile);
+			if (i >= calls) elapsed += System.nanoTime() - start;
+		}
+		assertEquals(16 * 16, plane.getBytes().length);
+
+		final long perCall = elapsed / calls;
+		// NB: Generous bound; a call takes on the order of a microsecond.
+		assertTrue("Opening a tile took " + perCall + " ns", perCall < 1_000_000L);
+	}
+}
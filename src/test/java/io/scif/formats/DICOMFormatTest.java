@@ -29,20 +29,112 @@
 
 package io.scif.formats;
 
+import static org.junit.Assert.assertEquals;
+
+import io.scif.FormatException;
+import io.scif.SCIFIO;
+import io.scif.config.SCIFIOConfig;
+
+import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import net.imagej.axis.Axes;
 
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 import org.scijava.io.http.HTTPLocation;
+import org.scijava.io.location.BrowsableLocation;
+import org.scijava.io.location.FileLocation;
 
 public class DICOMFormatTest extends AbstractFormatTest {
 
+	/** Length of a private element placed before the slice tags. */
+	private static final int PRIVATE_LENGTH = 20000;
+
+	private SCIFIO scifio;
+
+	private File root;
+
+	private File study;
+
 	public DICOMFormatTest() throws URISyntaxException, MalformedURLException {
 		super(new HTTPLocation("https://samples.scif.io/test-dicom.zip"));
 	}
 
+	@Before
+	public void setUp() throws IOException {
+		scifio = new SCIFIO();
+		root = Files.createTempDirectory("scifio-dicom").toFile();
+		study = new File(root, "study");
+		study.mkdir();
+	}
+
+	@After
+	public void tearDown() {
+		scifio.getContext().dispose();
+		delete(root);
+	}
+
+	/**
+	 * Tests that the files of a series are found by the header prescan and
+	 * ordered by instance number, leaving out other acquisitions and files which
+	 * are not DICOM files.
+	 */
+	@Test
+	public void testScanDirectory() throws FormatException, IOException {
+		for (int i = 1; i <= 6; i++) {
+			writeSlice(new File(study, "slice" + i + ".dcm"), "20260101", 7 - i);
+		}
+		writeSlice(new File(study, "slice7.dcm"), "20250101", 7);
+		final byte[] text = new byte[4096];
+		Arrays.fill(text, (byte) 'x');
+		Files.write(new File(study, "slice8.dcm").toPath(), text);
+
+		assertEquals(Arrays.asList("slice6.dcm", "slice5.dcm", "slice4.dcm",
+			"slice3.dcm", "slice2.dcm", "slice1.dcm"), series("slice3.dcm",
+				new SCIFIOConfig()));
+	}
+
+	/**
+	 * Tests that the study index is reused while the directory is unchanged, and
+	 * read again once it changes.
+	 */
+	@Test
+	public void testIndexDirectory() throws FormatException, IOException {
+		for (int i = 1; i <= 3; i++) {
+			writeSlice(new File(study, "slice" + i + ".dcm"), "20260101", i);
+		}
+		final File indexDir = new File(root, "index");
+		final SCIFIOConfig config = new SCIFIOConfig().groupableSetIndexDirectory(
+			indexDir);
+		final List<String> all = Arrays.asList("slice1.dcm", "slice2.dcm",
+			"slice3.dcm");
+		assertEquals(all, series("slice2.dcm", config));
+		assertEquals(1, indexDir.listFiles().length);
+
+		// rewriting a file leaves the directory unchanged, so the index is reused
+		final long modified = study.lastModified();
+		writeSlice(new File(study, "slice3.dcm"), "20250101", 3);
+		study.setLastModified(modified);
+		assertEquals(all, series("slice2.dcm", config));
+		assertEquals(all.subList(0, 2), series("slice2.dcm", new SCIFIOConfig()));
+
+		// a changed directory invalidates the index
+		study.setLastModified(modified + 2000);
+		assertEquals(all.subList(0, 2), series("slice2.dcm", config));
+	}
+
 	// TEMP: Disable tests until remote test file is in place.
 
 //	@Test
@@ -68,4 +160,66 @@ public class DICOMFormatTest extends AbstractFormatTest {
 			"1bbaa19529e2d7e689b17ec75f1e1a52379b27f9", metaJson, new int[] { 512,
 				512, }, Axes.X, Axes.Y);
 	}
+
+	// -- Helper methods --
+
+	/** @return Names of the files of the series of the given study file. */
+	private List<String> series(final String name, final SCIFIOConfig config)
+		throws FormatException, IOException
+	{
+		final DICOMFormat.Metadata meta = (DICOMFormat.Metadata) scifio.format()
+			.getFormatFromClass(DICOMFormat.class).createParser().parse(
+				new FileLocation(new File(study, name)), config);
+		final List<BrowsableLocation> files = meta.getFileList().get(1);
+		meta.close();
+		return files == null ? Collections.emptyList() : files.stream().map(
+			BrowsableLocation::getName).collect(Collectors.toList());
+	}
+
+	/** Writes a 4x4 slice of series 1 as explicit VR little endian DICOM. */
+	private static void writeSlice(final File file, final String date,
+		final int instance) throws IOException
+	{
+		final ByteBuffer buf = ByteBuffer.allocate(PRIVATE_LENGTH + 1024).order(
+			ByteOrder.LITTLE_ENDIAN);
+		buf.put(new byte[128]).put(ascii("DICM"));
+		element(buf, 0x0008, 0x0022, "DA", ascii(date));
+		element(buf, 0x0008, 0x0032, "TM", ascii("120000"));
+		element(buf, 0x0009, 0x1001, "OB", new byte[PRIVATE_LENGTH]);
+		element(buf, 0x0020, 0x0011, "IS", ascii("1"));
+		element(buf, 0x0020, 0x0013, "IS", ascii(String.valueOf(instance)));
+		element(buf, 0x0028, 0x0010, "US", new byte[] { 4, 0 });
+		element(buf, 0x0028, 0x0011, "US", new byte[] { 4, 0 });
+		element(buf, 0x0028, 0x0100, "US", new byte[] { 8, 0 });
+		final byte[] pixels = new byte[16];
+		Arrays.fill(pixels, (byte) instance);
+		element(buf, 0x7fe0, 0x0010, "OW", pixels);
+		Files.write(file.toPath(), Arrays.copyOf(buf.array(), buf.position()));
+	}
+
+	private static void element(final ByteBuffer buf, final int group,
+		final int element, final String vr, final byte[] value)
+	{
+		final int length = value.length + value.length % 2;
+		buf.putShort((short) group).putShort((short) element).put(ascii(vr));
+		if (vr.equals("OB") || vr.equals("OW")) buf.putShort((short) 0).putInt(
+			length);
+		else buf.putShort((short) length);
+		buf.put(value);
+		if (length > value.length) buf.put((byte) ' ');
+	}
+
+	private static byte[] ascii(final String s) {
+		return s.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private static void delete(final File file) {
+		final File[] children = file.listFiles();
+		if (children != null) {
+			for (final File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
 }
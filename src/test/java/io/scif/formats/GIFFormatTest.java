@@ -29,13 +29,22 @@
 
 package io.scif.formats;
 
+import static org.junit.Assert.assertArrayEquals;
+
+import io.scif.FormatException;
+import io.scif.Reader;
+import io.scif.services.InitializeService;
+
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 
 import net.imagej.axis.Axes;
 
 import org.junit.Test;
+import org.scijava.Context;
 import org.scijava.io.http.HTTPLocation;
+import org.scijava.io.location.Location;
 
 public class GIFFormatTest extends AbstractFormatTest {
 
@@ -60,4 +69,36 @@ public class GIFFormatTest extends AbstractFormatTest {
 			"b73af3c4d7ae198eb8a3156af8ac0736c1cbec07", meta, new int[] { 530, 480, 3,
 				151 }, Axes.X, Axes.Y, Axes.CHANNEL, Axes.TIME);
 	}
+
+	@Test
+	public void testRandomAccess() throws FormatException, IOException {
+		final Context context = new Context();
+		try {
+			final InitializeService init = context.service(InitializeService.class);
+			final Location loc = baseFolder().child("scifio-test-animated.gif");
+
+			final Reader sequential = init.initializeReader(loc);
+			final int planeCount = (int) sequential.getMetadata().get(0)
+				.getPlaneCount();
+			final byte[][] planes = new byte[planeCount][];
+			for (int p = 0; p < planeCount; p++) {
+				planes[p] = sequential.openPlane(0, p).getBytes().clone();
+			}
+			sequential.close();
+
+			final Reader random = init.initializeReader(loc);
+			for (int p = planeCount - 1; p >= 0; p -= 7) {
+				assertArrayEquals("Plane " + p, planes[p], random.openPlane(0, p)
+					.getBytes());
+			}
+			for (int p = 0; p < planeCount; p += 5) {
+				assertArrayEquals("Plane " + p, planes[p], random.openPlane(0, p)
+					.getBytes());
+			}
+			random.close();
+		}
+		finally {
+			context.dispose();
+		}
+	}
 }
@@ -0,0 +1,178 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.formats.dicom;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the binary {@link DICOMDictionary} resource from its text source,
+ * {@code dictionary.txt}: one tab-separated tag, VR and name per line, sorted
+ * by hexadecimal tag, with {@code #} starting a comment line.
+ * <p>
+ * Usage: {@code DICOMDictionaryGenerator output.bin} writes the resource for
+ * the text source found on the class path.
+ * </p>
+ */
+public final class DICOMDictionaryGenerator {
+
+	/** Name of the text source of the dictionary. */
+	public static final String SOURCE = "dictionary.txt";
+
+	private DICOMDictionaryGenerator() {
+		// NB: Prevent instantiation of utility class.
+	}
+
+	public static void main(final String... args) throws IOException {
+		if (args.length != 1) {
+			System.err.println("Usage: DICOMDictionaryGenerator output.bin");
+			System.exit(1);
+		}
+		try (OutputStream out = new FileOutputStream(args[0])) {
+			out.write(generate());
+		}
+	}
+
+	/** Generates the binary dictionary from the text source. */
+	public static byte[] generate() throws IOException {
+		try (InputStream in = DICOMDictionaryGenerator.class.getResourceAsStream(
+			SOURCE))
+		{
+			if (in == null) throw new IOException("Missing " + SOURCE);
+			return generate(in);
+		}
+	}
+
+	/** Generates the binary dictionary from the given text source. */
+	public static byte[] generate(final InputStream source) throws IOException {
+		final List<Entry> entries = parse(source);
+		final Map<String, Integer> vrs = new LinkedHashMap<>();
+		for (final Entry e : entries) {
+			if (!vrs.containsKey(e.vr)) vrs.put(e.vr, vrs.size());
+		}
+		if (vrs.size() > 255) throw new IOException("Too many distinct VRs");
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(DICOMDictionary.MAGIC);
+		out.writeInt(DICOMDictionary.VERSION);
+		out.writeByte(vrs.size());
+		for (final String vr : vrs.keySet()) {
+			writeAscii(out, vr);
+		}
+		out.writeInt(entries.size());
+		for (final Entry e : entries) {
+			out.writeInt(e.tag);
+		}
+		for (final Entry e : entries) {
+			out.writeByte(vrs.get(e.vr));
+		}
+		final ByteArrayOutputStream names = new ByteArrayOutputStream();
+		for (final Entry e : entries) {
+			final byte[] name = ascii(e.name);
+			out.writeByte(name.length);
+			names.write(name);
+		}
+		out.writeInt(names.size());
+		names.writeTo(out);
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/** Parses the text source into entries, sorted as the resource needs. */
+	static List<Entry> parse(final InputStream source) throws IOException {
+		final BufferedReader in = new BufferedReader(new InputStreamReader(
+			source, StandardCharsets.US_ASCII));
+		final List<Entry> entries = new ArrayList<>();
+		int lineNumber = 0;
+		String line;
+		while ((line = in.readLine()) != null) {
+			lineNumber++;
+			if (line.isEmpty() || line.startsWith("#")) continue;
+			final String[] fields = line.split("\t");
+			if (fields.length != 3) {
+				throw new IOException("Malformed entry at line " + lineNumber);
+			}
+			final Entry entry = new Entry(Integer.parseUnsignedInt(fields[0], 16),
+				fields[1], fields[2]);
+			if (!entries.isEmpty() && Integer.compareUnsigned(entries.get(entries
+				.size() - 1).tag, entry.tag) >= 0)
+			{
+				throw new IOException("Unsorted or duplicate tag at line " +
+					lineNumber);
+			}
+			entries.add(entry);
+		}
+		// NB: The resource is binary searched as signed ints.
+		entries.sort((a, b) -> Integer.compare(a.tag, b.tag));
+		return entries;
+	}
+
+	private static void writeAscii(final DataOutputStream out, final String s)
+		throws IOException
+	{
+		final byte[] b = ascii(s);
+		out.writeByte(b.length);
+		out.write(b);
+	}
+
+	private static byte[] ascii(final String s) throws IOException {
+		final byte[] b = s.getBytes(StandardCharsets.US_ASCII);
+		if (b.length > 255) throw new IOException("Entry too long: " + s);
+		return b;
+	}
+
+	// -- Helper classes --
+
+	/** A single dictionary entry of the text source. */
+	static final class Entry {
+
+		final int tag;
+		final String vr;
+		final String name;
+
+		Entry(final int tag, final String vr, final String name) {
+			this.tag = tag;
+			this.vr = vr;
+			this.name = name;
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.formats.dicom;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link DICOMDictionary}.
+ */
+public class DICOMDictionaryTest {
+
+	private final DICOMDictionary dict = new DICOMDictionary();
+
+	@Test
+	public void testLookup() {
+		assertEntry(0x00020010, "Transfer Syntax UID", "UI");
+		assertEntry(0x00080020, "Study Date", "DA");
+		assertEntry(0x00200013, "Instance Number", "IS");
+		assertEntry(0x00280010, "Rows", "US");
+		assertEntry(0x7FE00008, "Float Pixel Data", "OF");
+		assertEntry(0xFFFAFFFA, "Digital Signatures Sequence", "SQ");
+	}
+
+	@Test
+	public void testAlternativeVRs() {
+		assertEntry(0x7FE00010, "Pixel Data", "OB or OW");
+		assertEntry(0x00280106, "Smallest Image Pixel Value", "US or SS");
+		assertEntry(0x00281200, "Gray Lookup Table Data", "US or SS or OW");
+		assertEntry(0x00283006, "LUT Data", "US or OW");
+		assertEntry(0x00181061, "Trigger Source or Type", "LO");
+		assertEntry(0x0040A057, "Urgency or Priority Alerts (Trial)", "CS");
+	}
+
+	/** Checks every entry of the text source against the lookup. */
+	@Test
+	public void testSource() throws IOException {
+		final List<DICOMDictionaryGenerator.Entry> entries;
+		try (InputStream in = DICOMDictionaryGenerator.class.getResourceAsStream(
+			DICOMDictionaryGenerator.SOURCE))
+		{
+			entries = DICOMDictionaryGenerator.parse(in);
+		}
+		assertEquals(3774, entries.size());
+		for (final DICOMDictionaryGenerator.Entry e : entries) {
+			assertEntry(e.tag, e.name, e.vr);
+		}
+	}
+
+	/** Checks that the resource is up to date with its text source. */
+	@Test
+	public void testResource() throws IOException {
+		final ByteArrayOutputStream resource = new ByteArrayOutputStream();
+		try (InputStream in = DICOMDictionary.class.getResourceAsStream(
+			DICOMDictionary.RESOURCE))
+		{
+			final byte[] buf = new byte[8192];
+			int n;
+			while ((n = in.read(buf)) > 0) {
+				resource.write(buf, 0, n);
+			}
+		}
+		assertArrayEquals(DICOMDictionaryGenerator.generate(), resource
+			.toByteArray());
+	}
+
+	@Test
+	public void testMissing() {
+		assertFalse(dict.has(0x7FE00011));
+		assertNull(dict.name(0x7FE00011));
+		assertNull(dict.vr(0x7FE00011));
+		assertFalse(dict.has(0));
+		assertFalse(dict.has(-1));
+	}
+
+	/** Times a cold read of the dictionary resource. */
+	@Test
+	public void testLoadTime() throws IOException {
+		final int runs = 20;
+		long best = Long.MAX_VALUE;
+		int size = 0;
+		for (int i = 0; i < runs; i++) {
+			final long start = System.nanoTime();
+			try (InputStream in = DICOMDictionary.class.getResourceAsStream(
+				DICOMDictionary.RESOURCE))
+			{
+				size = DICOMDictionary.Table.read(in).size();
+			}
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		assertTrue(size > 3000);
+		// NB: Generous bound; a warm read takes on the order of a millisecond.
+		assertTrue("Dictionary load took " + best / 1000 + " us",
+			best < 250_000_000L);
+	}
+
+	private void assertEntry(final int code, final String name,
+		final String vr)
+	{
+		assertTrue(dict.has(code));
+		assertEquals(name, dict.name(code));
+		assertEquals(vr, dict.vr(code));
+	}
+}
@@ -0,0 +1,136 @@
+/*-
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.formats.tiff;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link TiffFloatConverter}.
+ */
+public class TiffFloatConverterTest {
+
+	@Test
+	public void testHalfFloatValues() {
+		assertEquals(0f, half(0x0000), 0);
+		assertEquals(1f, half(0x3c00), 0);
+		assertEquals(-2f, half(0xc000), 0);
+		assertEquals(65504f, half(0x7bff), 0);
+		assertEquals((float) Math.pow(2, -24), half(0x0001), 0);
+		assertEquals((float) Math.pow(2, -14), half(0x0400), 0);
+		assertEquals(Float.POSITIVE_INFINITY, half(0x7c00), 0);
+		assertEquals(Float.NEGATIVE_INFINITY, half(0xfc00), 0);
+		assertTrue(Float.isNaN(half(0x7e00)));
+	}
+
+	@Test
+	public void testFloat24Values() {
+		assertEquals(1f, float24(0x3f0000), 0);
+		assertEquals(-1.5f, float24(0xbf8000), 0);
+		assertEquals((float) Math.pow(2, -78), float24(0x000001), 0);
+		assertEquals(Float.POSITIVE_INFINITY, float24(0x7f0000), 0);
+	}
+
+	@Test
+	public void testHalfFloatTableMatchesReference() {
+		for (int v = 0; v < 0x10000; v++) {
+			assertEquals(reference(v, 2), TiffFloatConverter.halfToFloatBits(v));
+		}
+	}
+
+	@Test
+	public void testExpandInPlace() {
+		for (final boolean little : new boolean[] { true, false }) {
+			for (final int bytes : new int[] { 2, 3 }) {
+				final int count = 1000;
+				final byte[] buf = new byte[count * 4];
+				final int[] packed = new int[count];
+				for (int i = 0; i < count; i++) {
+					packed[i] = (i * 7919) & ((1 << (bytes * 8)) - 1);
+					for (int k = 0; k < bytes; k++) {
+						final int shift = 8 * (little ? k : bytes - 1 - k);
+						buf[i * bytes + k] = (byte) (packed[i] >> shift);
+					}
+				}
+				TiffFloatConverter.expand(buf, count, bytes, little);
+				final ByteBuffer bb = ByteBuffer.wrap(buf).order(little
+					? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+				for (int i = 0; i < count; i++) {
+					assertEquals(reference(packed[i], bytes), bb.getInt(i * 4));
+				}
+			}
+		}
+	}
+
+	// -- Helper methods --
+
+	private static float half(final int v) {
+		return Float.intBitsToFloat(TiffFloatConverter.halfToFloatBits(v));
+	}
+
+	private static float float24(final int v) {
+		return Float.intBitsToFloat(TiffFloatConverter.float24ToFloatBits(v));
+	}
+
+	/** The original per-pixel conversion from MinimalTIFFFormat. */
+	private static int reference(final int v, final int nBytes) {
+		final int mantissaBits = nBytes == 2 ? 10 : 16;
+		final int exponentBits = nBytes == 2 ? 5 : 7;
+		final int maxExponent = (int) Math.pow(2, exponentBits) - 1;
+		final int bits = (nBytes * 8) - 1;
+		final int sign = v >> bits;
+		int exponent = (v >> mantissaBits) & (int) (Math.pow(2, exponentBits) - 1);
+		int mantissa = v & (int) (Math.pow(2, mantissaBits) - 1);
+		if (exponent == 0) {
+			if (mantissa != 0) {
+				while ((mantissa & (int) Math.pow(2, mantissaBits)) == 0) {
+					mantissa <<= 1;
+					exponent--;
+				}
+				exponent++;
+				mantissa &= (int) (Math.pow(2, mantissaBits) - 1);
+				exponent += 127 - (Math.pow(2, exponentBits - 1) - 1);
+			}
+		}
+		else if (exponent == maxExponent) {
+			exponent = 255;
+		}
+		else {
+			exponent += 127 - (Math.pow(2, exponentBits - 1) - 1);
+		}
+		mantissa <<= (23 - mantissaBits);
+		return (sign << 31) | (exponent << 23) | mantissa;
+	}
+}
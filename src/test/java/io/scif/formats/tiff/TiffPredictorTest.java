@@ -0,0 +1,105 @@
+/*-
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.formats.tiff;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link TiffPredictor}.
+ */
+public class TiffPredictorTest {
+
+	private final Random random = new Random(0xcafeL);
+
+	@Test
+	public void testHorizontal8Bit() {
+		final byte[] data = { 1, 2, 4, 7, 10, 20, 30, 40 };
+		TiffPredictor.HORIZONTAL.difference(data, 4, 1, 1, false);
+		assertArrayEquals(new byte[] { 1, 1, 2, 3, 10, 10, 10, 10 }, data);
+	}
+
+	@Test
+	public void testHorizontal16Bit() {
+		// two RGB pixels, little endian, with a borrow across the low byte
+		final byte[] data = { 0, 1, 5, 0, 9, 0, (byte) 0xff, 0, 6, 0, 9, 0 };
+		TiffPredictor.HORIZONTAL.difference(data, 2, 3, 2, true);
+		assertArrayEquals(new byte[] { 0, 1, 5, 0, 9, 0, (byte) 0xff, (byte) 0xff,
+			1, 0, 0, 0 }, data);
+	}
+
+	@Test
+	public void testFloatingPoint() {
+		final float[] values = { 1.5f, 2.25f, -3f, 100f };
+		final byte[] data = new byte[values.length * 4];
+		final byte[] expected = new byte[data.length];
+		for (int i = 0; i < values.length; i++) {
+			final int bits = Float.floatToIntBits(values[i]);
+			for (int k = 0; k < 4; k++) {
+				data[i * 4 + k] = (byte) (bits >> (24 - 8 * k));
+				expected[k * values.length + i] = data[i * 4 + k];
+			}
+		}
+		for (int i = expected.length - 1; i > 0; i--) {
+			expected[i] -= expected[i - 1];
+		}
+		TiffPredictor.FLOATING_POINT.difference(data, values.length, 1, 4, false);
+		assertArrayEquals(expected, data);
+	}
+
+	@Test
+	public void testRoundTrip() {
+		for (final TiffPredictor predictor : TiffPredictor.values()) {
+			for (final int bytes : new int[] { 1, 2, 3, 4, 8 }) {
+				for (int samples = 1; samples <= 4; samples++) {
+					roundTrip(predictor, samples, bytes, true);
+					roundTrip(predictor, samples, bytes, false);
+				}
+			}
+		}
+	}
+
+	// -- Helper methods --
+
+	private void roundTrip(final TiffPredictor predictor, final int samples,
+		final int bytes, final boolean littleEndian)
+	{
+		final int width = 1 + random.nextInt(40);
+		final byte[] data = new byte[width * samples * bytes * 3];
+		random.nextBytes(data);
+		final byte[] copy = data.clone();
+		predictor.difference(copy, width, samples, bytes, littleEndian);
+		predictor.undifference(copy, width, samples, bytes, littleEndian);
+		assertArrayEquals(predictor + " " + samples + "x" + bytes, data, copy);
+	}
+}
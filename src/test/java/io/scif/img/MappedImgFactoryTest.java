@@ -0,0 +1,120 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.img;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.scif.config.SCIFIOConfig;
+import io.scif.config.SCIFIOConfig.ImgMode;
+import io.scif.io.location.TestImgLocation;
+import io.scif.util.ImageHash;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import net.imagej.ImgPlus;
+import net.imglib2.img.cell.LazyCellImg;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.io.location.FileLocation;
+import org.scijava.io.location.Location;
+
+/**
+ * Tests {@link MappedImgFactory}.
+ */
+public class MappedImgFactoryTest {
+
+	private Context context;
+
+	private ImgOpener opener;
+
+	private Location source;
+
+	@Before
+	public void setUp() {
+		context = new Context();
+		opener = new ImgOpener(context);
+		source = TestImgLocation.builder().name("mapped").pixelType("uint16").axes(
+			"X", "Y", "Z", "Time").lengths(70, 50, 4, 3).build();
+	}
+
+	@After
+	public void tearDown() {
+		context.dispose();
+	}
+
+	/** Tests that raw planes are mapped and match the planes read. */
+	@Test
+	public void testMapped() throws IOException {
+		final FileLocation out = new FileLocation(Files.createTempFile("mapped",
+			".tif").toUri());
+		new ImgSaver(context).saveImg(out, opener.openImgs(source).get(0));
+
+		final ImgPlus<?> read = opener.openImgs(out, new SCIFIOConfig()
+			.imgOpenerSetImgModes(ImgMode.ARRAY)).get(0);
+		final ImgPlus<?> mapped = opener.openImgs(out, new SCIFIOConfig()
+			.imgOpenerSetImgModes(ImgMode.MAPPED)).get(0);
+
+		assertTrue(mapped.getImg() instanceof LazyCellImg);
+		assertEquals(ImageHash.hashImg(read), ImageHash.hashImg(mapped));
+	}
+
+	/**
+	 * Tests that planes are mapped together while they follow each other within
+	 * the largest region.
+	 */
+	@Test
+	public void testRegions() {
+		assertArrayEquals(new int[] { 0, 3, 4, 5 }, MappedImgFactory.regions(
+			new long[] { 0, 100, 250, 1000, 150 }, 100, 500));
+		assertArrayEquals(new int[] { 0, 2, 4 }, MappedImgFactory.regions(
+			new long[] { 0, 100, 200, 300 }, 100, 200));
+		assertArrayEquals(new int[] { 0 }, MappedImgFactory.regions(new long[0],
+			100, 200));
+	}
+
+	/** Tests that images which cannot be mapped are read instead. */
+	@Test
+	public void testFallback() {
+		final ImgPlus<?> read = opener.openImgs(source, new SCIFIOConfig()
+			.imgOpenerSetImgModes(ImgMode.ARRAY)).get(0);
+		final ImgPlus<?> fallback = opener.openImgs(source, new SCIFIOConfig()
+			.imgOpenerSetImgModes(ImgMode.MAPPED)).get(0);
+
+		assertFalse(fallback.getImg() instanceof LazyCellImg);
+		assertEquals(ImageHash.hashImg(read), ImageHash.hashImg(fallback));
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.img;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.scif.config.SCIFIOConfig;
+import io.scif.config.SCIFIOConfig.ImgMode;
+import io.scif.io.location.TestImgLocation;
+import io.scif.util.ImageHash;
+
+import net.imagej.ImgPlus;
+import net.imagej.axis.Axes;
+import net.imagej.axis.AxisType;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.io.location.Location;
+
+/**
+ * Tests {@link VirtualPlanarImg}.
+ */
+public class VirtualPlanarImgTest {
+
+	private Context context;
+
+	private ImgOpener opener;
+
+	private Location source;
+
+	@Before
+	public void setUp() {
+		context = new Context();
+		opener = new ImgOpener(context);
+		source = TestImgLocation.builder().name("virtual").pixelType("uint8").axes(
+			"X", "Y", "Z", "Time").lengths(40, 30, 5, 3).build();
+	}
+
+	@After
+	public void tearDown() {
+		context.dispose();
+	}
+
+	/** Tests that planes read on demand match the planes read up front. */
+	@Test
+	public void testVirtual() {
+		final ImgPlus<?> read = opener.openImgs(source, new SCIFIOConfig()
+			.imgOpenerSetImgModes(ImgMode.ARRAY)).get(0);
+		final ImgPlus<?> virtual = opener.openImgs(source, new SCIFIOConfig()
+			.imgOpenerSetImgModes(ImgMode.VIRTUAL)).get(0);
+
+		assertTrue(virtual.getImg() instanceof VirtualPlanarImg);
+		assertEquals(ImageHash.hashImg(read), ImageHash.hashImg(virtual));
+	}
+
+	/** Tests that subregions map to the planes of the reader. */
+	@Test
+	public void testSubRegion() {
+		final ImageRegion region = new ImageRegion(new AxisType[] { Axes.Z,
+			Axes.TIME }, "1,3", "2");
+		final ImgPlus<?> read = opener.openImgs(source, new SCIFIOConfig()
+			.imgOpenerSetImgModes(ImgMode.ARRAY).imgOpenerSetRegion(region)).get(0);
+		final ImgPlus<?> virtual = opener.openImgs(source, new SCIFIOConfig()
+			.imgOpenerSetImgModes(ImgMode.VIRTUAL).imgOpenerSetRegion(region)).get(
+				0);
+
+		assertEquals(2, virtual.dimension(2));
+		assertEquals(ImageHash.hashImg(read), ImageHash.hashImg(virtual));
+	}
+
+	/** Tests that the ring keeps recent planes and reuses their storage. */
+	@Test
+	public void testRing() {
+		final VirtualPlanarImgFactory<UnsignedByteType> factory =
+			new VirtualPlanarImgFactory<>(new UnsignedByteType(), 2);
+		final ImgPlus<UnsignedByteType> virtual = opener.openImgs(source, factory,
+			new SCIFIOConfig()).get(0);
+		@SuppressWarnings("unchecked")
+		final VirtualPlanarImg<UnsignedByteType, ByteArray> img =
+			(VirtualPlanarImg<UnsignedByteType, ByteArray>) virtual.getImg();
+		assertEquals(2, img.getRingSize());
+
+		final ByteArray first = img.getPlane(0);
+		final ByteArray second = img.getPlane(1);
+		assertSame(first, img.getPlane(0));
+		assertNotSame(first, second);
+
+		// reading a third plane evicts the oldest one
+		assertSame(first, img.getPlane(2));
+		assertSame(second, img.getPlane(1));
+		img.dispose();
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.scif.config.SCIFIOConfig;
+import io.scif.img.ImgOpener;
+import io.scif.io.location.TestImgLocation;
+import io.scif.util.ImageHash;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.io.location.FileLocation;
+import org.scijava.io.location.Location;
+
+/**
+ * Tests {@link BatchConversionService}.
+ */
+public class BatchConversionServiceTest {
+
+	private BatchConversionService batchService;
+
+	@Before
+	public void setUp() {
+		final Context context = new Context();
+		batchService = context.getService(BatchConversionService.class);
+	}
+
+	@After
+	public void tearDown() {
+		batchService.getContext().dispose();
+	}
+
+	/** Tests converting several files, one of which fails. */
+	@Test
+	public void testConvert() throws IOException {
+		final List<Location> sources = new ArrayList<>();
+		final Map<Location, Location> destinations = new HashMap<>();
+		final String[] types = { "uint8", "uint16", "float", "int8", "uint8" };
+		for (int i = 0; i < types.length; i++) {
+			final Location source = new TestImgLocation.Builder().name("batch" + i)
+				.pixelType(types[i]).axes("X", "Y", "Z").lengths(64 + i, 48, 3)
+				.build();
+			sources.add(source);
+			destinations.put(source, new FileLocation(Files.createTempFile("",
+				i == 4 ? ".unknown" : ".tif").toUri()));
+		}
+
+		final List<BatchConversionService.Report> reports = batchService.convert(
+			sources, destinations::get);
+		assertEquals(sources.size(), reports.size());
+
+		final ImgOpener opener = new ImgOpener(batchService.getContext());
+		for (int i = 0; i < 4; i++) {
+			final BatchConversionService.Report report = reports.get(i);
+			assertTrue(report.toString(), report.isSuccess());
+			assertEquals(sources.get(i), report.getSource());
+			assertEquals((64 + i) * 48 * 3 * (types[i].equals("uint16") ? 2
+				: types[i].equals("float") ? 4 : 1), report.getBytes());
+			assertEquals(ImageHash.hashImg(opener.openImgs(sources.get(i)).get(0)),
+				ImageHash.hashImg(opener.openImgs(report.getDestination()).get(0)));
+		}
+		assertFalse(reports.get(4).isSuccess());
+	}
+
+	/**
+	 * Tests converting files to their own format with one worker, which reuses
+	 * its reader from file to file.
+	 */
+	@Test
+	public void testConvertSameFormat() throws IOException {
+		final List<Location> sources = new ArrayList<>();
+		final Map<Location, Location> tiffs = new HashMap<>();
+		final Map<Location, Location> copies = new HashMap<>();
+		for (int i = 0; i < 3; i++) {
+			final Location source = new TestImgLocation.Builder().name("same" + i)
+				.pixelType("uint16").axes("X", "Y", "Z").lengths(32 + i, 24, 2 + i)
+				.build();
+			sources.add(source);
+			tiffs.put(source, new FileLocation(Files.createTempFile("", ".tif")
+				.toUri()));
+		}
+		for (final BatchConversionService.Report report : batchService.convert(
+			sources, tiffs::get))
+		{
+			assertTrue(report.toString(), report.isSuccess());
+			copies.put(report.getDestination(), new FileLocation(Files
+				.createTempFile("", ".tif").toUri()));
+		}
+
+		final List<BatchConversionService.Report> reports = batchService.convert(
+			copies.keySet(), copies::get, new SCIFIOConfig().checkerSetOpen(false),
+			1);
+		final ImgOpener opener = new ImgOpener(batchService.getContext());
+		for (final BatchConversionService.Report report : reports) {
+			assertTrue(report.toString(), report.isSuccess());
+			assertEquals(ImageHash.hashImg(opener.openImgs(report.getSource()).get(
+				0)), ImageHash.hashImg(opener.openImgs(report.getDestination()).get(
+					0)));
+		}
+	}
+
+}
@@ -30,16 +30,24 @@
 package io.scif.services;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import io.scif.DefaultChecker;
+import io.scif.Format;
 import io.scif.FormatException;
 import io.scif.formats.StratecPQCTFormat;
+import io.scif.formats.TIFFFormat;
+import io.scif.formats.TestImgFormat;
+import io.scif.io.location.TestImgLocation;
 
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.junit.After;
 import org.junit.Before;
@@ -94,6 +102,89 @@ public class FormatServiceTest {
 			expectedSuffixes.isEmpty());
 	}
 
+	/** Tests that formats are found when they are loaded on first use. */
+	@Test
+	public void testLazyLoading() throws FormatException {
+		System.setProperty(DefaultFormatService.LAZY_PROPERTY, "true");
+		final Context context = new Context();
+		try {
+			final FormatService lazy = context.getService(FormatService.class);
+			assertEquals(formatService.getAllFormats().size(), lazy.getAllFormats()
+				.size());
+			assertTrue(lazy.getFormat(TestImgLocation.builder()
+				.build()) instanceof TestImgFormat);
+			assertTrue(lazy.getFormatFromReader(
+				TestImgFormat.Reader.class) instanceof TestImgFormat);
+		}
+		finally {
+			System.clearProperty(DefaultFormatService.LAZY_PROPERTY);
+			context.dispose();
+		}
+	}
+
+	/**
+	 * Tests that checkers looked up before the other components are resolved
+	 * are the ones found when all components are resolved.
+	 */
+	@Test
+	public void testCheckerClasses() {
+		for (final Format format : formatService.getAllFormats()) {
+			final Class<?> checker = format.getCheckerClass();
+			format.getReaderClass();
+			assertEquals(checker, format.getCheckerClass());
+		}
+		assertEquals(TestImgFormat.Checker.class, formatService
+			.getFormatFromClass(TestImgFormat.class).getCheckerClass());
+		assertEquals(DefaultChecker.class, formatService.getFormatFromClass(
+			TIFFFormat.class).getCheckerClass());
+	}
+
+	/**
+	 * Tests that formats are loaded on first use in lazy mode, and otherwise in
+	 * the background once the context is up, and that a lookup made while
+	 * another thread loads them waits for all of them.
+	 */
+	@Test
+	public void testColdStart() throws InterruptedException,
+		ExecutionException
+	{
+		final int count = formatService.getAllFormats().size();
+
+		System.setProperty(DefaultFormatService.LAZY_PROPERTY, "true");
+		Context context = new Context();
+		try {
+			final DefaultFormatService lazy = (DefaultFormatService) context
+				.getService(FormatService.class);
+			assertFalse(lazy.isLoaded());
+			final Future<Set<Format>> loading = context.service(ThreadService.class)
+				.run(lazy::getAllFormats);
+			assertTrue(lazy.getFormatFromClass(
+				TestImgFormat.class) instanceof TestImgFormat);
+			assertTrue(lazy.isLoaded());
+			assertEquals(count, loading.get().size());
+		}
+		finally {
+			System.clearProperty(DefaultFormatService.LAZY_PROPERTY);
+			context.dispose();
+		}
+
+		context = new Context();
+		try {
+			final DefaultFormatService eager = (DefaultFormatService) context
+				.getService(FormatService.class);
+			final long deadline = System.currentTimeMillis() + 60000;
+			while (!eager.isLoaded()) {
+				assertTrue("Formats were not loaded in the background", System
+					.currentTimeMillis() < deadline);
+				Thread.sleep(10);
+			}
+			assertEquals(count, eager.getAllFormats().size());
+		}
+		finally {
+			context.dispose();
+		}
+	}
+
 	/**
 	 * Test simultaneous format caching on multiple threads.
 	 * <p>
@@ -0,0 +1,242 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.services;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.scif.FormatException;
+import io.scif.Metadata;
+import io.scif.Reader;
+import io.scif.SCIFIO;
+import io.scif.config.SCIFIOConfig;
+import io.scif.formats.TIFFFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.io.handle.DataHandle;
+import org.scijava.io.handle.DataHandleService;
+import org.scijava.io.location.FileLocation;
+import org.scijava.io.location.Location;
+
+/**
+ * Tests {@link MetadataCacheService}.
+ */
+public class MetadataCacheServiceTest {
+
+	private File dir;
+
+	private FileLocation tiff;
+
+	@Before
+	public void setUp() throws IOException {
+		dir = Files.createTempDirectory("scifio-metadata-cache").toFile();
+		final File file = new File(dir, "test_img.tif");
+		try (InputStream in = getClass().getResourceAsStream(
+			"/io/scif/io/test_img.tif"))
+		{
+			Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		tiff = new FileLocation(file);
+	}
+
+	@After
+	public void tearDown() {
+		delete(dir);
+	}
+
+	/**
+	 * Tests that metadata parsed in one context is restored in another, and
+	 * reads the same pixels.
+	 */
+	@Test
+	public void testRestore() throws FormatException, IOException {
+		final File cacheDir = new File(dir, "cache");
+		final SCIFIOConfig config = new SCIFIOConfig().parserSetCacheMetadata(
+			true);
+
+		final byte[] parsed;
+		final long[] lengths;
+		SCIFIO scifio = new SCIFIO();
+		try {
+			scifio.metadataCache().setDirectory(cacheDir);
+			final Reader reader = scifio.initializer().initializeReader(tiff,
+				config);
+			lengths = reader.getMetadata().get(0).getAxesLengths();
+			parsed = reader.openPlane(0, 0).getBytes();
+			reader.close();
+		}
+		finally {
+			scifio.getContext().dispose();
+		}
+		assertEquals(1, cacheDir.list().length);
+
+		scifio = new SCIFIO();
+		try {
+			final MetadataCacheService cache = scifio.metadataCache();
+			cache.setDirectory(cacheDir);
+			final TIFFFormat format = scifio.format().getFormatFromClass(
+				TIFFFormat.class);
+			final DataHandleService handles = scifio.getContext().getService(
+				DataHandleService.class);
+			try (DataHandle<Location> handle = handles.create(tiff)) {
+				final Metadata meta = cache.restore(format, handle, config);
+				assertNotNull(meta);
+				assertTrue(meta instanceof TIFFFormat.Metadata);
+				assertArrayEquals(lengths, meta.get(0).getAxesLengths());
+			}
+
+			final Reader reader = scifio.initializer().initializeReader(tiff,
+				config);
+			assertArrayEquals(lengths, reader.getMetadata().get(0)
+				.getAxesLengths());
+			assertArrayEquals(parsed, reader.openPlane(0, 0).getBytes());
+			reader.close();
+		}
+		finally {
+			scifio.getContext().dispose();
+		}
+	}
+
+	/** Tests that entries are not restored once their source changes. */
+	@Test
+	public void testStale() throws FormatException, IOException {
+		final SCIFIOConfig config = new SCIFIOConfig().parserSetCacheMetadata(
+			true);
+		final SCIFIO scifio = new SCIFIO();
+		try {
+			final MetadataCacheService cache = scifio.metadataCache();
+			scifio.initializer().parseMetadata(tiff, config);
+			final TIFFFormat format = scifio.format().getFormatFromClass(
+				TIFFFormat.class);
+			final DataHandleService handles = scifio.getContext().getService(
+				DataHandleService.class);
+			try (DataHandle<Location> handle = handles.create(tiff)) {
+				assertNotNull(cache.restore(format, handle, config));
+				final File file = tiff.getFile();
+				file.setLastModified(file.lastModified() - 10000);
+				assertNull(cache.restore(format, handle, config));
+			}
+		}
+		finally {
+			scifio.getContext().dispose();
+		}
+	}
+
+	/**
+	 * Tests that entries of the on-disk store holding classes foreign to
+	 * metadata are discarded without instantiating them.
+	 */
+	@Test
+	public void testForeignClass() throws FormatException, IOException {
+		final File cacheDir = new File(dir, "cache");
+		final SCIFIOConfig config = new SCIFIOConfig().parserSetCacheMetadata(
+			true);
+		SCIFIO scifio = new SCIFIO();
+		try {
+			scifio.metadataCache().setDirectory(cacheDir);
+			scifio.initializer().parseMetadata(tiff, config);
+		}
+		finally {
+			scifio.getContext().dispose();
+		}
+
+		// replace the cached metadata, keeping the entry's header
+		final File entry = cacheDir.listFiles()[0];
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(
+			entry)); ObjectOutputStream out = new ObjectOutputStream(bytes))
+		{
+			out.writeInt(in.readInt());
+			out.writeUTF(in.readUTF());
+			out.writeObject(new Foreign());
+		}
+		Files.write(entry.toPath(), bytes.toByteArray());
+
+		scifio = new SCIFIO();
+		try {
+			final MetadataCacheService cache = scifio.metadataCache();
+			cache.setDirectory(cacheDir);
+			final TIFFFormat format = scifio.format().getFormatFromClass(
+				TIFFFormat.class);
+			final DataHandleService handles = scifio.getContext().getService(
+				DataHandleService.class);
+			try (DataHandle<Location> handle = handles.create(tiff)) {
+				assertNull(cache.restore(format, handle, config));
+			}
+		}
+		finally {
+			scifio.getContext().dispose();
+		}
+		assertFalse(Foreign.instantiated);
+		assertFalse(entry.exists());
+	}
+
+	private static void delete(final File file) {
+		final File[] children = file.listFiles();
+		if (children != null) {
+			for (final File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	// -- Helper classes --
+
+	/** A serializable class which is no part of any metadata. */
+	private static class Foreign implements Serializable {
+
+		private static boolean instantiated;
+
+		private void readObject(final ObjectInputStream in) throws IOException,
+			ClassNotFoundException
+		{
+			in.defaultReadObject();
+			instantiated = true;
+		}
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * #%L
+ * SCIFIO library for reading and converting scientific file formats.
+ * %%
+ * Copyright (C) 2011 - 2021 SCIFIO developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package io.scif.services;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.scif.FormatException;
+import io.scif.Plane;
+import io.scif.Reader;
+import io.scif.SCIFIO;
+import io.scif.config.SCIFIOConfig;
+import io.scif.io.location.TestImgLocation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.io.location.Location;
+
+/**
+ * Tests {@link PlanePoolService}.
+ */
+public class PlanePoolServiceTest {
+
+	private SCIFIO scifio;
+
+	private PlanePoolService pool;
+
+	@Before
+	public void setUp() {
+		scifio = new SCIFIO();
+		pool = scifio.planePool();
+	}
+
+	@After
+	public void tearDown() {
+		scifio.getContext().dispose();
+	}
+
+	/** Tests that recycled arrays are handed out again, and counted as hits. */
+	@Test
+	public void testRecycle() {
+		final byte[] buffer = pool.take(100);
+		assertEquals(100, buffer.length);
+		pool.recycle(buffer);
+		assertSame(buffer, pool.take(100));
+		assertNotSame(buffer, pool.take(100));
+		assertEquals(1, pool.getHits());
+		assertEquals(2, pool.getMisses());
+		assertEquals(1 / 3.0, pool.getHitRate(), 1e-9);
+	}
+
+	/** Tests that buffers are pooled by size class, separately when direct. */
+	@Test
+	public void testBuffers() {
+		final ByteBuffer direct = pool.takeBuffer(100, true);
+		assertTrue(direct.isDirect());
+		assertEquals(128, direct.capacity());
+		assertEquals(100, direct.limit());
+		pool.recycle(direct);
+
+		assertFalse(pool.takeBuffer(120, false).isDirect());
+		final ByteBuffer reused = pool.takeBuffer(120, true);
+		assertSame(direct, reused);
+		assertEquals(0, reused.position());
+		assertEquals(120, reused.limit());
+	}
+
+	/** Tests that buffers beyond the capacity of the pool are dropped. */
+	@Test
+	public void testCapacity() {
+		pool.setCapacity(150);
+		final byte[] first = pool.take(100);
+		final byte[] second = pool.take(100);
+		pool.recycle(first);
+		pool.recycle(second);
+		assertSame(first, pool.take(100));
+		assertNotSame(second, pool.take(100));
+	}
+
+	/**
+	 * Tests that a buffer recycled twice is rejected, so that it is not handed
+	 * out to two callers.
+	 */
+	@Test
+	public void testRecycleTwice() {
+		final byte[] array = pool.take(100);
+		pool.recycle(array);
+		try {
+			pool.recycle(array);
+			fail("Array recycled twice");
+		}
+		catch (final IllegalArgumentException e) {
+			// expected
+		}
+		assertSame(array, pool.take(100));
+		assertNotSame(array, pool.take(100));
+
+		final ByteBuffer buffer = pool.takeBuffer(100, false);
+		pool.recycle(buffer);
+		try {
+			pool.recycle(buffer);
+			fail("Buffer recycled twice");
+		}
+		catch (final IllegalArgumentException e) {
+			// expected
+		}
+		assertSame(buffer, pool.takeBuffer(100, false));
+		assertNotSame(buffer, pool.takeBuffer(100, false));
+
+		// a buffer taken out again may be recycled again
+		pool.recycle(array);
+		assertSame(array, pool.take(100));
+	}
+
+	/** Tests that unrecycled buffers are reported in debug mode. */
+	@Test
+	public void testLeaks() throws InterruptedException {
+		pool.setDebug(true);
+		pool.recycle(pool.take(1000));
+		pool.take(1000);
+		for (int i = 0; i < 100 && pool.getLeaks() == 0; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertEquals(1, pool.getLeaks());
+	}
+
+	/**
+	 * Tests that pooled planes read the same pixels, and that recycling a plane
+	 * empties it.
+	 */
+	@Test
+	public void testPooledPlanes() throws FormatException, IOException {
+		final Location loc = TestImgLocation.builder().name("pool").lengths(64,
+			48, 3).axes("X", "Y", "Time").build();
+		final Reader reader = scifio.initializer().initializeReader(loc);
+		final SCIFIOConfig config = new SCIFIOConfig().readerSetPooledPlanes(
+			true);
+
+		final Plane plane = reader.openPlane(0, 1, config);
+		assertArrayEquals(reader.openPlane(0, 1).getBytes(), plane.getBytes());
+		final byte[] buffer = plane.getBytes();
+		pool.recycle(plane);
+		assertNull(plane.getBytes());
+
+		final Plane next = reader.openPlane(0, 2, config);
+		assertSame(buffer, next.getBytes());
+		assertArrayEquals(reader.openPlane(0, 2).getBytes(), next.getBytes());
+		assertEquals(1, pool.getHits());
+		reader.close();
+	}
+}
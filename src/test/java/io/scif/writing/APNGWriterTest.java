@@ -94,6 +94,16 @@ public class APNGWriterTest extends AbstractSyntheticWriterTest {
 		testWriting(sourceImg2);
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testWriting_frames() throws IOException {
+
+		final ImgPlus<UnsignedByteType> sourceImg = (ImgPlus<UnsignedByteType>)
+				opener.openImgs(new TestImgLocation.Builder().name("8bit-unsigned").pixelType(
+				"uint8").axes("X", "Y", "Time").lengths(67, 45, 20).build()).get(0);
+		testWriting(sourceImg);
+	}
+
 	/**
 	 * NB: the PNG writer does not create an appropriate header when overwriting.
 	 */
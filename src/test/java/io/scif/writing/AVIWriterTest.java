@@ -28,11 +28,23 @@
  */
 package io.scif.writing;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.scif.FormatException;
+import io.scif.Reader;
 import io.scif.config.SCIFIOConfig;
+import io.scif.formats.AVIFormat;
 import io.scif.img.ImgOpener;
+import io.scif.img.ImgSaver;
 import io.scif.io.location.TestImgLocation;
+import io.scif.services.InitializeService;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import net.imagej.ImgPlus;
 import net.imglib2.type.numeric.integer.IntType;
@@ -70,6 +82,138 @@ public class AVIWriterTest extends AbstractSyntheticWriterTest {
 		testWriting(sourceImg);
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testWriting_gray() throws IOException {
+
+		final ImgPlus<IntType> sourceImg = (ImgPlus<IntType>) opener.openImgs(
+			new TestImgLocation.Builder().name("8bit-unsigned").pixelType("uint8")
+				.axes("X", "Y", "Time").lengths(101, 60, 7).build()).get(0);
+		testWriting(sourceImg);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testRandomAccess() throws IOException, FormatException {
+		final ImgPlus<IntType> sourceImg = (ImgPlus<IntType>) opener.openImgs(
+			new TestImgLocation.Builder().name("8bit-unsigned").pixelType("uint8")
+				.axes("X", "Y", "Time").lengths(64, 48, 9).build()).get(0);
+		final FileLocation out = createTempFileLocation(".avi");
+		new ImgSaver(opener.context()).saveImg(out, sourceImg);
+
+		final Reader reader = opener.context().service(InitializeService.class)
+			.initializeReader(out);
+		try {
+			final AVIFormat.Metadata meta = (AVIFormat.Metadata) reader
+				.getMetadata();
+			assertTrue(meta.hasStandardIndexes());
+			assertEquals(9, meta.getPlaneCount());
+
+			final byte[][] planes = new byte[9][];
+			for (int t = 8; t >= 0; t--) {
+				planes[t] = reader.openPlane(0, t).getBytes().clone();
+			}
+			for (int t = 0; t < 9; t++) {
+				assertArrayEquals(planes[t], reader.openPlane(0, t).getBytes());
+			}
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Tests that frames split over several OpenDML RIFF chunks are read back
+	 * whole, in order and out of order.
+	 */
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testMultipleRiffs() throws IOException, FormatException {
+		final ImgPlus<IntType> sourceImg = (ImgPlus<IntType>) opener.openImgs(
+			new TestImgLocation.Builder().name("8bit-unsigned").pixelType("uint8")
+				.axes("X", "Y", "Time").lengths(64, 48, 9).build()).get(0);
+		// each frame chunk takes 64 * 48 + 8 bytes, so a RIFF holds a few frames
+		final SCIFIOConfig config = new SCIFIOConfig();
+		config.put(AVIFormat.Writer.RIFF_LIMIT_KEY, 12 * 1024);
+		testWriting(sourceImg, config);
+
+		final FileLocation out = createTempFileLocation(".avi");
+		new ImgSaver(opener.context()).saveImg(out, sourceImg, config);
+		final String contents = new String(Files.readAllBytes(out.getFile()
+			.toPath()), StandardCharsets.ISO_8859_1);
+		assertTrue(contents.indexOf("AVIX") != contents.lastIndexOf("AVIX"));
+
+		final FileLocation single = createTempFileLocation(".avi");
+		new ImgSaver(opener.context()).saveImg(single, sourceImg);
+
+		final InitializeService init = opener.context().service(
+			InitializeService.class);
+		final Reader reader = init.initializeReader(out);
+		final Reader expected = init.initializeReader(single);
+		try {
+			assertEquals(9, reader.getMetadata().get(0).getPlaneCount());
+			for (int t = 8; t >= 0; t--) {
+				assertArrayEquals(expected.openPlane(0, t).getBytes(), reader
+					.openPlane(0, t).getBytes());
+			}
+		}
+		finally {
+			reader.close();
+			expected.close();
+		}
+	}
+
+	/**
+	 * Tests that files without index, in one RIFF chunk or several, are scanned
+	 * as their planes are read, also by forked readers.
+	 */
+	@SuppressWarnings({ "unchecked", "deprecation" })
+	@Test
+	public void testUnindexed() throws IOException, FormatException {
+		final ImgPlus<IntType> sourceImg = (ImgPlus<IntType>) opener.openImgs(
+			new TestImgLocation.Builder().name("8bit-unsigned").pixelType("uint8")
+				.axes("X", "Y", "Time").lengths(64, 48, 9).build()).get(0);
+		final FileLocation single = createTempFileLocation(".avi");
+		new ImgSaver(opener.context()).saveImg(single, sourceImg);
+		final SCIFIOConfig config = new SCIFIOConfig();
+		config.put(AVIFormat.Writer.RIFF_LIMIT_KEY, 12 * 1024);
+		final FileLocation split = createTempFileLocation(".avi");
+		new ImgSaver(opener.context()).saveImg(split, sourceImg, config);
+
+		final InitializeService init = opener.context().service(
+			InitializeService.class);
+		final Reader expected = init.initializeReader(single);
+		try {
+			for (final FileLocation file : new FileLocation[] { single, split }) {
+				final Reader reader = init.initializeReader(removeIndexes(file));
+				final Reader fork = reader.fork();
+				try {
+					final AVIFormat.Metadata meta = (AVIFormat.Metadata) reader
+						.getMetadata();
+					assertTrue(meta.isScannedLazily());
+					assertFalse(meta.hasStandardIndexes());
+					assertEquals(9, meta.getPlaneCount());
+					for (int t = 8; t >= 0; t--) {
+						assertArrayEquals(expected.openPlane(0, t).getBytes(), fork
+							.openPlane(0, t).getBytes());
+					}
+					for (int t = 0; t < 9; t++) {
+						assertArrayEquals(expected.openPlane(0, t).getBytes(), reader
+							.openPlane(0, t).getBytes());
+					}
+					assertEquals(9, meta.getOffsets().size());
+				}
+				finally {
+					fork.close();
+					reader.close();
+				}
+			}
+		}
+		finally {
+			expected.close();
+		}
+	}
+
 	@Test
 	public void testSuccessfulOverwrite() throws IOException {
 		final SCIFIOConfig config = new SCIFIOConfig().writerSetFailIfOverwriting(
@@ -77,4 +221,24 @@ public class AVIWriterTest extends AbstractSyntheticWriterTest {
 		FileLocation overwritten = testOverwritingBehavior(config);
 		opener.openImgs(overwritten);
 	}
+
+	/**
+	 * Copies the given AVI, turning its idx1 and its OpenDML super index into
+	 * JUNK chunks.
+	 */
+	private static FileLocation removeIndexes(final FileLocation file)
+		throws IOException
+	{
+		final byte[] bytes = Files.readAllBytes(file.getFile().toPath());
+		final String contents = new String(bytes, StandardCharsets.ISO_8859_1);
+		for (final String id : new String[] { "indx", "idx1" }) {
+			final int offset = contents.indexOf(id);
+			assertTrue(offset >= 0);
+			System.arraycopy("JUNK".getBytes(StandardCharsets.ISO_8859_1), 0, bytes,
+				offset, 4);
+		}
+		final FileLocation copy = createTempFileLocation(".avi");
+		Files.write(copy.getFile().toPath(), bytes);
+		return copy;
+	}
 }
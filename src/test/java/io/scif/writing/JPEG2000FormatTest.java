@@ -28,18 +28,37 @@
  */
 package io.scif.writing;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.scif.FormatException;
+import io.scif.ImageMetadata;
+import io.scif.Reader;
+import io.scif.Writer;
+import io.scif.codec.CompressionType;
+import io.scif.codec.JPEG2000CodecOptions;
 import io.scif.config.SCIFIOConfig;
+import io.scif.formats.JPEG2000Format;
 import io.scif.img.ImgOpener;
 import io.scif.io.location.TestImgLocation;
+import io.scif.services.InitializeService;
 
 import java.io.IOException;
 
 import net.imagej.ImgPlus;
+import net.imagej.axis.Axes;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.util.Intervals;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.scijava.io.location.FileLocation;
+import org.scijava.io.location.Location;
 
 public class JPEG2000FormatTest extends AbstractSyntheticWriterTest {
 
@@ -111,6 +130,64 @@ public class JPEG2000FormatTest extends AbstractSyntheticWriterTest {
 		testWritingApprox(sourceImg, 0.00036388822);
 	}
 
+	/**
+	 * Tests decoding regions, which span several rows of codestream tiles, and
+	 * reduced resolution levels of a tiled codestream.
+	 */
+	@Test
+	public void testReadingRegions() throws IOException, FormatException {
+		final Location source = new TestImgLocation.Builder().name("testimg")
+			.pixelType("uint8").axes("X", "Y", "C").lengths(100, 100, 3).build();
+		final FileLocation out = createTempFileLocation(".j2k");
+		final InitializeService init = opener.context().service(
+			InitializeService.class);
+		final JPEG2000CodecOptions options = JPEG2000CodecOptions
+			.getDefaultOptions();
+		options.tileWidth = 32;
+		options.tileHeight = 32;
+		final SCIFIOConfig config = new SCIFIOConfig().writerSetCompression(
+			CompressionType.J2K.getCompression()).writerSetCodecOptions(options)
+			.writerSetFailIfOverwriting(false);
+		final Reader reader = init.initializeReader(source);
+		final Writer writer = init.initializeWriter(reader.getMetadata(), out,
+			config);
+		writer.savePlane(0, 0, reader.openPlane(0, 0));
+		writer.close();
+		reader.close();
+
+		final Reader whole = init.initializeReader(out);
+		final Reader regions = init.initializeReader(out);
+		final JPEG2000Format.Metadata meta = (JPEG2000Format.Metadata) regions
+			.getMetadata();
+		assertTrue(regions.getResolutionCount(0) > 1);
+		assertEquals(50, meta.get(1).getAxisLength(Axes.X));
+		assertEquals(50, meta.get(1).getAxisLength(Axes.Y));
+
+		for (int imageIndex = 0; imageIndex < 2; imageIndex++) {
+			final byte[] plane = whole.openPlane(imageIndex, 0).getBytes();
+			final ImageMetadata iMeta = meta.get(imageIndex);
+			assertEquals(iMeta.getPlaneSize(), plane.length);
+			final int size = (int) iMeta.getAxisLength(Axes.X);
+
+			// the first region is decoded on its own, in bands of tile rows
+			final Interval first = region(iMeta, size / 10, size / 5, size / 2,
+				size * 7 / 10);
+			assertArrayEquals(crop(plane, iMeta, first), regions.openPlane(
+				imageIndex, 0, first).getBytes());
+			assertNull(meta.getLastIndexBytes());
+
+			// a second region of the same plane decodes and caches all of it
+			final Interval second = region(iMeta, 0, size / 2, size, size / 2);
+			assertArrayEquals(crop(plane, iMeta, second), regions.openPlane(
+				imageIndex, 0, second).getBytes());
+			assertNotNull(meta.getLastIndexBytes());
+			assertArrayEquals(crop(plane, iMeta, first), regions.openPlane(
+				imageIndex, 0, first).getBytes());
+		}
+		whole.close();
+		regions.close();
+	}
+
 	@Test
 	public void testSuccessfulOverwrite() throws IOException {
 		final SCIFIOConfig config = new SCIFIOConfig().writerSetFailIfOverwriting(
@@ -118,4 +195,48 @@ public class JPEG2000FormatTest extends AbstractSyntheticWriterTest {
 		FileLocation overwritten = testOverwritingBehavior(config);
 		opener.openImgs(overwritten);
 	}
+
+	/** @return The bounds of the given rectangle, across all channels. */
+	private static Interval region(final ImageMetadata iMeta, final int x,
+		final int y, final int w, final int h)
+	{
+		final long[] min = new long[iMeta.getPlanarAxisCount()];
+		final long[] max = iMeta.getAxesLengthsPlanar();
+		for (int d = 0; d < max.length; d++) {
+			max[d]--;
+		}
+		final int xAxis = iMeta.getAxisIndex(Axes.X);
+		final int yAxis = iMeta.getAxisIndex(Axes.Y);
+		min[xAxis] = x;
+		max[xAxis] = x + w - 1;
+		min[yAxis] = y;
+		max[yAxis] = y + h - 1;
+		return new FinalInterval(min, max);
+	}
+
+	/** @return The samples of the given plane within the given bounds. */
+	private static byte[] crop(final byte[] plane, final ImageMetadata iMeta,
+		final Interval bounds)
+	{
+		final long[] lengths = iMeta.getAxesLengthsPlanar();
+		final int n = lengths.length;
+		final int bpp = iMeta.getBitsPerPixel() / 8;
+		final byte[] cropped = new byte[(int) Intervals.numElements(bounds) *
+			bpp];
+		final long[] pos = new long[n];
+		int next = 0;
+		for (int i = 0; i < plane.length / bpp; i++) {
+			long rem = i;
+			boolean inside = true;
+			for (int d = 0; d < n; d++) {
+				pos[d] = rem % lengths[d];
+				rem /= lengths[d];
+				inside &= pos[d] >= bounds.min(d) && pos[d] <= bounds.max(d);
+			}
+			if (!inside) continue;
+			System.arraycopy(plane, i * bpp, cropped, next, bpp);
+			next += bpp;
+		}
+		return cropped;
+	}
 }
@@ -28,12 +28,23 @@
  */
 package io.scif.writing;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import io.scif.FormatException;
+import io.scif.Reader;
 import io.scif.config.SCIFIOConfig;
+import io.scif.formats.qt.NativeQTFormat;
 import io.scif.img.ImgIOException;
 import io.scif.img.ImgOpener;
+import io.scif.img.ImgSaver;
 import io.scif.io.location.TestImgLocation;
+import io.scif.services.FormatService;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import net.imagej.ImgPlus;
 import net.imglib2.type.numeric.integer.IntType;
@@ -71,6 +82,48 @@ public class QTWriterTest extends AbstractSyntheticWriterTest {
 		testWriting(sourceImg);
 	}
 
+	/**
+	 * Tests reading planes out of order and reading the same plane twice, with
+	 * 32-bit and 64-bit plane offsets.
+	 */
+	@SuppressWarnings({ "unchecked", "deprecation" })
+	@Test
+	public void testRandomAccess() throws IOException, FormatException {
+		final ImgPlus<IntType> sourceImg = (ImgPlus<IntType>) opener.openImgs(
+			new TestImgLocation.Builder().name("8bit-unsigned").pixelType("uint8")
+				.axes("X", "Y", "Channel", "Time").lengths(64, 48, 3, 6).build()).get(0);
+		final FileLocation out = createTempFileLocation(".mov");
+		new ImgSaver(opener.context()).saveImg(out, sourceImg);
+
+		final NativeQTFormat format = opener.context().service(
+			FormatService.class).getFormatFromClass(NativeQTFormat.class);
+		final Reader reader = format.createReader();
+		final Reader wide = format.createReader();
+		reader.setSource(out);
+		wide.setSource(toCo64(out));
+		try {
+			final NativeQTFormat.Metadata meta =
+				(NativeQTFormat.Metadata) reader.getMetadata();
+			assertEquals(6, meta.getPlaneOffsets().size());
+			assertEquals(meta.getPlaneOffsets(), ((NativeQTFormat.Metadata) wide
+				.getMetadata()).getPlaneOffsets());
+			assertEquals(6, meta.getOffsets().size());
+
+			final byte[][] planes = new byte[6][];
+			for (int t = 0; t < 6; t++) {
+				planes[t] = reader.openPlane(0, t).getBytes().clone();
+			}
+			for (int t = 5; t >= 0; t--) {
+				assertArrayEquals(planes[t], wide.openPlane(0, t).getBytes());
+				assertArrayEquals(planes[t], wide.openPlane(0, t).getBytes());
+			}
+		}
+		finally {
+			reader.close();
+			wide.close();
+		}
+	}
+
 	/**
 	 * NB: the QT writer does not create a valid QT image when overwriting.
 	 */
@@ -81,4 +134,39 @@ public class QTWriterTest extends AbstractSyntheticWriterTest {
 		FileLocation overwritten = testOverwritingBehavior(config);
 		opener.openImgs(overwritten);
 	}
+
+	/**
+	 * Copies the given movie, turning its stco atom, which the writer puts at
+	 * the end of the file, into a co64 atom with 64-bit plane offsets.
+	 */
+	private static FileLocation toCo64(final FileLocation file)
+		throws IOException
+	{
+		final byte[] bytes = Files.readAllBytes(file.getFile().toPath());
+		final String contents = new String(bytes, StandardCharsets.ISO_8859_1);
+		final int stco = contents.lastIndexOf("stco") - 4;
+		final ByteBuffer in = ByteBuffer.wrap(bytes);
+		final int count = in.getInt(stco + 12);
+		assertEquals(stco + 16 + 4 * count, bytes.length);
+
+		final ByteBuffer out = ByteBuffer.allocate(bytes.length + 4 * count);
+		out.put(bytes, 0, stco);
+		out.putInt(16 + 8 * count);
+		out.put("co64".getBytes(StandardCharsets.ISO_8859_1));
+		out.putInt(0);
+		out.putInt(count);
+		for (int i = 0; i < count; i++) {
+			out.putLong(in.getInt(stco + 16 + 4 * i) & 0xffffffffL);
+		}
+		// the atoms holding the stco atom grow along with it
+		for (final String parent : new String[] { "moov", "trak", "mdia", "minf",
+			"stbl" })
+		{
+			final int offset = contents.lastIndexOf(parent, stco) - 4;
+			out.putInt(offset, in.getInt(offset) + 4 * count);
+		}
+		final FileLocation copy = createTempFileLocation(".mov");
+		Files.write(copy.getFile().toPath(), out.array());
+		return copy;
+	}
 }
@@ -29,22 +29,56 @@
 
 package io.scif.writing;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.scif.FormatException;
+import io.scif.Metadata;
+import io.scif.Plane;
+import io.scif.Reader;
 import io.scif.SCIFIO;
+import io.scif.Writer;
 import io.scif.codec.CompressionType;
 import io.scif.config.SCIFIOConfig;
+import io.scif.config.SCIFIOConfig.ImgMode;
+import io.scif.convert.ConversionPipeline;
+import io.scif.formats.TIFFFormat;
+import io.scif.formats.tiff.IFD;
+import io.scif.formats.tiff.TiffParser;
+import io.scif.formats.tiff.TiffSaver;
 import io.scif.img.ImgIOException;
 import io.scif.img.ImgOpener;
 import io.scif.img.ImgSaver;
 import io.scif.img.SCIFIOImgPlus;
 import io.scif.io.location.TestImgLocation;
+import io.scif.services.InitializeService;
+import io.scif.services.TranslatorService;
 import io.scif.util.FormatTools;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 
 import net.imagej.ImgPlus;
+import net.imagej.axis.Axes;
+import net.imagej.axis.AxisType;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.img.Img;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -193,6 +227,463 @@ public class TiffFormatTest extends AbstractSyntheticWriterTest {
 		testWriting(sourceImg6);
 	}
 
+	@Test
+	public void testWritingImgModes() throws IOException {
+		final TestImgLocation loc = new TestImgLocation.Builder().name("testimg")
+			.pixelType("uint16").axes("X", "Y", "C", "Z").lengths(70, 50, 3, 4)
+			.build();
+		for (final ImgMode mode : new ImgMode[] { ImgMode.ARRAY, ImgMode.PLANAR,
+			ImgMode.CELL })
+		{
+			final ImgPlus<?> sourceImg = opener.openImgs(loc, new SCIFIOConfig()
+				.imgOpenerSetImgModes(mode)).get(0);
+			testWriting(sourceImg);
+		}
+
+		// cells smaller than a plane are saved band by band, if IFDs are packed
+		final Img<UnsignedShortType> cells = new CellImgFactory<>(
+			new UnsignedShortType(), 16).create(70, 50, 4);
+		int i = 0;
+		for (final UnsignedShortType t : cells) {
+			t.set(i++ % 65536);
+		}
+		final ImgPlus<?> cellImg = new ImgPlus<>(cells, "cells", new AxisType[] {
+			Axes.X, Axes.Y, Axes.Z });
+		testWriting(cellImg);
+		final SCIFIOConfig config = new SCIFIOConfig();
+		config.put(TIFFFormat.Writer.PACK_IFDS_KEY, true);
+		testWriting(cellImg, config);
+	}
+
+	/**
+	 * Ensure the regions of several planes end up in their own planes when IFDs
+	 * are packed, even if the planes are started out of order, and that planes
+	 * must be saved whole otherwise.
+	 */
+	@Test
+	public void testRegions() throws IOException, FormatException {
+		final Location source = new TestImgLocation.Builder().name("testimg")
+			.pixelType("uint16").axes("X", "Y", "Z").lengths(70, 50, 4).build();
+		final InitializeService init = opener.getContext().service(
+			InitializeService.class);
+		final Reader reader = init.initializeReader(source);
+		for (final boolean pack : new boolean[] { false, true }) {
+			final SCIFIOConfig config = new SCIFIOConfig();
+			config.put(TIFFFormat.Writer.PACK_IFDS_KEY, pack);
+			final FileLocation out = createTempFileLocation(".tif");
+			final Writer writer = init.initializeWriter(reader.getMetadata(), out,
+				config);
+			assertEquals(pack, writer.canSaveRegions());
+			if (writer.canSaveRegions()) {
+				// bands of 16 rows, each band of the last plane first
+				for (int y = 0; y < 50; y += 16) {
+					final Interval bounds = new FinalInterval(new long[] { 0, y },
+						new long[] { 69, Math.min(y + 16, 50) - 1 });
+					for (int j = 3; j >= 0; j--) {
+						writer.savePlane(0, j, reader.openPlane(0, j, bounds), bounds);
+					}
+				}
+			}
+			else {
+				for (int j = 0; j < 4; j++) {
+					writer.savePlane(0, j, reader.openPlane(0, j));
+				}
+			}
+			writer.close();
+
+			final Reader written = init.initializeReader(out);
+			assertEquals(4, written.getPlaneCount(0));
+			for (int j = 0; j < 4; j++) {
+				assertArrayEquals(reader.openPlane(0, j).getBytes(), written.openPlane(
+					0, j).getBytes());
+			}
+			written.close();
+		}
+		reader.close();
+	}
+
+	@Test
+	public void testPackedIFDs() throws IOException, FormatException {
+		final ImgPlus<?> sourceImg = opener.openImgs(new TestImgLocation.Builder()
+			.name("testimg").pixelType("uint8").axes("X", "Y", "Z").lengths(100, 100,
+				5).build()).get(0);
+		final SCIFIOConfig config = new SCIFIOConfig();
+		config.put(TIFFFormat.Writer.PACK_IFDS_KEY, true);
+		final FileLocation out = createTempFileLocation(".tif");
+		saver.saveImg(out, sourceImg, config);
+
+		// all IFDs follow the pixel data, in plane order
+		final TiffParser parser = new TiffParser(opener.getContext(), out);
+		final long[] offsets = parser.getIFDOffsets();
+		assertEquals(5, offsets.length);
+		long last = 0;
+		for (final long offset : offsets) {
+			final IFD ifd = parser.getIFD(offset);
+			for (final long stripOffset : ifd.getStripOffsets()) {
+				assertTrue(stripOffset < offsets[0]);
+			}
+			assertTrue(offset > last);
+			last = offset;
+		}
+		parser.getStream().close();
+	}
+
+	@Test
+	public void testPackedIFDsOfImages() throws IOException, FormatException {
+		final FileLocation out = createTempFileLocation(".tif");
+		final TiffSaver tiffSaver = new TiffSaver(opener.getContext(), out);
+		tiffSaver.setPackingIFDs(true);
+		tiffSaver.writeHeader();
+		final byte[][] planes = { new byte[64], new byte[64] };
+		planes[1][0] = 1;
+		// the first plane of each image
+		for (int image = 0; image < planes.length; image++) {
+			final IFD ifd = new IFD(opener.log());
+			ifd.put(IFD.IMAGE_WIDTH, 8L);
+			ifd.put(IFD.IMAGE_LENGTH, 8L);
+			tiffSaver.writeImage(planes[image], ifd, image, 0, FormatTools.UINT8, 0,
+				0, 8, 8, image == planes.length - 1, null, false);
+		}
+		tiffSaver.writePackedIFDs();
+		tiffSaver.getStream().close();
+
+		final TiffParser parser = new TiffParser(opener.getContext(), out);
+		final long[] offsets = parser.getIFDOffsets();
+		assertEquals(2, offsets.length);
+		for (int image = 0; image < planes.length; image++) {
+			final IFD ifd = parser.getIFD(offsets[image]);
+			final byte[] buf = new byte[64];
+			parser.getSamples(ifd, buf);
+			assertArrayEquals(planes[image], buf);
+		}
+		parser.getStream().close();
+	}
+
+	/**
+	 * Ensure many planes keep their order and pixels, whether their IFDs are
+	 * linked as each is written, one plane at a time, or packed, in which case
+	 * planes are saved concurrently.
+	 */
+	@Test
+	public void testPlaneOrder() throws IOException, FormatException,
+		InterruptedException, ExecutionException
+	{
+		final Location source = new TestImgLocation.Builder().name("testimg")
+			.pixelType("uint8").axes("X", "Y", "Z").lengths(64, 48, 32).build();
+		final ImgPlus<?> sourceImg = opener.openImgs(source).get(0);
+		final InitializeService init = opener.getContext().service(
+			InitializeService.class);
+		final Reader reader = init.initializeReader(source);
+		final Plane[] planes = new Plane[32];
+		for (int j = 0; j < planes.length; j++) {
+			planes[j] = reader.openPlane(0, j);
+		}
+
+		final ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			for (final boolean pack : new boolean[] { false, true }) {
+				final SCIFIOConfig config = new SCIFIOConfig();
+				config.put(TIFFFormat.Writer.PACK_IFDS_KEY, pack);
+				testWriting(sourceImg, config);
+
+				final FileLocation out = createTempFileLocation(".tif");
+				final Writer writer = init.initializeWriter(reader.getMetadata(), out,
+					config);
+				assertEquals(pack, writer.canSaveConcurrently());
+				if (writer.canSaveConcurrently()) {
+					// last plane first, so that planes complete out of order
+					final List<Future<?>> futures = new ArrayList<>();
+					for (int j = planes.length - 1; j >= 0; j--) {
+						final int planeIndex = j;
+						futures.add(pool.submit(() -> {
+							writer.savePlane(0, planeIndex, planes[planeIndex]);
+							return null;
+						}));
+					}
+					for (final Future<?> future : futures) {
+						future.get();
+					}
+				}
+				else {
+					for (int j = 0; j < planes.length; j++) {
+						writer.savePlane(0, j, planes[j]);
+					}
+				}
+				writer.close();
+
+				final Reader written = init.initializeReader(out);
+				assertEquals(planes.length, written.getPlaneCount(0));
+				for (int j = 0; j < planes.length; j++) {
+					assertArrayEquals(planes[j].getBytes(), written.openPlane(0, j)
+						.getBytes());
+				}
+				written.close();
+			}
+		}
+		finally {
+			pool.shutdown();
+			reader.close();
+		}
+	}
+
+	/**
+	 * Ensure a reused writer does not carry the BigTIFF and packed IFD settings
+	 * of one file over to the next.
+	 */
+	@Test
+	public void testReuse() throws IOException, FormatException {
+		final Location source = new TestImgLocation.Builder().name("testimg")
+			.pixelType("uint8").axes("X", "Y", "Z").lengths(60, 40, 3).build();
+		final InitializeService init = opener.getContext().service(
+			InitializeService.class);
+		final Reader reader = init.initializeReader(source);
+		final SCIFIOConfig config = new SCIFIOConfig();
+		config.put(TIFFFormat.Writer.BIG_TIFF_KEY, true);
+		config.put(TIFFFormat.Writer.PACK_IFDS_KEY, true);
+		final FileLocation[] outs = { createTempFileLocation(".tif"),
+			createTempFileLocation(".tif") };
+		final TIFFFormat.Writer<?> writer = (TIFFFormat.Writer<?>) init
+			.initializeWriter(reader.getMetadata(), outs[0], config);
+		for (int i = 0; i < outs.length; i++) {
+			if (i > 0) {
+				final Metadata meta = writer.getFormat().createMetadata();
+				opener.getContext().service(TranslatorService.class).translate(reader
+					.getMetadata(), meta, false);
+				writer.setMetadata(meta);
+				writer.setDest(outs[i], new SCIFIOConfig());
+			}
+			assertEquals(i == 0, writer.isBigTiff());
+			assertEquals(i == 0, writer.isPackingIFDs());
+			for (int j = 0; j < 3; j++) {
+				writer.savePlane(0, j, reader.openPlane(0, j));
+			}
+			writer.close();
+			assertFalse(writer.isBigTiff());
+			assertFalse(writer.isPackingIFDs());
+			assertFalse(writer.isPyramid());
+
+			final TiffParser parser = new TiffParser(opener.getContext(), outs[i]);
+			assertNotNull(parser.checkHeader());
+			assertEquals(i == 0, parser.isBigTiff());
+			parser.getStream().close();
+			final Reader written = init.initializeReader(outs[i]);
+			for (int j = 0; j < 3; j++) {
+				assertArrayEquals(reader.openPlane(0, j).getBytes(), written
+					.openPlane(0, j).getBytes());
+			}
+			written.close();
+		}
+		reader.close();
+	}
+
+	@Test
+	public void testUnclosedWriter() throws IOException, FormatException {
+		final Location source = new TestImgLocation.Builder().name("testimg")
+			.pixelType("uint8").axes("X", "Y", "Z").lengths(60, 40, 3).build();
+		final FileLocation out = createTempFileLocation(".tif");
+		final InitializeService init = opener.getContext().service(
+			InitializeService.class);
+		final Reader reader = init.initializeReader(source);
+		final Writer writer = init.initializeWriter(reader.getMetadata(), out);
+		for (int i = 0; i < 3; i++) {
+			writer.savePlane(0, i, reader.openPlane(0, i));
+		}
+
+		// each IFD is written with its plane, before the writer is closed
+		final TiffParser parser = new TiffParser(opener.getContext(), out);
+		assertEquals(3, parser.getIFDOffsets().length);
+		parser.getStream().close();
+		writer.close();
+		reader.close();
+	}
+
+	@Test
+	public void testConversionPipeline() throws IOException, FormatException {
+		final Location source = new TestImgLocation.Builder().name("testimg")
+			.pixelType("uint16").axes("X", "Y", "Z").lengths(200, 150, 4).build();
+		final FileLocation out = createTempFileLocation(".tif");
+		final InitializeService init = opener.getContext().service(
+			InitializeService.class);
+
+		// bands of 16 rows, through a filter stage
+		final Reader reader = init.initializeReader(source);
+		final SCIFIOConfig config = new SCIFIOConfig();
+		config.put(TIFFFormat.Writer.PACK_IFDS_KEY, true);
+		final Writer writer = init.initializeWriter(reader.getMetadata(), out,
+			config);
+		final ConversionPipeline pipeline = new ConversionPipeline(opener
+			.getContext()).setMaxRegionBytes(200 * 2 * 16).setFilterThreads(2)
+				.setFilter(plane -> plane);
+		pipeline.convert(reader, writer, new SCIFIOConfig());
+		writer.close();
+		assertEquals(4 * 10, pipeline.getUnitCount());
+		assertEquals(4 * 10, pipeline.getUnitsDone());
+		assertEquals(4 * 200 * 150 * 2, pipeline.getBytesDone());
+
+		final Reader written = init.initializeReader(out);
+		for (int j = 0; j < 4; j++) {
+			assertArrayEquals(reader.openPlane(0, j).getBytes(), written.openPlane(0,
+				j).getBytes());
+		}
+		reader.close();
+		written.close();
+	}
+
+	/**
+	 * Ensure the planes of a conversion into a TIFF without packed IFDs keep
+	 * their order, even when they are filtered on several threads: planes are
+	 * then saved whole and in order.
+	 */
+	@Test
+	public void testConversionPipelineUnpacked() throws IOException,
+		FormatException
+	{
+		final Location source = new TestImgLocation.Builder().name("testimg")
+			.pixelType("uint8").axes("X", "Y", "Time").lengths(64, 48, 24).build();
+		final FileLocation out = createTempFileLocation(".tif");
+		final InitializeService init = opener.getContext().service(
+			InitializeService.class);
+
+		final Reader reader = init.initializeReader(source);
+		final Writer writer = init.initializeWriter(reader.getMetadata(), out);
+		assertFalse(writer.canSaveConcurrently());
+		assertFalse(writer.canSaveRegions());
+		final ConversionPipeline pipeline = new ConversionPipeline(opener
+			.getContext()).setMaxRegionBytes(64 * 8).setFilterThreads(4)
+				.setWriterThreads(4).setFilter(plane -> {
+					try {
+						Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+					}
+					catch (final InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return plane;
+				});
+		pipeline.convert(reader, writer, new SCIFIOConfig());
+		writer.close();
+		assertEquals(24, pipeline.getUnitCount());
+
+		final Reader written = init.initializeReader(out);
+		assertEquals(24, written.getPlaneCount(0));
+		for (int j = 0; j < 24; j++) {
+			assertArrayEquals(reader.openPlane(0, j).getBytes(), written.openPlane(0,
+				j).getBytes());
+		}
+		reader.close();
+		written.close();
+	}
+
+	@Test
+	public void testPyramid() throws IOException {
+		final SCIFIOConfig config = new SCIFIOConfig();
+		config.writerSetCompression(CompressionType.LZW.toString());
+		config.put(TIFFFormat.Writer.PYRAMID_KEY, true);
+
+		final ImgPlus<?> sourceImg = opener.openImgs(new TestImgLocation.Builder()
+			.name("testimg").pixelType("uint8").axes("X", "Y", "C").lengths(600, 400,
+				3).build()).get(0);
+		testWriting(sourceImg, config);
+
+		final ImgPlus<?> sourceImg2 = opener.openImgs(new TestImgLocation.Builder()
+			.name("testimg").pixelType("uint16").axes("X", "Y", "Z").lengths(301, 257,
+				2).build()).get(0);
+		testWriting(sourceImg2, config);
+
+		// the reduced levels are readable as lower resolutions
+		final FileLocation out = createTempFileLocation(".tif");
+		saver.saveImg(out, sourceImg, config);
+		final ImgPlus<?> reduced = opener.openImgs(out, new SCIFIOConfig()
+			.imgOpenerSetResolution(1)).get(0);
+		assertEquals(300, reduced.dimension(0));
+		assertEquals(200, reduced.dimension(1));
+
+		// pyramid IFDs are linked in completion order, so planes go one by one
+		final TIFFFormat.Writer<?> writer = new TIFFFormat.Writer<>();
+		writer.setPackingIFDs(true);
+		assertTrue(writer.canSaveConcurrently());
+		writer.setPyramidLevels(-1);
+		assertFalse(writer.canSaveConcurrently());
+	}
+
+	/**
+	 * Ensure the reduced levels of a pyramid count towards the size at which
+	 * BigTIFF is turned on.
+	 */
+	@Test
+	public void testPyramidBigTiff() throws IOException, FormatException {
+		// about 1.7 GB of pixels, or 2.2 GB with the reduced levels
+		final Location source = new TestImgLocation.Builder().name("testimg")
+			.pixelType("uint8").axes("X", "Y").lengths(41000, 41000).build();
+		final InitializeService init = opener.getContext().service(
+			InitializeService.class);
+		final Reader reader = init.initializeReader(source);
+		for (final boolean pyramid : new boolean[] { false, true }) {
+			final SCIFIOConfig config = new SCIFIOConfig();
+			config.put(TIFFFormat.Writer.PYRAMID_KEY, pyramid);
+			final TIFFFormat.Writer<?> writer = (TIFFFormat.Writer<?>) init
+				.initializeWriter(reader.getMetadata(), createTempFileLocation(
+					".tif"), config);
+			assertEquals(pyramid, writer.isBigTiff());
+			writer.close();
+		}
+		reader.close();
+	}
+
+	/**
+	 * Ensure the SubIFD levels of a pyramidal TIFF are reported as resolution
+	 * levels, both by the format reader and through the filter stack.
+	 */
+	@Test
+	public void testPyramidResolutions() throws IOException,
+		FormatException
+	{
+		final SCIFIOConfig config = new SCIFIOConfig();
+		config.put(TIFFFormat.Writer.PYRAMID_KEY, true);
+		final Location source = new TestImgLocation.Builder().name("testimg")
+			.pixelType("uint8").axes("X", "Y").lengths(600, 400).build();
+		final ImgPlus<?> sourceImg = opener.openImgs(source).get(0);
+		final FileLocation out = createTempFileLocation(".tif");
+		saver.saveImg(out, sourceImg, config);
+
+		final InitializeService init = opener.getContext().getService(
+			InitializeService.class);
+		final Reader reader = init.initializeReader(out);
+		final int levels = reader.getResolutionCount(0);
+		assertTrue(levels > 1);
+		assertEquals(levels, reader.getImageCount());
+		for (int r = 1; r < levels; r++) {
+			assertEquals(r, reader.getResolutionImageIndex(0, r));
+			assertEquals(1, reader.getResolutionCount(r));
+		}
+		assertArrayEquals(new long[] { 300, 200 }, reader.getResolutionLengths(0,
+			1));
+		try {
+			reader.getResolutionImageIndex(0, levels);
+			fail("Expected IllegalArgumentException");
+		}
+		catch (final IllegalArgumentException e) {
+			// expected
+		}
+
+		// the full resolution holds the source pixels
+		final Reader sourceReader = init.initializeReader(source);
+		assertArrayEquals(sourceReader.openPlane(0, 0).getBytes(), reader
+			.openPlane(0, 0).getBytes());
+		sourceReader.close();
+
+		// regions of a reduced level come from its SubIFD
+		final byte[] level = reader.openPlane(1, 0).getBytes();
+		final Interval bounds = new FinalInterval(new long[] { 10, 20 },
+			new long[] { 109, 69 });
+		final byte[] region = reader.openPlane(0, 1, 0, bounds).getBytes();
+		for (int y = 0; y < 50; y++) {
+			for (int x = 0; x < 100; x++) {
+				assertEquals(level[(y + 20) * 300 + x + 10], region[y * 100 + x]);
+			}
+		}
+		reader.close();
+	}
+
 	/**
 	 * Ensure a valid TIFF is written (i.e. the header is written) when the
 	 * destination file doesn't exist (vs. when using